@@ -0,0 +1,17 @@
+package com.sap.hcp.cf.logging.common.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder().include(ContextFieldConverterBenchmarks.class.getSimpleName()).forks(1)
+                                              .addProfiler(GCProfiler.class).build();
+        new Runner(options).run();
+    }
+
+}
@@ -0,0 +1,71 @@
+package com.sap.hcp.cf.logging.common.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.sap.hcp.cf.logging.common.Fields;
+import com.sap.hcp.cf.logging.common.LogContext;
+import com.sap.hcp.cf.logging.common.serialization.ContextFieldBuffer;
+import com.sap.hcp.cf.logging.common.serialization.ContextFieldConverter;
+import com.sap.hcp.cf.logging.common.serialization.ReusableByteArrayOutputStream;
+import com.sap.hcp.cf.logging.common.serialization.ReusableJsonGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 5, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class ContextFieldConverterBenchmarks {
+
+    @Benchmark
+    public ReusableByteArrayOutputStream writeContextAndCustomFields(ConverterState state) throws IOException {
+        JsonGenerator generator = state.generator.start();
+        generator.writeStartObject();
+        state.converter.addContextFields(generator, state.fields);
+        state.converter.addCustomFields(generator, state.fields);
+        generator.writeEndObject();
+        return state.generator.finish();
+    }
+
+    @State(Scope.Thread)
+    public static class ConverterState {
+
+        @Param({ "0", "10", "50" })
+        public int customFieldCount;
+
+        public ContextFieldConverter converter;
+        public ContextFieldBuffer fields;
+        public ReusableJsonGenerator generator;
+
+        @Setup
+        public void setup() throws IOException {
+            // emit the #cf structure without an actual SAP Application Logging binding
+            System.setProperty("log.generate.application.logging.custom.fields", "true");
+            List<String> customFieldNames = new ArrayList<>(customFieldCount);
+            for (int i = 0; i < customFieldCount; i++) {
+                customFieldNames.add("custom_field_" + i);
+            }
+            converter = new ContextFieldConverter(false, customFieldNames, List.of());
+            fields = new ContextFieldBuffer();
+            for (String key: LogContext.getContextFieldsKeys()) {
+                fields.put(key, LogContext.getDefault(key));
+            }
+            fields.put(Fields.CORRELATION_ID, "2a7b1c8e-5f0d-4d8e-9b3a-6c2f1e0d9a4b");
+            fields.put(Fields.COMPONENT_NAME, "benchmark-app");
+            fields.put(Fields.MSG, "Some log message with a \"quoted\" part.");
+            fields.put(Fields.LOGGER, ContextFieldConverterBenchmarks.class.getName());
+            fields.put(Fields.THREAD, "main");
+            fields.put(Fields.LEVEL, "INFO");
+            // every second custom field is present in the event
+            for (int i = 0; i < customFieldCount; i += 2) {
+                fields.put(customFieldNames.get(i), "value " + i);
+            }
+            generator = new ReusableJsonGenerator(new JsonFactory(), false);
+        }
+    }
+}
@@ -254,6 +254,41 @@ public interface Fields {
      */
     String STACKTRACE = "stacktrace";
 
+    /**
+     * Fingerprint of the logged exception, when exception storm mode is enabled. Log messages with exceptions of the
+     * same classes and stack frames share the reference, regardless of the exception messages. It can be used to find
+     * the full stacktrace, if it was omitted from this message.
+     * <p>Type: string &nbsp;|&nbsp; Optional &nbsp;|&nbsp; Log
+     * <p>Example: {@code "3f2a9c01d4e7b865"}
+     */
+    String STACKTRACE_REF = "stacktrace_ref";
+
+    /**
+     * Number of occurrences of the exception referenced by {@code "stacktrace_ref"} within the current time window,
+     * including this one.
+     * <p>Type: integer &nbsp;|&nbsp; Optional &nbsp;|&nbsp; Log
+     */
+    String STACKTRACE_OCCURRENCES = "stacktrace_occurrences";
+
+    /**
+     * Number of identical log messages, that were suppressed by the duplicate suppression and are summarized by this
+     * message.
+     * <p>Type: integer &nbsp;|&nbsp; Optional &nbsp;|&nbsp; Log
+     */
+    String REPEAT_COUNT = "repeat_count";
+
+    /**
+     * Human-readable date of the first suppressed repetition summarized by this message.
+     * <p>Type: date &nbsp;|&nbsp; Optional &nbsp;|&nbsp; Log
+     */
+    String FIRST_REPEAT_AT = "first_repeat_at";
+
+    /**
+     * Human-readable date of the last suppressed repetition summarized by this message.
+     * <p>Type: date &nbsp;|&nbsp; Optional &nbsp;|&nbsp; Log
+     */
+    String LAST_REPEAT_AT = "last_repeat_at";
+
     /**
      * List of names to further categorize this log message.
      * <p>Type: string &nbsp;|&nbsp; Optional &nbsp;|&nbsp; Log
@@ -1,16 +1,37 @@
 package com.sap.hcp.cf.logging.common;
 
+import com.sap.hcp.cf.logging.common.context.ContextFields;
+import com.sap.hcp.cf.logging.common.context.LogContextBackend;
+import com.sap.hcp.cf.logging.common.context.MdcContextBackend;
+import com.sap.hcp.cf.logging.common.context.ScopedAction;
+import com.sap.hcp.cf.logging.common.context.ScopedContextBackend;
+import com.sap.hcp.cf.logging.common.helper.Environment;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.MDC;
 
 import java.util.*;
 import java.util.Map.Entry;
 
 import static com.sap.hcp.cf.logging.common.Fields.CORRELATION_ID;
 
+/**
+ * Provides the context fields, that are added to every log event. By default the fields are stored in the SLF4J MDC.
+ * Setting the environment variable {@code LOG_CONTEXT_BACKEND} or the system property {@code log.context.backend} to
+ * {@code scoped} stores the fields of a request in an immutable structure bound to a scope instead, see
+ * {@link ScopedContextBackend}.
+ * <p>
+ * Scoped fields are only visible to the thread, that runs the scope. Asynchronous logging has to attach them to the
+ * event on the logging thread. Log4j2 does this for {@code AsyncLogger} and {@code AsyncAppender} with the
+ * {@code ScopedContextDataProvider}. With logback use the {@code ScopedContextAsyncAppender} or the
+ * {@code RingBufferAsyncAppender}. The standard logback {@code AsyncAppender} drops the scoped fields.
+ */
 public class LogContext {
 
+    public static final String BACKEND_MDC = "mdc";
+    public static final String BACKEND_SCOPED = "scoped";
+
+    private static final String BACKEND_PROPERTY_NAME = Environment.LOG_CONTEXT_BACKEND.toLowerCase().replace("_", ".");
+
     @SuppressWarnings("serial")
     private static Map<String, String> CTX_FIELDS = new HashMap<String, String>() {
         {
@@ -30,26 +51,34 @@ public class LogContext {
     };
 
     public static void loadContextFields(boolean override) {
-        /*
-         * -- do bootstrap, either enforced or because map is empty
-         */
-        if (override || MDC.getCopyOfContextMap() == null || MDC.getCopyOfContextMap().isEmpty()) {
-            MDC.setContextMap(VcapEnvReader.getEnvMap());
-        } else {
-            /* -- map is not empty, but we're missing important stuff -- */
-            if (!MDC.getCopyOfContextMap().containsKey(Fields.COMPONENT_ID)) {
-                for (Entry<String, String> envTag: VcapEnvReader.getEnvMap().entrySet()) {
-                    if (override || MDC.get(envTag.getKey()) == null) {
-                        MDC.put(envTag.getKey(), envTag.getValue());
-                    }
+        LogContextBackend backend = BackendHolder.BACKEND;
+        if (override) {
+            /* -- enforced bootstrap replaces the whole context -- */
+            Map<String, String> contextMap = new HashMap<>(VcapEnvReader.getEnvMap());
+            contextMap.putAll(CTX_FIELDS);
+            backend.setContextMap(contextMap);
+            return;
+        }
+        /* -- collect the missing fields first and add them in one operation -- */
+        Map<String, String> missing = new HashMap<>();
+        if (backend.get(Fields.COMPONENT_ID) == null) {
+            /*
+             * -- context was not bootstrapped yet: either the map is empty or we're missing important stuff --
+             */
+            for (Entry<String, String> envTag: VcapEnvReader.getEnvMap().entrySet()) {
+                if (backend.get(envTag.getKey()) == null) {
+                    missing.put(envTag.getKey(), envTag.getValue());
                 }
             }
         }
         for (Entry<String, String> ctxTag: CTX_FIELDS.entrySet()) {
-            if (override || MDC.get(ctxTag.getKey()) == null && ctxTag.getValue() != null) {
-                MDC.put(ctxTag.getKey(), ctxTag.getValue());
+            if (backend.get(ctxTag.getKey()) == null && ctxTag.getValue() != null) {
+                missing.putIfAbsent(ctxTag.getKey(), ctxTag.getValue());
             }
         }
+        if (!missing.isEmpty()) {
+            backend.putAll(ContextFields.of(missing));
+        }
     }
 
     public static void loadContextFields() {
@@ -58,7 +87,7 @@ public class LogContext {
 
     public static void resetContextFields() {
         for (String ctxTag: CTX_FIELDS.keySet()) {
-            MDC.remove(ctxTag);
+            BackendHolder.BACKEND.remove(ctxTag);
         }
     }
 
@@ -76,16 +105,121 @@ public class LogContext {
     }
 
     public static String get(String key) {
-        return MDC.get(key);
+        return BackendHolder.BACKEND.get(key);
     }
 
     public static String add(String key, String value) {
-        MDC.put(key, value);
+        BackendHolder.BACKEND.put(key, value);
         return value;
     }
 
     public static void remove(String key) {
-        MDC.remove(key);
+        BackendHolder.BACKEND.remove(key);
+    }
+
+    /**
+     * Adds all fields to the context in one operation. This is cheaper than single calls to
+     * {@link #add(String, String)} with the scoped backend.
+     *
+     * @param fields
+     *         the fields to add
+     */
+    public static void addAll(ContextFields fields) {
+        BackendHolder.BACKEND.putAll(fields);
+    }
+
+    /**
+     * Removes all keys from the context in one operation.
+     *
+     * @param keys
+     *         the keys to remove
+     */
+    public static void removeAll(Collection<String> keys) {
+        BackendHolder.BACKEND.removeAll(keys);
+    }
+
+    /**
+     * @return a copy of all current context fields, can be {@code null}
+     */
+    public static Map<String, String> getCopyOfContextMap() {
+        return BackendHolder.BACKEND.getCopyOfContextMap();
+    }
+
+    /**
+     * Captures the current context fields. With the scoped backend this returns the immutable fields of the scope
+     * without copying.
+     *
+     * @return the current context fields, never {@code null}
+     */
+    public static ContextFields getContextFields() {
+        return BackendHolder.BACKEND.getContextFields();
+    }
+
+    /**
+     * Returns the context fields, that are bound to the current scope and not contained in the MDC. Encoders add these
+     * fields to the log events. This is always empty with the default MDC backend.
+     *
+     * @return the scoped context fields
+     */
+    public static ContextFields getScopedFields() {
+        return BackendHolder.BACKEND.getScopedFields();
+    }
+
+    /**
+     * @return {@code true} if the context fields need a scope opened with {@link #runInScope(Map, ScopedAction)}
+     */
+    public static boolean needsScope() {
+        return BackendHolder.BACKEND.needsScope();
+    }
+
+    /**
+     * Runs the action with its own context. Changes to the context made by the action are discarded afterwards.
+     *
+     * @param contextMap
+     *         the context of the action, or {@code null} to start with a copy of the current context
+     * @param action
+     *         the action to run
+     * @param <E>
+     *         the checked exception thrown by the action
+     * @throws E
+     *         if the action fails
+     */
+    public static <E extends Exception> void runInScope(Map<String, String> contextMap, ScopedAction<E> action)
+            throws E {
+        BackendHolder.BACKEND.runInScope(contextMap, action);
+    }
+
+    /**
+     * Runs the action with context fields captured earlier by {@link #getContextFields()}. Changes to the context made
+     * by the action are discarded afterwards. With the scoped backend the fields are installed without copying.
+     *
+     * @param fields
+     *         the context of the action
+     * @param action
+     *         the action to run
+     * @param <E>
+     *         the checked exception thrown by the action
+     * @throws E
+     *         if the action fails
+     */
+    public static <E extends Exception> void runWithContextFields(ContextFields fields, ScopedAction<E> action)
+            throws E {
+        BackendHolder.BACKEND.runWithContextFields(fields, action);
+    }
+
+    /**
+     * Runs the action with the scoped context fields copied into the MDC. Use this around third-party code, that reads
+     * the MDC directly. With the default MDC backend the action is just run.
+     *
+     * @param action
+     *         the action to run
+     * @param <E>
+     *         the checked exception thrown by the action
+     * @throws E
+     *         if the action fails
+     */
+    public static <E extends Exception> void runWithMdc(ScopedAction<E> action) throws E {
+        BackendHolder.BACKEND.runWithMdc(action);
     }
 
     public static void initializeContext() {
@@ -93,11 +227,11 @@ public class LogContext {
     }
 
     public static String getCorrelationId() {
-        return MDC.get(CORRELATION_ID);
+        return BackendHolder.BACKEND.get(CORRELATION_ID);
     }
 
     private static void setCorrelationId(String correlationId) {
-        MDC.put(CORRELATION_ID, correlationId);
+        BackendHolder.BACKEND.put(CORRELATION_ID, correlationId);
     }
 
     private static void setOrGenerateCorrelationId(String correlationId) {
@@ -115,6 +249,18 @@ public class LogContext {
         LoggerHolder.LOG.info("generated new correlation id");
     }
 
+    private static class BackendHolder {
+        static final LogContextBackend BACKEND = createBackend(new Environment());
+
+        private static LogContextBackend createBackend(Environment environment) {
+            String backend = System.getProperty(BACKEND_PROPERTY_NAME);
+            if (backend == null) {
+                backend = environment.getVariable(Environment.LOG_CONTEXT_BACKEND);
+            }
+            return BACKEND_SCOPED.equalsIgnoreCase(backend) ? new ScopedContextBackend() : new MdcContextBackend();
+        }
+    }
+
     private static class LoggerHolder {
         static final Logger LOG = LoggerFactory.getLogger(LoggerHolder.class.getEnclosingClass());
     }
@@ -4,8 +4,10 @@ import com.fasterxml.jackson.jr.ob.JSON;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 
 /**
@@ -17,6 +19,8 @@ import java.util.Set;
  * <li><code>ENV_CF_INSTANCE_IP</code></li>
  * <li><code>ENV_CF_LANDSCAPE_ID</code></li>
  * </ul>
+ * The environment does not change during the lifetime of the JVM. It is read and parsed lazily on first access and the
+ * resulting snapshot is shared by all callers.
  */
 public class VcapEnvReader {
 
@@ -40,24 +44,27 @@ public class VcapEnvReader {
      */
     private static Map<String, String> ENV_MAP;
 
+    private static volatile Snapshot snapshot;
+
     /**
      * Retrieves Cloud Foundry related settings from environment variables, currently <code>VCAP_APPLICATION</code>,
      * <code>LANDSCAPE_ID</code> and
      * <code>CF_INSTANCE_IP</code>
      *
-     * @return the map containing the retrieved key/value pairs
+     * @return an immutable map containing the retrieved key/value pairs
      */
     public static Map<String, String> getEnvMap() {
-        Map<String, String> result = new HashMap<String, String>();
-        getAppInfos(result, null);
-        return result;
+        return getSnapshot().envMap;
     }
 
     /*
      * FOR UNIT TESTING PURPOSES ONLY
      */
     protected static void setEnvMap(Map<String, String> envMap) {
-        ENV_MAP = envMap;
+        synchronized (VcapEnvReader.class) {
+            ENV_MAP = envMap;
+            snapshot = null;
+        }
     }
 
     /**
@@ -72,6 +79,36 @@ public class VcapEnvReader {
      *         the set of keys that have been retrieved from the variables.
      */
     public static void getAppInfos(Map<String, String> tags, Set<String> envKeys) {
+        Snapshot current = getSnapshot();
+        for (Entry<String, String> field: current.vcapFields.entrySet()) {
+            if (!tags.containsKey(field.getKey())) {
+                if (envKeys != null) {
+                    envKeys.add(field.getKey());
+                }
+                tags.put(field.getKey(), field.getValue());
+            }
+        }
+        if (current.containerId != null) {
+            tags.put(Fields.CONTAINER_ID, current.containerId);
+        }
+    }
+
+    private static Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (VcapEnvReader.class) {
+                current = snapshot;
+                if (current == null) {
+                    current = readSnapshot();
+                    snapshot = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private static Snapshot readSnapshot() {
+        Map<String, String> vcapFields = new LinkedHashMap<>();
         String vcap = getEnv(ENV_VCAP_APPLICATION);
         if (vcap != null) {
             try {
@@ -81,39 +118,47 @@ public class VcapEnvReader {
                  * -- if there's ever anything nested, we need to change this
                  * accordingly!
                  */
-                addField(tags, envKeys, envMap, CF_APPLICATION_NAME, Fields.COMPONENT_NAME);
-                addField(tags, envKeys, envMap, CF_APPLICATION_ID, Fields.COMPONENT_ID);
-                addField(tags, envKeys, envMap, CF_INSTANCE_INDEX, Fields.COMPONENT_INSTANCE);
-                addField(tags, envKeys, envMap, CF_SPACE_ID, Fields.SPACE_ID);
-                addField(tags, envKeys, envMap, CF_SPACE_NAME, Fields.SPACE_NAME);
-                addField(tags, envKeys, envMap, CF_ORGANIZATION_ID, Fields.ORGANIZATION_ID);
-                addField(tags, envKeys, envMap, CF_ORGANIZATION_NAME, Fields.ORGANIZATION_NAME);
+                addField(vcapFields, envMap, CF_APPLICATION_NAME, Fields.COMPONENT_NAME);
+                addField(vcapFields, envMap, CF_APPLICATION_ID, Fields.COMPONENT_ID);
+                addField(vcapFields, envMap, CF_INSTANCE_INDEX, Fields.COMPONENT_INSTANCE);
+                addField(vcapFields, envMap, CF_SPACE_ID, Fields.SPACE_ID);
+                addField(vcapFields, envMap, CF_SPACE_NAME, Fields.SPACE_NAME);
+                addField(vcapFields, envMap, CF_ORGANIZATION_ID, Fields.ORGANIZATION_ID);
+                addField(vcapFields, envMap, CF_ORGANIZATION_NAME, Fields.ORGANIZATION_NAME);
             } catch (Exception ex) {
                 LOG.error("Cannot get infos from environment", ex);
-                return;
+                return new Snapshot(Collections.emptyMap(), null);
             }
         }
-
-        String cfInstanceIp = getEnv(ENV_CF_INSTANCE_IP);
-        if (cfInstanceIp != null) {
-            tags.put(Fields.CONTAINER_ID, cfInstanceIp);
-        }
+        return new Snapshot(vcapFields, getEnv(ENV_CF_INSTANCE_IP));
     }
 
     private static String getEnv(String name) {
         return ENV_MAP != null ? ENV_MAP.get(name) : System.getenv(name);
     }
 
-    private static void addField(Map<String, String> tags, Set<String> tagKeys, Map<String, Object> envMap,
-                                 String envKey, String tagKey) {
-        if (!tags.containsKey(tagKey)) {
-            Object tn = envMap.get(envKey);
-            if (tn != null) {
-                if (tagKeys != null) {
-                    tagKeys.add(tagKey);
-                }
-                tags.put(tagKey, tn.toString());
+    private static void addField(Map<String, String> fields, Map<String, Object> envMap, String envKey,
+                                 String tagKey) {
+        Object tn = envMap.get(envKey);
+        if (tn != null) {
+            fields.put(tagKey, tn.toString());
+        }
+    }
+
+    private static class Snapshot {
+
+        private final Map<String, String> vcapFields;
+        private final String containerId;
+        private final Map<String, String> envMap;
+
+        private Snapshot(Map<String, String> vcapFields, String containerId) {
+            this.vcapFields = Collections.unmodifiableMap(vcapFields);
+            this.containerId = containerId;
+            Map<String, String> envMap = new LinkedHashMap<>(vcapFields);
+            if (containerId != null) {
+                envMap.put(Fields.CONTAINER_ID, containerId);
             }
+            this.envMap = Collections.unmodifiableMap(envMap);
         }
     }
 }
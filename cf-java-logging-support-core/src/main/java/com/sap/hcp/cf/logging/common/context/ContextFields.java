@@ -0,0 +1,279 @@
+package com.sap.hcp.cf.logging.common.context;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * An immutable set of context fields. The keys are kept sorted in an array, so that lookups use a binary search and
+ * iterating the fields allocates nothing. Changes create a new instance and leave the original untouched, so that an
+ * instance can be shared between threads and captured for later use without copying.
+ */
+public final class ContextFields {
+
+    public static final ContextFields EMPTY = new ContextFields(new String[0], new String[0]);
+
+    private final String[] keys;
+    private final String[] values;
+
+    private ContextFields(String[] keys, String[] values) {
+        this.keys = keys;
+        this.values = values;
+    }
+
+    /**
+     * Creates the fields from a map. Entries with a {@code null} key or value are skipped.
+     *
+     * @param map
+     *         the fields, can be {@code null}
+     * @return the immutable fields
+     */
+    public static ContextFields of(Map<String, String> map) {
+        if (map == null || map.isEmpty()) {
+            return EMPTY;
+        }
+        String[] keys = new String[map.size()];
+        int size = 0;
+        for (Map.Entry<String, String> entry: map.entrySet()) {
+            if (entry.getKey() != null && entry.getValue() != null) {
+                keys[size++] = entry.getKey();
+            }
+        }
+        keys = Arrays.copyOf(keys, size);
+        Arrays.sort(keys);
+        String[] values = new String[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = map.get(keys[i]);
+        }
+        return new ContextFields(keys, values);
+    }
+
+    public String get(String key) {
+        int index = key != null ? Arrays.binarySearch(keys, key) : -1;
+        return index >= 0 ? values[index] : null;
+    }
+
+    /**
+     * Returns fields with the given value for the key. A {@code null} value removes the key.
+     *
+     * @param key
+     *         the key of the field
+     * @param value
+     *         the new value
+     * @return the changed fields, this instance, if nothing changed
+     */
+    public ContextFields with(String key, String value) {
+        if (value == null) {
+            return without(key);
+        }
+        int index = Arrays.binarySearch(keys, key);
+        if (index >= 0) {
+            if (value.equals(values[index])) {
+                return this;
+            }
+            String[] changed = values.clone();
+            changed[index] = value;
+            return new ContextFields(keys, changed);
+        }
+        int insert = -index - 1;
+        String[] newKeys = new String[keys.length + 1];
+        String[] newValues = new String[values.length + 1];
+        System.arraycopy(keys, 0, newKeys, 0, insert);
+        System.arraycopy(values, 0, newValues, 0, insert);
+        newKeys[insert] = key;
+        newValues[insert] = value;
+        System.arraycopy(keys, insert, newKeys, insert + 1, keys.length - insert);
+        System.arraycopy(values, insert, newValues, insert + 1, values.length - insert);
+        return new ContextFields(newKeys, newValues);
+    }
+
+    /**
+     * Returns fields without the key.
+     *
+     * @param key
+     *         the key of the field
+     * @return the changed fields, this instance, if the key was not contained
+     */
+    public ContextFields without(String key) {
+        int index = key != null ? Arrays.binarySearch(keys, key) : -1;
+        if (index < 0) {
+            return this;
+        }
+        if (keys.length == 1) {
+            return EMPTY;
+        }
+        String[] newKeys = new String[keys.length - 1];
+        String[] newValues = new String[values.length - 1];
+        System.arraycopy(keys, 0, newKeys, 0, index);
+        System.arraycopy(values, 0, newValues, 0, index);
+        System.arraycopy(keys, index + 1, newKeys, index, keys.length - index - 1);
+        System.arraycopy(values, index + 1, newValues, index, values.length - index - 1);
+        return new ContextFields(newKeys, newValues);
+    }
+
+    /**
+     * Creates the fields from two arrays of the same length. Pairs with a {@code null} key or value are skipped. The
+     * arrays are not kept. If the keys are sorted in ascending order, they are not sorted again, so that callers with a
+     * fixed set of keys can prepare them once.
+     *
+     * @param keys
+     *         the keys of the fields
+     * @param values
+     *         the value for the key at the same position
+     * @return the immutable fields
+     */
+    public static ContextFields of(String[] keys, String[] values) {
+        String[] newKeys = new String[keys.length];
+        String[] newValues = new String[keys.length];
+        int size = 0;
+        boolean sorted = true;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null && values[i] != null) {
+                sorted &= size == 0 || newKeys[size - 1].compareTo(keys[i]) < 0;
+                newKeys[size] = keys[i];
+                newValues[size++] = values[i];
+            }
+        }
+        if (size == 0) {
+            return EMPTY;
+        }
+        if (!sorted) {
+            Map<String, String> map = new HashMap<>(size * 4 / 3 + 1);
+            for (int i = 0; i < size; i++) {
+                map.put(newKeys[i], newValues[i]);
+            }
+            return of(map);
+        }
+        if (size < keys.length) {
+            newKeys = Arrays.copyOf(newKeys, size);
+            newValues = Arrays.copyOf(newValues, size);
+        }
+        return new ContextFields(newKeys, newValues);
+    }
+
+    /**
+     * Returns fields with all the given fields added. Existing keys are overwritten.
+     *
+     * @param added
+     *         the fields to add
+     * @return the changed fields, this instance, if there are no fields to add
+     */
+    public ContextFields withAll(ContextFields added) {
+        if (added.isEmpty()) {
+            return this;
+        }
+        if (isEmpty()) {
+            return added;
+        }
+        String[] newKeys = new String[keys.length + added.keys.length];
+        String[] newValues = new String[newKeys.length];
+        int i = 0;
+        int j = 0;
+        int size = 0;
+        while (i < keys.length || j < added.keys.length) {
+            int order = i == keys.length ? 1 : j == added.keys.length ? -1 : keys[i].compareTo(added.keys[j]);
+            if (order < 0) {
+                newKeys[size] = keys[i];
+                newValues[size++] = values[i++];
+            } else {
+                if (order == 0) {
+                    i++;
+                }
+                newKeys[size] = added.keys[j];
+                newValues[size++] = added.values[j++];
+            }
+        }
+        if (size < newKeys.length) {
+            newKeys = Arrays.copyOf(newKeys, size);
+            newValues = Arrays.copyOf(newValues, size);
+        }
+        return new ContextFields(newKeys, newValues);
+    }
+
+    /**
+     * Returns fields without all the keys.
+     *
+     * @param removed
+     *         the keys of the fields
+     * @return the changed fields, this instance, if none of the keys was contained
+     */
+    public ContextFields withoutAll(Collection<String> removed) {
+        boolean[] dropped = null;
+        int count = 0;
+        for (String key: removed) {
+            int index = key != null ? Arrays.binarySearch(keys, key) : -1;
+            if (index >= 0) {
+                if (dropped == null) {
+                    dropped = new boolean[keys.length];
+                }
+                if (!dropped[index]) {
+                    dropped[index] = true;
+                    count++;
+                }
+            }
+        }
+        if (count == 0) {
+            return this;
+        }
+        if (count == keys.length) {
+            return EMPTY;
+        }
+        String[] newKeys = new String[keys.length - count];
+        String[] newValues = new String[newKeys.length];
+        int size = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (!dropped[i]) {
+                newKeys[size] = keys[i];
+                newValues[size++] = values[i];
+            }
+        }
+        return new ContextFields(newKeys, newValues);
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    public boolean isEmpty() {
+        return keys.length == 0;
+    }
+
+    public void forEach(BiConsumer<String, String> action) {
+        for (int i = 0; i < keys.length; i++) {
+            action.accept(keys[i], values[i]);
+        }
+    }
+
+    /**
+     * @return a new mutable map with the fields
+     */
+    public Map<String, String> toMap() {
+        Map<String, String> map = new HashMap<>(keys.length * 4 / 3 + 1);
+        forEach(map::put);
+        return map;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof ContextFields)) {
+            return false;
+        }
+        ContextFields other = (ContextFields) obj;
+        return Arrays.equals(keys, other.keys) && Arrays.equals(values, other.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(keys) + Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+}
@@ -0,0 +1,109 @@
+package com.sap.hcp.cf.logging.common.context;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Stores the context fields, that are added to every log event. The
+ * {@link com.sap.hcp.cf.logging.common.LogContext} delegates to one backend, that is selected at startup.
+ */
+public interface LogContextBackend {
+
+    String get(String key);
+
+    void put(String key, String value);
+
+    void remove(String key);
+
+    /**
+     * Adds all fields in one operation.
+     *
+     * @param fields
+     *         the fields to add
+     */
+    void putAll(ContextFields fields);
+
+    /**
+     * Removes all keys in one operation.
+     *
+     * @param keys
+     *         the keys to remove
+     */
+    void removeAll(Collection<String> keys);
+
+    /**
+     * @return a copy of the current fields, can be {@code null} if there are none
+     */
+    Map<String, String> getCopyOfContextMap();
+
+    /**
+     * Replaces all current fields.
+     *
+     * @param contextMap
+     *         the new fields
+     */
+    void setContextMap(Map<String, String> contextMap);
+
+    /**
+     * Returns the current fields as an immutable instance, that can be kept and installed again later with
+     * {@link #runWithContextFields(ContextFields, ScopedAction)}.
+     *
+     * @return the current fields, {@link ContextFields#EMPTY} if there are none
+     */
+    ContextFields getContextFields();
+
+    /**
+     * Returns the fields, that are not contained in the MDC and need to be read by the encoders directly.
+     *
+     * @return the fields bound to the current scope, {@link ContextFields#EMPTY} if there are none
+     */
+    ContextFields getScopedFields();
+
+    /**
+     * @return {@code true} if changes made now would be lost, because no scope is bound to the current thread
+     */
+    boolean needsScope();
+
+    /**
+     * Runs the action in a new scope. Changes made by the action are not visible after it returns.
+     *
+     * @param contextMap
+     *         the initial fields of the scope, or {@code null} to start with the current fields
+     * @param action
+     *         the action to run
+     * @param <E>
+     *         the checked exception thrown by the action
+     * @throws E
+     *         if the action fails
+     */
+    <E extends Exception> void runInScope(Map<String, String> contextMap, ScopedAction<E> action) throws E;
+
+    /**
+     * Runs the action in a new scope with the given fields. Changes made by the action are not visible after it
+     * returns.
+     *
+     * @param fields
+     *         the initial fields of the scope, usually captured by {@link #getContextFields()}
+     * @param action
+     *         the action to run
+     * @param <E>
+     *         the checked exception thrown by the action
+     * @throws E
+     *         if the action fails
+     */
+    <E extends Exception> void runWithContextFields(ContextFields fields, ScopedAction<E> action) throws E;
+
+    /**
+     * Runs the action with the scoped fields copied into the MDC. This supports third-party code, that reads the MDC
+     * directly.
+     *
+     * @param action
+     *         the action to run
+     * @param <E>
+     *         the checked exception thrown by the action
+     * @throws E
+     *         if the action fails
+     */
+    <E extends Exception> void runWithMdc(ScopedAction<E> action) throws E;
+
+}
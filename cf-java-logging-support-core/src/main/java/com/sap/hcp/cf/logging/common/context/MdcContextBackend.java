@@ -0,0 +1,102 @@
+package com.sap.hcp.cf.logging.common.context;
+
+import org.slf4j.MDC;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Stores the context fields in the SLF4J {@link MDC}. This is the default backend.
+ */
+public class MdcContextBackend implements LogContextBackend {
+
+    @Override
+    public String get(String key) {
+        return MDC.get(key);
+    }
+
+    @Override
+    public void put(String key, String value) {
+        MDC.put(key, value);
+    }
+
+    @Override
+    public void remove(String key) {
+        MDC.remove(key);
+    }
+
+    @Override
+    public void putAll(ContextFields fields) {
+        fields.forEach(MDC::put);
+    }
+
+    @Override
+    public void removeAll(Collection<String> keys) {
+        keys.forEach(MDC::remove);
+    }
+
+    @Override
+    public Map<String, String> getCopyOfContextMap() {
+        return MDC.getCopyOfContextMap();
+    }
+
+    @Override
+    public void setContextMap(Map<String, String> contextMap) {
+        MDC.setContextMap(contextMap);
+    }
+
+    @Override
+    public ContextFields getContextFields() {
+        return ContextFields.of(MDC.getCopyOfContextMap());
+    }
+
+    @Override
+    public ContextFields getScopedFields() {
+        return ContextFields.EMPTY;
+    }
+
+    @Override
+    public boolean needsScope() {
+        return false;
+    }
+
+    @Override
+    public <E extends Exception> void runInScope(Map<String, String> contextMap, ScopedAction<E> action) throws E {
+        Map<String, String> currentContextMap = MDC.getCopyOfContextMap();
+        try {
+            if (contextMap != null) {
+                MDC.setContextMap(contextMap);
+            }
+            action.run();
+        } finally {
+            restore(currentContextMap);
+        }
+    }
+
+    @Override
+    public <E extends Exception> void runWithContextFields(ContextFields fields, ScopedAction<E> action) throws E {
+        Map<String, String> currentContextMap = MDC.getCopyOfContextMap();
+        try {
+            MDC.setContextMap(Collections.emptyMap());
+            fields.forEach(MDC::put);
+            action.run();
+        } finally {
+            restore(currentContextMap);
+        }
+    }
+
+    private static void restore(Map<String, String> contextMap) {
+        if (contextMap != null) {
+            MDC.setContextMap(contextMap);
+        } else {
+            MDC.clear();
+        }
+    }
+
+    @Override
+    public <E extends Exception> void runWithMdc(ScopedAction<E> action) throws E {
+        action.run();
+    }
+
+}
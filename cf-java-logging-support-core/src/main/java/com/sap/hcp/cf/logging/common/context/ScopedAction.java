@@ -0,0 +1,14 @@
+package com.sap.hcp.cf.logging.common.context;
+
+/**
+ * An action, that runs within a logging context scope.
+ *
+ * @param <E>
+ *         the checked exception thrown by the action
+ */
+@FunctionalInterface
+public interface ScopedAction<E extends Exception> {
+
+    void run() throws E;
+
+}
@@ -0,0 +1,349 @@
+package com.sap.hcp.cf.logging.common.context;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Stores the context fields of a request in an immutable {@link ContextFields} instance, that is bound to a scope
+ * instead of the MDC. Changes replace the instance, so that it can be captured without copying. The encoders read the
+ * scoped fields directly, the MDC is only filled on demand with {@link #runWithMdc(ScopedAction)}.
+ * <p>
+ * On Java 21 and later the scope is bound with a {@code java.lang.ScopedValue}, which is inexpensive for virtual
+ * threads. The class is looked up at runtime, since this library is compiled for Java 17. If it is not available, a
+ * {@link ThreadLocal} is used instead. The chosen binding is logged, when the first scope is started. Outside of a
+ * scope, all operations fall back to the MDC.
+ */
+public class ScopedContextBackend implements LogContextBackend {
+
+    private final ScopeBinding binding;
+    private final AtomicBoolean bindingReported = new AtomicBoolean();
+
+    public ScopedContextBackend() {
+        this(ScopedValueBinding.isAvailable() ? new ScopedValueBinding() : new ThreadLocalBinding());
+    }
+
+    ScopedContextBackend(ScopeBinding binding) {
+        this.binding = binding;
+    }
+
+    /**
+     * @return {@code true} if the scope is bound with a {@code java.lang.ScopedValue}
+     */
+    public boolean isUsingScopedValue() {
+        return binding instanceof ScopedValueBinding;
+    }
+
+    @Override
+    public String get(String key) {
+        Scope scope = binding.current();
+        return scope != null ? scope.fields.get(key) : MDC.get(key);
+    }
+
+    @Override
+    public void put(String key, String value) {
+        Scope scope = binding.current();
+        if (scope != null) {
+            scope.fields = scope.fields.with(key, value);
+        } else {
+            MDC.put(key, value);
+        }
+    }
+
+    @Override
+    public void remove(String key) {
+        Scope scope = binding.current();
+        if (scope != null) {
+            scope.fields = scope.fields.without(key);
+        } else {
+            MDC.remove(key);
+        }
+    }
+
+    @Override
+    public void putAll(ContextFields fields) {
+        Scope scope = binding.current();
+        if (scope != null) {
+            scope.fields = scope.fields.withAll(fields);
+        } else {
+            fields.forEach(MDC::put);
+        }
+    }
+
+    @Override
+    public void removeAll(Collection<String> keys) {
+        Scope scope = binding.current();
+        if (scope != null) {
+            scope.fields = scope.fields.withoutAll(keys);
+        } else {
+            keys.forEach(MDC::remove);
+        }
+    }
+
+    @Override
+    public Map<String, String> getCopyOfContextMap() {
+        Scope scope = binding.current();
+        return scope != null ? scope.fields.toMap() : MDC.getCopyOfContextMap();
+    }
+
+    @Override
+    public void setContextMap(Map<String, String> contextMap) {
+        Scope scope = binding.current();
+        if (scope != null) {
+            scope.fields = ContextFields.of(contextMap);
+        } else {
+            MDC.setContextMap(contextMap);
+        }
+    }
+
+    @Override
+    public ContextFields getContextFields() {
+        return currentFields();
+    }
+
+    @Override
+    public ContextFields getScopedFields() {
+        Scope scope = binding.current();
+        return scope != null ? scope.fields : ContextFields.EMPTY;
+    }
+
+    @Override
+    public boolean needsScope() {
+        return binding.current() == null;
+    }
+
+    @Override
+    public <E extends Exception> void runInScope(Map<String, String> contextMap, ScopedAction<E> action) throws E {
+        Scope scope = new Scope(contextMap != null ? ContextFields.of(contextMap) : currentFields());
+        reportBinding();
+        binding.run(scope, action);
+    }
+
+    @Override
+    public <E extends Exception> void runWithContextFields(ContextFields fields, ScopedAction<E> action) throws E {
+        reportBinding();
+        binding.run(new Scope(fields), action);
+    }
+
+    /*
+     * -- logged with the first scope instead of the constructor, since the log context is not initialized before
+     */
+    private void reportBinding() {
+        if (bindingReported.get() || !bindingReported.compareAndSet(false, true)) {
+            return;
+        }
+        if (isUsingScopedValue()) {
+            LoggerHolder.LOG.info("Binding log context scopes with java.lang.ScopedValue.");
+        } else if (Runtime.version().feature() >= 21 && ScopedValueBinding.getUnavailableCause() != null) {
+            LoggerHolder.LOG.warn("Cannot use java.lang.ScopedValue, binding log context scopes with a ThreadLocal.",
+                                  ScopedValueBinding.getUnavailableCause());
+        } else {
+            LoggerHolder.LOG.info("Binding log context scopes with a ThreadLocal.");
+        }
+    }
+
+    private ContextFields currentFields() {
+        Scope current = binding.current();
+        return current != null ? current.fields : ContextFields.of(MDC.getCopyOfContextMap());
+    }
+
+    @Override
+    public <E extends Exception> void runWithMdc(ScopedAction<E> action) throws E {
+        Scope scope = binding.current();
+        if (scope == null || scope.fields.isEmpty()) {
+            action.run();
+            return;
+        }
+        Map<String, String> currentContextMap = MDC.getCopyOfContextMap();
+        try {
+            scope.fields.forEach(MDC::put);
+            action.run();
+        } finally {
+            if (currentContextMap != null) {
+                MDC.setContextMap(currentContextMap);
+            } else {
+                MDC.clear();
+            }
+        }
+    }
+
+    /*
+     * -- the fields of one scope, only changed by the thread that owns the scope
+     */
+    static final class Scope {
+
+        private ContextFields fields;
+
+        private Scope(ContextFields fields) {
+            this.fields = fields;
+        }
+    }
+
+    interface ScopeBinding {
+
+        Scope current();
+
+        <E extends Exception> void run(Scope scope, ScopedAction<E> action) throws E;
+    }
+
+    static final class ThreadLocalBinding implements ScopeBinding {
+
+        private final ThreadLocal<Scope> scopes = new ThreadLocal<>();
+
+        @Override
+        public Scope current() {
+            return scopes.get();
+        }
+
+        @Override
+        public <E extends Exception> void run(Scope scope, ScopedAction<E> action) throws E {
+            Scope previous = scopes.get();
+            scopes.set(scope);
+            try {
+                action.run();
+            } finally {
+                if (previous != null) {
+                    scopes.set(previous);
+                } else {
+                    scopes.remove();
+                }
+            }
+        }
+    }
+
+    static final class ScopedValueBinding implements ScopeBinding {
+
+        private static final MethodHandle NEW_INSTANCE;
+        private static final MethodHandle WHERE;
+        private static final MethodHandle RUN;
+        private static final MethodHandle IS_BOUND;
+        private static final MethodHandle GET;
+        private static final Throwable UNAVAILABLE_CAUSE;
+
+        static {
+            MethodHandle newInstance = null;
+            MethodHandle where = null;
+            MethodHandle run = null;
+            MethodHandle isBound = null;
+            MethodHandle get = null;
+            Throwable unavailableCause = null;
+            try {
+                Class<?> scopedValue = Class.forName("java.lang.ScopedValue");
+                Class<?> carrier = Class.forName("java.lang.ScopedValue$Carrier");
+                MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+                newInstance = lookup.findStatic(scopedValue, "newInstance", MethodType.methodType(scopedValue))
+                                    .asType(MethodType.methodType(Object.class));
+                where = lookup.findStatic(scopedValue, "where",
+                                          MethodType.methodType(carrier, scopedValue, Object.class))
+                              .asType(MethodType.methodType(Object.class, Object.class, Object.class));
+                run = lookup.findVirtual(carrier, "run", MethodType.methodType(void.class, Runnable.class))
+                            .asType(MethodType.methodType(void.class, Object.class, Runnable.class));
+                isBound = lookup.findVirtual(scopedValue, "isBound", MethodType.methodType(boolean.class))
+                                .asType(MethodType.methodType(boolean.class, Object.class));
+                get = lookup.findVirtual(scopedValue, "get", MethodType.methodType(Object.class))
+                            .asType(MethodType.methodType(Object.class, Object.class));
+                probe(newInstance, where, run, isBound, get);
+            } catch (Throwable cause) {
+                // not available before Java 21 or not usable in this runtime
+                newInstance = null;
+                unavailableCause = cause;
+            }
+            NEW_INSTANCE = newInstance;
+            WHERE = where;
+            RUN = run;
+            IS_BOUND = isBound;
+            GET = get;
+            UNAVAILABLE_CAUSE = unavailableCause;
+        }
+
+        private static void probe(MethodHandle newInstance, MethodHandle where, MethodHandle run, MethodHandle isBound,
+                                  MethodHandle get) throws Throwable {
+            Object key = (Object) newInstance.invokeExact();
+            if ((boolean) isBound.invokeExact(key)) {
+                throw new IllegalStateException("New ScopedValue is already bound.");
+            }
+            Object[] seen = new Object[1];
+            Runnable read = () -> {
+                try {
+                    seen[0] = (boolean) isBound.invokeExact(key) ? (Object) get.invokeExact(key) : null;
+                } catch (Throwable cause) {
+                    throw new IllegalStateException(cause);
+                }
+            };
+            run.invokeExact((Object) where.invokeExact(key, (Object) Boolean.TRUE), read);
+            if (seen[0] != Boolean.TRUE) {
+                throw new IllegalStateException("ScopedValue binding not visible.");
+            }
+        }
+
+        static boolean isAvailable() {
+            return NEW_INSTANCE != null;
+        }
+
+        /**
+         * @return the reason, why {@code java.lang.ScopedValue} cannot be used, {@code null} if it is available
+         */
+        static Throwable getUnavailableCause() {
+            return UNAVAILABLE_CAUSE;
+        }
+
+        private final Object key;
+
+        ScopedValueBinding() {
+            try {
+                this.key = (Object) NEW_INSTANCE.invokeExact();
+            } catch (Throwable cause) {
+                throw new IllegalStateException("Cannot create ScopedValue.", cause);
+            }
+        }
+
+        @Override
+        public Scope current() {
+            try {
+                return (boolean) IS_BOUND.invokeExact(key) ? (Scope) (Object) GET.invokeExact(key) : null;
+            } catch (Throwable cause) {
+                throw new IllegalStateException("Cannot read ScopedValue.", cause);
+            }
+        }
+
+        @Override
+        public <E extends Exception> void run(Scope scope, ScopedAction<E> action) throws E {
+            Exception[] failure = new Exception[1];
+            Runnable runnable = () -> {
+                try {
+                    action.run();
+                } catch (RuntimeException cause) {
+                    throw cause;
+                } catch (Exception cause) {
+                    failure[0] = cause;
+                }
+            };
+            try {
+                RUN.invokeExact((Object) WHERE.invokeExact(key, (Object) scope), runnable);
+            } catch (RuntimeException | Error cause) {
+                throw cause;
+            } catch (Throwable cause) {
+                throw new IllegalStateException("Cannot bind ScopedValue.", cause);
+            }
+            if (failure[0] != null) {
+                throw ScopedValueBinding.<E> uncheck(failure[0]);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <E extends Exception> E uncheck(Exception cause) {
+            return (E) cause;
+        }
+    }
+
+    private static class LoggerHolder {
+        static final Logger LOG = LoggerFactory.getLogger(LoggerHolder.class.getEnclosingClass());
+    }
+}
@@ -0,0 +1,162 @@
+package com.sap.hcp.cf.logging.common.converter;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded least-recently-used cache of rendered stacktraces. The cache holds the complete JSON array of the
+ * stacktrace lines as created by a {@link StacktraceRenderer}, already shortened and escaped by the given
+ * {@link JsonFactory}. It is keyed by a structural fingerprint of the throwable, so that repeated logging of the same
+ * exception from the same throw site can splice the cached array with
+ * {@link JsonGenerator#writeRawValue(SerializableString)}.
+ * <p>
+ * The cache is split into independently locked segments to reduce contention between concurrently logging threads.
+ * The number of cache hits and misses is counted for monitoring.
+ */
+public class StacktraceCache {
+
+    private static final int MAX_SEGMENTS = 16;
+
+    private final StacktraceRenderer renderer;
+    private final JsonFactory jsonFactory;
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param maxEntries
+     *         the maximum number of cached stacktraces, must be positive
+     * @param renderer
+     *         the renderer to create the stacktrace lines with
+     * @param jsonFactory
+     *         the factory to create the escaped JSON array with
+     */
+    public StacktraceCache(int maxEntries, StacktraceRenderer renderer, JsonFactory jsonFactory) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Stacktrace cache size must be positive but was " + maxEntries + ".");
+        }
+        this.renderer = renderer;
+        this.jsonFactory = jsonFactory;
+        int segmentCount = Math.min(MAX_SEGMENTS, Integer.highestOneBit(maxEntries));
+        int segmentSize = (maxEntries + segmentCount - 1) / segmentCount;
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(segmentSize);
+        }
+    }
+
+    /**
+     * Provides the stacktrace of the throwable as JSON array. The array is rendered only, if no throwable with the
+     * same fingerprint was cached before.
+     *
+     * @param throwable
+     *         the throwable to render
+     * @return the escaped JSON array of the stacktrace lines
+     * @throws IOException
+     *         if the JSON array cannot be created
+     */
+    public SerializableString getStacktrace(Throwable throwable) throws IOException {
+        return getStacktrace(ThrowableFingerprint.of(throwable), throwable);
+    }
+
+    /**
+     * Provides the stacktrace of the throwable as JSON array using an already calculated fingerprint.
+     *
+     * @param fingerprint
+     *         the fingerprint of the throwable
+     * @param throwable
+     *         the throwable to render
+     * @return the escaped JSON array of the stacktrace lines
+     * @throws IOException
+     *         if the JSON array cannot be created
+     */
+    public SerializableString getStacktrace(ThrowableFingerprint fingerprint, Throwable throwable) throws IOException {
+        Segment segment = segmentFor(fingerprint);
+        SerializableString stacktrace = segment.get(fingerprint);
+        if (stacktrace != null) {
+            hits.increment();
+            return stacktrace;
+        }
+        misses.increment();
+        stacktrace = render(throwable);
+        segment.put(fingerprint, stacktrace);
+        return stacktrace;
+    }
+
+    private Segment segmentFor(ThrowableFingerprint fingerprint) {
+        int hash = fingerprint.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+    }
+
+    private SerializableString render(Throwable throwable) throws IOException {
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = jsonFactory.createGenerator(writer)) {
+            generator.writeStartArray();
+            renderer.render(throwable, generator::writeString);
+            generator.writeEndArray();
+        }
+        return new SerializedString(writer.toString());
+    }
+
+    /**
+     * @return the number of stacktraces served from the cache
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of stacktraces, that needed to be rendered
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the number of currently cached stacktraces
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment: segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    private static final class Segment {
+
+        private final Map<ThrowableFingerprint, SerializableString> entries;
+
+        private Segment(int maxEntries) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<ThrowableFingerprint, SerializableString> eldest) {
+                    return size() > maxEntries;
+                }
+            };
+        }
+
+        private synchronized SerializableString get(ThrowableFingerprint fingerprint) {
+            return entries.get(fingerprint);
+        }
+
+        private synchronized void put(ThrowableFingerprint fingerprint, SerializableString stacktrace) {
+            entries.put(fingerprint, stacktrace);
+        }
+
+        private synchronized int size() {
+            return entries.size();
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.sap.hcp.cf.logging.common.converter;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Renders the stacktrace of a {@link Throwable} into lines with the format of {@link Throwable#printStackTrace()},
+ * including causes, suppressed exceptions and the elision of frames in common with the enclosing trace.
+ * <p>
+ * Stacktraces exceeding the configured number of characters are shortened in the middle with the same result as
+ * {@link StacktraceLines#getFirstLines(int)} and {@link StacktraceLines#getLastLines(int)}. Instead of printing the
+ * whole stacktrace first, the renderer walks the {@link StackTraceElement}s directly and only creates the lines, that
+ * are emitted. The effort is bounded by the character budget, not by the depth of the stacktrace.
+ */
+public class StacktraceRenderer {
+
+    public static final String TRUNCATED_MARKER = "-------- STACK TRACE TRUNCATED --------";
+    public static final String OMITTED_MARKER = "-------- OMITTED --------";
+
+    private static final String CAUSE_CAPTION = "Caused by: ";
+    private static final String SUPPRESSED_CAPTION = "Suppressed: ";
+
+    private final int maxSize;
+
+    /**
+     * @param maxSize
+     *         the maximum number of characters of all lines, before the stacktrace gets shortened
+     */
+    public StacktraceRenderer(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Receives the rendered lines of a stacktrace.
+     */
+    @FunctionalInterface
+    public interface LineConsumer {
+
+        void accept(String line) throws IOException;
+    }
+
+    /**
+     * @param throwable
+     *         the throwable to render
+     * @return the lines of the possibly shortened stacktrace
+     */
+    public List<String> render(Throwable throwable) {
+        List<String> lines = new ArrayList<>();
+        try {
+            render(throwable, lines::add);
+        } catch (IOException cause) {
+            // cannot happen when collecting into a list
+            throw new IllegalStateException(cause);
+        }
+        return lines;
+    }
+
+    /**
+     * Renders the stacktrace line by line into the consumer.
+     *
+     * @param throwable
+     *         the throwable to render
+     * @param consumer
+     *         the receiver of the lines
+     * @throws IOException
+     *         if the consumer fails
+     */
+    public void render(Throwable throwable, LineConsumer consumer) throws IOException {
+        List<Block> blocks = new ArrayList<>();
+        collectBlocks(throwable, blocks);
+
+        List<String> lines = new ArrayList<>();
+        int totalSize = 0;
+        boolean truncated = false;
+        forward:
+        for (Block block: blocks) {
+            for (int i = 0; i < block.getLineCount(); i++) {
+                String line = block.getLine(i);
+                if (line.isBlank()) {
+                    continue;
+                }
+                lines.add(line);
+                totalSize += line.length();
+                if (totalSize > maxSize) {
+                    truncated = true;
+                    break forward;
+                }
+            }
+        }
+        if (!truncated) {
+            for (String line: lines) {
+                consumer.accept(line);
+            }
+            return;
+        }
+
+        consumer.accept(TRUNCATED_MARKER);
+        int headSize = 0;
+        for (String line: lines) {
+            headSize += line.length();
+            if (headSize >= maxSize / 3) {
+                break;
+            }
+            consumer.accept(line);
+        }
+
+        consumer.accept(OMITTED_MARKER);
+        Deque<String> tail = new ArrayDeque<>();
+        int tailSize = 0;
+        backward:
+        for (int b = blocks.size() - 1; b >= 0; b--) {
+            Block block = blocks.get(b);
+            for (int i = block.getLineCount() - 1; i >= 0; i--) {
+                String line = block.getLine(i);
+                if (line.isBlank()) {
+                    continue;
+                }
+                tailSize += line.length();
+                if (tailSize >= (maxSize / 3) * 2) {
+                    break backward;
+                }
+                tail.addFirst(line);
+            }
+        }
+        for (String line: tail) {
+            consumer.accept(line);
+        }
+    }
+
+    private static void collectBlocks(Throwable throwable, List<Block> blocks) {
+        Set<Throwable> dejaVu = Collections.newSetFromMap(new IdentityHashMap<>());
+        dejaVu.add(throwable);
+        StackTraceElement[] trace = throwable.getStackTrace();
+        blocks.add(new Block("", "", throwable, trace, trace.length, 0, false));
+        for (Throwable suppressed: throwable.getSuppressed()) {
+            collectEnclosedBlocks(suppressed, trace, SUPPRESSED_CAPTION, "\t", dejaVu, blocks);
+        }
+        Throwable cause = throwable.getCause();
+        if (cause != null) {
+            collectEnclosedBlocks(cause, trace, CAUSE_CAPTION, "", dejaVu, blocks);
+        }
+    }
+
+    private static void collectEnclosedBlocks(Throwable throwable, StackTraceElement[] enclosingTrace, String caption,
+                                              String prefix, Set<Throwable> dejaVu, List<Block> blocks) {
+        if (dejaVu.contains(throwable)) {
+            blocks.add(new Block(prefix, caption, throwable, null, 0, 0, true));
+            return;
+        }
+        dejaVu.add(throwable);
+        StackTraceElement[] trace = throwable.getStackTrace();
+        // compute number of frames in common between this and enclosing trace
+        int m = trace.length - 1;
+        int n = enclosingTrace.length - 1;
+        while (m >= 0 && n >= 0 && trace[m].equals(enclosingTrace[n])) {
+            m--;
+            n--;
+        }
+        int framesInCommon = trace.length - 1 - m;
+        blocks.add(new Block(prefix, caption, throwable, trace, m + 1, framesInCommon, false));
+        for (Throwable suppressed: throwable.getSuppressed()) {
+            collectEnclosedBlocks(suppressed, trace, SUPPRESSED_CAPTION, prefix + "\t", dejaVu, blocks);
+        }
+        Throwable cause = throwable.getCause();
+        if (cause != null) {
+            collectEnclosedBlocks(cause, trace, CAUSE_CAPTION, prefix, dejaVu, blocks);
+        }
+    }
+
+    /*
+     * The lines printed for a single throwable: the caption line, the frames not in common with the enclosing trace and
+     * the number of elided frames. Lines are only created on request.
+     */
+    private static final class Block {
+
+        private final String prefix;
+        private final String caption;
+        private final Throwable throwable;
+        private final StackTraceElement[] trace;
+        private final int frameCount;
+        private final int framesInCommon;
+        private final boolean circular;
+        private String captionLine;
+
+        private Block(String prefix, String caption, Throwable throwable, StackTraceElement[] trace, int frameCount,
+                      int framesInCommon, boolean circular) {
+            this.prefix = prefix;
+            this.caption = caption;
+            this.throwable = throwable;
+            this.trace = trace;
+            this.frameCount = frameCount;
+            this.framesInCommon = framesInCommon;
+            this.circular = circular;
+        }
+
+        private int getLineCount() {
+            return 1 + frameCount + (framesInCommon != 0 ? 1 : 0);
+        }
+
+        private String getLine(int index) {
+            if (index == 0) {
+                if (captionLine == null) {
+                    captionLine = circular ? prefix + caption + "[CIRCULAR REFERENCE: " + throwable + "]"
+                                           : prefix + caption + throwable;
+                }
+                return captionLine;
+            }
+            if (index <= frameCount) {
+                return prefix + "\tat " + trace[index - 1];
+            }
+            return prefix + "\t... " + framesInCommon + " more";
+        }
+    }
+}
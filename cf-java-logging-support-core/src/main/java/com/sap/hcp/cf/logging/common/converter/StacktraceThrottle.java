@@ -0,0 +1,105 @@
+package com.sap.hcp.cf.logging.common.converter;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the occurrences of exceptions per {@link ThrowableFingerprint} within fixed time windows. It is used to emit
+ * the full stacktrace only for the first occurrences of an exception during an exception storm. Later occurrences can
+ * refer to the already emitted stacktrace by the fingerprint. The encoders use the fingerprint
+ * {@link ThrowableFingerprint#withoutMessages(Throwable) without messages}, so that exceptions with varying messages
+ * are throttled as well.
+ * <p>
+ * The counters are kept in a fixed number of slots without locking. A slot holds the fingerprint, the time window and
+ * the count. It is replaced by compare-and-set, when another fingerprint or a new window starts, and compared to the
+ * complete fingerprint before an occurrence is counted. Fingerprints sharing a slot displace each other. This can only
+ * lead to additional full stacktraces, never to omitted ones.
+ */
+public class StacktraceThrottle {
+
+    private static final int SLOTS = 1024;
+
+    private final int maxStacktraces;
+    private final long windowMillis;
+    private final AtomicReferenceArray<Occurrences> slots = new AtomicReferenceArray<>(SLOTS);
+    private final LongAdder omitted = new LongAdder();
+
+    /**
+     * @param maxStacktraces
+     *         the number of occurrences per fingerprint and window, that get the full stacktrace, must be positive
+     * @param windowMillis
+     *         the length of the time window in milliseconds, must be positive
+     */
+    public StacktraceThrottle(int maxStacktraces, long windowMillis) {
+        if (maxStacktraces <= 0) {
+            throw new IllegalArgumentException(
+                    "Maximum number of stacktraces must be positive but was " + maxStacktraces + ".");
+        }
+        if (windowMillis <= 0) {
+            throw new IllegalArgumentException("Stacktrace window must be positive but was " + windowMillis + ".");
+        }
+        this.maxStacktraces = maxStacktraces;
+        this.windowMillis = windowMillis;
+    }
+
+    /**
+     * Records an occurrence of an exception.
+     *
+     * @param fingerprint
+     *         the fingerprint of the exception
+     * @param timestamp
+     *         the time of the occurrence in milliseconds since epoch
+     * @return the number of occurrences of the exception within the current window including this one
+     */
+    public int recordOccurrence(ThrowableFingerprint fingerprint, long timestamp) {
+        long hash = fingerprint.longHash();
+        int index = (int) (hash ^ (hash >>> 32)) & (SLOTS - 1);
+        long window = Math.floorDiv(timestamp, windowMillis);
+        while (true) {
+            Occurrences current = slots.get(index);
+            if (current != null && current.window == window && current.fingerprint.equals(fingerprint)) {
+                int count = current.increment();
+                if (count > maxStacktraces) {
+                    omitted.increment();
+                }
+                return count;
+            }
+            if (slots.compareAndSet(index, current, new Occurrences(fingerprint, window))) {
+                return 1;
+            }
+        }
+    }
+
+    /**
+     * @param occurrence
+     *         the number of occurrences as returned by {@link #recordOccurrence(ThrowableFingerprint, long)}
+     * @return {@code true}, if the full stacktrace should be emitted for this occurrence, {@code false} otherwise
+     */
+    public boolean isStacktraceRequired(int occurrence) {
+        return occurrence <= maxStacktraces;
+    }
+
+    /**
+     * @return the number of occurrences, for which the full stacktrace was not required
+     */
+    public long getOmittedCount() {
+        return omitted.sum();
+    }
+
+    private static final class Occurrences {
+
+        private final ThrowableFingerprint fingerprint;
+        private final long window;
+        private final AtomicLong count = new AtomicLong(1);
+
+        private Occurrences(ThrowableFingerprint fingerprint, long window) {
+            this.fingerprint = fingerprint;
+            this.window = window;
+        }
+
+        private int increment() {
+            return (int) Math.min(count.incrementAndGet(), Integer.MAX_VALUE);
+        }
+    }
+}
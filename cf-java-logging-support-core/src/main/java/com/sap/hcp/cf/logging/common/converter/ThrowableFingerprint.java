@@ -0,0 +1,141 @@
+package com.sap.hcp.cf.logging.common.converter;
+
+import java.util.*;
+
+/**
+ * A structural key of a {@link Throwable}. It consists of the class and message of every throwable in the cause chain
+ * and suppressed exceptions together with their stack frames. Two throwables with equal fingerprints render to the
+ * same stacktrace lines. The fingerprint does not keep a reference to the throwable itself.
+ * <p>
+ * The fingerprint {@link #withoutMessages(Throwable) without messages} only covers the classes and stack frames. It
+ * identifies exceptions, that are thrown at the same place with varying messages, e.g. containing an id.
+ */
+public final class ThrowableFingerprint {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static final Object ENTER_CAUSE = new Marker(1);
+    private static final Object ENTER_SUPPRESSED = new Marker(2);
+    private static final Object CIRCULAR = new Marker(3);
+    private static final Object LEAVE = new Marker(4);
+
+    private final Object[] parts;
+    private final long hash;
+
+    private ThrowableFingerprint(Object[] parts) {
+        this.parts = parts;
+        this.hash = hash(parts);
+    }
+
+    /**
+     * @param throwable
+     *         the throwable to fingerprint
+     * @return the fingerprint of the throwable
+     */
+    public static ThrowableFingerprint of(Throwable throwable) {
+        return of(throwable, true);
+    }
+
+    /**
+     * @param throwable
+     *         the throwable to fingerprint
+     * @return the fingerprint of the classes and stack frames of the throwable, ignoring all messages
+     */
+    public static ThrowableFingerprint withoutMessages(Throwable throwable) {
+        return of(throwable, false);
+    }
+
+    private static ThrowableFingerprint of(Throwable throwable, boolean withMessages) {
+        List<Object> parts = new ArrayList<>();
+        Set<Throwable> dejaVu = Collections.newSetFromMap(new IdentityHashMap<>());
+        collect(throwable, withMessages, parts, dejaVu);
+        return new ThrowableFingerprint(parts.toArray());
+    }
+
+    private static void collect(Throwable throwable, boolean withMessages, List<Object> parts,
+                                Set<Throwable> dejaVu) {
+        parts.add(withMessages ? throwable.toString() : throwable.getClass().getName());
+        if (!dejaVu.add(throwable)) {
+            parts.add(CIRCULAR);
+            return;
+        }
+        parts.add(throwable.getStackTrace());
+        for (Throwable suppressed: throwable.getSuppressed()) {
+            parts.add(ENTER_SUPPRESSED);
+            collect(suppressed, withMessages, parts, dejaVu);
+            parts.add(LEAVE);
+        }
+        Throwable cause = throwable.getCause();
+        if (cause != null) {
+            parts.add(ENTER_CAUSE);
+            collect(cause, withMessages, parts, dejaVu);
+            parts.add(LEAVE);
+        }
+    }
+
+    private static long hash(Object[] parts) {
+        long hash = FNV_OFFSET_BASIS;
+        for (Object part: parts) {
+            if (part instanceof StackTraceElement[]) {
+                for (StackTraceElement element: (StackTraceElement[]) part) {
+                    hash = (hash ^ element.hashCode()) * FNV_PRIME;
+                }
+            } else {
+                hash = (hash ^ part.hashCode()) * FNV_PRIME;
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * @return a 64-bit hash of the fingerprint
+     */
+    public long longHash() {
+        return hash;
+    }
+
+    /**
+     * @return the 64-bit hash as 16 hexadecimal digits, suitable to reference the stacktrace in log messages
+     */
+    public String getReference() {
+        String hex = Long.toHexString(hash);
+        return hex.length() < 16 ? "0".repeat(16 - hex.length()) + hex : hex;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof ThrowableFingerprint)) {
+            return false;
+        }
+        ThrowableFingerprint other = (ThrowableFingerprint) obj;
+        return hash == other.hash && Arrays.deepEquals(parts, other.parts);
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return getReference();
+    }
+
+    private static final class Marker {
+
+        private final int id;
+
+        private Marker(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public int hashCode() {
+            return id;
+        }
+    }
+}
@@ -10,7 +10,10 @@ public class Environment {
     public static final String LOG_GENERATE_APPLICATION_LOGGING_CUSTOM_FIELDS =
             "LOG_GENERATE_APPLICATION_LOGGING_CUSTOM_FIELDS";
 
+    public static final String LOG_CONTEXT_BACKEND = "LOG_CONTEXT_BACKEND";
+
     public static final String VCAP_SERRVICES = "VCAP_SERVICES";
+    public static final String VCAP_SERVICES_FILE_PATH = "VCAP_SERVICES_FILE_PATH";
 
     public String getVariable(String name) {
         return System.getenv(name);
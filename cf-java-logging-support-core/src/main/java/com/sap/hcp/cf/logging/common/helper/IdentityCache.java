@@ -0,0 +1,52 @@
+package com.sap.hcp.cf.logging.common.helper;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * A small cache for values derived from strings, that are looked up by the identity of the string. It is meant for
+ * values read from the MDC on every log call, e.g. the dynamic log level. The MDC returns the same string instance
+ * until the value is changed, so that a lookup needs neither hashing of the content nor allocation.
+ * <p>
+ * The cache has a fixed number of slots. Strings sharing a slot displace each other, which only costs a recomputation.
+ *
+ * @param <V>
+ *         the type of the cached values
+ */
+public class IdentityCache<V> {
+
+    private static final int SLOTS = 64;
+
+    private final AtomicReferenceArray<Entry<V>> slots = new AtomicReferenceArray<>(SLOTS);
+
+    /**
+     * Returns the cached value for the string instance or computes and caches it.
+     *
+     * @param key
+     *         the string to derive the value from
+     * @param compute
+     *         computes the value, it should not capture state to keep lookups allocation-free
+     * @return the value for the string
+     */
+    public V get(String key, Function<String, V> compute) {
+        int index = System.identityHashCode(key) & (SLOTS - 1);
+        Entry<V> entry = slots.get(index);
+        if (entry != null && entry.key == key) {
+            return entry.value;
+        }
+        V value = compute.apply(key);
+        slots.set(index, new Entry<>(key, value));
+        return value;
+    }
+
+    private static final class Entry<V> {
+
+        private final String key;
+        private final V value;
+
+        private Entry(String key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.sap.hcp.cf.logging.common.helper;
+
+import java.util.Arrays;
+
+/**
+ * Matches logger names against a comma separated list of prefixes, as used for
+ * {@link DynamicLogLevelHelper#MDC_DYNAMIC_LOG_LEVEL_PREFIXES}. The prefixes are compiled into a trie, so that a name
+ * is matched in a single pass over its characters instead of one {@code startsWith} per prefix. Compiled matchers are
+ * cached by the identity of the prefix list.
+ */
+public final class PrefixMatcher {
+
+    private static final IdentityCache<PrefixMatcher> CACHE = new IdentityCache<>();
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private final Node root = new Node();
+
+    private PrefixMatcher(String prefixes) {
+        for (String prefix: prefixes.split(",")) {
+            add(prefix);
+        }
+    }
+
+    /**
+     * Returns the matcher for the prefix list. The matcher is compiled only once for each string instance.
+     *
+     * @param prefixes
+     *         the comma separated list of prefixes
+     * @return the matcher for the prefixes
+     */
+    public static PrefixMatcher forPrefixes(String prefixes) {
+        return CACHE.get(prefixes, PrefixMatcher::new);
+    }
+
+    private void add(String prefix) {
+        Node node = root;
+        for (int i = 0; i < prefix.length(); i++) {
+            node = node.getOrAddChild(prefix.charAt(i));
+        }
+        node.terminal = true;
+    }
+
+    /**
+     * @param name
+     *         the logger name
+     * @return {@code true}, if the name starts with one of the prefixes
+     */
+    public boolean matches(String name) {
+        Node node = root;
+        for (int i = 0; !node.terminal; i++) {
+            if (i == name.length()) {
+                return false;
+            }
+            node = node.getChild(name.charAt(i));
+            if (node == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Node {
+
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+        private boolean terminal;
+
+        private Node getChild(char key) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == key) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        private Node getOrAddChild(char key) {
+            Node child = getChild(key);
+            if (child == null) {
+                child = new Node();
+                keys = Arrays.copyOf(keys, keys.length + 1);
+                children = Arrays.copyOf(children, children.length + 1);
+                keys[keys.length - 1] = key;
+                children[children.length - 1] = child;
+            }
+            return child;
+        }
+    }
+}
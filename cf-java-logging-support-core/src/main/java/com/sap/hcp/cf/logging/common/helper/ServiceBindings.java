@@ -0,0 +1,275 @@
+package com.sap.hcp.cf.logging.common.helper;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * An index of the service bindings provided by Cloud Foundry in the environment variable {@code VCAP_SERVICES}. The
+ * bindings can be looked up by service label, instance name and tag.
+ * <p>
+ * If the environment variable {@code VCAP_SERVICES_FILE_PATH} points to a readable file, the bindings are read from
+ * that file instead. The bindings are parsed lazily on first access. The result is memoized, so that all components
+ * share a single parse of the potentially large document.
+ */
+public class ServiceBindings {
+
+    private static final String SERVICE_NAME = "name";
+    private static final String SERVICE_TAGS = "tags";
+    private static final String SERVICE_CREDENTIALS = "credentials";
+    private static final String FILE_SOURCE_PREFIX = "file:";
+
+    private static final ServiceBindings EMPTY = new ServiceBindings(Collections.emptySet(), Collections.emptyList());
+
+    private static volatile Memo memo;
+
+    private final List<ServiceBinding> bindings;
+    private final Map<String, List<ServiceBinding>> byLabel = new HashMap<>();
+    private final Map<String, ServiceBinding> byName = new HashMap<>();
+    private final Map<String, List<ServiceBinding>> byTag = new HashMap<>();
+
+    private ServiceBindings(Set<String> labels, List<ServiceBinding> bindings) {
+        this.bindings = Collections.unmodifiableList(bindings);
+        for (String label: labels) {
+            byLabel.put(label, new ArrayList<>());
+        }
+        for (ServiceBinding binding: bindings) {
+            byLabel.computeIfAbsent(binding.getLabel(), k -> new ArrayList<>()).add(binding);
+            if (binding.getName() != null) {
+                byName.putIfAbsent(binding.getName(), binding);
+            }
+            for (String tag: binding.getTags()) {
+                byTag.computeIfAbsent(tag, k -> new ArrayList<>()).add(binding);
+            }
+        }
+    }
+
+    // Provide logger lazily to give logging backend time for initialization
+    private static Logger logger() {
+        return LoggerFactory.getLogger(ServiceBindings.class);
+    }
+
+    /**
+     * Provides the service bindings of the current process environment.
+     *
+     * @return the service bindings, empty if there are none
+     */
+    public static ServiceBindings getInstance() {
+        return of(new Environment());
+    }
+
+    /**
+     * Provides the service bindings of the given environment. Repeated calls with an unchanged environment return the
+     * same instance without parsing the bindings again.
+     *
+     * @param environment
+     *         the environment to read {@code VCAP_SERVICES} and {@code VCAP_SERVICES_FILE_PATH} from
+     * @return the service bindings, empty if there are none
+     */
+    public static ServiceBindings of(Environment environment) {
+        String vcapServicesJson = environment.getVariable(Environment.VCAP_SERRVICES);
+        String vcapServicesFilePath = environment.getVariable(Environment.VCAP_SERVICES_FILE_PATH);
+        if (vcapServicesFilePath != null) {
+            Memo current = memo;
+            String source = FILE_SOURCE_PREFIX + vcapServicesFilePath;
+            if (current != null && current.source.equals(source)) {
+                return current.bindings;
+            }
+            try {
+                String json = Files.readString(Paths.get(vcapServicesFilePath), StandardCharsets.UTF_8);
+                ServiceBindings bindings = parse(json);
+                memo = new Memo(source, bindings);
+                return bindings;
+            } catch (IOException cause) {
+                logger().warn("Cannot read service bindings from file \"{}\". Falling back to environment variable {}.",
+                              vcapServicesFilePath, Environment.VCAP_SERRVICES);
+            }
+        }
+        return fromJson(vcapServicesJson);
+    }
+
+    /**
+     * Provides the service bindings described by the given JSON document in the format of {@code VCAP_SERVICES}.
+     * Repeated calls with the same document return the same instance without parsing it again.
+     *
+     * @param vcapServicesJson
+     *         the JSON document, may be {@code null}
+     * @return the service bindings, empty if there are none
+     */
+    public static ServiceBindings fromJson(String vcapServicesJson) {
+        if (vcapServicesJson == null) {
+            return EMPTY;
+        }
+        Memo current = memo;
+        if (current != null && current.source.equals(vcapServicesJson)) {
+            return current.bindings;
+        }
+        ServiceBindings bindings = parse(vcapServicesJson);
+        memo = new Memo(vcapServicesJson, bindings);
+        return bindings;
+    }
+
+    private static ServiceBindings parse(String vcapServicesJson) {
+        Set<String> labels = new LinkedHashSet<>();
+        List<ServiceBinding> bindings = new ArrayList<>();
+        try (JsonParser parser = new JsonFactory().createParser(vcapServicesJson)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                logger().warn("Service bindings are not a JSON object.");
+                return EMPTY;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String label = parser.currentName();
+                labels.add(label);
+                if (parser.nextToken() == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        if (parser.currentToken() == JsonToken.START_OBJECT) {
+                            bindings.add(parseBinding(label, parser));
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } catch (IOException cause) {
+            logger().warn("Cannot parse service bindings.", cause);
+            return EMPTY;
+        }
+        return new ServiceBindings(labels, bindings);
+    }
+
+    private static ServiceBinding parseBinding(String label, JsonParser parser) throws IOException {
+        String name = null;
+        List<String> tags = new ArrayList<>();
+        Map<String, String> credentials = new HashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (SERVICE_NAME.equals(field) && value.isScalarValue()) {
+                name = parser.getValueAsString();
+            } else if (SERVICE_TAGS.equals(field) && value == JsonToken.START_ARRAY) {
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    String tag = parser.getValueAsString();
+                    if (tag != null && !tag.isBlank()) {
+                        tags.add(tag);
+                    }
+                    parser.skipChildren();
+                }
+            } else if (SERVICE_CREDENTIALS.equals(field) && value == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String key = parser.currentName();
+                    if (parser.nextToken().isScalarValue()) {
+                        credentials.put(key, parser.getValueAsString());
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return new ServiceBinding(label, name, tags, credentials);
+    }
+
+    /**
+     * @return all service bindings in the order of the document
+     */
+    public List<ServiceBinding> getAll() {
+        return bindings;
+    }
+
+    /**
+     * @param label
+     *         the service label, e.g. "application-logs"
+     * @return all service bindings with the given label, empty if there are none
+     */
+    public List<ServiceBinding> getByLabel(String label) {
+        return Collections.unmodifiableList(byLabel.getOrDefault(label, Collections.emptyList()));
+    }
+
+    /**
+     * @param name
+     *         the name of the service instance
+     * @return the first service binding with the given instance name
+     */
+    public Optional<ServiceBinding> getByName(String name) {
+        return Optional.ofNullable(byName.get(name));
+    }
+
+    /**
+     * @param tag
+     *         the service tag
+     * @return all service bindings having the given tag, empty if there are none
+     */
+    public List<ServiceBinding> getByTag(String tag) {
+        return Collections.unmodifiableList(byTag.getOrDefault(tag, Collections.emptyList()));
+    }
+
+    /**
+     * @param label
+     *         the service label, e.g. "application-logs"
+     * @return {@code true}, if there is a binding with the given label, {@code false} otherwise
+     */
+    public boolean hasLabel(String label) {
+        return byLabel.containsKey(label);
+    }
+
+    public boolean isEmpty() {
+        return byLabel.isEmpty();
+    }
+
+    public static class ServiceBinding {
+
+        private final String label;
+        private final String name;
+        private final List<String> tags;
+        private final Map<String, String> credentials;
+
+        private ServiceBinding(String label, String name, List<String> tags, Map<String, String> credentials) {
+            this.label = label;
+            this.name = name;
+            this.tags = Collections.unmodifiableList(tags);
+            this.credentials = Collections.unmodifiableMap(credentials);
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public List<String> getTags() {
+            return tags;
+        }
+
+        /**
+         * @return the scalar values of the credentials, nested objects are omitted
+         */
+        public Map<String, String> getCredentials() {
+            return credentials;
+        }
+
+    }
+
+    private static class Memo {
+
+        private final String source;
+        private final ServiceBindings bindings;
+
+        private Memo(String source, ServiceBindings bindings) {
+            this.source = source;
+            this.bindings = bindings;
+        }
+    }
+}
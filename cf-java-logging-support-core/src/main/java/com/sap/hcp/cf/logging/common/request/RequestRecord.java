@@ -4,10 +4,12 @@ import com.fasterxml.jackson.jr.ob.JSON;
 import com.fasterxml.jackson.jr.ob.JSONComposer;
 import com.fasterxml.jackson.jr.ob.comp.ObjectComposer;
 import com.sap.hcp.cf.logging.common.*;
+import com.sap.hcp.cf.logging.common.serialization.FieldSink;
+import com.sap.hcp.cf.logging.common.serialization.FormattedTimestamp;
 import org.slf4j.MDC;
 
+import java.lang.ref.WeakReference;
 import java.time.Clock;
-import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
 import java.util.Map.Entry;
@@ -27,6 +29,18 @@ import java.util.Map.Entry;
  * instance was created and the first call to {@link #toString()}</li>
  * </ul>
  * <p>
+ * The well-known request fields of {@link Fields} are kept in fixed slots with primitive values. Only fields with other
+ * keys are stored in a map. {@link #writeFields(FieldSink)} passes the fields to the serialization without creating
+ * {@link Value} instances.
+ * <p>
+ * The response time is measured with the monotonic {@link System#nanoTime()}. The wall-clock time is read once at the
+ * start of the request. The timestamps of the request and response are derived from it and are formatted only when the
+ * record is serialized.
+ * <p>
+ * Request logs used to be written by logging the result of {@link #toString()} as message. The last rendered instance
+ * of each thread is remembered, so that {@link #writeRenderedFields(String, FieldSink)} can pass its fields to the
+ * serialization instead of parsing the message again.
+ * <p>
  * May "inherit" tags from other instances created in the same thread
  * (hierarchy) via (context) propagation, see
  * {@link RequestRecord#addContextTag(String, String)} Such context information
@@ -38,22 +52,68 @@ public class RequestRecord {
     /*
      * -- default values for request fields that are marked as "required"
      */
-    @SuppressWarnings("serial")
-    private static Map<String, String> REQ_DEFAULTS = new HashMap<String, String>() {
-        {
-            put(Fields.REQUEST, Defaults.UNKNOWN);
-            put(Fields.PROTOCOL, Defaults.UNKNOWN);
-            put(Fields.METHOD, Defaults.UNKNOWN);
-            put(Fields.REMOTE_IP, Defaults.UNKNOWN);
-            put(Fields.REMOTE_HOST, Defaults.UNKNOWN);
-            put(Fields.RESPONSE_CONTENT_TYPE, Defaults.UNKNOWN);
+    private static final String[] REQ_DEFAULT_TAGS = { Fields.REQUEST, Fields.PROTOCOL, Fields.METHOD,
+                                                       Fields.REMOTE_IP, Fields.REMOTE_HOST,
+                                                       Fields.RESPONSE_CONTENT_TYPE };
+
+    /*
+     * -- well-known request fields, that are stored in fixed slots instead of a map
+     */
+    private static final String[] SLOT_KEYS = { Fields.LAYER, Fields.DIRECTION, Fields.REQUEST, Fields.METHOD,
+                                                Fields.PROTOCOL, Fields.REMOTE_IP, Fields.REMOTE_HOST,
+                                                Fields.REMOTE_PORT, Fields.REMOTE_USER, Fields.REFERER,
+                                                Fields.X_CUSTOM_HOST, Fields.X_FORWARDED_FOR, Fields.X_FORWARDED_HOST,
+                                                Fields.X_FORWARDED_PROTO, Fields.X_SSL_CLIENT,
+                                                Fields.X_SSL_CLIENT_VERIFY, Fields.X_SSL_CLIENT_SUBJECT_DN,
+                                                Fields.X_SSL_CLIENT_SUBJECT_CN, Fields.X_SSL_CLIENT_ISSUER_DN,
+                                                Fields.X_SSL_CLIENT_NOTBEFORE, Fields.X_SSL_CLIENT_NOTAFTER,
+                                                Fields.X_SSL_CLIENT_SESSION_ID, Fields.REQUEST_SIZE_B,
+                                                Fields.RESPONSE_SIZE_B, Fields.RESPONSE_STATUS,
+                                                Fields.RESPONSE_CONTENT_TYPE, Fields.RESPONSE_TIME_MS,
+                                                Fields.REQUEST_RECEIVED_AT, Fields.REQUEST_SENT_AT,
+                                                Fields.RESPONSE_SENT_AT, Fields.RESPONSE_RECEIVED_AT };
+    private static final Map<String, Integer> SLOTS = new HashMap<>(SLOT_KEYS.length * 2);
+
+    static {
+        for (int i = 0; i < SLOT_KEYS.length; i++) {
+            SLOTS.put(SLOT_KEYS[i], i);
         }
-    };
-    private final Map<String, Value> fields = new HashMap<String, Value>();
-    private final Set<String> ctxFields = new HashSet<String>();
-    private Instant start;
-    private Instant end;
+    }
+
+    private static final int RESPONSE_TIME_SLOT = SLOTS.get(Fields.RESPONSE_TIME_MS);
+    private static final int REQUEST_RECEIVED_AT_SLOT = SLOTS.get(Fields.REQUEST_RECEIVED_AT);
+    private static final int REQUEST_SENT_AT_SLOT = SLOTS.get(Fields.REQUEST_SENT_AT);
+    private static final int RESPONSE_SENT_AT_SLOT = SLOTS.get(Fields.RESPONSE_SENT_AT);
+    private static final int RESPONSE_RECEIVED_AT_SLOT = SLOTS.get(Fields.RESPONSE_RECEIVED_AT);
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    private static final byte EMPTY = 0;
+    private static final byte TAG = 1;
+    private static final byte LONG = 2;
+    private static final byte DOUBLE = 3;
+    private static final byte VALUE = 4;
+    private static final byte TIMESTAMP = 5;
+
+    private static final ThreadLocal<WeakReference<RequestRecord>> LAST_RENDERED = new ThreadLocal<>();
+
+    private final byte[] types = new byte[SLOT_KEYS.length];
+    private final String[] tags = new String[SLOT_KEYS.length];
+    private final long[] longs = new long[SLOT_KEYS.length];
+    private final double[] doubles = new double[SLOT_KEYS.length];
+    private Value[] values;
+    private Map<String, Value> customFields;
+    private Set<String> ctxFields;
+    private long startEpochNanos;
+    private long startNanoTime;
+    private long endNanoTime;
+    private boolean stopped;
+    private boolean responseTimeMeasured;
     private Direction direction = Direction.IN;
+    private int modifications;
+    private String rendered;
+    private int renderedModifications;
+
     /**
      * Creates a new instance that is tagged with the specified layer key. <br> Implicitly sets defaults and the start
      * time to "now" and direction to "IN".
@@ -95,11 +155,33 @@ public class RequestRecord {
      * @return the former value stored for key (maybe <code>null</code>)
      */
     public Value addValue(String key, Value value) {
-        if (key != null && value != null) {
-            return fields.put(key, value);
-        } else {
+        if (key == null || value == null) {
             return null;
         }
+        modifications++;
+        Integer slot = SLOTS.get(key);
+        if (slot == null) {
+            return getCustomFields().put(key, value);
+        }
+        if (slot == RESPONSE_TIME_SLOT) {
+            responseTimeMeasured = false;
+        }
+        Value oldValue = getValue(slot);
+        Class<?> valueClass = value.getClass();
+        if (valueClass == LongValue.class) {
+            setLong(slot, value.asLong());
+        } else if (valueClass == DoubleValue.class) {
+            setDouble(slot, value.asDouble());
+        } else if (valueClass == StringValue.class && value.asString() != null) {
+            setTag(slot, value.asString());
+        } else {
+            if (values == null) {
+                values = new Value[SLOT_KEYS.length];
+            }
+            types[slot] = VALUE;
+            values[slot] = value;
+        }
+        return oldValue;
     }
 
     /**
@@ -114,10 +196,19 @@ public class RequestRecord {
     public String addTag(String key, String tag) {
         if (key == null || tag == null) {
             return null;
-        } else {
-            Value oldValue = fields.put(key, new StringValue(tag));
+        }
+        modifications++;
+        Integer slot = SLOTS.get(key);
+        if (slot == null) {
+            Value oldValue = getCustomFields().put(key, new StringValue(tag));
             return oldValue != null ? oldValue.asString() : null;
         }
+        if (slot == RESPONSE_TIME_SLOT) {
+            responseTimeMeasured = false;
+        }
+        String oldTag = types[slot] == TAG ? tags[slot] : asString(getValue(slot));
+        setTag(slot, tag);
+        return oldTag;
     }
 
     /**
@@ -135,6 +226,9 @@ public class RequestRecord {
         if (key == null || tag == null) {
             return null;
         } else {
+            if (ctxFields == null) {
+                ctxFields = new HashSet<>();
+            }
             ctxFields.add(key);
             return LogContext.add(key, tag);
         }
@@ -142,10 +236,12 @@ public class RequestRecord {
 
     public void resetContext() {
         LogContext.resetContextFields();
-        for (String ctxField: ctxFields) {
-            LogContext.remove(ctxField);
+        if (ctxFields != null) {
+            for (String ctxField: ctxFields) {
+                LogContext.remove(ctxField);
+            }
+            ctxFields.clear();
         }
-        ctxFields.clear();
     }
 
     /**
@@ -156,8 +252,10 @@ public class RequestRecord {
      * @return the assigned start time.
      */
     public long start() {
-        start = Instant.now(ClockHolder.getInstance());
-        return start.toEpochMilli();
+        Instant now = Instant.now(ClockHolder.getInstance());
+        startNanoTime = ClockHolder.nanoTime();
+        startEpochNanos = now.getEpochSecond() * NANOS_PER_SECOND + now.getNano();
+        return Math.floorDiv(startEpochNanos, NANOS_PER_MILLI);
     }
 
     /**
@@ -166,8 +264,9 @@ public class RequestRecord {
      * @return the assigned end time.
      */
     public long stop() {
-        end = Instant.now(ClockHolder.getInstance());
-        return end.toEpochMilli();
+        endNanoTime = ClockHolder.nanoTime();
+        stopped = true;
+        return Math.floorDiv(startEpochNanos + endNanoTime - startNanoTime, NANOS_PER_MILLI);
     }
 
     @Override
@@ -179,27 +278,205 @@ public class RequestRecord {
         try {
             JSONComposer<String> jc = JSON.std.composeString();
             ObjectComposer<JSONComposer<String>> oc = jc.startObject();
-            for (Entry<String, Value> value: fields.entrySet()) {
-                oc.putObject(value.getKey(), value.getValue().getValue());
+            for (int slot = 0; slot < SLOT_KEYS.length; slot++) {
+                switch (types[slot]) {
+                case TAG:
+                    oc.put(SLOT_KEYS[slot], tags[slot]);
+                    break;
+                case LONG:
+                    oc.put(SLOT_KEYS[slot], longs[slot]);
+                    break;
+                case DOUBLE:
+                    oc.put(SLOT_KEYS[slot], doubles[slot]);
+                    break;
+                case VALUE:
+                    oc.putObject(SLOT_KEYS[slot], values[slot].getValue());
+                    break;
+                case TIMESTAMP:
+                    oc.put(SLOT_KEYS[slot], getTimestamp(slot).toString());
+                    break;
+                default:
+                }
+            }
+            if (customFields != null) {
+                for (Entry<String, Value> value: customFields.entrySet()) {
+                    oc.putObject(value.getKey(), value.getValue().getValue());
+                }
             }
-            return oc.end().finish();
+            String json = oc.end().finish();
+            rendered = json;
+            renderedModifications = modifications;
+            LAST_RENDERED.set(new WeakReference<>(this));
+            return json;
         } catch (Exception ex) {
             return "{}";
         }
     }
 
+    /**
+     * Returns the fields of this record. The map is a snapshot taken by this call: later changes of the record are not
+     * visible in it.
+     *
+     * @return an unmodifiable copy of the current fields
+     */
     public Map<String, Value> getFields() {
         finish();
+        Map<String, Value> fields = new LinkedHashMap<>();
+        for (int slot = 0; slot < SLOT_KEYS.length; slot++) {
+            if (types[slot] != EMPTY) {
+                fields.put(SLOT_KEYS[slot], getValue(slot));
+            }
+        }
+        if (customFields != null) {
+            fields.putAll(customFields);
+        }
         return Collections.unmodifiableMap(fields);
     }
 
+    /**
+     * Writes all fields of this record into the sink. In contrast to {@link #getFields()} the values are passed without
+     * creating {@link Value} instances or an intermediate map. The sink receives the same values as returned by
+     * {@link Value#getValue()}.
+     *
+     * @param sink
+     *         the receiver of the fields
+     */
+    public void writeFields(FieldSink sink) {
+        finish();
+        writeSlotsAndCustomFields(sink);
+    }
+
+    /**
+     * Writes the fields of the request record, that was rendered into the given message by {@link #toString()}. This
+     * works only, if the message is the last one rendered by the current thread and the record was not modified since.
+     *
+     * @param message
+     *         the formatted log message
+     * @param sink
+     *         the receiver of the fields
+     * @return {@code true}, if the fields were written, {@code false} if the message needs to be parsed
+     */
+    public static boolean writeRenderedFields(String message, FieldSink sink) {
+        WeakReference<RequestRecord> reference = LAST_RENDERED.get();
+        RequestRecord record = reference != null ? reference.get() : null;
+        if (message == null || record == null || !record.isRenderedAs(message)) {
+            return false;
+        }
+        // the fields were finished during rendering and the record was not modified since
+        record.writeSlotsAndCustomFields(sink);
+        return true;
+    }
+
+    private boolean isRenderedAs(String message) {
+        return renderedModifications == modifications && message.equals(rendered);
+    }
+
+    private void writeSlotsAndCustomFields(FieldSink sink) {
+        for (int slot = 0; slot < SLOT_KEYS.length; slot++) {
+            switch (types[slot]) {
+            case TAG:
+                sink.put(SLOT_KEYS[slot], tags[slot]);
+                break;
+            case LONG:
+                sink.put(SLOT_KEYS[slot], longs[slot]);
+                break;
+            case DOUBLE:
+                sink.put(SLOT_KEYS[slot], doubles[slot]);
+                break;
+            case VALUE:
+                sink.put(SLOT_KEYS[slot], values[slot].getValue());
+                break;
+            case TIMESTAMP:
+                sink.put(SLOT_KEYS[slot], getTimestamp(slot));
+                break;
+            default:
+            }
+        }
+        if (customFields != null) {
+            for (Entry<String, Value> field: customFields.entrySet()) {
+                sink.put(field.getKey(), field.getValue().getValue());
+            }
+        }
+    }
+
+    private Map<String, Value> getCustomFields() {
+        if (customFields == null) {
+            customFields = new HashMap<>();
+        }
+        return customFields;
+    }
+
+    private Value getValue(int slot) {
+        switch (types[slot]) {
+        case TAG:
+            return new StringValue(tags[slot]);
+        case LONG:
+            return new LongValue(longs[slot]);
+        case DOUBLE:
+            return new DoubleValue(doubles[slot]);
+        case VALUE:
+            return values[slot];
+        case TIMESTAMP:
+            return new StringValue(getTimestamp(slot).toString());
+        default:
+            return null;
+        }
+    }
+
+    private FormattedTimestamp getTimestamp(int slot) {
+        long epochNanos = longs[slot];
+        return FormattedTimestamp.iso(Math.floorDiv(epochNanos, NANOS_PER_SECOND),
+                                      (int) Math.floorMod(epochNanos, NANOS_PER_SECOND));
+    }
+
+    private static String asString(Value value) {
+        return value != null ? value.asString() : null;
+    }
+
+    private void setTag(int slot, String tag) {
+        types[slot] = TAG;
+        tags[slot] = tag;
+        clearValue(slot);
+    }
+
+    private void setLong(int slot, long value) {
+        types[slot] = LONG;
+        longs[slot] = value;
+        tags[slot] = null;
+        clearValue(slot);
+    }
+
+    private void setDouble(int slot, double value) {
+        types[slot] = DOUBLE;
+        doubles[slot] = value;
+        tags[slot] = null;
+        clearValue(slot);
+    }
+
+    private void setTimestamp(int slot, long epochNanos) {
+        if (types[slot] == TIMESTAMP && longs[slot] == epochNanos) {
+            return;
+        }
+        modifications++;
+        types[slot] = TIMESTAMP;
+        longs[slot] = epochNanos;
+        tags[slot] = null;
+        clearValue(slot);
+    }
+
+    private void clearValue(int slot) {
+        if (values != null) {
+            values[slot] = null;
+        }
+    }
+
     private void setDefaults() {
         LogContext.loadContextFields();
         addValue(Fields.RESPONSE_SIZE_B, Defaults.RESPONSE_SIZE_B);
         addValue(Fields.REQUEST_SIZE_B, Defaults.REQUEST_SIZE_B);
         addValue(Fields.RESPONSE_STATUS, Defaults.STATUS);
-        for (Entry<String, String> tag: REQ_DEFAULTS.entrySet()) {
-            addTag(tag.getKey(), tag.getValue());
+        for (String tag: REQ_DEFAULT_TAGS) {
+            addTag(tag, Defaults.UNKNOWN);
         }
     }
 
@@ -209,47 +486,42 @@ public class RequestRecord {
          * response_time_ms has been explicitly set, we're done -- If not, make
          * sure, we stopped the timer and then compute the delta
          */
-        if (!fields.containsKey(Fields.RESPONSE_TIME_MS)) {
-            if (end == null) {
+        long endEpochNanos;
+        if (types[RESPONSE_TIME_SLOT] == EMPTY || responseTimeMeasured) {
+            if (!stopped) {
                 stop();
             }
-            setEndTimingTag(end.toString());
-            addValue(Fields.RESPONSE_TIME_MS, new DoubleValue(Duration.between(start, end).toNanos() / 1_000_000.0));
+            long elapsedNanos = endNanoTime - startNanoTime;
+            endEpochNanos = startEpochNanos + elapsedNanos;
+            double responseTime = elapsedNanos / (double) NANOS_PER_MILLI;
+            if (types[RESPONSE_TIME_SLOT] != DOUBLE || doubles[RESPONSE_TIME_SLOT] != responseTime) {
+                modifications++;
+                setDouble(RESPONSE_TIME_SLOT, responseTime);
+            }
+            responseTimeMeasured = true;
         } else {
-            Value respTime = fields.get(Fields.RESPONSE_TIME_MS);
-            if (respTime != null) {
-                long delta = 0;
+            long delta = 0;
+            if (types[RESPONSE_TIME_SLOT] == DOUBLE) {
+                delta = (long) doubles[RESPONSE_TIME_SLOT];
+            } else if (types[RESPONSE_TIME_SLOT] == LONG) {
+                delta = longs[RESPONSE_TIME_SLOT];
+            } else if (types[RESPONSE_TIME_SLOT] == VALUE) {
+                Value respTime = values[RESPONSE_TIME_SLOT];
                 if (DoubleValue.class.isAssignableFrom(respTime.getClass())) {
                     delta = ((Double) respTime.getValue()).longValue();
                 } else if (LongValue.class.isAssignableFrom(respTime.getClass())) {
                     delta = ((Long) respTime.getValue()).longValue();
                 }
-                setEndTimingTag(start.plusMillis(delta).toString());
             }
+            endEpochNanos = startEpochNanos + delta * NANOS_PER_MILLI;
         }
-        setStartTimingTag(start.toString());
-    }
-
-    private void setStartTimingTag(String dateValue) {
-        String tag;
         if (direction == Direction.IN) {
-            tag = Fields.REQUEST_RECEIVED_AT;
+            setTimestamp(REQUEST_RECEIVED_AT_SLOT, startEpochNanos);
+            setTimestamp(RESPONSE_SENT_AT_SLOT, endEpochNanos);
         } else {
-            tag = Fields.REQUEST_SENT_AT;
+            setTimestamp(REQUEST_SENT_AT_SLOT, startEpochNanos);
+            setTimestamp(RESPONSE_RECEIVED_AT_SLOT, endEpochNanos);
         }
-        addTag(tag, dateValue);
-
-    }
-
-    private void setEndTimingTag(String dateValue) {
-        String tag;
-        if (direction == Direction.IN) {
-            tag = Fields.RESPONSE_SENT_AT;
-        } else {
-            tag = Fields.RESPONSE_RECEIVED_AT;
-        }
-        addTag(tag, dateValue);
-
     }
 
     public enum Direction {
@@ -257,10 +529,24 @@ public class RequestRecord {
     }
 
     static class ClockHolder {
-        static Clock instance = Clock.systemUTC();
+        private static final Clock SYSTEM_CLOCK = Clock.systemUTC();
+
+        static Clock instance = SYSTEM_CLOCK;
 
         public static Clock getInstance() {
             return ClockHolder.instance;
         }
+
+        /*
+         * -- replaced clocks in tests provide the elapsed time as well
+         */
+        static long nanoTime() {
+            Clock clock = instance;
+            if (clock == SYSTEM_CLOCK) {
+                return System.nanoTime();
+            }
+            Instant now = clock.instant();
+            return now.getEpochSecond() * NANOS_PER_SECOND + now.getNano();
+        }
     }
 }
@@ -0,0 +1,333 @@
+package com.sap.hcp.cf.logging.common.sampling;
+
+import com.sap.hcp.cf.logging.common.Fields;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Detects bursts of identical log events. Events are identical, if they share the logger, the level and the
+ * unformatted message template. The first event of a burst is written. Repetitions within the time window are
+ * suppressed and counted. When the window closes, the repetitions are summarized by one {@link Repeats} instance,
+ * that the backends turn into a synthetic event carrying the {@link Fields#REPEAT_COUNT} and the timestamps of the
+ * first and last repetition.
+ * <p>
+ * The first event of a template is only remembered by a hash of logger, level and template, so that events, that are
+ * not repeated, allocate nothing. A {@link Repeats} instance is created with the first repetition. In the rare case of
+ * a hash collision within the window, the first event of the other template is already counted as repetition. It is
+ * still written as summary, when the window closes.
+ * <p>
+ * The bursts are kept in a fixed number of buckets without locking, so that the memory stays bounded. Each bucket
+ * tracks two bursts. A burst is never displaced before its window closes. Events of a third template in a full bucket
+ * are written without suppression. Repetitions recorded concurrently with the summary of their burst can be lost from
+ * the count.
+ * <p>
+ * Closed bursts are summarized by the next event after the window or by a periodic sweep, that runs between
+ * {@link #start()} and {@link #stop()}. Without the sweep, the summary of the last burst waits for further events.
+ *
+ * @param <T>
+ *         the backend specific sample of a suppressed event, that is used for the summary
+ */
+public class DuplicateSuppressor<T> {
+
+    public static final long DEFAULT_WINDOW_MILLIS = 1000;
+
+    private static final int BUCKETS = 512;
+    private static final int WAYS = 2;
+    private static final long NO_CANDIDATE = 0;
+
+    private final long windowMillis;
+    private final Consumer<Repeats<T>> summaries;
+    private final LongSupplier clock;
+    private final AtomicReferenceArray<Repeats<T>> bursts = new AtomicReferenceArray<>(BUCKETS * WAYS);
+    private final AtomicLongArray candidates = new AtomicLongArray(BUCKETS * WAYS);
+    private final AtomicLong nextSweep;
+    private ScheduledExecutorService sweeper;
+
+    /**
+     * @param windowMillis
+     *         the length of the time window in milliseconds, must be positive and fit into an int
+     * @param summaries
+     *         receives the summaries of closed bursts
+     */
+    public DuplicateSuppressor(long windowMillis, Consumer<Repeats<T>> summaries) {
+        this(windowMillis, summaries, System::currentTimeMillis);
+    }
+
+    DuplicateSuppressor(long windowMillis, Consumer<Repeats<T>> summaries, LongSupplier clock) {
+        if (windowMillis <= 0 || windowMillis > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                    "Suppression window must be between 1 and " + Integer.MAX_VALUE + " but was " + windowMillis +
+                    ".");
+        }
+        this.windowMillis = windowMillis;
+        this.summaries = summaries;
+        this.clock = clock;
+        this.nextSweep = new AtomicLong(clock.getAsLong() + windowMillis);
+    }
+
+    /**
+     * Starts the periodic sweep, that summarizes closed bursts once per window, even if no further events are logged.
+     */
+    public synchronized void start() {
+        if (sweeper != null) {
+            return;
+        }
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "DuplicateSuppressor-Sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleAtFixedRate(this::sweepQuietly, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the periodic sweep. Pending bursts are kept, they can be summarized with {@link #flush()}.
+     */
+    public synchronized void stop() {
+        if (sweeper != null) {
+            sweeper.shutdown();
+            sweeper = null;
+        }
+    }
+
+    /**
+     * Records an event and decides, whether it is a repetition, that should be suppressed. Summaries of bursts, whose
+     * window has closed, are handed to the consumer before the method returns. Bursts of other templates are checked
+     * at most once per window.
+     * <p>
+     * A suppressed event may be needed as sample of the summary. The caller provides it, if
+     * {@link Repeats#needsSample()} is {@code true}, so that no sample is created for the following repetitions.
+     *
+     * @param loggerName
+     *         the name of the logger
+     * @param level
+     *         the name of the level
+     * @param template
+     *         the unformatted message template
+     * @return the burst, if the event should be suppressed, {@code null}, if it should be written
+     */
+    public Repeats<T> suppress(String loggerName, String level, String template) {
+        long now = clock.getAsLong();
+        sweepIfDue(now);
+        int hash = (loggerName.hashCode() * 31 + level.hashCode()) * 31 + template.hashCode();
+        int first = ((hash ^ (hash >>> 16)) & (BUCKETS - 1)) * WAYS;
+        while (true) {
+            Repeats<T> burst = findBurst(first, loggerName, level, template, now);
+            if (burst != null) {
+                burst.record(now);
+                return burst;
+            }
+            int index = findCandidate(first, hash, now);
+            if (index < 0) {
+                addCandidate(first, hash, now);
+                return null;
+            }
+            long candidate = candidates.getAndSet(index, NO_CANDIDATE);
+            if (isCandidate(candidate, hash, now)) {
+                long windowEnd = now + ((int) candidate - (int) now);
+                return track(first, new Repeats<>(loggerName, level, template, now, windowEnd), now);
+            }
+            // another repetition took the candidate and starts tracking the burst
+        }
+    }
+
+    private Repeats<T> findBurst(int first, String loggerName, String level, String template, long now) {
+        for (int i = first; i < first + WAYS; i++) {
+            Repeats<T> current = bursts.get(i);
+            if (current != null && current.matches(loggerName, level, template)) {
+                if (now < current.windowEnd) {
+                    return current;
+                }
+                if (bursts.compareAndSet(i, current, null)) {
+                    summarize(current);
+                }
+            }
+        }
+        return null;
+    }
+
+    private int findCandidate(int first, int hash, long now) {
+        for (int i = first; i < first + WAYS; i++) {
+            if (isCandidate(candidates.get(i), hash, now)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isCandidate(long candidate, int hash, long now) {
+        return (int) (candidate >>> 32) == hash && isOpen(candidate, now);
+    }
+
+    private static boolean isOpen(long candidate, long now) {
+        return candidate != NO_CANDIDATE && (int) candidate - (int) now > 0;
+    }
+
+    private void addCandidate(int first, int hash, long now) {
+        int index = first;
+        long current = candidates.get(index);
+        if (isOpen(current, now)) {
+            long other = candidates.get(first + 1);
+            if (!isOpen(other, now) || (int) other - (int) current < 0) {
+                index = first + 1;
+                current = other;
+            }
+        }
+        long candidate = (long) hash << 32 | ((now + windowMillis) & 0xFFFFFFFFL);
+        candidates.compareAndSet(index, current, candidate);
+    }
+
+    private Repeats<T> track(int first, Repeats<T> repeats, long now) {
+        for (int i = first; i < first + WAYS; i++) {
+            Repeats<T> current = bursts.get(i);
+            if ((current == null || now >= current.windowEnd) && bursts.compareAndSet(i, current, repeats)) {
+                summarize(current);
+                return repeats;
+            }
+        }
+        // both bursts of the bucket are still open, the event is written untracked
+        return null;
+    }
+
+    private void sweepIfDue(long now) {
+        long next = nextSweep.get();
+        if (now >= next && nextSweep.compareAndSet(next, now + windowMillis)) {
+            sweep(now);
+        }
+    }
+
+    private void sweepQuietly() {
+        try {
+            sweep(clock.getAsLong());
+        } catch (RuntimeException ignored) {
+            // the summary is lost, but the following sweeps must continue
+        }
+    }
+
+    private void sweep(long now) {
+        for (int i = 0; i < bursts.length(); i++) {
+            Repeats<T> current = bursts.get(i);
+            if (current != null && now >= current.windowEnd && bursts.compareAndSet(i, current, null)) {
+                summarize(current);
+            }
+        }
+    }
+
+    /**
+     * Summarizes all bursts, that contain suppressed repetitions, regardless of their window. This is used, when the
+     * filter is stopped.
+     */
+    public void flush() {
+        for (int i = 0; i < bursts.length(); i++) {
+            summarize(bursts.getAndSet(i, null));
+        }
+    }
+
+    private void summarize(Repeats<T> repeats) {
+        if (repeats != null && repeats.getSample() != null) {
+            summaries.accept(repeats);
+        }
+    }
+
+    /**
+     * The suppressed repetitions of one burst.
+     *
+     * @param <T>
+     *         the backend specific sample of a suppressed event
+     */
+    public static final class Repeats<T> {
+
+        private final String loggerName;
+        private final String level;
+        private final String template;
+        private final long windowEnd;
+        private final long firstTimestamp;
+        private final AtomicReference<T> sample = new AtomicReference<>();
+        private final AtomicLong lastTimestamp;
+        private final AtomicLong count = new AtomicLong(1);
+
+        private Repeats(String loggerName, String level, String template, long firstTimestamp, long windowEnd) {
+            this.loggerName = loggerName;
+            this.level = level;
+            this.template = template;
+            this.windowEnd = windowEnd;
+            this.firstTimestamp = firstTimestamp;
+            this.lastTimestamp = new AtomicLong(firstTimestamp);
+        }
+
+        private boolean matches(String loggerName, String level, String template) {
+            return this.template.equals(template) && this.loggerName.equals(loggerName) && this.level.equals(level);
+        }
+
+        private void record(long timestamp) {
+            lastTimestamp.accumulateAndGet(timestamp, Math::max);
+            count.incrementAndGet();
+        }
+
+        /**
+         * @return {@code true}, if the burst has no sample yet
+         */
+        public boolean needsSample() {
+            return sample.get() == null;
+        }
+
+        /**
+         * Sets the sample of the burst, unless another repetition provided it already.
+         *
+         * @param sample
+         *         the sample of a suppressed repetition
+         */
+        public void setSample(T sample) {
+            this.sample.compareAndSet(null, sample);
+        }
+
+        /**
+         * @return the sample of the first suppressed repetition
+         */
+        public T getSample() {
+            return sample.get();
+        }
+
+        public long getRepeatCount() {
+            return count.get();
+        }
+
+        /**
+         * @return the time of the first suppressed repetition in milliseconds since epoch
+         */
+        public long getFirstTimestamp() {
+            return firstTimestamp;
+        }
+
+        /**
+         * @return the time of the last suppressed repetition in milliseconds since epoch
+         */
+        public long getLastTimestamp() {
+            return lastTimestamp.get();
+        }
+
+        /**
+         * Adds the {@link Fields#REPEAT_COUNT}, {@link Fields#FIRST_REPEAT_AT} and {@link Fields#LAST_REPEAT_AT} to the
+         * context fields of the summary.
+         *
+         * @param contextFields
+         *         the context fields of the summary
+         */
+        public void addFields(Map<String, String> contextFields) {
+            contextFields.put(Fields.REPEAT_COUNT, Long.toString(getRepeatCount()));
+            contextFields.put(Fields.FIRST_REPEAT_AT, Instant.ofEpochMilli(getFirstTimestamp()).toString());
+            contextFields.put(Fields.LAST_REPEAT_AT, Instant.ofEpochMilli(getLastTimestamp()).toString());
+        }
+    }
+
+}
@@ -0,0 +1,176 @@
+package com.sap.hcp.cf.logging.common.sampling;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits the number of log events per logger prefix and level with {@link SamplingBudget budgets}. Each budget has its
+ * own lock-free token bucket. An event is checked against the budget with the longest matching prefix, that applies to
+ * its level. For equal prefixes a budget for the level of the event wins over a budget for all levels. Events without a
+ * matching budget are never dropped.
+ * <p>
+ * The sampler is independent of the logging framework. The filters of the backends ask it before the message is
+ * formatted, so that dropped events cost no formatting, encoding or shipping. The counts of dropped events are reported
+ * at most once per summary interval by the next event. Between {@link #start(BiConsumer)} and {@link #stop()} a timer
+ * reports them as well, so that the counts of the last interval do not wait for further events.
+ */
+public class LogSampler {
+
+    public static final long DEFAULT_SUMMARY_INTERVAL_SECONDS = 60;
+
+    private static final TokenBucket[] NO_BUCKETS = new TokenBucket[0];
+    private static final int MAX_CACHED_LOGGERS = 10_000;
+
+    private final List<TokenBucket> buckets;
+    private final ConcurrentMap<String, TokenBucket[]> bucketsByLogger = new ConcurrentHashMap<>();
+    private final long summaryIntervalNanos;
+    private final AtomicLong nextSummaryNanos;
+    private final LongSupplier nanoClock;
+    private ScheduledExecutorService timer;
+
+    /**
+     * @param budgets
+     *         the budgets to enforce
+     * @param summaryIntervalSeconds
+     *         the minimum time between two reports of dropped events
+     */
+    public LogSampler(List<SamplingBudget> budgets, long summaryIntervalSeconds) {
+        this(budgets, summaryIntervalSeconds, System::nanoTime);
+    }
+
+    LogSampler(List<SamplingBudget> budgets, long summaryIntervalSeconds, LongSupplier nanoClock) {
+        long now = nanoClock.getAsLong();
+        List<TokenBucket> buckets = new ArrayList<>(budgets.size());
+        for (SamplingBudget budget: budgets) {
+            buckets.add(new TokenBucket(budget, now));
+        }
+        buckets.sort(Comparator.comparingInt((TokenBucket b) -> b.getBudget().getPrefix().length()).reversed()
+                               .thenComparing(b -> b.getBudget().getLevel() == null));
+        this.buckets = buckets;
+        this.summaryIntervalNanos = TimeUnit.SECONDS.toNanos(summaryIntervalSeconds);
+        this.nextSummaryNanos = new AtomicLong(now + summaryIntervalNanos);
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Starts the timer, that reports the dropped events once per summary interval. Without summary interval, the
+     * dropped events are reported with every event and no timer is started.
+     *
+     * @param reporter
+     *         receives each budget with dropped events and the number of dropped events
+     */
+    public synchronized void start(BiConsumer<SamplingBudget, Long> reporter) {
+        if (timer != null || summaryIntervalNanos <= 0) {
+            return;
+        }
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "LogSampler-Reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleAtFixedRate(() -> reportQuietly(reporter), summaryIntervalNanos, summaryIntervalNanos,
+                                  TimeUnit.NANOSECONDS);
+    }
+
+    private void reportQuietly(BiConsumer<SamplingBudget, Long> reporter) {
+        try {
+            reportDroppedIfDue(reporter);
+        } catch (RuntimeException ignored) {
+            // the report is lost, but the following reports must continue
+        }
+    }
+
+    /**
+     * Stops the timer. The counts since the last report can still be reported with
+     * {@link #reportDropped(BiConsumer)}.
+     */
+    public synchronized void stop() {
+        if (timer != null) {
+            timer.shutdown();
+            timer = null;
+        }
+    }
+
+    /**
+     * Takes a token from the budget of the logger and level.
+     *
+     * @param loggerName
+     *         the name of the logger
+     * @param level
+     *         the name of the level, e.g. {@code DEBUG}
+     * @return {@code true}, if the event can be written, {@code false}, if it should be dropped
+     */
+    public boolean tryAcquire(String loggerName, String level) {
+        for (TokenBucket bucket: getBuckets(loggerName)) {
+            if (bucket.getBudget().matchesLevel(level)) {
+                return bucket.tryAcquire(nanoClock.getAsLong());
+            }
+        }
+        return true;
+    }
+
+    private TokenBucket[] getBuckets(String loggerName) {
+        TokenBucket[] matching = bucketsByLogger.get(loggerName);
+        if (matching == null) {
+            matching = findBuckets(loggerName);
+            if (bucketsByLogger.size() < MAX_CACHED_LOGGERS) {
+                bucketsByLogger.putIfAbsent(loggerName, matching);
+            }
+        }
+        return matching;
+    }
+
+    private TokenBucket[] findBuckets(String loggerName) {
+        List<TokenBucket> matching = new ArrayList<>();
+        for (TokenBucket bucket: buckets) {
+            if (bucket.getBudget().matches(loggerName)) {
+                matching.add(bucket);
+            }
+        }
+        return matching.isEmpty() ? NO_BUCKETS : matching.toArray(NO_BUCKETS);
+    }
+
+    /**
+     * Reports the number of dropped events per budget, if the summary interval has elapsed since the last report. Only
+     * one caller gets to report per interval.
+     *
+     * @param reporter
+     *         receives each budget with dropped events and the number of dropped events
+     */
+    public void reportDroppedIfDue(BiConsumer<SamplingBudget, Long> reporter) {
+        long next = nextSummaryNanos.get();
+        long now = nanoClock.getAsLong();
+        if (now - next >= 0 && nextSummaryNanos.compareAndSet(next, now + summaryIntervalNanos)) {
+            reportDropped(reporter);
+        }
+    }
+
+    /**
+     * Reports the number of dropped events per budget since the last report.
+     *
+     * @param reporter
+     *         receives each budget with dropped events and the number of dropped events
+     */
+    public void reportDropped(BiConsumer<SamplingBudget, Long> reporter) {
+        for (TokenBucket bucket: buckets) {
+            long dropped = bucket.drainDropped();
+            if (dropped > 0) {
+                reporter.accept(bucket.getBudget(), dropped);
+            }
+        }
+    }
+
+    public long getSummaryIntervalSeconds() {
+        return TimeUnit.NANOSECONDS.toSeconds(summaryIntervalNanos);
+    }
+
+}
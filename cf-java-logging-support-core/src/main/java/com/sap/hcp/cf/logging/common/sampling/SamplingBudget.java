@@ -0,0 +1,104 @@
+package com.sap.hcp.cf.logging.common.sampling;
+
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * A budget of log events per second for the loggers starting with a prefix. The budget can be restricted to one level.
+ * It is configured in the form {@code prefix[:LEVEL]=eventsPerSecond[/burst]}, e.g.
+ * {@code com.example.chatty:DEBUG=100/500}. An empty prefix matches every logger. The burst is the number of events,
+ * that can be written at once after a quiet period. It defaults to the events per second.
+ */
+public final class SamplingBudget {
+
+    private final String prefix;
+    private final String level;
+    private final double eventsPerSecond;
+    private final long burst;
+
+    /**
+     * @param prefix
+     *         the prefix of the logger names, an empty prefix matches every logger
+     * @param level
+     *         the level of the events, or {@code null} for events of every level
+     * @param eventsPerSecond
+     *         the sustained rate of events, that are written
+     * @param burst
+     *         the number of events, that can be written at once
+     */
+    public SamplingBudget(String prefix, String level, double eventsPerSecond, long burst) {
+        if (!(eventsPerSecond > 0)) {
+            throw new IllegalArgumentException("Events per second must be positive but was " + eventsPerSecond + ".");
+        }
+        if (burst <= 0) {
+            throw new IllegalArgumentException("Burst must be positive but was " + burst + ".");
+        }
+        this.prefix = Objects.requireNonNull(prefix, "prefix");
+        this.level = level != null ? level.toUpperCase(Locale.ROOT) : null;
+        this.eventsPerSecond = eventsPerSecond;
+        this.burst = burst;
+    }
+
+    /**
+     * Parses a budget in the form {@code prefix[:LEVEL]=eventsPerSecond[/burst]}.
+     *
+     * @param definition
+     *         the definition of the budget
+     * @return the budget
+     * @throws IllegalArgumentException
+     *         if the definition cannot be parsed
+     */
+    public static SamplingBudget parse(String definition) {
+        int equals = definition.lastIndexOf('=');
+        if (equals < 0) {
+            throw new IllegalArgumentException(
+                    "Sampling budget \"" + definition + "\" does not match prefix[:LEVEL]=eventsPerSecond[/burst].");
+        }
+        String selector = definition.substring(0, equals).trim();
+        String rate = definition.substring(equals + 1).trim();
+        int colon = selector.indexOf(':');
+        String prefix = colon < 0 ? selector : selector.substring(0, colon).trim();
+        String level = colon < 0 ? null : selector.substring(colon + 1).trim();
+        int slash = rate.indexOf('/');
+        try {
+            double eventsPerSecond = Double.parseDouble(slash < 0 ? rate : rate.substring(0, slash).trim());
+            long burst = slash < 0 ? (long) Math.ceil(eventsPerSecond)
+                                   : Long.parseLong(rate.substring(slash + 1).trim());
+            return new SamplingBudget(prefix, level == null || level.isEmpty() ? null : level, eventsPerSecond, burst);
+        } catch (NumberFormatException cause) {
+            throw new IllegalArgumentException(
+                    "Sampling budget \"" + definition + "\" does not match prefix[:LEVEL]=eventsPerSecond[/burst].",
+                    cause);
+        }
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public String getLevel() {
+        return level;
+    }
+
+    public double getEventsPerSecond() {
+        return eventsPerSecond;
+    }
+
+    public long getBurst() {
+        return burst;
+    }
+
+    boolean matches(String loggerName) {
+        return loggerName.startsWith(prefix);
+    }
+
+    boolean matchesLevel(String level) {
+        return this.level == null || this.level.equals(level);
+    }
+
+    @Override
+    public String toString() {
+        return prefix + (level != null ? ":" + level : "") + "=" + eventsPerSecond + "/" + burst;
+    }
+
+}
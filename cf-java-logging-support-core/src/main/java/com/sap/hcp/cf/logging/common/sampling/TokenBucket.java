@@ -0,0 +1,52 @@
+package com.sap.hcp.cf.logging.common.sampling;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free token bucket. Instead of a token count and a refill time, the bucket stores the single point in time, at
+ * which it will be full again (generic cell rate algorithm). Taking a token moves this point by one emission interval.
+ * The token is refused, if the point would move further than the burst ahead of the current time. This needs only one
+ * compare-and-set per event.
+ */
+final class TokenBucket {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final SamplingBudget budget;
+    private final long emissionIntervalNanos;
+    private final long toleranceNanos;
+    private final AtomicLong theoreticalArrival;
+    private final LongAdder dropped = new LongAdder();
+
+    TokenBucket(SamplingBudget budget, long nowNanos) {
+        this.budget = budget;
+        this.emissionIntervalNanos = Math.max(1, Math.round(NANOS_PER_SECOND / budget.getEventsPerSecond()));
+        this.toleranceNanos = emissionIntervalNanos * budget.getBurst();
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    SamplingBudget getBudget() {
+        return budget;
+    }
+
+    boolean tryAcquire(long nowNanos) {
+        while (true) {
+            long current = theoreticalArrival.get();
+            long next = (current - nowNanos > 0 ? current : nowNanos) + emissionIntervalNanos;
+            if (next - nowNanos > toleranceNanos) {
+                dropped.increment();
+                return false;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    long drainDropped() {
+        return dropped.sumThenReset();
+    }
+
+}
@@ -2,30 +2,35 @@ package com.sap.hcp.cf.logging.common.serialization;
 
 import com.sap.hcp.cf.logging.common.customfields.CustomField;
 
-import java.util.HashMap;
 import java.util.Map;
 
-public abstract class AbstractContextFieldSupplier<T> implements EventContextFieldSupplier<T> {
+public abstract class AbstractContextFieldSupplier<T> implements EventContextFieldWriter<T> {
 
     public AbstractContextFieldSupplier() {
         super();
     }
 
     @Override
-    public Map<String, Object> map(T event) {
-        Map<String, Object> result = new HashMap<>();
-        result.putAll(getContextMap(event));
+    public void writeFields(T event, FieldSink sink) {
+        writeContextFields(event, sink);
         Object[] parameters = getParameterArray(event);
         if (parameters == null) {
-            return result;
+            return;
         }
         for (Object parameter: parameters) {
             if (parameter instanceof CustomField) {
                 CustomField customField = (CustomField) parameter;
-                result.put(customField.getKey(), customField.getValue());
+                sink.put(customField.getKey(), customField.getValue());
             }
         }
-        return result;
+    }
+
+    /**
+     * Writes the context map of the event into the sink. Implementations can override this method to avoid the
+     * creation of an intermediate map.
+     */
+    protected void writeContextFields(T event, FieldSink sink) {
+        sink.putAll(getContextMap(event));
     }
 
     protected abstract Object[] getParameterArray(T event);
@@ -4,44 +4,44 @@ import com.fasterxml.jackson.jr.ob.JSON;
 import com.sap.hcp.cf.logging.common.request.RequestRecord;
 
 import java.io.IOException;
-import java.util.Collections;
-import java.util.Map;
-import java.util.Optional;
-import java.util.stream.Stream;
 
-import static java.util.stream.Collectors.toMap;
-
-public abstract class AbstractRequestRecordFieldSupplier<T> implements EventContextFieldSupplier<T> {
+public abstract class AbstractRequestRecordFieldSupplier<T> implements EventContextFieldWriter<T> {
 
     public AbstractRequestRecordFieldSupplier() {
         super();
     }
 
     @Override
-    public Map<String, Object> map(T event) {
+    public void writeFields(T event, FieldSink sink) {
         if (!isRequestLog(event)) {
-            return Collections.emptyMap();
+            return;
         }
         Object[] parameterArray = getParameterArray(event);
         if (parameterArray == null || parameterArray.length == 0) {
+            String message = getFormattedMessage(event);
+            if (RequestRecord.writeRenderedFields(message, sink)) {
+                return;
+            }
             try {
-                Map<String, Object> parsed = JSON.std.mapFrom(getFormattedMessage(event));
-                return parsed != null ? parsed : Collections.emptyMap();
+                sink.putAll(JSON.std.mapFrom(message));
             } catch (IOException ignored) {
-                return Collections.emptyMap();
+                // not a serialized request record
             }
+            return;
         }
-        Optional<RequestRecord> requestRecord = findRequestRecord(parameterArray);
-        if (requestRecord.isPresent()) {
-            RequestRecord record = requestRecord.get();
-            return record.getFields().entrySet().stream().collect(toMap(e -> e.getKey(), e -> e.getValue().getValue()));
+        RequestRecord requestRecord = findRequestRecord(parameterArray);
+        if (requestRecord != null) {
+            requestRecord.writeFields(sink);
         }
-        return Collections.emptyMap();
     }
 
-    private Optional<RequestRecord> findRequestRecord(Object[] parameterArray) {
-        return Stream.of(parameterArray).filter(o -> o instanceof RequestRecord).map(o -> (RequestRecord) o)
-                     .findFirst();
+    private static RequestRecord findRequestRecord(Object[] parameterArray) {
+        for (Object parameter: parameterArray) {
+            if (parameter instanceof RequestRecord) {
+                return (RequestRecord) parameter;
+            }
+        }
+        return null;
     }
 
     protected abstract boolean isRequestLog(T event);
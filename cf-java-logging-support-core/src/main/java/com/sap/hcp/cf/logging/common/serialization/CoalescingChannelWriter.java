@@ -0,0 +1,184 @@
+package com.sap.hcp.cf.logging.common.serialization;
+
+import java.io.Closeable;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes serialized log lines to a channel, usually the standard output. Instead of one system call per line, the lines
+ * of many events are collected in a direct {@link ByteBuffer} and written together, when the buffer is full or at the
+ * latest after the maximum linger time.
+ * <p>
+ * Every line is written as a whole: a line is never split across two writes, unless it is larger than the buffer. In
+ * that case it is written on its own. This keeps lines of different writers to the same file descriptor apart.
+ * <p>
+ * A single flush is scheduled, when the first line enters the empty buffer, so that an idle writer never wakes up.
+ * Pending lines are written on {@link #close()} and on JVM shutdown. Lines written after {@link #close()} go to the
+ * channel immediately. Output written to {@link System#out} directly can overtake lines, that are still buffered.
+ */
+public class CoalescingChannelWriter implements Closeable {
+
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    public static final long DEFAULT_MAX_LINGER_MILLIS = 10;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final long maxLingerMillis;
+    private final ScheduledExecutorService flusher;
+    private final Thread shutdownHook = new Thread(this::flushQuietly, "CoalescingChannelWriter-Shutdown");
+    private boolean closed;
+
+    /**
+     * Creates a writer for the standard output, that writes to file descriptor 1 without going through
+     * {@link System#out}.
+     *
+     * @param bufferSize
+     *         the capacity of the buffer in bytes
+     * @param maxLingerMillis
+     *         the maximum time in milliseconds, that a line stays in the buffer, or 0 to write every line immediately
+     * @return the writer for the standard output
+     */
+    public static CoalescingChannelWriter stdout(int bufferSize, long maxLingerMillis) {
+        @SuppressWarnings("resource") // closing the channel would close the standard output
+        FileOutputStream stdout = new FileOutputStream(FileDescriptor.out);
+        return new CoalescingChannelWriter(stdout.getChannel(), bufferSize, maxLingerMillis);
+    }
+
+    /**
+     * @param channel
+     *         the channel to write to, it is not closed by this writer
+     * @param bufferSize
+     *         the capacity of the buffer in bytes
+     * @param maxLingerMillis
+     *         the maximum time in milliseconds, that a line stays in the buffer, or 0 to write every line immediately
+     */
+    public CoalescingChannelWriter(WritableByteChannel channel, int bufferSize, long maxLingerMillis) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive but was " + bufferSize + ".");
+        }
+        if (maxLingerMillis < 0) {
+            throw new IllegalArgumentException(
+                    "Maximum linger time must not be negative but was " + maxLingerMillis + ".");
+        }
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(maxLingerMillis > 0 ? bufferSize : 0);
+        this.maxLingerMillis = maxLingerMillis;
+        if (maxLingerMillis > 0) {
+            this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "CoalescingChannelWriter-Flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            Runtime.getRuntime().addShutdownHook(shutdownHook);
+        } else {
+            this.flusher = null;
+        }
+    }
+
+    /**
+     * Adds a complete line to the buffer. The buffer is written first, if the line does not fit. After {@link #close()}
+     * the line is written to the channel immediately.
+     *
+     * @param bytes
+     *         the array containing the line including the line separator
+     * @param offset
+     *         the start of the line in the array
+     * @param length
+     *         the length of the line
+     * @throws IOException
+     *         if the channel cannot be written
+     */
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        lock.lock();
+        try {
+            if (closed || length > buffer.remaining()) {
+                writeBuffer();
+            }
+            if (closed || length > buffer.capacity()) {
+                writeFully(ByteBuffer.wrap(bytes, offset, length));
+                return;
+            }
+            if (buffer.position() == 0 && flusher != null) {
+                flusher.schedule(this::flushQuietly, maxLingerMillis, TimeUnit.MILLISECONDS);
+            }
+            buffer.put(bytes, offset, length);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes all buffered lines to the channel.
+     *
+     * @throws IOException
+     *         if the channel cannot be written
+     */
+    public void flush() throws IOException {
+        lock.lock();
+        try {
+            writeBuffer();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException ignored) {
+            // nobody to report to, the lines are discarded
+        }
+    }
+
+    private void writeBuffer() throws IOException {
+        if (buffer.position() == 0) {
+            return;
+        }
+        buffer.flip();
+        try {
+            writeFully(buffer);
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    private void writeFully(ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+
+    /**
+     * Writes the pending lines and stops the timer. The channel stays open.
+     *
+     * @throws IOException
+     *         if the channel cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            closed = true;
+        } finally {
+            lock.unlock();
+        }
+        if (flusher != null) {
+            flusher.shutdownNow();
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException ignored) {
+                // the JVM is already shutting down and runs the hook
+            }
+        }
+        flush();
+    }
+
+}
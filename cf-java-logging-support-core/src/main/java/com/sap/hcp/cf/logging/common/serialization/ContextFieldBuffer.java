@@ -0,0 +1,211 @@
+package com.sap.hcp.cf.logging.common.serialization;
+
+import java.util.Arrays;
+
+/**
+ * A reusable {@link FieldSink}, that collects the context fields of one log event after the other. Fields are kept in
+ * the order of their first write. A later write of a key replaces its value. The buffer is backed by arrays and an
+ * open-addressing hash index, so that no allocation is required once it has grown to the number of fields per event.
+ * Numeric values written with {@link #put(String, long)} or {@link #put(String, double)} are kept unboxed. Instances
+ * are not thread-safe and are meant to be held per thread.
+ */
+public class ContextFieldBuffer implements FieldSink {
+
+    private static final int DEFAULT_CAPACITY = 32;
+
+    private static final byte OBJECT = 0;
+    private static final byte LONG = 1;
+    private static final byte DOUBLE = 2;
+
+    private String[] keys;
+    private Object[] values;
+    private byte[] kinds;
+    private long[] numbers;
+    private int[] index;
+    private int size;
+
+    public ContextFieldBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ContextFieldBuffer(int capacity) {
+        int initialCapacity = Math.max(4, capacity);
+        this.keys = new String[initialCapacity];
+        this.values = new Object[initialCapacity];
+        this.kinds = new byte[initialCapacity];
+        this.numbers = new long[initialCapacity];
+        this.index = new int[tableSize(initialCapacity)];
+    }
+
+    private static int tableSize(int capacity) {
+        return Integer.highestOneBit(capacity * 2 - 1) << 1;
+    }
+
+    private static int hash(String key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Adds or replaces a field. Fields without key are ignored.
+     */
+    @Override
+    public void put(String key, Object value) {
+        if (key == null) {
+            return;
+        }
+        int position = positionOf(key);
+        values[position] = value;
+        kinds[position] = OBJECT;
+    }
+
+    /**
+     * Adds or replaces a field without boxing the value. Fields without key are ignored.
+     */
+    @Override
+    public void put(String key, long value) {
+        if (key == null) {
+            return;
+        }
+        int position = positionOf(key);
+        values[position] = null;
+        kinds[position] = LONG;
+        numbers[position] = value;
+    }
+
+    /**
+     * Adds or replaces a field without boxing the value. Fields without key are ignored.
+     */
+    @Override
+    public void put(String key, double value) {
+        if (key == null) {
+            return;
+        }
+        int position = positionOf(key);
+        values[position] = null;
+        kinds[position] = DOUBLE;
+        numbers[position] = Double.doubleToRawLongBits(value);
+    }
+
+    private int positionOf(String key) {
+        int mask = index.length - 1;
+        int slot = hash(key) & mask;
+        while (true) {
+            int position = index[slot];
+            if (position == 0) {
+                break;
+            }
+            if (key.equals(keys[position - 1])) {
+                return position - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (size == keys.length) {
+            grow();
+            return positionOf(key);
+        }
+        keys[size] = key;
+        index[slot] = ++size;
+        return size - 1;
+    }
+
+    private void grow() {
+        int capacity = keys.length * 2;
+        keys = Arrays.copyOf(keys, capacity);
+        values = Arrays.copyOf(values, capacity);
+        kinds = Arrays.copyOf(kinds, capacity);
+        numbers = Arrays.copyOf(numbers, capacity);
+        index = new int[tableSize(capacity)];
+        int mask = index.length - 1;
+        for (int i = 0; i < size; i++) {
+            int slot = hash(keys[i]) & mask;
+            while (index[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            index[slot] = i + 1;
+        }
+    }
+
+    /**
+     * @return the value of the field or {@code null}, if the field is not present
+     */
+    public Object get(String key) {
+        int position = find(key);
+        return position < 0 ? null : getValue(position);
+    }
+
+    public boolean containsKey(String key) {
+        return find(key) >= 0;
+    }
+
+    private int find(String key) {
+        if (key == null) {
+            return -1;
+        }
+        int mask = index.length - 1;
+        int slot = hash(key) & mask;
+        while (true) {
+            int position = index[slot];
+            if (position == 0) {
+                return -1;
+            }
+            if (key.equals(keys[position - 1])) {
+                return position - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String getKey(int position) {
+        return keys[position];
+    }
+
+    /**
+     * @return the value of the field, numeric values are boxed
+     */
+    public Object getValue(int position) {
+        switch (kinds[position]) {
+        case LONG:
+            return Long.valueOf(numbers[position]);
+        case DOUBLE:
+            return Double.valueOf(getDouble(position));
+        default:
+            return values[position];
+        }
+    }
+
+    /**
+     * @return {@code true}, if the field was written with {@link #put(String, long)} or {@link #put(String, double)}
+     */
+    public boolean isNumber(int position) {
+        return kinds[position] != OBJECT;
+    }
+
+    public boolean isLong(int position) {
+        return kinds[position] == LONG;
+    }
+
+    public long getLong(int position) {
+        return numbers[position];
+    }
+
+    public double getDouble(int position) {
+        return Double.longBitsToDouble(numbers[position]);
+    }
+
+    /**
+     * Removes all fields, but retains the allocated capacity.
+     */
+    public void clear() {
+        Arrays.fill(keys, 0, size, null);
+        Arrays.fill(values, 0, size, null);
+        Arrays.fill(kinds, 0, size, OBJECT);
+        Arrays.fill(index, 0);
+        size = 0;
+    }
+
+}
@@ -1,5 +1,9 @@
 package com.sap.hcp.cf.logging.common.serialization;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
 import com.fasterxml.jackson.jr.ob.comp.ArrayComposer;
 import com.fasterxml.jackson.jr.ob.comp.ComposerBase;
 import com.fasterxml.jackson.jr.ob.comp.ObjectComposer;
@@ -8,25 +12,60 @@ import com.sap.hcp.cf.logging.common.Fields;
 import com.sap.hcp.cf.logging.common.LogContext;
 
 import java.io.IOException;
-import java.util.Collections;
-import java.util.List;
-import java.util.Map;
+import java.io.StringWriter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ContextFieldConverter {
 
+    /*
+     * Fields with few distinct values, that are emitted with every log message.
+     */
+    private static final List<String> CACHED_VALUE_FIELDS = List.of(Fields.LEVEL, Fields.LOGGER, Fields.THREAD);
+    private static final int MAX_CACHED_VALUES = 1024;
+
     private final boolean sendDefaultValues;
     private final List<String> customFieldMdcKeyNames;
     private final List<String> retainFieldMdcKeyNames;
+    private final Map<String, FieldClassification> classifications;
 
     public ContextFieldConverter(boolean sendDefaultValues, List<String> customFieldMdcKeyNames,
                                  List<String> retainFieldMdcKeyNames) {
+        this(sendDefaultValues, customFieldMdcKeyNames, retainFieldMdcKeyNames, (JsonFactory) null);
+    }
+
+    /**
+     * Creates a converter, that caches the escaped JSON values of the fields {@link Fields#LEVEL},
+     * {@link Fields#LOGGER} and {@link Fields#THREAD}. These fields are emitted with every log message but have only
+     * few distinct values. The cached values are written verbatim into the output. The cache of each field is cleared,
+     * when it exceeds 1024 entries, so that dynamically named threads cannot let it grow without bounds.
+     *
+     * @param sendDefaultValues
+     *         whether to emit fields with default values
+     * @param customFieldMdcKeyNames
+     *         the names of the custom fields
+     * @param retainFieldMdcKeyNames
+     *         the names of the custom fields, that are also emitted as top-level fields
+     * @param jsonFactory
+     *         the factory used by the encoder, to apply the same escaping
+     */
+    public ContextFieldConverter(boolean sendDefaultValues, List<String> customFieldMdcKeyNames,
+                                 List<String> retainFieldMdcKeyNames, JsonFactory jsonFactory) {
         this(sendDefaultValues, customFieldMdcKeyNames, retainFieldMdcKeyNames,
-             new SapApplicationLoggingServiceDetector());
+             new SapApplicationLoggingServiceDetector(), jsonFactory);
     }
 
     ContextFieldConverter(boolean sendDefaultValues, List<String> customFieldMdcKeyNames,
                           List<String> retainFieldMdcKeyNames,
                           SapApplicationLoggingServiceDetector sapApplicationLoggingServiceDetector) {
+        this(sendDefaultValues, customFieldMdcKeyNames, retainFieldMdcKeyNames, sapApplicationLoggingServiceDetector,
+             null);
+    }
+
+    ContextFieldConverter(boolean sendDefaultValues, List<String> customFieldMdcKeyNames,
+                          List<String> retainFieldMdcKeyNames,
+                          SapApplicationLoggingServiceDetector sapApplicationLoggingServiceDetector,
+                          JsonFactory jsonFactory) {
         this.sendDefaultValues = sendDefaultValues;
         this.retainFieldMdcKeyNames = retainFieldMdcKeyNames;
         if (sapApplicationLoggingServiceDetector.isBoundToSapApplicationLogging()) {
@@ -35,7 +74,37 @@ public class ContextFieldConverter {
         } else {
             this.customFieldMdcKeyNames = Collections.emptyList();
         }
+        this.classifications = classify(this.customFieldMdcKeyNames, retainFieldMdcKeyNames, jsonFactory);
+    }
 
+    /*
+     * Compiles the configuration into a lookup table, so that each field can be classified with a single hash lookup.
+     * Fields without entry are context fields with the default value Defaults.UNKNOWN.
+     */
+    private static Map<String, FieldClassification> classify(List<String> customFieldMdcKeyNames,
+                                                             List<String> retainFieldMdcKeyNames,
+                                                             JsonFactory jsonFactory) {
+        Set<String> names = new LinkedHashSet<>(LogContext.getContextFieldsKeys());
+        names.addAll(customFieldMdcKeyNames);
+        names.addAll(retainFieldMdcKeyNames);
+        if (jsonFactory != null) {
+            names.addAll(CACHED_VALUE_FIELDS);
+        }
+        Map<String, FieldClassification> classifications = new HashMap<>(names.size() * 2);
+        for (String name: names) {
+            if (name == null) {
+                continue;
+            }
+            int customIndex = customFieldMdcKeyNames.indexOf(name);
+            boolean contextField = customIndex < 0 || retainFieldMdcKeyNames.contains(name);
+            String defaultValue = LogContext.getDefault(name);
+            ValueCache valueCache =
+                    jsonFactory != null && CACHED_VALUE_FIELDS.contains(name) ? new ValueCache(name, jsonFactory) : null;
+            classifications.put(name, new FieldClassification(name, contextField, customIndex,
+                                                              defaultValue == null ? Defaults.UNKNOWN : defaultValue,
+                                                              valueCache));
+        }
+        return classifications;
     }
 
     public <P extends ComposerBase> void addContextFields(ObjectComposer<P> oc, Map<String, Object> contextFields) {
@@ -43,8 +112,26 @@ public class ContextFieldConverter {
                      .forEach(n -> addContextField(oc, n, contextFields.get(n)));
     }
 
+    public void addContextFields(JsonGenerator generator, ContextFieldBuffer contextFields) {
+        for (int i = 0; i < contextFields.size(); i++) {
+            String name = contextFields.getKey(i);
+            FieldClassification classification = classifications.get(name);
+            if (classification != null && !classification.contextField) {
+                continue;
+            }
+            if (contextFields.isNumber(i)) {
+                addNumberField(generator, name, classification, contextFields, i);
+            } else if (classification == null) {
+                addContextField(generator, name, contextFields.getValue(i));
+            } else {
+                addContextField(generator, classification, contextFields.getValue(i));
+            }
+        }
+    }
+
     private boolean isContextField(String name) {
-        return retainFieldMdcKeyNames.contains(name) || !customFieldMdcKeyNames.contains(name);
+        FieldClassification classification = classifications.get(name);
+        return classification == null || classification.contextField;
     }
 
     private <P extends ComposerBase> void addContextField(ObjectComposer<P> oc, String name, Object value) {
@@ -66,6 +153,145 @@ public class ContextFieldConverter {
         }
     }
 
+    private void addContextField(JsonGenerator generator, String name, Object value) {
+        if (value instanceof PreSerializedValue) {
+            addPreSerializedField(generator, name, (PreSerializedValue) value);
+            return;
+        }
+        if (!sendDefaultValues && Defaults.UNKNOWN.equals(value)) {
+            return;
+        }
+        try {
+            generator.writeFieldName(name);
+            write(generator, value);
+        } catch (IOException cause) {
+            throw new JsonSerializationException("Cannot create field \"" + name + "\".", cause);
+        }
+    }
+
+    private void addContextField(JsonGenerator generator, FieldClassification classification, Object value) {
+        if (value instanceof PreSerializedValue) {
+            addPreSerializedField(generator, classification.name, (PreSerializedValue) value);
+            return;
+        }
+        if (!sendDefaultValues && classification.defaultValue.equals(value)) {
+            return;
+        }
+        try {
+            generator.writeFieldName(classification.serializedName);
+            if (classification.valueCache != null && value instanceof String) {
+                generator.writeRawValue(classification.valueCache.get((String) value));
+                return;
+            }
+            write(generator, value);
+        } catch (IOException cause) {
+            throw new JsonSerializationException("Cannot create field \"" + classification.name + "\".", cause);
+        }
+    }
+
+    private static void addNumberField(JsonGenerator generator, String name, FieldClassification classification,
+                                       ContextFieldBuffer contextFields, int position) {
+        // numbers never equal the default values, which are strings
+        try {
+            if (classification != null) {
+                generator.writeFieldName(classification.serializedName);
+            } else {
+                generator.writeFieldName(name);
+            }
+            if (contextFields.isLong(position)) {
+                generator.writeNumber(contextFields.getLong(position));
+            } else {
+                generator.writeNumber(contextFields.getDouble(position));
+            }
+        } catch (IOException cause) {
+            throw new JsonSerializationException("Cannot create field \"" + name + "\".", cause);
+        }
+    }
+
+    private void addPreSerializedField(JsonGenerator generator, String name, PreSerializedValue value) {
+        if (!sendDefaultValues && value.isDefaultValue()) {
+            return;
+        }
+        try {
+            generator.writeFieldName(value.getName());
+            generator.writeRawValue(value.getJson());
+        } catch (IOException cause) {
+            throw new JsonSerializationException("Cannot create field \"" + name + "\".", cause);
+        }
+    }
+
+    /**
+     * Serializes the fields of a static {@link ContextFieldSupplier} once. The returned writer puts
+     * {@link PreSerializedValue}s into the sink, which are spliced into the JSON output by
+     * {@link #addContextFields(JsonGenerator, ContextFieldBuffer)}. Since the writer takes the place of the supplier,
+     * fields written by later suppliers still override the static fields.
+     *
+     * @param supplier
+     *         the static supplier, see {@link ContextFieldSupplier#isStatic()}
+     * @param jsonFactory
+     *         the factory used by the encoder, to apply the same escaping
+     * @param <T>
+     *         the type of the log event
+     * @return a writer emitting the pre-serialized fields
+     */
+    public <T> EventContextFieldWriter<T> preSerialize(ContextFieldSupplier supplier, JsonFactory jsonFactory) {
+        Map<String, Object> fields = supplier.get();
+        if (fields == null || fields.isEmpty()) {
+            return (event, sink) -> {
+            };
+        }
+        String[] names = new String[fields.size()];
+        PreSerializedValue[] values = new PreSerializedValue[fields.size()];
+        int count = 0;
+        for (Map.Entry<String, Object> field: fields.entrySet()) {
+            String name = field.getKey();
+            if (name == null) {
+                continue;
+            }
+            Object value = field.getValue();
+            boolean defaultValue = getDefaultValue(name).equals(value);
+            names[count] = name;
+            values[count] = new PreSerializedValue(name, value, toJson(jsonFactory, name, value), defaultValue);
+            count++;
+        }
+        int size = count;
+        return (event, sink) -> {
+            for (int i = 0; i < size; i++) {
+                sink.put(names[i], values[i]);
+            }
+        };
+    }
+
+    private static String toJson(JsonFactory jsonFactory, String name, Object value) {
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = jsonFactory.createGenerator(writer)) {
+            write(generator, value);
+        } catch (IOException cause) {
+            throw new JsonSerializationException("Cannot create field \"" + name + "\".", cause);
+        }
+        return writer.toString();
+    }
+
+    private static void write(JsonGenerator generator, Object value) throws IOException {
+        if (value instanceof String) {
+            generator.writeString((String) value);
+        } else if (value instanceof FormattedTimestamp) {
+            ((FormattedTimestamp) value).writeTo(generator);
+        } else if (value instanceof Long) {
+            generator.writeNumber(((Long) value).longValue());
+        } else if (value instanceof Double) {
+            generator.writeNumber(((Double) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            generator.writeBoolean(((Boolean) value).booleanValue());
+        } else if (value instanceof Integer) {
+            generator.writeNumber(((Integer) value).intValue());
+        } else if (value instanceof Float) {
+            generator.writeNumber(((Float) value).floatValue());
+        } else {
+            generator.writeString(String.valueOf(value));
+        }
+    }
+
     private <P extends ComposerBase> void put(ObjectComposer<P> oc, String name, Object value) throws IOException {
         if (value instanceof String) {
             oc.put(name, (String) value);
@@ -85,8 +311,8 @@ public class ContextFieldConverter {
     }
 
     private String getDefaultValue(String key) {
-        String defaultValue = LogContext.getDefault(key);
-        return defaultValue == null ? Defaults.UNKNOWN : defaultValue;
+        FieldClassification classification = classifications.get(key);
+        return classification == null ? Defaults.UNKNOWN : classification.defaultValue;
     }
 
     public <P extends ComposerBase> void addCustomFields(ObjectComposer<P> oc, Map<String, Object> contextFields)
@@ -106,4 +332,98 @@ public class ContextFieldConverter {
             customFieldComposer.end().end();
         }
     }
+
+    public void addCustomFields(JsonGenerator generator, ContextFieldBuffer contextFields) throws IOException {
+        if (customFieldMdcKeyNames.isEmpty()) {
+            return;
+        }
+        FieldClassification[] customFields = null;
+        Object[] customValues = null;
+        int count = 0;
+        for (int i = 0; i < contextFields.size(); i++) {
+            FieldClassification classification = classifications.get(contextFields.getKey(i));
+            if (classification == null || classification.customIndex < 0) {
+                continue;
+            }
+            Object value = unwrap(contextFields.getValue(i));
+            if (value == null) {
+                continue;
+            }
+            if (customFields == null) {
+                customFields = new FieldClassification[Math.min(customFieldMdcKeyNames.size(), contextFields.size())];
+                customValues = new Object[customFields.length];
+            }
+            // keep the custom fields sorted by their configured index
+            int position = count++;
+            while (position > 0 && customFields[position - 1].customIndex > classification.customIndex) {
+                customFields[position] = customFields[position - 1];
+                customValues[position] = customValues[position - 1];
+                position--;
+            }
+            customFields[position] = classification;
+            customValues[position] = value;
+        }
+        if (count == 0) {
+            return;
+        }
+        generator.writeObjectFieldStart(Fields.CUSTOM_FIELDS);
+        generator.writeArrayFieldStart("string");
+        for (int i = 0; i < count; i++) {
+            generator.writeStartObject();
+            generator.writeStringField("k", customFields[i].name);
+            generator.writeStringField("v", String.valueOf(customValues[i]));
+            generator.writeNumberField("i", customFields[i].customIndex);
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    private static Object unwrap(Object value) {
+        return value instanceof PreSerializedValue ? ((PreSerializedValue) value).getValue() : value;
+    }
+
+    private static final class FieldClassification {
+
+        private final String name;
+        private final SerializableString serializedName;
+        private final boolean contextField;
+        private final int customIndex;
+        private final String defaultValue;
+        private final ValueCache valueCache;
+
+        private FieldClassification(String name, boolean contextField, int customIndex, String defaultValue,
+                                    ValueCache valueCache) {
+            this.name = name;
+            this.serializedName = new SerializedString(name);
+            this.contextField = contextField;
+            this.customIndex = customIndex;
+            this.defaultValue = defaultValue;
+            this.valueCache = valueCache;
+        }
+    }
+
+    private static final class ValueCache {
+
+        private final String name;
+        private final JsonFactory jsonFactory;
+        private final Map<String, SerializableString> values = new ConcurrentHashMap<>();
+
+        private ValueCache(String name, JsonFactory jsonFactory) {
+            this.name = name;
+            this.jsonFactory = jsonFactory;
+        }
+
+        private SerializableString get(String value) {
+            SerializableString json = values.get(value);
+            if (json == null) {
+                json = new SerializedString(toJson(jsonFactory, name, value));
+                if (values.size() >= MAX_CACHED_VALUES) {
+                    values.clear();
+                }
+                values.put(value, json);
+            }
+            return json;
+        }
+    }
 }
@@ -10,6 +10,17 @@ public interface ContextFieldSupplier extends Supplier<Map<String, Object>>, Com
         return 0;
     }
 
+    /**
+     * Declares, that this supplier returns the same fields for every log event. The encoders serialize the fields of
+     * static suppliers only once during start-up and reuse the resulting JSON for every log event. Fields of later
+     * suppliers or the event context with the same key still take precedence.
+     *
+     * @return {@code true}, if the supplied fields never change, {@code false} otherwise
+     */
+    default boolean isStatic() {
+        return false;
+    }
+
     @Override
     default int compareTo(ContextFieldSupplier other) {
         return order() - other.order();
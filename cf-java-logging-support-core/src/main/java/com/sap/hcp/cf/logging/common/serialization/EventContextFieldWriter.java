@@ -0,0 +1,40 @@
+package com.sap.hcp.cf.logging.common.serialization;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An {@link EventContextFieldSupplier}, that writes its fields directly into a {@link FieldSink} instead of creating a
+ * new map for every log event. The encoders call {@link #writeFields(Object, FieldSink)} and adapt all other suppliers
+ * with {@link #adapt(EventContextFieldSupplier)} and {@link #adaptContextFieldSupplier(ContextFieldSupplier)}. The
+ * map-based {@link #map(Object)} is still provided for compatibility. It returns the same values as before the
+ * {@link FieldSink} was introduced: {@link FormattedTimestamp}s, that are only formatted while writing the JSON, are
+ * converted to Strings.
+ *
+ * @param <T>
+ *         the type of the log event
+ */
+@FunctionalInterface
+public interface EventContextFieldWriter<T> extends EventContextFieldSupplier<T> {
+
+    void writeFields(T event, FieldSink sink);
+
+    @Override
+    default Map<String, Object> map(T event) {
+        Map<String, Object> fields = new HashMap<>();
+        writeFields(event, (key, value) -> fields.put(key, value instanceof FormattedTimestamp ? value.toString()
+                                                                                                  : value));
+        return fields;
+    }
+
+    static <T> EventContextFieldWriter<T> adapt(EventContextFieldSupplier<T> supplier) {
+        if (supplier instanceof EventContextFieldWriter) {
+            return (EventContextFieldWriter<T>) supplier;
+        }
+        return (event, sink) -> sink.putAll(supplier.map(event));
+    }
+
+    static <T> EventContextFieldWriter<T> adaptContextFieldSupplier(ContextFieldSupplier supplier) {
+        return (event, sink) -> sink.putAll(supplier.get());
+    }
+}
@@ -0,0 +1,37 @@
+package com.sap.hcp.cf.logging.common.serialization;
+
+import java.util.Map;
+
+/**
+ * Receives the context fields of a log event. It is written to by {@link EventContextFieldWriter}s. A later write of a
+ * key replaces the value of an earlier write. Since the writers are applied according to
+ * {@link ContextFieldSupplier#order()}, this matches the merging of the maps returned by the suppliers.
+ */
+@FunctionalInterface
+public interface FieldSink {
+
+    void put(String key, Object value);
+
+    /**
+     * Adds a numeric field. Sinks, that store primitive values, override this method to avoid boxing.
+     */
+    default void put(String key, long value) {
+        put(key, Long.valueOf(value));
+    }
+
+    /**
+     * Adds a numeric field. Sinks, that store primitive values, override this method to avoid boxing.
+     */
+    default void put(String key, double value) {
+        put(key, Double.valueOf(value));
+    }
+
+    default void putAll(Map<? extends String, ?> fields) {
+        if (fields == null) {
+            return;
+        }
+        for (Map.Entry<? extends String, ?> field: fields.entrySet()) {
+            put(field.getKey(), field.getValue());
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.sap.hcp.cf.logging.common.serialization;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * A timestamp context field value, that is formatted while it is written to JSON. It supports the two timestamp formats
+ * of the log messages: the ISO-8601 representation as created by {@link Instant#toString()} and the number of
+ * nanoseconds since epoch as string of digits.
+ * <p>
+ * The date and time up to the seconds is formatted only once per second and shared between all threads. Only the
+ * fraction of the second is formatted for each timestamp. The characters are assembled in a reusable per-thread buffer
+ * and handed to the {@link JsonGenerator} without creating intermediate Strings. {@link #toString()} provides the same
+ * representation as String for other uses.
+ */
+public final class FormattedTimestamp {
+
+    private static final int NANOS_PER_SECOND = 1_000_000_000;
+    private static final int PREFIX_LENGTH = 19;
+    private static final int MAX_LENGTH = 32;
+    private static final long MIN_CACHEABLE_SECOND = LocalDateTime.of(0, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+    private static final long MAX_CACHEABLE_SECOND =
+            LocalDateTime.of(9999, 12, 31, 23, 59, 59).toEpochSecond(ZoneOffset.UTC);
+
+    private static final ThreadLocal<char[]> BUFFERS = ThreadLocal.withInitial(() -> new char[MAX_LENGTH]);
+
+    private static volatile CachedSecond cachedSecond = new CachedSecond(0);
+
+    private final long epochSecond;
+    private final int nanos;
+    private final boolean iso;
+
+    private FormattedTimestamp(long epochSecond, int nanos, boolean iso) {
+        this.epochSecond = epochSecond;
+        this.nanos = nanos;
+        this.iso = iso;
+    }
+
+    /**
+     * @param epochMillis
+     *         the milliseconds since epoch
+     * @return the timestamp formatted like {@link Instant#toString()}
+     */
+    public static FormattedTimestamp iso(long epochMillis) {
+        return iso(Math.floorDiv(epochMillis, 1000), (int) Math.floorMod(epochMillis, 1000) * 1_000_000);
+    }
+
+    /**
+     * @param epochSecond
+     *         the seconds since epoch
+     * @param nanos
+     *         the nanoseconds within the second
+     * @return the timestamp formatted like {@link Instant#toString()}
+     */
+    public static FormattedTimestamp iso(long epochSecond, int nanos) {
+        return new FormattedTimestamp(epochSecond, nanos, true);
+    }
+
+    /**
+     * @param epochSecond
+     *         the seconds since epoch
+     * @param nanos
+     *         the nanoseconds within the second
+     * @return the timestamp formatted as nanoseconds since epoch
+     */
+    public static FormattedTimestamp nanos(long epochSecond, int nanos) {
+        return new FormattedTimestamp(epochSecond, nanos, false);
+    }
+
+    void writeTo(JsonGenerator generator) throws IOException {
+        if (iso && !isCacheable(epochSecond)) {
+            generator.writeString(toString());
+            return;
+        }
+        char[] buffer = BUFFERS.get();
+        int length = iso ? formatIso(buffer) : formatNanos(buffer);
+        generator.writeString(buffer, 0, length);
+    }
+
+    private static boolean isCacheable(long epochSecond) {
+        return MIN_CACHEABLE_SECOND <= epochSecond && epochSecond <= MAX_CACHEABLE_SECOND;
+    }
+
+    private int formatIso(char[] buffer) {
+        CachedSecond cached = cachedSecond;
+        if (cached.epochSecond != epochSecond) {
+            cached = new CachedSecond(epochSecond);
+            cachedSecond = cached;
+        }
+        System.arraycopy(cached.prefix, 0, buffer, 0, PREFIX_LENGTH);
+        int position = PREFIX_LENGTH;
+        if (nanos != 0) {
+            buffer[position++] = '.';
+            if (nanos % 1_000_000 == 0) {
+                position = appendDigits(buffer, position, nanos / 1_000_000, 3);
+            } else if (nanos % 1000 == 0) {
+                position = appendDigits(buffer, position, nanos / 1000, 6);
+            } else {
+                position = appendDigits(buffer, position, nanos, 9);
+            }
+        }
+        buffer[position++] = 'Z';
+        return position;
+    }
+
+    private int formatNanos(char[] buffer) {
+        long value = epochSecond * NANOS_PER_SECOND + nanos;
+        if (value < 0) {
+            String digits = Long.toString(value);
+            digits.getChars(0, digits.length(), buffer, 0);
+            return digits.length();
+        }
+        int length = 1;
+        for (long remaining = value / 10; remaining > 0; remaining /= 10) {
+            length++;
+        }
+        for (int i = length - 1; i >= 0; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return length;
+    }
+
+    private static int appendDigits(char[] buffer, int position, int value, int digits) {
+        for (int i = position + digits - 1; i >= position; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return position + digits;
+    }
+
+    @Override
+    public String toString() {
+        if (iso) {
+            return Instant.ofEpochSecond(epochSecond, nanos).toString();
+        }
+        return String.valueOf(epochSecond * NANOS_PER_SECOND + nanos);
+    }
+
+    private static final class CachedSecond {
+
+        private final long epochSecond;
+        private final char[] prefix = new char[PREFIX_LENGTH];
+
+        private CachedSecond(long epochSecond) {
+            this.epochSecond = epochSecond;
+            LocalDateTime dateTime = LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+            appendDigits(prefix, 0, dateTime.getYear(), 4);
+            prefix[4] = '-';
+            appendDigits(prefix, 5, dateTime.getMonthValue(), 2);
+            prefix[7] = '-';
+            appendDigits(prefix, 8, dateTime.getDayOfMonth(), 2);
+            prefix[10] = 'T';
+            appendDigits(prefix, 11, dateTime.getHour(), 2);
+            prefix[13] = ':';
+            appendDigits(prefix, 14, dateTime.getMinute(), 2);
+            prefix[16] = ':';
+            appendDigits(prefix, 17, dateTime.getSecond(), 2);
+        }
+    }
+}
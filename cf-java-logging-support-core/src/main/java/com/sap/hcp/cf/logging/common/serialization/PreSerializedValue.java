@@ -0,0 +1,48 @@
+package com.sap.hcp.cf.logging.common.serialization;
+
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+/**
+ * A context field value, that was serialized to JSON in advance. It is created for the fields of static
+ * {@link ContextFieldSupplier}s by {@link ContextFieldConverter#preSerialize}. The encoders splice the field name and
+ * value into each log event without escaping them again.
+ */
+public final class PreSerializedValue {
+
+    private final Object value;
+    private final SerializableString name;
+    private final SerializableString json;
+    private final boolean defaultValue;
+
+    PreSerializedValue(String name, Object value, String json, boolean defaultValue) {
+        this.value = value;
+        this.name = new SerializedString(name);
+        this.json = new SerializedString(json);
+        this.defaultValue = defaultValue;
+    }
+
+    /**
+     * @return the original value of the field
+     */
+    public Object getValue() {
+        return value;
+    }
+
+    SerializableString getName() {
+        return name;
+    }
+
+    SerializableString getJson() {
+        return json;
+    }
+
+    boolean isDefaultValue() {
+        return defaultValue;
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(value);
+    }
+}
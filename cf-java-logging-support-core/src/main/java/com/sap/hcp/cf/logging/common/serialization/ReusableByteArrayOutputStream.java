@@ -0,0 +1,101 @@
+package com.sap.hcp.cf.logging.common.serialization;
+
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * An unsynchronized byte array output stream, that is meant to be reused for many serializations by the same thread.
+ * In contrast to {@link java.io.ByteArrayOutputStream} it grants access to the internal buffer, so that its content
+ * can be handed on without an additional copy. After {@link #reset()} the buffer shrinks back to its initial size, if
+ * it was grown beyond the retention limit, e.g. by a single large stacktrace.
+ */
+public class ReusableByteArrayOutputStream extends OutputStream {
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 1024;
+    private static final int DEFAULT_MAX_RETAINED_CAPACITY = 128 * 1024;
+
+    private final int initialCapacity;
+    private final int maxRetainedCapacity;
+    private byte[] buffer;
+    private int count;
+
+    public ReusableByteArrayOutputStream() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_MAX_RETAINED_CAPACITY);
+    }
+
+    public ReusableByteArrayOutputStream(int initialCapacity, int maxRetainedCapacity) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("Initial capacity must be positive: " + initialCapacity);
+        }
+        this.initialCapacity = initialCapacity;
+        this.maxRetainedCapacity = Math.max(initialCapacity, maxRetainedCapacity);
+        this.buffer = new byte[initialCapacity];
+    }
+
+    @Override
+    public void write(int b) {
+        ensureCapacity(count + 1);
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        ensureCapacity(count + len);
+        System.arraycopy(b, off, buffer, count, len);
+        count += len;
+    }
+
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity < 0) {
+            throw new OutOfMemoryError("Required buffer size too large.");
+        }
+        if (minCapacity > buffer.length) {
+            int newCapacity = Math.max(buffer.length << 1, minCapacity);
+            buffer = Arrays.copyOf(buffer, newCapacity < 0 ? minCapacity : newCapacity);
+        }
+    }
+
+    /**
+     * Discards the current content. The internal buffer is replaced by a buffer of the initial size, if it exceeds the
+     * retention limit.
+     */
+    public void reset() {
+        count = 0;
+        if (buffer.length > maxRetainedCapacity) {
+            buffer = new byte[initialCapacity];
+        }
+    }
+
+    /**
+     * @return the number of valid bytes in the buffer
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Provides direct access to the internal buffer. Only the first {@link #size()} bytes are valid. The returned array
+     * must not be retained, since it is reused after {@link #reset()}.
+     *
+     * @return the internal buffer
+     */
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * @return a copy of the valid bytes in the buffer
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, count);
+    }
+
+    @Override
+    public void close() {
+        // nothing to close, the buffer stays usable
+    }
+
+}
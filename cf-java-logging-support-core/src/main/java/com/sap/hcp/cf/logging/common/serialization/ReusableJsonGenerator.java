@@ -0,0 +1,56 @@
+package com.sap.hcp.cf.logging.common.serialization;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
+
+import java.io.IOException;
+
+/**
+ * A long-lived UTF-8 {@link JsonGenerator} writing into a {@link ReusableByteArrayOutputStream}. It allows to serialize
+ * many log events one after the other without allocating a new generator or buffer for each of them. Instances are
+ * not thread-safe and are meant to be held per thread.
+ * <p>
+ * Each serialization starts with {@link #start()} and ends with {@link #finish()}. The generator writes each log event
+ * as a separate root value without any separator. If serialization fails, the generator might be left within an
+ * unfinished JSON structure. The instance must be discarded in that case.
+ */
+public class ReusableJsonGenerator {
+
+    private final ReusableByteArrayOutputStream buffer;
+    private final JsonGenerator generator;
+
+    public ReusableJsonGenerator(JsonFactory jsonFactory, boolean prettyPrint) throws IOException {
+        this.buffer = new ReusableByteArrayOutputStream();
+        this.generator = jsonFactory.createGenerator(buffer);
+        if (prettyPrint) {
+            generator.setPrettyPrinter(new DefaultPrettyPrinter().withRootSeparator((SerializableString) null));
+        } else {
+            generator.setRootValueSeparator(null);
+        }
+    }
+
+    /**
+     * Discards the output of the previous serialization.
+     *
+     * @return the generator to write the next JSON value with
+     */
+    public JsonGenerator start() {
+        buffer.reset();
+        return generator;
+    }
+
+    /**
+     * Flushes the generator into the buffer.
+     *
+     * @return the buffer containing the serialized JSON value
+     * @throws IOException
+     *         if the generator cannot be flushed
+     */
+    public ReusableByteArrayOutputStream finish() throws IOException {
+        generator.flush();
+        return buffer;
+    }
+
+}
@@ -1,15 +1,10 @@
 package com.sap.hcp.cf.logging.common.serialization;
 
-import com.fasterxml.jackson.core.JsonFactory;
-import com.fasterxml.jackson.core.JsonParseException;
-import com.fasterxml.jackson.core.JsonParser;
-import com.fasterxml.jackson.core.JsonToken;
 import com.sap.hcp.cf.logging.common.helper.Environment;
+import com.sap.hcp.cf.logging.common.helper.ServiceBindings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
-
 public class SapApplicationLoggingServiceDetector {
 
     private static final String VCAP_SERVICES = "VCAP_SERVICES";
@@ -29,7 +24,7 @@ public class SapApplicationLoggingServiceDetector {
     }
 
     SapApplicationLoggingServiceDetector(Environment environment) {
-        this(environment.getVariable(Environment.VCAP_SERRVICES));
+        this(ServiceBindings.of(environment));
         String overrideEnvironment =
                 environment.getVariable(Environment.LOG_GENERATE_APPLICATION_LOGGING_CUSTOM_FIELDS);
         String overrideProperty = System.getProperty(OVERRIDE_PROPERTY_NAME);
@@ -39,26 +34,15 @@ public class SapApplicationLoggingServiceDetector {
     }
 
     SapApplicationLoggingServiceDetector(String vcapServicesJson) {
-        if (vcapServicesJson == null) {
-            logger().debug("No Cloud Foundry environment variable " + VCAP_SERVICES + " found.");
+        this(ServiceBindings.fromJson(vcapServicesJson));
+    }
+
+    private SapApplicationLoggingServiceDetector(ServiceBindings serviceBindings) {
+        if (serviceBindings.isEmpty()) {
+            logger().debug("No Cloud Foundry service bindings found in " + VCAP_SERVICES + ".");
             return;
         }
-        try (JsonParser parser = new JsonFactory().createParser(vcapServicesJson)) {
-            parser.nextToken();
-            while (parser.nextToken() != JsonToken.END_OBJECT) {
-                String label = parser.currentName();
-                if (SAP_APPLICATION_LOGGING_LABEL.equals(label)) {
-                    this.boundToSapApplicationLogging = true;
-                    return;
-                }
-                parser.skipChildren();
-            }
-        } catch (JsonParseException e) {
-            throw new RuntimeException(e);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
-
+        this.boundToSapApplicationLogging = serviceBindings.hasLabel(SAP_APPLICATION_LOGGING_LABEL);
     }
 
     public boolean isBoundToSapApplicationLogging() {
@@ -29,4 +29,9 @@ public class VcapEnvFieldSupplier implements ContextFieldSupplier {
         return envMap;
     }
 
+    @Override
+    public boolean isStatic() {
+        return true;
+    }
+
 }
@@ -7,6 +7,7 @@ import java.util.HashSet;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class TestVcapEnvReader {
 
@@ -40,4 +41,15 @@ public class TestVcapEnvReader {
         assertThat(tags).extracting(Fields.ORGANIZATION_NAME).isEqualTo(EnvMap.VCAP_ORGANIZATION_NAME);
         VcapEnvReader.setEnvMap(null);
     }
+
+    @Test
+    public void envMapIsParsedOnceAndImmutable() {
+        VcapEnvReader.setEnvMap(EnvMap.getMap());
+        Map<String, String> envMap = VcapEnvReader.getEnvMap();
+        assertThat(envMap).containsEntry(Fields.COMPONENT_NAME, EnvMap.VCAP_APP_NAME);
+        assertThat(VcapEnvReader.getEnvMap()).isSameAs(envMap);
+        assertThatThrownBy(() -> envMap.put(Fields.COMPONENT_NAME, EnvMap.NOT_SET)).isInstanceOf(
+                UnsupportedOperationException.class);
+        VcapEnvReader.setEnvMap(null);
+    }
 }
@@ -0,0 +1,79 @@
+package com.sap.hcp.cf.logging.common.context;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ContextFieldsTest {
+
+    @Test
+    public void createsFieldsFromMap() {
+        Map<String, String> map = new HashMap<>();
+        map.put("b", "second");
+        map.put("a", "first");
+        map.put("c", null);
+
+        ContextFields fields = ContextFields.of(map);
+
+        assertThat(fields.size()).isEqualTo(2);
+        assertThat(fields.get("a")).isEqualTo("first");
+        assertThat(fields.get("b")).isEqualTo("second");
+        assertThat(fields.get("c")).isNull();
+        assertThat(fields.toMap()).containsOnly(Map.entry("a", "first"), Map.entry("b", "second"));
+    }
+
+    @Test
+    public void addsAndReplacesFieldsWithoutChangingOriginal() {
+        ContextFields original = ContextFields.EMPTY.with("b", "2").with("a", "1");
+
+        ContextFields changed = original.with("c", "3").with("a", "one");
+
+        assertThat(original.toMap()).containsOnly(Map.entry("a", "1"), Map.entry("b", "2"));
+        assertThat(changed.toMap()).containsOnly(Map.entry("a", "one"), Map.entry("b", "2"), Map.entry("c", "3"));
+    }
+
+    @Test
+    public void removesFields() {
+        ContextFields fields = ContextFields.EMPTY.with("a", "1").with("b", "2").with("c", "3");
+
+        assertThat(fields.without("b").toMap()).containsOnly(Map.entry("a", "1"), Map.entry("c", "3"));
+        assertThat(fields.with("a", null).toMap()).containsOnly(Map.entry("b", "2"), Map.entry("c", "3"));
+        assertThat(fields.without("unknown")).isSameAs(fields);
+        assertThat(ContextFields.EMPTY.with("a", "1").without("a")).isSameAs(ContextFields.EMPTY);
+    }
+
+    @Test
+    public void iteratesFieldsInKeyOrder() {
+        ContextFields fields = ContextFields.EMPTY.with("c", "3").with("a", "1").with("b", "2");
+        StringBuilder keys = new StringBuilder();
+
+        fields.forEach((key, value) -> keys.append(key).append(value));
+
+        assertThat(keys).hasToString("a1b2c3");
+    }
+
+    @Test
+    public void createsFieldsFromSortedArrays() {
+        ContextFields fields = ContextFields.of(new String[] { "a", "b", "c" }, new String[] { "1", null, "3" });
+
+        assertThat(fields.toMap()).containsOnly(Map.entry("a", "1"), Map.entry("c", "3"));
+        assertThat(ContextFields.of(new String[] { "b", "a" }, new String[] { "2", "1" }).toMap()).containsOnly(
+                Map.entry("a", "1"), Map.entry("b", "2"));
+        assertThat(ContextFields.of(new String[] { "a" }, new String[] { null })).isSameAs(ContextFields.EMPTY);
+    }
+
+    @Test
+    public void addsAndRemovesSeveralFields() {
+        ContextFields fields = ContextFields.EMPTY.with("a", "1").with("c", "3");
+
+        ContextFields added = fields.withAll(ContextFields.EMPTY.with("b", "2").with("c", "three"));
+
+        assertThat(added.toMap()).containsOnly(Map.entry("a", "1"), Map.entry("b", "2"), Map.entry("c", "three"));
+        assertThat(added.withoutAll(List.of("a", "c", "unknown")).toMap()).containsOnly(Map.entry("b", "2"));
+        assertThat(fields.withAll(ContextFields.EMPTY)).isSameAs(fields);
+    }
+}
@@ -0,0 +1,138 @@
+package com.sap.hcp.cf.logging.common.context;
+
+import com.sap.hcp.cf.logging.common.context.ScopedContextBackend.ScopedValueBinding;
+import com.sap.hcp.cf.logging.common.context.ScopedContextBackend.ThreadLocalBinding;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.slf4j.MDC;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class ScopedContextBackendTest {
+
+    private final ScopedContextBackend backend = new ScopedContextBackend(new ThreadLocalBinding());
+
+    @AfterEach
+    public void clearMdc() {
+        MDC.clear();
+    }
+
+    @Test
+    public void keepsFieldsInScopeOutOfMdc() {
+        backend.runInScope(null, () -> {
+            backend.put("key", "value");
+
+            assertThat(backend.get("key")).isEqualTo("value");
+            assertThat(backend.getScopedFields().get("key")).isEqualTo("value");
+            assertThat(MDC.get("key")).isNull();
+        });
+
+        assertThat(backend.get("key")).isNull();
+        assertThat(backend.getScopedFields()).isSameAs(ContextFields.EMPTY);
+    }
+
+    @Test
+    public void fallsBackToMdcOutsideOfScope() {
+        assertThat(backend.needsScope()).isTrue();
+
+        backend.put("key", "value");
+
+        assertThat(MDC.get("key")).isEqualTo("value");
+        assertThat(backend.getScopedFields().isEmpty()).isTrue();
+    }
+
+    @Test
+    public void startsScopeWithCurrentFields() {
+        MDC.put("outer", "from mdc");
+
+        backend.runInScope(null, () -> {
+            backend.put("inner", "first");
+            backend.runInScope(null, () -> {
+                backend.put("inner", "second");
+
+                assertThat(backend.getCopyOfContextMap()).containsOnly(Map.entry("outer", "from mdc"),
+                                                                       Map.entry("inner", "second"));
+            });
+
+            assertThat(backend.get("inner")).isEqualTo("first");
+        });
+    }
+
+    @Test
+    public void startsScopeWithGivenFields() {
+        backend.runInScope(Collections.singletonMap("key", "value"), () -> {
+            assertThat(backend.needsScope()).isFalse();
+            assertThat(backend.get("key")).isEqualTo("value");
+        });
+    }
+
+    @Test
+    public void installsCapturedFieldsWithoutCopying() {
+        ContextFields[] captured = new ContextFields[1];
+        backend.runInScope(null, () -> {
+            backend.put("key", "value");
+            captured[0] = backend.getContextFields();
+        });
+
+        backend.runWithContextFields(captured[0], () -> {
+            assertThat(backend.getScopedFields()).isSameAs(captured[0]);
+            backend.put("key", "changed");
+        });
+
+        assertThat(captured[0].get("key")).isEqualTo("value");
+    }
+
+    @Test
+    public void copiesScopedFieldsToMdcOnDemand() {
+        MDC.put("other", "value");
+
+        backend.runInScope(null, () -> {
+            backend.put("key", "value");
+            backend.runWithMdc(() -> assertThat(MDC.get("key")).isEqualTo("value"));
+
+            assertThat(MDC.get("key")).isNull();
+            assertThat(MDC.get("other")).isEqualTo("value");
+        });
+    }
+
+    @Test
+    public void propagatesCheckedExceptions() {
+        IOException failure = new IOException("failure");
+
+        assertThatThrownBy(() -> backend.runInScope(null, () -> {
+            throw failure;
+        })).isSameAs(failure);
+    }
+
+    @Test
+    public void bindsScopeWithScopedValueIfAvailable() throws IOException {
+        assumeTrue(ScopedValueBinding.isAvailable(), "ScopedValue is not available in this runtime.");
+        ScopedContextBackend scopedValueBackend = new ScopedContextBackend();
+        IOException failure = new IOException("failure");
+
+        scopedValueBackend.runInScope(Collections.singletonMap("key", "value"), () -> {
+            assertThat(scopedValueBackend.get("key")).isEqualTo("value");
+            assertThatThrownBy(() -> scopedValueBackend.runInScope(null, () -> {
+                throw failure;
+            })).isSameAs(failure);
+        });
+
+        assertThat(scopedValueBackend.isUsingScopedValue()).isTrue();
+        assertThat(scopedValueBackend.needsScope()).isTrue();
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    public void usesScopedValueOnJava21AndLater() {
+        assertThat(ScopedValueBinding.getUnavailableCause()).isNull();
+        assertThat(new ScopedContextBackend().isUsingScopedValue()).isTrue();
+    }
+}
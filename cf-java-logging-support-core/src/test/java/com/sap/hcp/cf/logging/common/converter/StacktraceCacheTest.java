@@ -0,0 +1,67 @@
+package com.sap.hcp.cf.logging.common.converter;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.jr.ob.JSON;
+import com.sap.hcp.cf.logging.common.helper.StacktraceGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StacktraceCacheTest {
+
+    private static final int MAX_SIZE = 1000;
+
+    private final StacktraceRenderer renderer = new StacktraceRenderer(MAX_SIZE);
+
+    @Test
+    public void rendersEscapedJsonArray() throws IOException {
+        StacktraceCache cache = new StacktraceCache(10, renderer, new JsonFactory());
+        Throwable throwable = new StacktraceGenerator(5, 10, 5).generateException();
+
+        String stacktrace = cache.getStacktrace(throwable).getValue();
+
+        assertThat(JSON.std.listFrom(stacktrace)).containsExactlyElementsOf(renderer.render(throwable));
+    }
+
+    @Test
+    public void servesRepeatedExceptionsFromCache() throws IOException {
+        StacktraceCache cache = new StacktraceCache(10, renderer, new JsonFactory());
+
+        for (int i = 0; i < 3; i++) {
+            cache.getStacktrace(createThrowable("message"));
+        }
+
+        assertThat(cache.getMissCount()).isEqualTo(1);
+        assertThat(cache.getHitCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void distinguishesMessages() throws IOException {
+        StacktraceCache cache = new StacktraceCache(10, renderer, new JsonFactory());
+
+        String first = cache.getStacktrace(createThrowable("first")).getValue();
+        String second = cache.getStacktrace(createThrowable("second")).getValue();
+
+        assertThat(first).contains("first").doesNotContain("second");
+        assertThat(second).contains("second").doesNotContain("first");
+        assertThat(cache.getMissCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedStacktraces() throws IOException {
+        StacktraceCache cache = new StacktraceCache(2, renderer, new JsonFactory());
+
+        for (int i = 0; i < 10; i++) {
+            cache.getStacktrace(createThrowable("message " + i));
+        }
+
+        assertThat(cache.size()).isLessThanOrEqualTo(2);
+    }
+
+    private static Throwable createThrowable(String message) {
+        // all throwables are created at the same throw site
+        return new IllegalStateException(message, new IllegalArgumentException("cause"));
+    }
+}
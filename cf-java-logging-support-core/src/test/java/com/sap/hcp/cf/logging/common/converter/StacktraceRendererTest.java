@@ -0,0 +1,61 @@
+package com.sap.hcp.cf.logging.common.converter;
+
+import com.sap.hcp.cf.logging.common.helper.StacktraceGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StacktraceRendererTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = { 100, 1000, 5000, 55 * 1024 })
+    public void rendersLikePrintStackTrace(int maxSize) {
+        Throwable throwable = createComplexThrowable();
+
+        List<String> lines = new StacktraceRenderer(maxSize).render(throwable);
+
+        assertThat(lines).containsExactlyElementsOf(renderWithPrintStackTrace(throwable, maxSize));
+    }
+
+    @Test
+    public void rendersCircularReferences() {
+        int maxSize = 55 * 1024;
+        Exception first = new Exception("first");
+        Exception second = new Exception("second", first);
+        first.initCause(second);
+        first.addSuppressed(new IllegalStateException("suppressed", second));
+
+        List<String> lines = new StacktraceRenderer(maxSize).render(first);
+
+        assertThat(lines).anyMatch(l -> l.contains("Caused by: [CIRCULAR REFERENCE: java.lang.Exception: first]"));
+        assertThat(lines).containsExactlyElementsOf(renderWithPrintStackTrace(first, maxSize));
+    }
+
+    private static Throwable createComplexThrowable() {
+        IllegalArgumentException root = new StacktraceGenerator(20, 30, 40).generateException();
+        RuntimeException cause = new RuntimeException("cause", root);
+        cause.addSuppressed(new StacktraceGenerator(5, 5, 5).generateException());
+        return new IllegalStateException("top", cause);
+    }
+
+    private static List<String> renderWithPrintStackTrace(Throwable throwable, int maxSize) {
+        LineWriter lineWriter = new LineWriter();
+        throwable.printStackTrace(new PrintWriter(lineWriter));
+        StacktraceLines stacktraceLines = new StacktraceLines(lineWriter.getLines());
+        if (stacktraceLines.getTotalLineLength() <= maxSize) {
+            return stacktraceLines.getLines();
+        }
+        List<String> lines = new ArrayList<>();
+        lines.add(StacktraceRenderer.TRUNCATED_MARKER);
+        lines.addAll(stacktraceLines.getFirstLines(maxSize / 3));
+        lines.add(StacktraceRenderer.OMITTED_MARKER);
+        lines.addAll(stacktraceLines.getLastLines((maxSize / 3) * 2));
+        return lines;
+    }
+}
@@ -0,0 +1,89 @@
+package com.sap.hcp.cf.logging.common.converter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StacktraceThrottleTest {
+
+    private static final long WINDOW_MILLIS = 1000;
+
+    private final StacktraceThrottle throttle = new StacktraceThrottle(2, WINDOW_MILLIS);
+
+    @Test
+    public void countsOccurrencesWithinWindow() {
+        ThrowableFingerprint fingerprint = ThrowableFingerprint.of(createThrowable("message"));
+
+        assertThat(throttle.recordOccurrence(fingerprint, 0)).isEqualTo(1);
+        assertThat(throttle.recordOccurrence(fingerprint, 10)).isEqualTo(2);
+        assertThat(throttle.recordOccurrence(fingerprint, 20)).isEqualTo(3);
+        assertThat(throttle.isStacktraceRequired(2)).isTrue();
+        assertThat(throttle.isStacktraceRequired(3)).isFalse();
+        assertThat(throttle.getOmittedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void restartsCountingInNextWindow() {
+        ThrowableFingerprint fingerprint = ThrowableFingerprint.of(createThrowable("message"));
+        throttle.recordOccurrence(fingerprint, 0);
+        throttle.recordOccurrence(fingerprint, 10);
+
+        assertThat(throttle.recordOccurrence(fingerprint, WINDOW_MILLIS)).isEqualTo(1);
+    }
+
+    @Test
+    public void countsFingerprintsIndependently() {
+        ThrowableFingerprint first = ThrowableFingerprint.of(createThrowable("first"));
+        ThrowableFingerprint second = ThrowableFingerprint.of(createThrowable("second"));
+        throttle.recordOccurrence(first, 0);
+        throttle.recordOccurrence(first, 0);
+
+        assertThat(throttle.recordOccurrence(second, 0)).isEqualTo(1);
+        assertThat(first.getReference()).hasSize(16).isNotEqualTo(second.getReference());
+    }
+
+    @Test
+    public void throttlesExceptionsWithVaryingMessages() {
+        ThrowableFingerprint first = ThrowableFingerprint.withoutMessages(createThrowable("id 1"));
+        ThrowableFingerprint second = ThrowableFingerprint.withoutMessages(createThrowable("id 2"));
+        throttle.recordOccurrence(first, 0);
+        throttle.recordOccurrence(first, 0);
+
+        assertThat(throttle.recordOccurrence(second, 0)).isEqualTo(3);
+        assertThat(second.getReference()).isEqualTo(first.getReference());
+    }
+
+    @Test
+    public void neverOmitsStacktracesOfDifferentExceptions() {
+        for (int i = 0; i < 10_000; i++) {
+            ThrowableFingerprint fingerprint = ThrowableFingerprint.of(createThrowable("message " + i));
+            assertThat(throttle.recordOccurrence(fingerprint, 0)).isEqualTo(1);
+        }
+        assertThat(throttle.getOmittedCount()).isZero();
+    }
+
+    @Test
+    public void countsConcurrentOccurrences() throws InterruptedException {
+        ThrowableFingerprint fingerprint = ThrowableFingerprint.of(createThrowable("message"));
+        AtomicInteger maxOccurrences = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 1000; i++) {
+            executor.execute(() -> maxOccurrences.accumulateAndGet(throttle.recordOccurrence(fingerprint, 0), Math::max));
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(maxOccurrences.get()).isEqualTo(1000);
+        assertThat(throttle.getOmittedCount()).isEqualTo(998);
+    }
+
+    private static Throwable createThrowable(String message) {
+        // all throwables are created at the same throw site
+        return new IllegalStateException(message, new IllegalArgumentException("cause"));
+    }
+}
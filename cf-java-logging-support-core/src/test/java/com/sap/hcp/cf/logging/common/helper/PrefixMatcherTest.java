@@ -0,0 +1,51 @@
+package com.sap.hcp.cf.logging.common.helper;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PrefixMatcherTest {
+
+    @Test
+    public void matchesNamesStartingWithAnyPrefix() {
+        PrefixMatcher matcher = PrefixMatcher.forPrefixes("com.example.service,com.example.repo,org.sample");
+
+        assertThat(matcher.matches("com.example.service.Handler")).isTrue();
+        assertThat(matcher.matches("com.example.repository.Store")).isTrue();
+        assertThat(matcher.matches("org.sample")).isTrue();
+        assertThat(matcher.matches("com.example.web.Controller")).isFalse();
+        assertThat(matcher.matches("org.samp")).isFalse();
+        assertThat(matcher.matches("")).isFalse();
+    }
+
+    @Test
+    public void matchesSharedPrefixes() {
+        PrefixMatcher matcher = PrefixMatcher.forPrefixes("com.example.service.Handler,com.example");
+
+        assertThat(matcher.matches("com.example.other.Store")).isTrue();
+        assertThat(matcher.matches("com.exam")).isFalse();
+    }
+
+    @Test
+    public void emptyPrefixMatchesEverything() {
+        PrefixMatcher matcher = PrefixMatcher.forPrefixes("com.example,,org.sample");
+
+        assertThat(matcher.matches("net.other.Component")).isTrue();
+        assertThat(matcher.matches("")).isTrue();
+    }
+
+    @Test
+    public void reusesMatcherForSameString() {
+        String prefixes = "com.example";
+
+        assertThat(PrefixMatcher.forPrefixes(prefixes)).isSameAs(PrefixMatcher.forPrefixes(prefixes));
+    }
+
+    @Test
+    public void compilesEqualStringInstancesIndependently() {
+        PrefixMatcher matcher = PrefixMatcher.forPrefixes(new String("com.example"));
+
+        assertThat(PrefixMatcher.forPrefixes(new String("org.sample")).matches("com.example.Service")).isFalse();
+        assertThat(matcher.matches("com.example.Service")).isTrue();
+    }
+}
@@ -0,0 +1,36 @@
+package com.sap.hcp.cf.logging.common.helper;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A channel, that records every write as a string, e.g. to check how lines are coalesced.
+ */
+public class RecordingChannel implements WritableByteChannel {
+
+    private final List<String> writes = new CopyOnWriteArrayList<>();
+
+    public List<String> getWrites() {
+        return writes;
+    }
+
+    @Override
+    public int write(ByteBuffer source) {
+        byte[] bytes = new byte[source.remaining()];
+        source.get(bytes);
+        writes.add(new String(bytes, StandardCharsets.UTF_8));
+        return bytes.length;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return true;
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,66 @@
+package com.sap.hcp.cf.logging.common.helper;
+
+import com.sap.hcp.cf.logging.common.helper.ServiceBindings.ServiceBinding;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ServiceBindingsTest {
+
+    private static final String VCAP_SERVICES = "{" + //
+            "\"application-logs\":[{\"label\":\"application-logs\",\"name\":\"als\",\"tags\":[\"logs\"]," + //
+            "\"credentials\":{\"endpoint\":\"https://logs.example.com\",\"nested\":{\"ignored\":true}}}]," + //
+            "\"user-provided\":[{\"label\":\"user-provided\",\"name\":\"ups\",\"tags\":[\"logs\",\"custom\"]}]," + //
+            "\"empty-service\":[]" + //
+            "}";
+
+    @Test
+    void indexesBindingsByLabelNameAndTag() {
+        ServiceBindings bindings = ServiceBindings.fromJson(VCAP_SERVICES);
+
+        assertThat(bindings.getAll()).extracting(ServiceBinding::getName).containsExactly("als", "ups");
+        assertThat(bindings.getByLabel("user-provided")).extracting(ServiceBinding::getName).containsExactly("ups");
+        assertThat(bindings.getByTag("logs")).extracting(ServiceBinding::getName).containsExactly("als", "ups");
+        assertThat(bindings.getByName("als")).get().extracting(ServiceBinding::getCredentials)
+                                             .isEqualTo(Map.of("endpoint", "https://logs.example.com"));
+        assertThat(bindings.hasLabel("empty-service")).isTrue();
+        assertThat(bindings.hasLabel("unknown")).isFalse();
+    }
+
+    @Test
+    void memoizesParsedDocument() {
+        ServiceBindings bindings = ServiceBindings.fromJson(VCAP_SERVICES);
+
+        assertThat(ServiceBindings.fromJson(VCAP_SERVICES)).isSameAs(bindings);
+    }
+
+    @Test
+    void readsBindingsFromFile(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("vcap_services.json");
+        Files.writeString(file, VCAP_SERVICES, StandardCharsets.UTF_8);
+        Environment environment = new Environment() {
+            @Override
+            public String getVariable(String name) {
+                return Environment.VCAP_SERVICES_FILE_PATH.equals(name) ? file.toString() : null;
+            }
+        };
+
+        ServiceBindings bindings = ServiceBindings.of(environment);
+
+        assertThat(bindings.getByLabel("application-logs")).extracting(ServiceBinding::getName).containsExactly("als");
+    }
+
+    @Test
+    void invalidDocumentYieldsNoBindings() {
+        ServiceBindings bindings = ServiceBindings.fromJson("{\"application-logs\": [");
+
+        assertThat(bindings.isEmpty()).isTrue();
+        assertThat(bindings.getAll()).isEmpty();
+    }
+}
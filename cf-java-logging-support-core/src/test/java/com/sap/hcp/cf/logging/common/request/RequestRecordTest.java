@@ -4,6 +4,9 @@ import com.fasterxml.jackson.jr.ob.JSON;
 import com.sap.hcp.cf.logging.common.Defaults;
 import com.sap.hcp.cf.logging.common.DoubleValue;
 import com.sap.hcp.cf.logging.common.Fields;
+import com.sap.hcp.cf.logging.common.LongValue;
+import com.sap.hcp.cf.logging.common.StringValue;
+import com.sap.hcp.cf.logging.common.Value;
 import com.sap.hcp.cf.logging.common.request.RequestRecord.Direction;
 import org.assertj.core.api.AbstractDoubleAssert;
 import org.assertj.core.api.Assertions;
@@ -17,6 +20,8 @@ import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -137,6 +142,90 @@ public class RequestRecordTest {
 
     }
 
+    @Test
+    public void measuresResponseTimeBelowMilliseconds() throws IOException {
+        RequestRecord requestRecord = new RequestRecord("testResponseTimePrecision");
+        Duration responseDelay = Duration.ofNanos(1_234_567);
+        advanceRequestRecordClock(responseDelay);
+        String firstSerialization = requestRecord.toString();
+        advanceRequestRecordClock(RESPONSE_DELAY);
+
+        assertThat(requestRecord.toString()).isEqualTo(firstSerialization);
+        assertRequestRecord(requestRecord).containsEntry(Fields.RESPONSE_TIME_MS, 1.234567d)
+                                          .containsEntry(Fields.RESPONSE_SENT_AT,
+                                                         Instant.EPOCH.plus(responseDelay).toString());
+    }
+
+    @Test
+    public void keepsValueTypesOfFields() {
+        RequestRecord requestRecord = new RequestRecord("testValueTypes");
+        Value customValue = new StringValue("custom");
+
+        assertThat(requestRecord.addValue(Fields.RESPONSE_STATUS, new LongValue(404))).extracting(Value::asLong)
+                                                                                     .isEqualTo(200L);
+        assertThat(requestRecord.addTag(Fields.RESPONSE_STATUS, "not a number")).isEqualTo("404");
+        assertThat(requestRecord.addValue("custom_field", customValue)).isNull();
+        assertThat(requestRecord.addTag(Fields.REQUEST, "/path")).isEqualTo(Defaults.UNKNOWN);
+
+        Map<String, Value> fields = requestRecord.getFields();
+        assertThat(fields.get(Fields.RESPONSE_STATUS).getValue()).isEqualTo("not a number");
+        assertThat(fields.get(Fields.REQUEST_SIZE_B).getValue()).isEqualTo(-1L);
+        assertThat(fields.get(Fields.REQUEST).getValue()).isEqualTo("/path");
+        assertThat(fields.get(Fields.RESPONSE_TIME_MS).getValue()).isInstanceOf(Double.class);
+        assertThat(fields).containsEntry("custom_field", customValue);
+    }
+
+    @Test
+    public void writesSameFieldsAsGetFields() {
+        RequestRecord requestRecord = new RequestRecord("testWriteFields");
+        requestRecord.addValue(Fields.RESPONSE_SIZE_B, new LongValue(42));
+        requestRecord.addTag("custom_field", "custom");
+        Map<String, Object> expected = new HashMap<>();
+        requestRecord.getFields().forEach((key, value) -> expected.put(key, value.getValue()));
+
+        Map<String, Object> actual = new HashMap<>();
+        requestRecord.writeFields(actual::put);
+
+        assertThat(actual).isEqualTo(expected).containsEntry(Fields.RESPONSE_SIZE_B, 42L)
+                          .containsEntry("custom_field", "custom");
+    }
+
+    @Test
+    public void returnsSnapshotOfFields() {
+        RequestRecord requestRecord = new RequestRecord("testSnapshot");
+        Map<String, Value> fields = requestRecord.getFields();
+
+        requestRecord.addTag("custom_field", "custom");
+
+        assertThat(fields).doesNotContainKey("custom_field");
+        assertThat(requestRecord.getFields()).containsKey("custom_field");
+    }
+
+    @Test
+    public void writesFieldsOfRenderedRecord() throws IOException {
+        RequestRecord requestRecord = new RequestRecord("testRenderedFields");
+        requestRecord.addTag("custom_field", "custom");
+        String message = requestRecord.toString();
+
+        Map<String, Object> fields = new HashMap<>();
+        assertThat(RequestRecord.writeRenderedFields(new String(message), fields::put)).isTrue();
+
+        assertThat(fields).containsEntry(Fields.LAYER, "testRenderedFields").containsEntry("custom_field", "custom")
+                          .containsOnlyKeys(JSON.std.mapFrom(message).keySet());
+    }
+
+    @Test
+    public void ignoresModifiedRenderedRecord() {
+        RequestRecord requestRecord = new RequestRecord("testModifiedRecord");
+        String message = requestRecord.toString();
+        requestRecord.addTag(Fields.REQUEST, "/path");
+
+        Map<String, Object> fields = new HashMap<>();
+        assertThat(RequestRecord.writeRenderedFields(message, fields::put)).isFalse();
+        assertThat(RequestRecord.writeRenderedFields("{}", fields::put)).isFalse();
+        assertThat(fields).isEmpty();
+    }
+
     private Clock getRequestRecordClock() {
         return RequestRecord.ClockHolder.getInstance();
     }
@@ -0,0 +1,155 @@
+package com.sap.hcp.cf.logging.common.sampling;
+
+import com.sap.hcp.cf.logging.common.Fields;
+import com.sap.hcp.cf.logging.common.sampling.DuplicateSuppressor.Repeats;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+public class DuplicateSuppressorTest {
+
+    private static final long START = 1_700_000_000_000L;
+
+    private final AtomicLong clock = new AtomicLong(START);
+    private final List<Repeats<String>> summaries = new ArrayList<>();
+    private final DuplicateSuppressor<String> suppressor = new DuplicateSuppressor<>(1000, summaries::add, clock::get);
+
+    private boolean suppress(String loggerName, String template, String sample) {
+        return suppress(loggerName, "INFO", template, sample);
+    }
+
+    private boolean suppress(String loggerName, String level, String template, String sample) {
+        Repeats<String> repeats = suppressor.suppress(loggerName, level, template);
+        if (repeats != null && repeats.needsSample()) {
+            repeats.setSample(sample);
+        }
+        return repeats != null;
+    }
+
+    @Test
+    public void suppressesRepetitionsWithinWindow() {
+        assertThat(suppress("logger", "message {}", "first")).isFalse();
+        clock.addAndGet(10);
+        assertThat(suppress("logger", "message {}", "second")).isTrue();
+        clock.addAndGet(10);
+        assertThat(suppress("logger", "message {}", "third")).isTrue();
+
+        assertThat(summaries).isEmpty();
+    }
+
+    @Test
+    public void distinguishesLoggersAndTemplates() {
+        assertThat(suppress("logger", "message {}", "first")).isFalse();
+        assertThat(suppress("other", "message {}", "first")).isFalse();
+        assertThat(suppress("logger", "other {}", "first")).isFalse();
+        assertThat(suppress("logger", "WARN", "message {}", "first")).isFalse();
+    }
+
+    @Test
+    public void summarizesRepetitionsWhenWindowCloses() {
+        suppress("logger", "message {}", "first");
+        clock.addAndGet(10);
+        suppress("logger", "message {}", "second");
+        clock.addAndGet(10);
+        suppress("logger", "message {}", "third");
+        clock.addAndGet(1000);
+
+        assertThat(suppress("logger", "message {}", "fourth")).isFalse();
+        assertThat(summaries).singleElement().satisfies(repeats -> {
+            assertThat(repeats.getSample()).isEqualTo("second");
+            assertThat(repeats.getRepeatCount()).isEqualTo(2);
+            assertThat(repeats.getFirstTimestamp()).isEqualTo(START + 10);
+            assertThat(repeats.getLastTimestamp()).isEqualTo(START + 20);
+        });
+    }
+
+    @Test
+    public void summarizesEndedBurstsOnOtherEvents() {
+        suppress("logger", "message {}", "first");
+        suppress("logger", "message {}", "second");
+        clock.addAndGet(1000);
+
+        assertThat(suppress("logger", "other {}", "other")).isFalse();
+        assertThat(summaries).extracting(Repeats::getSample).containsExactly("second");
+    }
+
+    @Test
+    public void doesNotSummarizeSingleEvents() {
+        suppress("logger", "message {}", "first");
+        clock.addAndGet(1000);
+        suppress("logger", "message {}", "second");
+        suppressor.flush();
+
+        assertThat(summaries).isEmpty();
+    }
+
+    @Test
+    public void flushesPendingRepetitions() {
+        suppress("logger", "message {}", "first");
+        suppress("logger", "message {}", "second");
+        suppressor.flush();
+
+        assertThat(summaries).extracting(Repeats::getRepeatCount).containsExactly(1L);
+    }
+
+    @Test
+    public void addsRepeatFields() {
+        suppress("logger", "message {}", "first");
+        clock.addAndGet(10);
+        suppress("logger", "message {}", "second");
+        suppressor.flush();
+
+        Map<String, String> contextFields = new HashMap<>();
+        summaries.get(0).addFields(contextFields);
+        assertThat(contextFields).containsOnly(entry(Fields.REPEAT_COUNT, "1"),
+                                               entry(Fields.FIRST_REPEAT_AT, "2023-11-14T22:13:20.010Z"),
+                                               entry(Fields.LAST_REPEAT_AT, "2023-11-14T22:13:20.010Z"));
+    }
+
+    @Test
+    public void keepsOpenBurstsOfCollidingTemplates() {
+        int templates = 4096;
+        for (int i = 0; i < templates; i++) {
+            suppress("logger", "template " + i, "first");
+        }
+        long written = 0;
+        for (int i = 0; i < templates; i++) {
+            if (!suppress("logger", "template " + i, "second")) {
+                written++;
+            }
+        }
+        assertThat(summaries).isEmpty();
+
+        suppressor.flush();
+        long repeated = summaries.stream().mapToLong(Repeats::getRepeatCount).sum();
+        assertThat(repeated + written).isEqualTo(templates);
+    }
+
+    @Test
+    public void sweepsClosedBurstsWithoutFurtherEvents() throws Exception {
+        List<Repeats<String>> swept = new CopyOnWriteArrayList<>();
+        DuplicateSuppressor<String> sweeping = new DuplicateSuppressor<>(10, swept::add, clock::get);
+        sweeping.start();
+        try {
+            sweeping.suppress("logger", "INFO", "message {}");
+            sweeping.suppress("logger", "INFO", "message {}").setSample("second");
+            clock.addAndGet(10);
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (swept.isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertThat(swept).extracting(Repeats::getSample).containsExactly("second");
+        } finally {
+            sweeping.stop();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.sap.hcp.cf.logging.common.sampling;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+
+public class LogSamplerTest {
+
+    private final AtomicLong nanoTime = new AtomicLong(42);
+
+    private LogSampler createSampler(String... budgets) {
+        return new LogSampler(List.of(budgets).stream().map(SamplingBudget::parse).toList(), 60, nanoTime::get);
+    }
+
+    @Test
+    public void dropsEventsExceedingBurst() {
+        LogSampler sampler = createSampler("com.example:DEBUG=10/3");
+
+        assertThat(sampler.tryAcquire("com.example.Chatty", "DEBUG")).isTrue();
+        assertThat(sampler.tryAcquire("com.example.Chatty", "DEBUG")).isTrue();
+        assertThat(sampler.tryAcquire("com.example.Chatty", "DEBUG")).isTrue();
+        assertThat(sampler.tryAcquire("com.example.Chatty", "DEBUG")).isFalse();
+    }
+
+    @Test
+    public void refillsTokensOverTime() {
+        LogSampler sampler = createSampler("com.example=10/1");
+
+        assertThat(sampler.tryAcquire("com.example.Chatty", "INFO")).isTrue();
+        assertThat(sampler.tryAcquire("com.example.Chatty", "INFO")).isFalse();
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        assertThat(sampler.tryAcquire("com.example.Chatty", "INFO")).isTrue();
+    }
+
+    @Test
+    public void acceptsEventsWithoutMatchingBudget() {
+        LogSampler sampler = createSampler("com.example:DEBUG=1/1");
+
+        assertThat(sampler.tryAcquire("com.example.Chatty", "DEBUG")).isTrue();
+        assertThat(sampler.tryAcquire("com.example.Chatty", "DEBUG")).isFalse();
+        assertThat(sampler.tryAcquire("com.example.Chatty", "INFO")).isTrue();
+        assertThat(sampler.tryAcquire("org.example.Chatty", "DEBUG")).isTrue();
+    }
+
+    @Test
+    public void prefersLongestPrefix() {
+        LogSampler sampler = createSampler("com=100", "com.example.chatty=1/1");
+
+        assertThat(sampler.tryAcquire("com.example.chatty.Service", "INFO")).isTrue();
+        assertThat(sampler.tryAcquire("com.example.chatty.Service", "INFO")).isFalse();
+        assertThat(sampler.tryAcquire("com.example.quiet.Service", "INFO")).isTrue();
+    }
+
+    @Test
+    public void prefersLevelSpecificBudgetForEqualPrefix() {
+        for (LogSampler sampler: List.of(createSampler("com.example=1/1", "com.example:DEBUG=1/2"),
+                                         createSampler("com.example:DEBUG=1/2", "com.example=1/1"))) {
+            assertThat(sampler.tryAcquire("com.example.Chatty", "DEBUG")).isTrue();
+            assertThat(sampler.tryAcquire("com.example.Chatty", "DEBUG")).isTrue();
+            assertThat(sampler.tryAcquire("com.example.Chatty", "DEBUG")).isFalse();
+            assertThat(sampler.tryAcquire("com.example.Chatty", "INFO")).isTrue();
+            assertThat(sampler.tryAcquire("com.example.Chatty", "INFO")).isFalse();
+        }
+    }
+
+    @Test
+    public void reportsDroppedEventsOncePerInterval() {
+        LogSampler sampler = createSampler("com.example=1/1");
+        sampler.tryAcquire("com.example.Chatty", "INFO");
+        sampler.tryAcquire("com.example.Chatty", "INFO");
+        sampler.tryAcquire("com.example.Chatty", "INFO");
+
+        Map<String, Long> reported = new LinkedHashMap<>();
+        sampler.reportDroppedIfDue((budget, dropped) -> reported.put(budget.getPrefix(), dropped));
+        assertThat(reported).isEmpty();
+
+        nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(60));
+        sampler.reportDroppedIfDue((budget, dropped) -> reported.put(budget.getPrefix(), dropped));
+        assertThat(reported).containsExactly(entry("com.example", 2L));
+
+        reported.clear();
+        sampler.reportDropped((budget, dropped) -> reported.put(budget.getPrefix(), dropped));
+        assertThat(reported).isEmpty();
+    }
+
+    @Test
+    public void reportsDroppedEventsWithoutFurtherEvents() throws Exception {
+        LogSampler sampler = new LogSampler(List.of(SamplingBudget.parse("com.example=1/1")), 1);
+        sampler.tryAcquire("com.example.Chatty", "INFO");
+        sampler.tryAcquire("com.example.Chatty", "INFO");
+
+        Map<String, Long> reported = new ConcurrentHashMap<>();
+        sampler.start((budget, dropped) -> reported.put(budget.getPrefix(), dropped));
+        try {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (reported.isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertThat(reported).containsExactly(entry("com.example", 1L));
+        } finally {
+            sampler.stop();
+        }
+    }
+
+    @Test
+    public void parsesBudget() {
+        SamplingBudget budget = SamplingBudget.parse(" com.example : debug = 2.5 / 10 ");
+
+        assertThat(budget.getPrefix()).isEqualTo("com.example");
+        assertThat(budget.getLevel()).isEqualTo("DEBUG");
+        assertThat(budget.getEventsPerSecond()).isEqualTo(2.5);
+        assertThat(budget.getBurst()).isEqualTo(10);
+    }
+
+    @Test
+    public void defaultsBurstToEventsPerSecond() {
+        SamplingBudget budget = SamplingBudget.parse("com.example=100");
+
+        assertThat(budget.getLevel()).isNull();
+        assertThat(budget.getBurst()).isEqualTo(100);
+    }
+
+    @Test
+    public void rejectsInvalidBudget() {
+        assertThatThrownBy(() -> SamplingBudget.parse("com.example")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> SamplingBudget.parse("com.example=many")).isInstanceOf(
+                IllegalArgumentException.class);
+        assertThatThrownBy(() -> SamplingBudget.parse("com.example=0")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
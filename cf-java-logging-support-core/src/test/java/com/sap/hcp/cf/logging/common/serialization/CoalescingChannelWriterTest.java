@@ -0,0 +1,106 @@
+package com.sap.hcp.cf.logging.common.serialization;
+
+import com.sap.hcp.cf.logging.common.helper.RecordingChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CoalescingChannelWriterTest {
+
+    private static final long NO_LINGER_FLUSH = TimeUnit.HOURS.toMillis(1);
+
+    private final RecordingChannel channel = new RecordingChannel();
+    private CoalescingChannelWriter writer;
+
+    @AfterEach
+    public void closeWriter() throws IOException {
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    @Test
+    public void coalescesCompleteLines() throws IOException {
+        writer = new CoalescingChannelWriter(channel, 32, NO_LINGER_FLUSH);
+
+        for (int i = 0; i < 5; i++) {
+            write("line " + i + "...\n");
+        }
+        assertThat(channel.getWrites()).containsExactly("line 0...\nline 1...\nline 2...\n");
+
+        writer.flush();
+        assertThat(channel.getWrites()).containsExactly("line 0...\nline 1...\nline 2...\n", "line 3...\nline 4...\n");
+    }
+
+    @Test
+    public void writesLargeLineOnItsOwn() throws IOException {
+        writer = new CoalescingChannelWriter(channel, 16, NO_LINGER_FLUSH);
+
+        write("short\n");
+        write("a line longer than the buffer\n");
+        write("short\n");
+        writer.close();
+
+        assertThat(channel.getWrites()).containsExactly("short\n", "a line longer than the buffer\n", "short\n");
+    }
+
+    @Test
+    public void writesBufferedLinesAfterMaxLinger() throws Exception {
+        writer = new CoalescingChannelWriter(channel, 1024, 10);
+
+        write("line\n");
+
+        awaitWrites(1);
+        assertThat(channel.getWrites()).containsExactly("line\n");
+    }
+
+    @Test
+    public void writesLaterLinesAfterMaxLinger() throws Exception {
+        writer = new CoalescingChannelWriter(channel, 1024, 10);
+
+        write("first\n");
+        awaitWrites(1);
+        write("second\n");
+        awaitWrites(2);
+
+        assertThat(channel.getWrites()).containsExactly("first\n", "second\n");
+    }
+
+    @Test
+    public void writesLinesAfterClose() throws IOException {
+        writer = new CoalescingChannelWriter(channel, 1024, NO_LINGER_FLUSH);
+
+        write("before\n");
+        writer.close();
+        write("after\n");
+
+        assertThat(channel.getWrites()).containsExactly("before\n", "after\n");
+    }
+
+    @Test
+    public void writesEveryLineWithoutLinger() throws IOException {
+        writer = new CoalescingChannelWriter(channel, 1024, 0);
+
+        write("first\n");
+        write("second\n");
+
+        assertThat(channel.getWrites()).containsExactly("first\n", "second\n");
+    }
+
+    private void write(String line) throws IOException {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        writer.write(bytes, 0, bytes.length);
+    }
+
+    private void awaitWrites(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (channel.getWrites().size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.sap.hcp.cf.logging.common.serialization;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContextFieldBufferTest {
+
+    @Test
+    void laterWriteReplacesEarlierValue() {
+        ContextFieldBuffer buffer = new ContextFieldBuffer();
+
+        buffer.put("key", "first");
+        buffer.put("other", "value");
+        buffer.put("key", "second");
+
+        assertThat(buffer.size()).isEqualTo(2);
+        assertThat(buffer.get("key")).isEqualTo("second");
+        assertThat(buffer.getKey(0)).isEqualTo("key");
+        assertThat(buffer.getKey(1)).isEqualTo("other");
+    }
+
+    @Test
+    void growsBeyondInitialCapacity() {
+        ContextFieldBuffer buffer = new ContextFieldBuffer(4);
+        Map<String, Object> expected = new LinkedHashMap<>();
+        for (int i = 0; i < 100; i++) {
+            expected.put("key" + i, i);
+        }
+
+        buffer.putAll(expected);
+
+        assertThat(buffer.size()).isEqualTo(100);
+        expected.forEach((k, v) -> assertThat(buffer.get(k)).isEqualTo(v));
+        assertThat(buffer.getKey(99)).isEqualTo("key99");
+    }
+
+    @Test
+    void clearRemovesAllFields() {
+        ContextFieldBuffer buffer = new ContextFieldBuffer();
+        buffer.put("key", "value");
+
+        buffer.clear();
+
+        assertThat(buffer.size()).isZero();
+        assertThat(buffer.containsKey("key")).isFalse();
+        buffer.put("other", "value");
+        assertThat(buffer.getKey(0)).isEqualTo("other");
+    }
+
+    @Test
+    void keepsNumbersUnboxed() {
+        ContextFieldBuffer buffer = new ContextFieldBuffer();
+
+        buffer.put("long", 42L);
+        buffer.put("double", 0.5);
+        buffer.put("replaced", 1L);
+        buffer.put("replaced", "value");
+
+        assertThat(buffer.isLong(0)).isTrue();
+        assertThat(buffer.getLong(0)).isEqualTo(42L);
+        assertThat(buffer.isNumber(1)).isTrue();
+        assertThat(buffer.isLong(1)).isFalse();
+        assertThat(buffer.getDouble(1)).isEqualTo(0.5);
+        assertThat(buffer.isNumber(2)).isFalse();
+        assertThat(buffer.get("long")).isEqualTo(42L);
+        assertThat(buffer.get("double")).isEqualTo(0.5);
+        assertThat(buffer.get("replaced")).isEqualTo("value");
+    }
+
+    @Test
+    void ignoresNullKeys() {
+        ContextFieldBuffer buffer = new ContextFieldBuffer();
+
+        buffer.put(null, "value");
+
+        assertThat(buffer.size()).isZero();
+    }
+
+    @Test
+    void retainsNullValues() {
+        ContextFieldBuffer buffer = new ContextFieldBuffer();
+
+        buffer.put("key", null);
+
+        assertThat(buffer.containsKey("key")).isTrue();
+        assertThat(buffer.get("key")).isNull();
+    }
+}
@@ -1,12 +1,16 @@
 package com.sap.hcp.cf.logging.common.serialization;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.jr.ob.JSON;
 import com.fasterxml.jackson.jr.ob.JSONComposer;
 import com.fasterxml.jackson.jr.ob.comp.ObjectComposer;
+import com.sap.hcp.cf.logging.common.Fields;
 import org.assertj.core.api.AbstractStringAssert;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.io.StringWriter;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
@@ -117,4 +121,102 @@ class ContextFieldConverterTest {
         assertJson(objectComposer).isEqualToIgnoringWhitespace("{\"customFieldName\":\"customFieldValue\"}");
     }
 
+    @Test
+    void writesContextAndCustomFieldsWithGenerator() throws IOException {
+        ContextFieldConverter converter =
+                new ContextFieldConverter(false, List.of("customFieldName"), emptyList(),
+                                          JUST_ONE_SAP_APPLICATION_LOGGING_BINDING.getDetector());
+        ContextFieldBuffer fields = new ContextFieldBuffer();
+        fields.put("customFieldName", "customFieldValue");
+        fields.put("longFieldName", 42L);
+        fields.put("otherFieldName", "otherFieldValue");
+        StringWriter writer = new StringWriter();
+
+        try (JsonGenerator generator = new JsonFactory().createGenerator(writer)) {
+            generator.writeStartObject();
+            converter.addContextFields(generator, fields);
+            converter.addCustomFields(generator, fields);
+            generator.writeEndObject();
+        }
+
+        assertThat(writer.toString()).isEqualToIgnoringWhitespace(
+                "{\"longFieldName\":42,\"otherFieldName\":\"otherFieldValue\"," + "\"#cf\":{\"string\":[{\"k\":\"customFieldName\",\"v\":\"customFieldValue\",\"i\":0}]}}");
+    }
+
+    @Test
+    void splicesPreSerializedStaticFields() throws IOException {
+        ContextFieldConverter converter =
+                new ContextFieldConverter(false, List.of("customFieldName"), emptyList(),
+                                          JUST_ONE_SAP_APPLICATION_LOGGING_BINDING.getDetector());
+        Map<String, Object> staticFields = new TreeMap<>();
+        staticFields.put("customFieldName", "customFieldValue");
+        staticFields.put("overriddenFieldName", "staticValue");
+        staticFields.put("quotedFieldName", "a \"quoted\" value");
+        staticFields.put("tenant_id", "-");
+        JsonFactory jsonFactory = new JsonFactory();
+        EventContextFieldWriter<Object> writer = converter.preSerialize(() -> staticFields, jsonFactory);
+        ContextFieldBuffer fields = new ContextFieldBuffer();
+        writer.writeFields(new Object(), fields);
+        fields.put("overriddenFieldName", "dynamicValue");
+        StringWriter output = new StringWriter();
+
+        try (JsonGenerator generator = jsonFactory.createGenerator(output)) {
+            generator.writeStartObject();
+            converter.addContextFields(generator, fields);
+            converter.addCustomFields(generator, fields);
+            generator.writeEndObject();
+        }
+
+        assertThat(output.toString()).isEqualTo(
+                "{\"overriddenFieldName\":\"dynamicValue\",\"quotedFieldName\":\"a \\\"quoted\\\" value\"," + "\"#cf\":{\"string\":[{\"k\":\"customFieldName\",\"v\":\"customFieldValue\",\"i\":0}]}}");
+    }
+
+    @Test
+    void writesCustomFieldsInConfiguredOrder() throws IOException {
+        ContextFieldConverter converter =
+                new ContextFieldConverter(false, List.of("first", "second", "third"), List.of("second"),
+                                          JUST_ONE_SAP_APPLICATION_LOGGING_BINDING.getDetector());
+        ContextFieldBuffer fields = new ContextFieldBuffer();
+        fields.put("third", "value3");
+        fields.put("contextFieldName", "contextFieldValue");
+        fields.put("second", "value2");
+        fields.put("first", "value1");
+        StringWriter writer = new StringWriter();
+
+        try (JsonGenerator generator = new JsonFactory().createGenerator(writer)) {
+            generator.writeStartObject();
+            converter.addContextFields(generator, fields);
+            converter.addCustomFields(generator, fields);
+            generator.writeEndObject();
+        }
+
+        assertThat(writer.toString()).isEqualTo(
+                "{\"contextFieldName\":\"contextFieldValue\",\"second\":\"value2\",\"#cf\":{\"string\":[" + "{\"k\":\"first\",\"v\":\"value1\",\"i\":0}," + "{\"k\":\"second\",\"v\":\"value2\",\"i\":1}," + "{\"k\":\"third\",\"v\":\"value3\",\"i\":2}]}}");
+    }
+
+    @Test
+    void writesCachedMetadataValues() throws IOException {
+        JsonFactory jsonFactory = new JsonFactory();
+        ContextFieldConverter converter = new ContextFieldConverter(false, emptyList(), emptyList(),
+                                                                    NO_SAP_APPLICATION_LOGGING_BINDING.getDetector(),
+                                                                    jsonFactory);
+        ContextFieldBuffer fields = new ContextFieldBuffer();
+        fields.put(Fields.LEVEL, "INFO");
+        fields.put(Fields.LOGGER, "com.example.Logger");
+        fields.put(Fields.THREAD, "thread \"quoted\"");
+        fields.put("otherFieldName", "otherFieldValue");
+
+        for (int i = 0; i < 2; i++) {
+            StringWriter writer = new StringWriter();
+            try (JsonGenerator generator = jsonFactory.createGenerator(writer)) {
+                generator.writeStartObject();
+                converter.addContextFields(generator, fields);
+                generator.writeEndObject();
+            }
+
+            assertThat(writer.toString()).isEqualTo(
+                    "{\"level\":\"INFO\",\"logger\":\"com.example.Logger\",\"thread\":\"thread \\\"quoted\\\"\"," + "\"otherFieldName\":\"otherFieldValue\"}");
+        }
+    }
+
 }
@@ -0,0 +1,53 @@
+package com.sap.hcp.cf.logging.common.serialization;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FormattedTimestampTest {
+
+    @ParameterizedTest
+    @CsvSource({ "1700000000, 0", "1700000000, 123000000", "1700000000, 123456000", "1700000000, 123456789",
+                 "1700000001, 1", "0, 0", "-1, 999999999", "253402300799, 999999999", "253402300800, 0",
+                 "-62167219201, 0" })
+    public void formatsLikeInstant(long epochSecond, int nanos) throws IOException {
+        FormattedTimestamp timestamp = FormattedTimestamp.iso(epochSecond, nanos);
+
+        String expected = Instant.ofEpochSecond(epochSecond, nanos).toString();
+        assertThat(write(timestamp)).isEqualTo(expected);
+        assertThat(timestamp).hasToString(expected);
+    }
+
+    @ParameterizedTest
+    @CsvSource({ "1700000000123, 2023-11-14T22:13:20.123Z", "1700000000000, 2023-11-14T22:13:20Z",
+                 "-1, 1969-12-31T23:59:59.999Z" })
+    public void formatsEpochMillis(long epochMillis, String expected) throws IOException {
+        assertThat(write(FormattedTimestamp.iso(epochMillis))).isEqualTo(expected);
+    }
+
+    @ParameterizedTest
+    @CsvSource({ "1700000000, 123456789, 1700000000123456789", "1700000000, 0, 1700000000000000000", "0, 7, 7",
+                 "-1, 0, -1000000000" })
+    public void formatsNanosecondsSinceEpoch(long epochSecond, int nanos, String expected) throws IOException {
+        FormattedTimestamp timestamp = FormattedTimestamp.nanos(epochSecond, nanos);
+
+        assertThat(write(timestamp)).isEqualTo(expected);
+        assertThat(timestamp).hasToString(expected);
+    }
+
+    private static String write(FormattedTimestamp timestamp) throws IOException {
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = new JsonFactory().createGenerator(writer)) {
+            timestamp.writeTo(generator);
+        }
+        String json = writer.toString();
+        return json.substring(1, json.length() - 1);
+    }
+}
@@ -0,0 +1,47 @@
+package com.sap.hcp.cf.logging.common.serialization;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReusableByteArrayOutputStreamTest {
+
+    @Test
+    public void growsBeyondInitialCapacity() {
+        ReusableByteArrayOutputStream out = new ReusableByteArrayOutputStream(4, 16);
+        byte[] content = "some content".getBytes(StandardCharsets.UTF_8);
+
+        out.write(content, 0, content.length);
+        out.write('!');
+
+        assertThat(out.size()).isEqualTo(content.length + 1);
+        assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8)).isEqualTo("some content!");
+    }
+
+    @Test
+    public void reusesBufferAfterReset() {
+        ReusableByteArrayOutputStream out = new ReusableByteArrayOutputStream(16, 16);
+        out.write('a');
+        byte[] buffer = out.getBuffer();
+
+        out.reset();
+        out.write('b');
+
+        assertThat(out.getBuffer()).isSameAs(buffer);
+        assertThat(out.toByteArray()).containsExactly((byte) 'b');
+    }
+
+    @Test
+    public void shrinksBufferExceedingRetentionLimit() {
+        ReusableByteArrayOutputStream out = new ReusableByteArrayOutputStream(4, 8);
+        byte[] content = new byte[32];
+        out.write(content, 0, content.length);
+
+        out.reset();
+
+        assertThat(out.size()).isZero();
+        assertThat(out.getBuffer()).hasSize(4);
+    }
+}
@@ -1,5 +1,6 @@
 package com.sap.hcp.cf.log4j2.benchmark;
 
+import org.openjdk.jmh.profile.GCProfiler;
 import org.openjdk.jmh.runner.Runner;
 import org.openjdk.jmh.runner.RunnerException;
 import org.openjdk.jmh.runner.options.Options;
@@ -8,7 +9,8 @@ import org.openjdk.jmh.runner.options.OptionsBuilder;
 public class BenchmarkRunner {
 
     public static void main(String[] args) throws RunnerException {
-        Options options = new OptionsBuilder().include(EncodingBenchmarks.class.getSimpleName()).forks(1).build();
+        Options options = new OptionsBuilder().include(EncodingBenchmarks.class.getSimpleName()).forks(1)
+                                              .addProfiler(GCProfiler.class).build();
         new Runner(options).run();
     }
 
@@ -1,9 +1,17 @@
 package com.sap.hcp.cf.log4j2.benchmark;
 
+import com.sap.hcp.cf.log4j2.layout.CustomFieldElement;
+import com.sap.hcp.cf.log4j2.layout.JsonPatternLayout;
 import com.sap.hcp.cf.logging.common.Fields;
 import com.sap.hcp.cf.logging.common.Markers;
 import com.sap.hcp.cf.logging.common.customfields.CustomField;
 import com.sap.hcp.cf.logging.common.request.RequestRecord;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.core.layout.ByteBufferDestination;
+import org.apache.logging.log4j.core.layout.ByteBufferDestinationHelper;
+import org.apache.logging.log4j.message.SimpleMessage;
 import org.openjdk.jmh.annotations.*;
 import org.openjdk.jmh.util.NullOutputStream;
 import org.slf4j.Logger;
@@ -11,6 +19,8 @@ import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 
 import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.TimeUnit;
 
 import static com.sap.hcp.cf.logging.common.request.RequestRecordBuilder.requestRecord;
@@ -50,6 +60,58 @@ public class EncodingBenchmarks {
         LOG.info(Markers.REQUEST_MARKER, "", requestRecord);
     }
 
+    @Benchmark
+    public byte[] layoutToByteArray(LayoutState state) {
+        return state.layout.toByteArray(state.event);
+    }
+
+    @Benchmark
+    public void layoutEncode(LayoutState state) {
+        state.layout.encode(state.event, state.destination);
+    }
+
+    @State(Scope.Thread)
+    public static class LayoutState {
+        public JsonPatternLayout layout;
+        public LogEvent event;
+        public DiscardingDestination destination;
+
+        @Setup
+        public void createLayout() {
+            layout = JsonPatternLayout.createLayout(StandardCharsets.UTF_8, false, 0, null, new CustomFieldElement[0],
+                                                    null, null, null);
+            event = Log4jLogEvent.newBuilder().setLoggerName(EncodingBenchmarks.class.getName()).setLevel(Level.INFO)
+                                 .setMessage(new SimpleMessage("Simple message benchmark")).build();
+            destination = new DiscardingDestination();
+        }
+    }
+
+    public static class DiscardingDestination implements ByteBufferDestination {
+
+        private final ByteBuffer buffer = ByteBuffer.allocate(8 * 1024);
+
+        @Override
+        public ByteBuffer getByteBuffer() {
+            return buffer;
+        }
+
+        @Override
+        public ByteBuffer drain(ByteBuffer buf) {
+            buf.clear();
+            return buf;
+        }
+
+        @Override
+        public void writeBytes(ByteBuffer data) {
+            ByteBufferDestinationHelper.writeToUnsynchronized(data, this);
+        }
+
+        @Override
+        public void writeBytes(byte[] data, int offset, int length) {
+            ByteBufferDestinationHelper.writeToUnsynchronized(data, offset, length, this);
+        }
+    }
+
     @State(Scope.Benchmark)
     public static class BenchmarkState {
         public String simpleLogMessage = "Simple message benchmark";
@@ -0,0 +1,200 @@
+package com.sap.hcp.cf.log4j2.appender;
+
+import com.sap.hcp.cf.logging.common.serialization.CoalescingChannelWriter;
+import com.sap.hcp.cf.logging.common.serialization.ReusableByteArrayOutputStream;
+import org.apache.logging.log4j.core.Filter;
+import org.apache.logging.log4j.core.Layout;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.appender.AbstractAppender;
+import org.apache.logging.log4j.core.appender.AppenderLoggingException;
+import org.apache.logging.log4j.core.config.Property;
+import org.apache.logging.log4j.core.config.plugins.Plugin;
+import org.apache.logging.log4j.core.config.plugins.PluginAttribute;
+import org.apache.logging.log4j.core.config.plugins.PluginElement;
+import org.apache.logging.log4j.core.config.plugins.PluginFactory;
+import org.apache.logging.log4j.core.layout.ByteBufferDestination;
+import org.apache.logging.log4j.core.layout.ByteBufferDestinationHelper;
+import org.apache.logging.log4j.core.util.Constants;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+
+import static com.sap.hcp.cf.logging.common.serialization.CoalescingChannelWriter.DEFAULT_BUFFER_SIZE;
+import static com.sap.hcp.cf.logging.common.serialization.CoalescingChannelWriter.DEFAULT_MAX_LINGER_MILLIS;
+
+/**
+ * An appender, that writes the encoded events to the standard output with few system calls. It replaces the console
+ * appender, that writes every event on its own.
+ * <p>
+ * Each event is encoded by the logging thread into a thread-local buffer. If log4j2 runs without thread-locals, e.g. in
+ * a web application, every event gets a new buffer. The complete line is handed to a {@link CoalescingChannelWriter},
+ * that writes many lines at once to file descriptor 1. Buffered lines are written at the latest after the maximum
+ * linger time. The appender can be configured in the log4j2.xml:<blockquote>
+ *
+ * <pre>
+ * &lt;CoalescingStdout name="STDOUT-JSON" maxLingerMillis="10"&gt;
+ *    &lt;JsonPatternLayout charset="utf-8" /&gt;
+ * &lt;/CoalescingStdout&gt;
+ * </pre>
+ *
+ * </blockquote>
+ */
+@Plugin(name = "CoalescingStdout", category = "Core", elementType = "appender", printObject = true)
+public class CoalescingStdoutAppender extends AbstractAppender {
+
+    private final int bufferSize;
+    private final long maxLingerMillis;
+    private final WritableByteChannel channel;
+    private final ThreadLocal<EventBuffer> eventBuffers = new ThreadLocal<>();
+    private CoalescingChannelWriter writer;
+
+    CoalescingStdoutAppender(String name, Filter filter, Layout<? extends Serializable> layout,
+                             boolean ignoreExceptions, int bufferSize, long maxLingerMillis,
+                             WritableByteChannel channel) {
+        super(name, filter, layout, ignoreExceptions, Property.EMPTY_ARRAY);
+        this.bufferSize = bufferSize;
+        this.maxLingerMillis = maxLingerMillis;
+        this.channel = channel;
+    }
+
+    @PluginFactory
+    public static CoalescingStdoutAppender createAppender(@PluginAttribute(value = "name") final String name,
+                                                          @PluginAttribute(value = "bufferSize",
+                                                                           defaultInt = DEFAULT_BUFFER_SIZE) final int bufferSize,
+                                                          @PluginAttribute(value = "maxLingerMillis",
+                                                                           defaultLong = DEFAULT_MAX_LINGER_MILLIS) final long maxLingerMillis,
+                                                          @PluginAttribute(value = "ignoreExceptions",
+                                                                           defaultBoolean = true) final boolean ignoreExceptions,
+                                                          @PluginElement(value = "Layout") final Layout<? extends Serializable> layout,
+                                                          @PluginElement(value = "Filter") final Filter filter) {
+        if (name == null) {
+            LOGGER.error("No name provided for CoalescingStdoutAppender");
+            return null;
+        }
+        if (layout == null) {
+            LOGGER.error("No layout provided for CoalescingStdoutAppender " + name);
+            return null;
+        }
+        return new CoalescingStdoutAppender(name, filter, layout, ignoreExceptions, bufferSize, maxLingerMillis, null);
+    }
+
+    @Override
+    public void start() {
+        try {
+            writer = channel != null ? new CoalescingChannelWriter(channel, bufferSize, maxLingerMillis)
+                                     : CoalescingChannelWriter.stdout(bufferSize, maxLingerMillis);
+        } catch (IllegalArgumentException cause) {
+            LOGGER.error("Cannot create writer for CoalescingStdoutAppender " + getName(), cause);
+            return;
+        }
+        write(getLayout().getHeader(), null);
+        super.start();
+    }
+
+    @Override
+    public boolean stop(long timeout, TimeUnit timeUnit) {
+        setStopping();
+        boolean stopped = super.stop(timeout, timeUnit, false);
+        if (writer != null) {
+            write(getLayout().getFooter(), null);
+            try {
+                writer.close();
+            } catch (IOException cause) {
+                error("Cannot write remaining log events to stdout.", null, cause);
+            }
+        }
+        setStopped();
+        return stopped;
+    }
+
+    @Override
+    public void append(LogEvent event) {
+        EventBuffer eventBuffer = getEventBuffer();
+        try {
+            getLayout().encode(event, eventBuffer);
+            ReusableByteArrayOutputStream line = eventBuffer.finish();
+            write(line.getBuffer(), line.size(), event);
+        } finally {
+            eventBuffer.reset();
+        }
+    }
+
+    private EventBuffer getEventBuffer() {
+        if (!Constants.ENABLE_THREADLOCALS) {
+            return new EventBuffer();
+        }
+        EventBuffer eventBuffer = eventBuffers.get();
+        if (eventBuffer == null) {
+            eventBuffer = new EventBuffer();
+            eventBuffers.set(eventBuffer);
+        }
+        return eventBuffer;
+    }
+
+    private void write(byte[] bytes, LogEvent event) {
+        if (bytes != null) {
+            write(bytes, bytes.length, event);
+        }
+    }
+
+    private void write(byte[] bytes, int length, LogEvent event) {
+        if (length == 0) {
+            return;
+        }
+        try {
+            writer.write(bytes, 0, length);
+        } catch (IOException cause) {
+            error("Cannot write log event to stdout.", event, cause);
+            if (!ignoreExceptions()) {
+                throw new AppenderLoggingException("Cannot write log event to stdout.", cause);
+            }
+        }
+    }
+
+    /*
+     * -- collects the complete encoded event, so that it is never split across writes
+     */
+    private static class EventBuffer implements ByteBufferDestination {
+
+        private final ByteBuffer byteBuffer = ByteBuffer.allocate(8 * 1024);
+        private final ReusableByteArrayOutputStream line = new ReusableByteArrayOutputStream();
+
+        @Override
+        public ByteBuffer getByteBuffer() {
+            return byteBuffer;
+        }
+
+        @Override
+        public ByteBuffer drain(ByteBuffer buffer) {
+            buffer.flip();
+            line.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            buffer.clear();
+            return buffer;
+        }
+
+        @Override
+        public void writeBytes(ByteBuffer data) {
+            ByteBufferDestinationHelper.writeToUnsynchronized(data, this);
+        }
+
+        @Override
+        public void writeBytes(byte[] data, int offset, int length) {
+            drain(byteBuffer);
+            line.write(data, offset, length);
+        }
+
+        private ReusableByteArrayOutputStream finish() {
+            drain(byteBuffer);
+            return line;
+        }
+
+        private void reset() {
+            byteBuffer.clear();
+            line.reset();
+        }
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.sap.hcp.cf.log4j2.context;
+
+import com.sap.hcp.cf.logging.common.LogContext;
+import com.sap.hcp.cf.logging.common.context.ContextFields;
+import org.apache.logging.log4j.core.util.ContextDataProvider;
+import org.apache.logging.log4j.util.SortedArrayStringMap;
+import org.apache.logging.log4j.util.StringMap;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Adds the context fields bound to a scope by the {@link LogContext} to the context data of every log event. Log4j2
+ * injects the context data on the logging thread, when the event is created. So the fields are kept, even if the event
+ * is encoded by the background thread of an {@code AsyncLogger} or {@code AsyncAppender}, that has no scope.
+ * <p>
+ * The provider is registered with the {@link java.util.ServiceLoader} and used by the default
+ * {@code ContextDataInjector} of log4j2. With the default MDC backend of the {@link LogContext} there are no scoped
+ * fields and the provider adds nothing.
+ */
+public class ScopedContextDataProvider implements ContextDataProvider {
+
+    private static final StringMap EMPTY = createEmpty();
+
+    private static StringMap createEmpty() {
+        StringMap empty = new SortedArrayStringMap(0);
+        empty.freeze();
+        return empty;
+    }
+
+    @Override
+    public Map<String, String> supplyContextData() {
+        ContextFields fields = LogContext.getScopedFields();
+        return fields.isEmpty() ? Collections.emptyMap() : fields.toMap();
+    }
+
+    @Override
+    public StringMap supplyStringMap() {
+        ContextFields fields = LogContext.getScopedFields();
+        if (fields.isEmpty()) {
+            return EMPTY;
+        }
+        StringMap contextData = new SortedArrayStringMap(fields.size());
+        fields.forEach(contextData::putValue);
+        contextData.freeze();
+        return contextData;
+    }
+}
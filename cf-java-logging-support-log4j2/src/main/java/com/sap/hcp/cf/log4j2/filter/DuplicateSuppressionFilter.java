@@ -0,0 +1,188 @@
+package com.sap.hcp.cf.log4j2.filter;
+
+import com.sap.hcp.cf.logging.common.Fields;
+import com.sap.hcp.cf.logging.common.LogContext;
+import com.sap.hcp.cf.logging.common.sampling.DuplicateSuppressor;
+import com.sap.hcp.cf.logging.common.sampling.DuplicateSuppressor.Repeats;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.Marker;
+import org.apache.logging.log4j.ThreadContext;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.Logger;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.config.LoggerConfig;
+import org.apache.logging.log4j.core.config.plugins.Plugin;
+import org.apache.logging.log4j.core.config.plugins.PluginAttribute;
+import org.apache.logging.log4j.core.config.plugins.PluginFactory;
+import org.apache.logging.log4j.core.filter.AbstractFilter;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.logging.log4j.message.ReusableMessage;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.apache.logging.log4j.util.ReadOnlyStringMap;
+import org.apache.logging.log4j.util.SortedArrayStringMap;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.sap.hcp.cf.logging.common.sampling.DuplicateSuppressor.DEFAULT_WINDOW_MILLIS;
+
+/**
+ * A filter, that suppresses bursts of identical log events. Events are identical, if they share the logger, the level
+ * and the message template. As context-wide filter, it denies repetitions within the time window before the message
+ * is formatted. When the window closes, one summary event is written, that carries the message and context fields of
+ * the first repetition together with the fields {@code repeat_count}, {@code first_repeat_at} and
+ * {@code last_repeat_at}. The filter can be configured in the log4j2.xml:<blockquote>
+ *
+ * <pre>
+ * &lt;DuplicateSuppressionFilter windowMillis="1000"/&gt;
+ * </pre>
+ *
+ * </blockquote>
+ * <p>
+ * The summary is written directly to the logger configuration. It is not subject to the context-wide filters. While
+ * the filter is started, closed bursts are summarized once per window, even if no further events are logged. The
+ * appenders are stopped before the filter, so the repetitions of the last window before the configuration is stopped
+ * are not summarized.
+ */
+@Plugin(name = "DuplicateSuppressionFilter", category = "Core", elementType = "filter", printObject = true)
+public class DuplicateSuppressionFilter extends AbstractFilter {
+
+    private final DuplicateSuppressor<SuppressedEvent> suppressor;
+
+    DuplicateSuppressionFilter(long windowMillis) {
+        this.suppressor = new DuplicateSuppressor<>(windowMillis, DuplicateSuppressionFilter::writeSummary);
+    }
+
+    @PluginFactory
+    public static DuplicateSuppressionFilter createFilter(
+            @PluginAttribute(value = "windowMillis", defaultLong = DEFAULT_WINDOW_MILLIS) final long windowMillis) {
+        return new DuplicateSuppressionFilter(windowMillis);
+    }
+
+    @Override
+    public void start() {
+        suppressor.start();
+        super.start();
+    }
+
+    @Override
+    public boolean stop(long timeout, TimeUnit timeUnit) {
+        suppressor.stop();
+        return super.stop(timeout, timeUnit);
+    }
+
+    @Override
+    public Result filter(LogEvent event) {
+        ReadOnlyStringMap contextData = event.getContextData();
+        String template = event.getMessage() != null ? event.getMessage().getFormat() : null;
+        if (template == null || contextData != null && contextData.containsKey(Fields.REPEAT_COUNT)) {
+            return Result.NEUTRAL;
+        }
+        Repeats<SuppressedEvent> repeats = suppressor.suppress(event.getLoggerName(), event.getLevel().name(),
+                                                               template);
+        if (repeats == null) {
+            return Result.NEUTRAL;
+        }
+        if (repeats.needsSample()) {
+            repeats.setSample(new SuppressedEvent(event.toImmutable(), null));
+        }
+        return Result.DENY;
+    }
+
+    @Override
+    public Result filter(final Logger logger, final Level level, final Marker marker, final Message msg,
+                         final Throwable t) {
+        if (msg == null || msg.getFormat() == null || !isEnabled(logger, level)) {
+            return Result.NEUTRAL;
+        }
+        Repeats<SuppressedEvent> repeats = suppressor.suppress(logger.getName(), level.name(), msg.getFormat());
+        if (repeats == null) {
+            return Result.NEUTRAL;
+        }
+        if (repeats.needsSample()) {
+            repeats.setSample(createSample(logger, level, marker, msg, t));
+        }
+        return Result.DENY;
+    }
+
+    @Override
+    public Result filter(final Logger logger, final Level level, final Marker marker, final Object msg,
+                         final Throwable t) {
+        if (!(msg instanceof String) || !isEnabled(logger, level)) {
+            return Result.NEUTRAL;
+        }
+        Repeats<SuppressedEvent> repeats = suppressor.suppress(logger.getName(), level.name(), (String) msg);
+        if (repeats == null) {
+            return Result.NEUTRAL;
+        }
+        if (repeats.needsSample()) {
+            repeats.setSample(createSample(logger, level, marker, new SimpleMessage((String) msg), t));
+        }
+        return Result.DENY;
+    }
+
+    @Override
+    public Result filter(final Logger logger, final Level level, final Marker marker, final String msg,
+                         final Object... params) {
+        if (msg == null || !isEnabled(logger, level)) {
+            return Result.NEUTRAL;
+        }
+        Repeats<SuppressedEvent> repeats = suppressor.suppress(logger.getName(), level.name(), msg);
+        if (repeats == null) {
+            return Result.NEUTRAL;
+        }
+        if (repeats.needsSample()) {
+            ParameterizedMessage message = new ParameterizedMessage(msg, params);
+            repeats.setSample(createSample(logger, level, marker, message, message.getThrowable()));
+        }
+        return Result.DENY;
+    }
+
+    private static boolean isEnabled(Logger logger, Level level) {
+        return level.isMoreSpecificThan(logger.getLevel());
+    }
+
+    private static SuppressedEvent createSample(Logger logger, Level level, Marker marker, Message message,
+                                                Throwable thrown) {
+        Message immutableMessage = message instanceof ReusableMessage ? ((ReusableMessage) message).memento()
+                                                                      : message;
+        SortedArrayStringMap contextData = new SortedArrayStringMap(ThreadContext.getImmutableContext());
+        LogContext.getScopedFields().forEach(contextData::putValue);
+        LogEvent event = Log4jLogEvent.newBuilder().setLoggerName(logger.getName()).setLevel(level)
+                                      .setMarker(marker).setMessage(immutableMessage).setThrown(thrown)
+                                      .setContextData(contextData).build();
+        return new SuppressedEvent(event, logger.get());
+    }
+
+    private static void writeSummary(Repeats<SuppressedEvent> repeats) {
+        SuppressedEvent sample = repeats.getSample();
+        ReadOnlyStringMap contextData = sample.event.getContextData();
+        Map<String, String> contextFields = contextData != null ? new HashMap<>(contextData.toMap()) : new HashMap<>();
+        repeats.addFields(contextFields);
+        LogEvent summary = new Log4jLogEvent.Builder(sample.event).setContextData(
+                new SortedArrayStringMap(contextFields)).setTimeMillis(System.currentTimeMillis()).build();
+        getLoggerConfig(sample).log(summary);
+    }
+
+    private static LoggerConfig getLoggerConfig(SuppressedEvent sample) {
+        if (sample.loggerConfig != null) {
+            return sample.loggerConfig;
+        }
+        return LoggerContext.getContext(false).getConfiguration().getLoggerConfig(sample.event.getLoggerName());
+    }
+
+    static class SuppressedEvent {
+
+        private final LogEvent event;
+        private final LoggerConfig loggerConfig;
+
+        private SuppressedEvent(LogEvent event, LoggerConfig loggerConfig) {
+            this.event = event;
+            this.loggerConfig = loggerConfig;
+        }
+    }
+
+}
@@ -1,6 +1,9 @@
 package com.sap.hcp.cf.log4j2.filter;
 
+import com.sap.hcp.cf.logging.common.LogContext;
 import com.sap.hcp.cf.logging.common.helper.DynamicLogLevelHelper;
+import com.sap.hcp.cf.logging.common.helper.IdentityCache;
+import com.sap.hcp.cf.logging.common.helper.PrefixMatcher;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.Marker;
 import org.apache.logging.log4j.core.LogEvent;
@@ -10,11 +13,12 @@ import org.apache.logging.log4j.core.config.plugins.PluginFactory;
 import org.apache.logging.log4j.core.filter.AbstractFilter;
 import org.apache.logging.log4j.message.Message;
 import org.apache.logging.log4j.util.ReadOnlyStringMap;
-import org.slf4j.MDC;
 
 @Plugin(name = "DynamicLevelPrefixLoggerFilter", category = "Core", elementType = "filter", printObject = true)
 public class DynamicLevelPrefixLoggerFilter extends AbstractFilter {
 
+    private static final IdentityCache<Level> LEVELS = new IdentityCache<>();
+
     @PluginFactory
     public static DynamicLevelPrefixLoggerFilter createFilter() {
         return new DynamicLevelPrefixLoggerFilter();
@@ -22,16 +26,20 @@ public class DynamicLevelPrefixLoggerFilter extends AbstractFilter {
 
     @Override
     public Result filter(LogEvent event) {
-        Level level = event.getLevel();
         Level dynamicLevel = getDynamicLevel(event);
-        String loggerFqcn = event.getLoggerFqcn();
-        String logLevelPackages = getDynamicPackages(event);
-        return filter(level, dynamicLevel, loggerFqcn, logLevelPackages);
+        if (isDynamicallyEnabled(event.getLevel(), dynamicLevel) && checkPackages(event.getLoggerFqcn(),
+                                                                                   getDynamicPackages(event))) {
+            return Result.ACCEPT;
+        }
+        return Result.NEUTRAL;
     }
 
     private Level getDynamicLevel(LogEvent event) {
-        String logLevel = getContextValue(event, DynamicLogLevelHelper.MDC_DYNAMIC_LOG_LEVEL_KEY);
-        return isNotBlank(logLevel) ? Level.getLevel(logLevel) : null;
+        return parseLevel(getContextValue(event, DynamicLogLevelHelper.MDC_DYNAMIC_LOG_LEVEL_KEY));
+    }
+
+    private static Level parseLevel(String logLevel) {
+        return isNotBlank(logLevel) ? LEVELS.get(logLevel, Level::getLevel) : null;
     }
 
     private static boolean isNotBlank(String string) {
@@ -40,7 +48,8 @@ public class DynamicLevelPrefixLoggerFilter extends AbstractFilter {
 
     private String getContextValue(LogEvent event, String key) {
         ReadOnlyStringMap contextData = event.getContextData();
-        return contextData != null ? contextData.getValue(key) : null;
+        String value = contextData != null ? contextData.getValue(key) : null;
+        return value != null ? value : LogContext.getScopedFields().get(key);
     }
 
     private String getDynamicPackages(final LogEvent event) {
@@ -48,49 +57,108 @@ public class DynamicLevelPrefixLoggerFilter extends AbstractFilter {
         return logLevelPackages;
     }
 
-    private Result filter(Level level, Level dynamicLevel, String loggerFqcn, String logLevelPackages) {
-        if (dynamicLevel != null && level.isMoreSpecificThan(dynamicLevel) && checkPackages(loggerFqcn,
-                                                                                            logLevelPackages)) {
+    private static boolean isDynamicallyEnabled(Level level, Level dynamicLevel) {
+        return dynamicLevel != null && level.isMoreSpecificThan(dynamicLevel);
+    }
+
+    private Result filter(Level level, String loggerName) {
+        if (isDynamicallyEnabled(level, getMdcLevel()) && checkPackages(loggerName, getMdcPackages())) {
             return Result.ACCEPT;
         }
         return Result.NEUTRAL;
     }
 
     private boolean checkPackages(String loggerFqcn, String logLevelPackages) {
-        if (isNotBlank(logLevelPackages)) {
-            for (String current: logLevelPackages.split(",")) {
-                if (loggerFqcn.startsWith(current)) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return isNotBlank(logLevelPackages) && PrefixMatcher.forPrefixes(logLevelPackages).matches(loggerFqcn);
     }
 
     @Override
     public Result filter(final Logger logger, final Level level, final Marker marker, final Message msg,
                          final Throwable t) {
-        return filter(level, getMdcLevel(), logger.getName(), getMdcPackages());
+        return filter(level, logger.getName());
     }
 
     @Override
     public Result filter(final Logger logger, final Level level, final Marker marker, final Object msg,
                          final Throwable t) {
-        return filter(level, getMdcLevel(), logger.getName(), getMdcPackages());
+        return filter(level, logger.getName());
     }
 
     @Override
     public Result filter(final Logger logger, final Level level, final Marker marker, final String msg,
                          final Object... params) {
-        return filter(level, getMdcLevel(), logger.getName(), getMdcPackages());
+        return filter(level, logger.getName());
+    }
+
+    @Override
+    public Result filter(final Logger logger, final Level level, final Marker marker, final String msg,
+                         final Object p0) {
+        return filter(level, logger.getName());
+    }
+
+    @Override
+    public Result filter(final Logger logger, final Level level, final Marker marker, final String msg, final Object p0,
+                         final Object p1) {
+        return filter(level, logger.getName());
+    }
+
+    @Override
+    public Result filter(final Logger logger, final Level level, final Marker marker, final String msg, final Object p0,
+                         final Object p1, final Object p2) {
+        return filter(level, logger.getName());
+    }
+
+    @Override
+    public Result filter(final Logger logger, final Level level, final Marker marker, final String msg, final Object p0,
+                         final Object p1, final Object p2, final Object p3) {
+        return filter(level, logger.getName());
+    }
+
+    @Override
+    public Result filter(final Logger logger, final Level level, final Marker marker, final String msg, final Object p0,
+                         final Object p1, final Object p2, final Object p3, final Object p4) {
+        return filter(level, logger.getName());
+    }
+
+    @Override
+    public Result filter(final Logger logger, final Level level, final Marker marker, final String msg, final Object p0,
+                         final Object p1, final Object p2, final Object p3, final Object p4, final Object p5) {
+        return filter(level, logger.getName());
+    }
+
+    @Override
+    public Result filter(final Logger logger, final Level level, final Marker marker, final String msg, final Object p0,
+                         final Object p1, final Object p2, final Object p3, final Object p4, final Object p5,
+                         final Object p6) {
+        return filter(level, logger.getName());
+    }
+
+    @Override
+    public Result filter(final Logger logger, final Level level, final Marker marker, final String msg, final Object p0,
+                         final Object p1, final Object p2, final Object p3, final Object p4, final Object p5,
+                         final Object p6, final Object p7) {
+        return filter(level, logger.getName());
+    }
+
+    @Override
+    public Result filter(final Logger logger, final Level level, final Marker marker, final String msg, final Object p0,
+                         final Object p1, final Object p2, final Object p3, final Object p4, final Object p5,
+                         final Object p6, final Object p7, final Object p8) {
+        return filter(level, logger.getName());
+    }
+
+    @Override
+    public Result filter(final Logger logger, final Level level, final Marker marker, final String msg, final Object p0,
+                         final Object p1, final Object p2, final Object p3, final Object p4, final Object p5,
+                         final Object p6, final Object p7, final Object p8, final Object p9) {
+        return filter(level, logger.getName());
     }
 
     private Level getMdcLevel() {
-        String mdcLevel = MDC.get(DynamicLogLevelHelper.MDC_DYNAMIC_LOG_LEVEL_KEY);
-        return isNotBlank(mdcLevel) ? Level.getLevel(mdcLevel) : null;
+        return parseLevel(LogContext.get(DynamicLogLevelHelper.MDC_DYNAMIC_LOG_LEVEL_KEY));
     }
 
     private String getMdcPackages() {
-        return MDC.get(DynamicLogLevelHelper.MDC_DYNAMIC_LOG_LEVEL_PREFIXES);
+        return LogContext.get(DynamicLogLevelHelper.MDC_DYNAMIC_LOG_LEVEL_PREFIXES);
     }
 }
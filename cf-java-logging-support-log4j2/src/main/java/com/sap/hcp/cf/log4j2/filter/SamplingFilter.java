@@ -0,0 +1,135 @@
+package com.sap.hcp.cf.log4j2.filter;
+
+import com.sap.hcp.cf.logging.common.sampling.LogSampler;
+import com.sap.hcp.cf.logging.common.sampling.SamplingBudget;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Marker;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.Logger;
+import org.apache.logging.log4j.core.config.plugins.Plugin;
+import org.apache.logging.log4j.core.config.plugins.PluginAttribute;
+import org.apache.logging.log4j.core.config.plugins.PluginFactory;
+import org.apache.logging.log4j.core.filter.AbstractFilter;
+import org.apache.logging.log4j.message.Message;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import static com.sap.hcp.cf.logging.common.sampling.LogSampler.DEFAULT_SUMMARY_INTERVAL_SECONDS;
+
+/**
+ * A filter, that limits the number of log events per second for logger prefixes and levels. The budgets are enforced
+ * by lock-free token buckets. As context-wide filter, it denies events exceeding their budget before the message is
+ * formatted. Events at or above the bypass level, ERROR by default, are never dropped. The number of dropped events
+ * per budget is logged once per summary interval by the logger {@value #SUMMARY_LOGGER}, even if no further events are
+ * logged. The remaining counts are logged, when the filter is stopped. The filter can be configured in the
+ * log4j2.xml:<blockquote>
+ *
+ * <pre>
+ * &lt;SamplingFilter budgets="com.example.chatty:DEBUG=100, com.example=1000/5000" bypassLevel="ERROR"
+ *                 summaryIntervalSeconds="60"/&gt;
+ * </pre>
+ *
+ * </blockquote>
+ * <p>
+ * Checks like {@code isDebugEnabled()} do not take a token, the following log statement does.
+ */
+@Plugin(name = "SamplingFilter", category = "Core", elementType = "filter", printObject = true)
+public class SamplingFilter extends AbstractFilter {
+
+    public static final String SUMMARY_LOGGER = "com.sap.hcp.cf.logging.sampling";
+
+    private final LogSampler sampler;
+    private final Level bypassLevel;
+    private final BiConsumer<SamplingBudget, Long> droppedReporter = this::reportDropped;
+
+    SamplingFilter(LogSampler sampler, Level bypassLevel) {
+        this.sampler = sampler;
+        this.bypassLevel = bypassLevel;
+    }
+
+    @PluginFactory
+    public static SamplingFilter createFilter(@PluginAttribute(value = "budgets") final String budgets,
+                                              @PluginAttribute(value = "bypassLevel") final String bypassLevel,
+                                              @PluginAttribute(value = "summaryIntervalSeconds",
+                                                               defaultLong = DEFAULT_SUMMARY_INTERVAL_SECONDS)
+                                              final long summaryIntervalSeconds) {
+        LogSampler sampler = new LogSampler(parseBudgets(budgets), summaryIntervalSeconds);
+        return new SamplingFilter(sampler, Level.toLevel(bypassLevel, Level.ERROR));
+    }
+
+    @Override
+    public void start() {
+        sampler.start(droppedReporter);
+        super.start();
+    }
+
+    @Override
+    public boolean stop(long timeout, TimeUnit timeUnit) {
+        sampler.stop();
+        sampler.reportDropped(droppedReporter);
+        return super.stop(timeout, timeUnit);
+    }
+
+    private static List<SamplingBudget> parseBudgets(String budgets) {
+        List<SamplingBudget> parsed = new ArrayList<>();
+        if (budgets != null) {
+            for (String budget: budgets.split(",")) {
+                if (!budget.isBlank()) {
+                    try {
+                        parsed.add(SamplingBudget.parse(budget));
+                    } catch (IllegalArgumentException cause) {
+                        LOGGER.error("Cannot add sampling budget.", cause);
+                    }
+                }
+            }
+        }
+        return parsed;
+    }
+
+    @Override
+    public Result filter(LogEvent event) {
+        return filter(event.getLoggerName(), event.getLevel());
+    }
+
+    @Override
+    public Result filter(final Logger logger, final Level level, final Marker marker, final Message msg,
+                         final Throwable t) {
+        return msg != null && isEnabled(logger, level) ? filter(logger.getName(), level) : Result.NEUTRAL;
+    }
+
+    @Override
+    public Result filter(final Logger logger, final Level level, final Marker marker, final Object msg,
+                         final Throwable t) {
+        return msg != null && isEnabled(logger, level) ? filter(logger.getName(), level) : Result.NEUTRAL;
+    }
+
+    @Override
+    public Result filter(final Logger logger, final Level level, final Marker marker, final String msg,
+                         final Object... params) {
+        return msg != null && isEnabled(logger, level) ? filter(logger.getName(), level) : Result.NEUTRAL;
+    }
+
+    private static boolean isEnabled(Logger logger, Level level) {
+        return level.isMoreSpecificThan(logger.getLevel());
+    }
+
+    private Result filter(String loggerName, Level level) {
+        if (level.isMoreSpecificThan(bypassLevel) || SUMMARY_LOGGER.equals(loggerName)) {
+            return Result.NEUTRAL;
+        }
+        boolean accepted = sampler.tryAcquire(loggerName, level.name());
+        sampler.reportDroppedIfDue(droppedReporter);
+        return accepted ? Result.NEUTRAL : Result.DENY;
+    }
+
+    private void reportDropped(SamplingBudget budget, long dropped) {
+        LogManager.getLogger(SUMMARY_LOGGER)
+                  .warn("Dropped {} log events exceeding the sampling budget {} within the last {} seconds.", dropped,
+                        budget, sampler.getSummaryIntervalSeconds());
+    }
+
+}
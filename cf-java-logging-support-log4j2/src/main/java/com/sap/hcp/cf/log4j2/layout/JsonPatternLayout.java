@@ -1,30 +1,35 @@
 package com.sap.hcp.cf.log4j2.layout;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.jr.ob.JSON;
-import com.fasterxml.jackson.jr.ob.JSONComposer;
-import com.fasterxml.jackson.jr.ob.comp.ArrayComposer;
-import com.fasterxml.jackson.jr.ob.comp.ComposerBase;
-import com.fasterxml.jackson.jr.ob.comp.ObjectComposer;
 import com.sap.hcp.cf.log4j2.converter.api.Log4jContextFieldSupplier;
 import com.sap.hcp.cf.log4j2.layout.suppliers.LogEventUtilities;
 import com.sap.hcp.cf.logging.common.Fields;
-import com.sap.hcp.cf.logging.common.converter.LineWriter;
-import com.sap.hcp.cf.logging.common.converter.StacktraceLines;
+import com.sap.hcp.cf.logging.common.converter.StacktraceCache;
+import com.sap.hcp.cf.logging.common.converter.StacktraceRenderer;
+import com.sap.hcp.cf.logging.common.converter.StacktraceThrottle;
+import com.sap.hcp.cf.logging.common.converter.ThrowableFingerprint;
+import com.sap.hcp.cf.logging.common.serialization.ContextFieldBuffer;
 import com.sap.hcp.cf.logging.common.serialization.ContextFieldConverter;
 import com.sap.hcp.cf.logging.common.serialization.ContextFieldSupplier;
 import com.sap.hcp.cf.logging.common.serialization.ContextFieldSupplierServiceLoader;
+import com.sap.hcp.cf.logging.common.serialization.EventContextFieldWriter;
 import com.sap.hcp.cf.logging.common.serialization.JsonSerializationException;
+import com.sap.hcp.cf.logging.common.serialization.ReusableByteArrayOutputStream;
+import com.sap.hcp.cf.logging.common.serialization.ReusableJsonGenerator;
 import org.apache.logging.log4j.core.LogEvent;
 import org.apache.logging.log4j.core.StringLayout;
 import org.apache.logging.log4j.core.config.Configuration;
 import org.apache.logging.log4j.core.config.plugins.*;
 import org.apache.logging.log4j.core.layout.AbstractStringLayout;
+import org.apache.logging.log4j.core.layout.ByteBufferDestination;
+import org.apache.logging.log4j.core.util.Constants;
 import org.apache.logging.log4j.core.util.StringBuilderWriter;
 
 import java.io.IOException;
-import java.io.OutputStream;
-import java.io.PrintWriter;
+import java.io.Writer;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.function.Function;
 import java.util.stream.Stream;
@@ -45,33 +50,70 @@ import java.util.stream.Stream;
  *
  * </blockquote> The layout can be customized by several xml elements. See the
  * annotations on the factory method {@link #createLayout}.
+ * <p>
+ * With charset UTF-8 the layout supports Log4j2's garbage-free encoding path
+ * {@link #encode(LogEvent, ByteBufferDestination)}. The JSON is written through a reusable thread-local generator
+ * directly into the destination without creating an intermediate String. Thread-local state is only used, when Log4j2
+ * is allowed to use thread-locals (see {@code log4j2.enableThreadlocals}).
  */
 
 @Plugin(name = "JsonPatternLayout", category = "Core", elementType = "Layout", printObject = true)
 public final class JsonPatternLayout extends AbstractStringLayout {
 
     private static final String NEWLINE = "\n";
+    private static final byte NEWLINE_BYTE = '\n';
     private final ContextFieldConverter contextFieldConverter;
     private final List<Log4jContextFieldSupplier> log4jContextFieldSuppliers;
     private final List<ContextFieldSupplier> contextFieldSuppliers;
-    private final int maxStacktraceSize;
+    private final List<EventContextFieldWriter<LogEvent>> contextFieldWriters;
+    private final StacktraceRenderer stacktraceRenderer;
+    private final StacktraceCache stacktraceCache;
+    private final StacktraceThrottle stacktraceThrottle;
 
     private final boolean sendDefaultValues;
 
     private final JSON json;
 
+    private final boolean encodeDirectly;
+    private final ThreadLocal<ReusableJsonGenerator> generators = new ThreadLocal<>();
+    private final ThreadLocal<ContextFieldBuffer> contextFieldBuffers = new ThreadLocal<>();
+
     private JsonPatternLayout(Charset charset, boolean sendDefaultValues, int maxStacktraceSize,
+                              int stacktraceCacheSize, int maxStacktracesPerWindow, long stacktraceWindowMillis,
                               String jsonBuilderClass, CustomFieldElement[] customFieldMdcKeys,
                               Log4jContextFieldSupplierElement[] log4jContextFieldSupplierElements,
                               ContextFieldSupplierElement[] contextFieldSupplierElements) {
         super(charset);
         this.sendDefaultValues = sendDefaultValues;
-        this.maxStacktraceSize = maxStacktraceSize > 0 ? maxStacktraceSize : 55 * 1024;
-        this.contextFieldConverter = contextFieldConverter(sendDefaultValues, customFieldMdcKeys);
+        this.stacktraceRenderer = new StacktraceRenderer(maxStacktraceSize > 0 ? maxStacktraceSize : 55 * 1024);
         this.json = createJson(jsonBuilderClass);
+        this.contextFieldConverter = contextFieldConverter(sendDefaultValues, json, customFieldMdcKeys);
+        this.stacktraceCache = stacktraceCacheSize > 0 ? new StacktraceCache(stacktraceCacheSize, stacktraceRenderer,
+                                                                             json.getStreamingFactory()) : null;
+        long windowMillis = stacktraceWindowMillis > 0 ? stacktraceWindowMillis : 60 * 1000;
+        this.stacktraceThrottle =
+                maxStacktracesPerWindow > 0 ? new StacktraceThrottle(maxStacktracesPerWindow, windowMillis) : null;
+        this.encodeDirectly = StandardCharsets.UTF_8.equals(getCharset());
         this.log4jContextFieldSuppliers =
                 getContextFieldSuppliers(log4jContextFieldSupplierElements, Log4jContextFieldSupplier.class);
         this.contextFieldSuppliers = getContextFieldSuppliers(contextFieldSupplierElements, ContextFieldSupplier.class);
+        this.contextFieldWriters = createContextFieldWriters();
+    }
+
+    private List<EventContextFieldWriter<LogEvent>> createContextFieldWriters() {
+        List<EventContextFieldWriter<LogEvent>> writers =
+                new ArrayList<>(contextFieldSuppliers.size() + log4jContextFieldSuppliers.size());
+        for (ContextFieldSupplier supplier: contextFieldSuppliers) {
+            if (supplier.isStatic()) {
+                writers.add(contextFieldConverter.preSerialize(supplier, json.getStreamingFactory()));
+            } else {
+                writers.add(EventContextFieldWriter.adaptContextFieldSupplier(supplier));
+            }
+        }
+        for (Log4jContextFieldSupplier supplier: log4jContextFieldSuppliers) {
+            writers.add(EventContextFieldWriter.adapt(supplier));
+        }
+        return writers;
     }
 
     private static <E extends ElementSupplier, S extends ContextFieldSupplier> List<S> getContextFieldSuppliers(
@@ -100,6 +142,27 @@ public final class JsonPatternLayout extends AbstractStringLayout {
         };
     }
 
+    /**
+     * @return the number of stacktraces written from the stacktrace cache, 0 if the cache is disabled
+     */
+    public long getStacktraceCacheHitCount() {
+        return stacktraceCache != null ? stacktraceCache.getHitCount() : 0;
+    }
+
+    /**
+     * @return the number of stacktraces, that were rendered into the stacktrace cache, 0 if the cache is disabled
+     */
+    public long getStacktraceCacheMissCount() {
+        return stacktraceCache != null ? stacktraceCache.getMissCount() : 0;
+    }
+
+    /**
+     * @return the number of log messages, for which the stacktrace was omitted by the exception storm mode
+     */
+    public long getOmittedStacktraceCount() {
+        return stacktraceThrottle != null ? stacktraceThrottle.getOmittedCount() : 0;
+    }
+
     // for testing
     List<ContextFieldSupplier> getContextFieldSuppliers() {
         return contextFieldSuppliers;
@@ -110,6 +173,19 @@ public final class JsonPatternLayout extends AbstractStringLayout {
         return log4jContextFieldSuppliers;
     }
 
+    /**
+     * Creates the layout without stacktrace cache and exception storm mode. This is the factory of earlier versions.
+     */
+    public static JsonPatternLayout createLayout(final Charset charset, final boolean sendDefaultValues,
+                                                 final int maxStacktraceSize, final String jsonBuilderClass,
+                                                 CustomFieldElement[] customFieldMdcKeyNames,
+                                                 Log4jContextFieldSupplierElement[] log4jContextFieldSupplierElements,
+                                                 ContextFieldSupplierElement[] contextFieldSupplierElements,
+                                                 final Configuration config) {
+        return createLayout(charset, sendDefaultValues, maxStacktraceSize, jsonBuilderClass, customFieldMdcKeyNames,
+                            log4jContextFieldSupplierElements, contextFieldSupplierElements, 0, 0, 0, config);
+    }
+
     @PluginFactory
     public static JsonPatternLayout createLayout(@PluginAttribute(value = "charset") final Charset charset,
                                                  @PluginAttribute(
@@ -123,8 +199,15 @@ public final class JsonPatternLayout extends AbstractStringLayout {
                                                          value = "log4jContextFieldSupplier") Log4jContextFieldSupplierElement[] log4jContextFieldSupplierElements,
                                                  @PluginElement(
                                                          value = "contextFieldSupplier") ContextFieldSupplierElement[] contextFieldSupplierElements,
+                                                 @PluginAttribute(
+                                                         value = "stacktraceCacheSize") final int stacktraceCacheSize,
+                                                 @PluginAttribute(
+                                                         value = "maxStacktracesPerWindow") final int maxStacktracesPerWindow,
+                                                 @PluginAttribute(
+                                                         value = "stacktraceWindowMillis") final long stacktraceWindowMillis,
                                                  @PluginConfiguration final Configuration config) {
-        return new JsonPatternLayout(charset, sendDefaultValues, maxStacktraceSize, jsonBuilderClass,
+        return new JsonPatternLayout(charset, sendDefaultValues, maxStacktraceSize, stacktraceCacheSize,
+                                     maxStacktracesPerWindow, stacktraceWindowMillis, jsonBuilderClass,
                                      customFieldMdcKeyNames, log4jContextFieldSupplierElements,
                                      contextFieldSupplierElements);
     }
@@ -142,7 +225,7 @@ public final class JsonPatternLayout extends AbstractStringLayout {
         }
     }
 
-    private static ContextFieldConverter contextFieldConverter(boolean sendDefaultValues,
+    private static ContextFieldConverter contextFieldConverter(boolean sendDefaultValues, JSON json,
                                                                CustomFieldElement... customFieldMdcKeys) {
         List<String> customFieldMdcKeyNames = new ArrayList<>(customFieldMdcKeys.length);
         List<String> retainFieldMdcKeyNames = new ArrayList<>(customFieldMdcKeys.length);
@@ -152,7 +235,8 @@ public final class JsonPatternLayout extends AbstractStringLayout {
                 retainFieldMdcKeyNames.add(customField.getKey());
             }
         }
-        return new ContextFieldConverter(sendDefaultValues, customFieldMdcKeyNames, retainFieldMdcKeyNames);
+        return new ContextFieldConverter(sendDefaultValues, customFieldMdcKeyNames, retainFieldMdcKeyNames,
+                                         json.getStreamingFactory());
     }
 
     private static <T> T createInstance(String className, Class<T> interfaceClass) throws ReflectiveOperationException {
@@ -164,13 +248,9 @@ public final class JsonPatternLayout extends AbstractStringLayout {
     @Override
     public String toSerializable(LogEvent event) {
         try (StringBuilderWriter writer = new StringBuilderWriter(getStringBuilder())) {
-            ObjectComposer<JSONComposer<OutputStream>> oc = json.composeTo(writer).startObject();
-            addMarkers(oc, event);
-            Map<String, Object> contextFields = collectContextFields(event);
-            contextFieldConverter.addContextFields(oc, contextFields);
-            contextFieldConverter.addCustomFields(oc, contextFields);
-            addStacktrace(oc, event);
-            oc.end().finish();
+            try (JsonGenerator generator = createGenerator(writer)) {
+                addEvent(generator, event);
+            }
             return writer.append(NEWLINE).toString();
         } catch (IOException | JsonSerializationException cause) {
             // Fallback to emit just the formatted message
@@ -179,56 +259,127 @@ public final class JsonPatternLayout extends AbstractStringLayout {
         }
     }
 
-    private <P extends ComposerBase> void addMarkers(ObjectComposer<P> oc, LogEvent event) throws IOException {
+    private JsonGenerator createGenerator(Writer writer) throws IOException {
+        JsonGenerator generator = json.getStreamingFactory().createGenerator(writer);
+        if (json.isEnabled(JSON.Feature.PRETTY_PRINT_OUTPUT)) {
+            generator.useDefaultPrettyPrinter();
+        }
+        return generator;
+    }
+
+    @Override
+    public void encode(LogEvent event, ByteBufferDestination destination) {
+        if (!encodeDirectly) {
+            super.encode(event, destination);
+            return;
+        }
+        try {
+            ReusableJsonGenerator reusableGenerator = getReusableGenerator();
+            addEvent(reusableGenerator.start(), event);
+            ReusableByteArrayOutputStream buffer = reusableGenerator.finish();
+            buffer.write(NEWLINE_BYTE);
+            destination.writeBytes(buffer.getBuffer(), 0, buffer.size());
+        } catch (IOException | JsonSerializationException cause) {
+            // the generator might be left within an unfinished object
+            generators.remove();
+            // Fallback to emit just the formatted message
+            LOGGER.error("Conversion failed ", cause);
+            byte[] message = getBytes(LogEventUtilities.getFormattedMessage(event));
+            destination.writeBytes(message, 0, message.length);
+        }
+    }
+
+    private ReusableJsonGenerator getReusableGenerator() throws IOException {
+        if (!Constants.ENABLE_THREADLOCALS) {
+            return createReusableGenerator();
+        }
+        ReusableJsonGenerator generator = generators.get();
+        if (generator == null) {
+            generator = createReusableGenerator();
+            generators.set(generator);
+        }
+        return generator;
+    }
+
+    private ReusableJsonGenerator createReusableGenerator() throws IOException {
+        return new ReusableJsonGenerator(json.getStreamingFactory(), json.isEnabled(JSON.Feature.PRETTY_PRINT_OUTPUT));
+    }
+
+    private void addEvent(JsonGenerator generator, LogEvent event) throws IOException {
+        generator.writeStartObject();
+        addMarkers(generator, event);
+        ContextFieldBuffer contextFields = collectContextFields(event);
+        try {
+            contextFieldConverter.addContextFields(generator, contextFields);
+            contextFieldConverter.addCustomFields(generator, contextFields);
+        } finally {
+            contextFields.clear();
+        }
+        addStacktrace(generator, event);
+        generator.writeEndObject();
+    }
+
+    private void addMarkers(JsonGenerator generator, LogEvent event) throws IOException {
         if (sendDefaultValues || event.getMarker() != null) {
-            ArrayComposer<ObjectComposer<P>> ac = oc.startArrayField(Fields.CATEGORIES);
-            addMarker(ac, event.getMarker());
-            ac.end();
+            generator.writeArrayFieldStart(Fields.CATEGORIES);
+            addMarker(generator, event.getMarker());
+            generator.writeEndArray();
         }
     }
 
-    private <P extends ComposerBase> void addMarker(ArrayComposer<P> ac, org.apache.logging.log4j.Marker marker)
-            throws IOException {
+    private void addMarker(JsonGenerator generator, org.apache.logging.log4j.Marker marker) throws IOException {
         if (marker == null) {
             return;
         }
-        ac.add(marker.getName());
+        generator.writeString(marker.getName());
         if (marker.hasParents()) {
             for (org.apache.logging.log4j.Marker current: marker.getParents()) {
-                addMarker(ac, current);
+                addMarker(generator, current);
             }
         }
     }
 
-    private Map<String, Object> collectContextFields(LogEvent event) {
-        Map<String, Object> contextFields = new HashMap<>();
-        contextFieldSuppliers.forEach(s -> contextFields.putAll(s.get()));
-        log4jContextFieldSuppliers.forEach(s -> contextFields.putAll(s.map(event)));
+    private ContextFieldBuffer collectContextFields(LogEvent event) {
+        ContextFieldBuffer contextFields = getContextFieldBuffer();
+        for (EventContextFieldWriter<LogEvent> writer: contextFieldWriters) {
+            writer.writeFields(event, contextFields);
+        }
         return contextFields;
     }
 
-    private <P extends ComposerBase> void addStacktrace(ObjectComposer<P> oc, LogEvent event) throws IOException {
-        if (event.getThrown() != null) {
-            LineWriter lw = new LineWriter();
-            event.getThrown().printStackTrace(new PrintWriter(lw));
-            List<String> lines = lw.getLines();
-            StacktraceLines stacktraceLines = new StacktraceLines(lines);
-            ArrayComposer<ObjectComposer<P>> ac = oc.startArrayField(Fields.STACKTRACE);
-            if (stacktraceLines.getTotalLineLength() <= maxStacktraceSize) {
-                for (String line: stacktraceLines.getLines()) {
-                    ac.add(line);
-                }
-            } else {
-                ac.add("-------- STACK TRACE TRUNCATED --------");
-                for (String line: stacktraceLines.getFirstLines(maxStacktraceSize / 3)) {
-                    ac.add(line);
-                }
-                ac.add("-------- OMITTED --------");
-                for (String line: stacktraceLines.getLastLines((maxStacktraceSize / 3) * 2)) {
-                    ac.add(line);
+    private ContextFieldBuffer getContextFieldBuffer() {
+        if (!Constants.ENABLE_THREADLOCALS) {
+            return new ContextFieldBuffer();
+        }
+        ContextFieldBuffer buffer = contextFieldBuffers.get();
+        if (buffer == null) {
+            buffer = new ContextFieldBuffer();
+            contextFieldBuffers.set(buffer);
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    private void addStacktrace(JsonGenerator generator, LogEvent event) throws IOException {
+        Throwable throwable = event.getThrown();
+        if (throwable != null) {
+            if (stacktraceThrottle != null) {
+                ThrowableFingerprint fingerprint = ThrowableFingerprint.withoutMessages(throwable);
+                int occurrences = stacktraceThrottle.recordOccurrence(fingerprint, event.getTimeMillis());
+                generator.writeStringField(Fields.STACKTRACE_REF, fingerprint.getReference());
+                generator.writeNumberField(Fields.STACKTRACE_OCCURRENCES, occurrences);
+                if (!stacktraceThrottle.isStacktraceRequired(occurrences)) {
+                    return;
                 }
             }
-            ac.end();
+            if (stacktraceCache != null) {
+                generator.writeFieldName(Fields.STACKTRACE);
+                generator.writeRawValue(stacktraceCache.getStacktrace(throwable));
+                return;
+            }
+            generator.writeArrayFieldStart(Fields.STACKTRACE);
+            stacktraceRenderer.render(throwable, generator::writeString);
+            generator.writeEndArray();
         }
     }
 
@@ -3,13 +3,13 @@ package com.sap.hcp.cf.log4j2.layout.suppliers;
 import com.sap.hcp.cf.log4j2.converter.api.Log4jContextFieldSupplier;
 import com.sap.hcp.cf.logging.common.Defaults;
 import com.sap.hcp.cf.logging.common.Fields;
+import com.sap.hcp.cf.logging.common.serialization.EventContextFieldWriter;
+import com.sap.hcp.cf.logging.common.serialization.FieldSink;
+import com.sap.hcp.cf.logging.common.serialization.FormattedTimestamp;
 import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.time.Instant;
 
-import java.time.Instant;
-import java.util.HashMap;
-import java.util.Map;
-
-public class BaseFieldSupplier implements Log4jContextFieldSupplier {
+public class BaseFieldSupplier implements Log4jContextFieldSupplier, EventContextFieldWriter<LogEvent> {
 
     @Override
     public int order() {
@@ -17,8 +17,7 @@ public class BaseFieldSupplier implements Log4jContextFieldSupplier {
     }
 
     @Override
-    public Map<String, Object> map(LogEvent event) {
-        Map<String, Object> fields = new HashMap<>(6);
+    public void writeFields(LogEvent event, FieldSink fields) {
         fields.put(Fields.WRITTEN_AT, getIsoTs(event));
         fields.put(Fields.WRITTEN_TS, getNanoTs(event));
         fields.put(Fields.TYPE, LogEventUtilities.isRequestLog(event) ? Defaults.TYPE_REQUEST : Defaults.TYPE_LOG);
@@ -35,20 +34,19 @@ public class BaseFieldSupplier implements Log4jContextFieldSupplier {
                 fields.put(Fields.EXCEPTION_MESSAGE, throwable.getMessage());
             }
         }
-        return fields;
     }
 
     private static boolean isNotBlank(String string) {
         return string != null && !string.isBlank();
     }
 
-    private String getIsoTs(LogEvent event) {
-        org.apache.logging.log4j.core.time.Instant instant = event.getInstant();
-        return Instant.ofEpochSecond(instant.getEpochSecond(), instant.getNanoOfSecond()).toString();
+    private FormattedTimestamp getIsoTs(LogEvent event) {
+        Instant instant = event.getInstant();
+        return FormattedTimestamp.iso(instant.getEpochSecond(), instant.getNanoOfSecond());
     }
 
-    private String getNanoTs(LogEvent event) {
-        org.apache.logging.log4j.core.time.Instant instant = event.getInstant();
-        return String.valueOf(instant.getEpochSecond() * 1_000_000_000L + instant.getNanoOfSecond());
+    private FormattedTimestamp getNanoTs(LogEvent event) {
+        Instant instant = event.getInstant();
+        return FormattedTimestamp.nanos(instant.getEpochSecond(), instant.getNanoOfSecond());
     }
 }
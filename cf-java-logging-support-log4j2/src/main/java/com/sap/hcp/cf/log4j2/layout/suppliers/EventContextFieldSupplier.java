@@ -2,18 +2,28 @@ package com.sap.hcp.cf.log4j2.layout.suppliers;
 
 import com.sap.hcp.cf.log4j2.converter.api.Log4jContextFieldSupplier;
 import com.sap.hcp.cf.logging.common.serialization.AbstractContextFieldSupplier;
+import com.sap.hcp.cf.logging.common.serialization.FieldSink;
 import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.util.TriConsumer;
 
 import java.util.Map;
 
 public class EventContextFieldSupplier extends AbstractContextFieldSupplier<LogEvent>
         implements Log4jContextFieldSupplier {
 
+    private static final TriConsumer<String, Object, FieldSink> PUT_FIELD = (key, value, sink) -> sink.put(key, value);
+
     @Override
     public int order() {
         return Log4jContextFieldSupplier.CONTEXT_FIELDS;
     }
 
+    @Override
+    protected void writeContextFields(LogEvent event, FieldSink sink) {
+        // scoped fields of the LogContext are part of the context data, see ScopedContextDataProvider
+        event.getContextData().forEach(PUT_FIELD, sink);
+    }
+
     @Override
     protected Map<String, String> getContextMap(LogEvent event) {
         return event.getContextData().toMap();
@@ -0,0 +1,63 @@
+package com.sap.hcp.cf.log4j2.appender;
+
+import com.sap.hcp.cf.logging.common.helper.RecordingChannel;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.core.layout.PatternLayout;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CoalescingStdoutAppenderTest {
+
+    private final RecordingChannel channel = new RecordingChannel();
+
+    @Test
+    public void coalescesCompleteLines() {
+        CoalescingStdoutAppender appender = createAppender(1024);
+        appender.start();
+
+        appender.append(createEvent("first"));
+        appender.append(createEvent("second"));
+        assertThat(channel.getWrites()).isEmpty();
+        appender.stop(1, TimeUnit.SECONDS);
+
+        assertThat(channel.getWrites()).containsExactly("first\nsecond\n");
+    }
+
+    @Test
+    public void keepsLinesLargerThanEncodingBuffer() {
+        String longMessage = "x".repeat(20_000);
+        CoalescingStdoutAppender appender = createAppender(16);
+        appender.start();
+
+        appender.append(createEvent("short"));
+        appender.append(createEvent(longMessage));
+        appender.stop(1, TimeUnit.SECONDS);
+
+        assertThat(channel.getWrites()).containsExactly("short\n", longMessage + "\n");
+    }
+
+    @Test
+    public void doesNotStartWithInvalidBufferSize() {
+        CoalescingStdoutAppender appender = createAppender(0);
+        appender.start();
+
+        assertThat(appender.isStarted()).isFalse();
+        appender.stop(1, TimeUnit.SECONDS);
+        assertThat(channel.getWrites()).isEmpty();
+    }
+
+    private CoalescingStdoutAppender createAppender(int bufferSize) {
+        PatternLayout layout = PatternLayout.newBuilder().withPattern("%m%n").build();
+        return new CoalescingStdoutAppender("test", null, layout, true, bufferSize, TimeUnit.HOURS.toMillis(1),
+                                            channel);
+    }
+
+    private static Log4jLogEvent createEvent(String message) {
+        return Log4jLogEvent.newBuilder().setMessage(new SimpleMessage(message)).build();
+    }
+}
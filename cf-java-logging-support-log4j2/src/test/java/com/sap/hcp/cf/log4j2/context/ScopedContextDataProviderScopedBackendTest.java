@@ -0,0 +1,55 @@
+package com.sap.hcp.cf.log4j2.context;
+
+import com.sap.hcp.cf.logging.common.Fields;
+import com.sap.hcp.cf.logging.common.LogContext;
+import org.apache.logging.log4j.core.ContextDataInjector;
+import org.apache.logging.log4j.core.impl.ContextDataInjectorFactory;
+import org.apache.logging.log4j.util.SortedArrayStringMap;
+import org.apache.logging.log4j.util.StringMap;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs with the scoped backend of the {@link LogContext}, see the surefire configuration.
+ */
+public class ScopedContextDataProviderScopedBackendTest {
+
+    private static final Map<String, String> SCOPED_FIELDS = Map.of(Fields.CORRELATION_ID, "scoped-id");
+
+    private final ScopedContextDataProvider provider = new ScopedContextDataProvider();
+
+    @AfterEach
+    public void clearMdc() {
+        MDC.clear();
+    }
+
+    @Test
+    public void suppliesScopedFields() {
+        LogContext.runInScope(SCOPED_FIELDS, () -> {
+            assertThat(provider.supplyContextData()).containsExactlyEntriesOf(SCOPED_FIELDS);
+            assertThat(provider.supplyStringMap().toMap()).containsExactlyEntriesOf(SCOPED_FIELDS);
+        });
+
+        assertThat(provider.supplyContextData()).isEmpty();
+        assertThat(provider.supplyStringMap().isEmpty()).isTrue();
+    }
+
+    @Test
+    public void injectsScopedFieldsWhenEventIsCreated() {
+        ContextDataInjector injector = ContextDataInjectorFactory.createInjector();
+        MDC.put("mdc key", "mdc value");
+        StringMap[] contextData = new StringMap[1];
+
+        LogContext.runInScope(SCOPED_FIELDS, () -> {
+            contextData[0] = injector.injectContextData(null, new SortedArrayStringMap());
+        });
+
+        assertThat(contextData[0].toMap()).containsEntry("mdc key", "mdc value")
+                                          .containsEntry(Fields.CORRELATION_ID, "scoped-id");
+    }
+}
@@ -0,0 +1,65 @@
+package com.sap.hcp.cf.log4j2.filter;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.Filter.Result;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.appender.CountingNoOpAppender;
+import org.apache.logging.log4j.core.config.ConfigurationSource;
+import org.apache.logging.log4j.core.config.xml.XmlConfiguration;
+import org.apache.logging.log4j.core.impl.JdkMapAdapterStringMap;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.junit.jupiter.api.Test;
+
+import java.net.URL;
+import java.util.Map;
+
+import static com.sap.hcp.cf.logging.common.Fields.REPEAT_COUNT;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DuplicateSuppressionFilterTest {
+
+    private final DuplicateSuppressionFilter filter = DuplicateSuppressionFilter.createFilter(3_600_000);
+
+    @Test
+    public void deniesRepeatedTemplate() throws Exception {
+        assertThat(filter.filter(createEvent("repeated {}", 1))).isEqualTo(Result.NEUTRAL);
+        assertThat(filter.filter(createEvent("repeated {}", 2))).isEqualTo(Result.DENY);
+        assertThat(filter.filter(createEvent("different {}", 1))).isEqualTo(Result.NEUTRAL);
+    }
+
+    @Test
+    public void neutralOnSummary() throws Exception {
+        Log4jLogEvent summary = Log4jLogEvent.newBuilder().setLoggerName("neutralOnSummary").setLevel(Level.INFO)
+                                             .setMessage(new ParameterizedMessage("repeated {}", 1))
+                                             .setContextData(new JdkMapAdapterStringMap(Map.of(REPEAT_COUNT, "2")))
+                                             .build();
+        assertThat(filter.filter(summary)).isEqualTo(Result.NEUTRAL);
+        assertThat(filter.filter(summary)).isEqualTo(Result.NEUTRAL);
+    }
+
+    private static Log4jLogEvent createEvent(String template, Object parameter) {
+        return Log4jLogEvent.newBuilder().setLoggerName("createEvent").setLevel(Level.INFO)
+                            .setMessage(new ParameterizedMessage(template, parameter)).build();
+    }
+
+    @Test
+    public void integratesIntoConfiguration() throws Exception {
+        LoggerContext loggerContext = new LoggerContext("integratesIntoConfiguration");
+        URL configLocation = getClass().getResource("log4j2-duplicate-suppression-test.xml");
+        ConfigurationSource configurationSource = ConfigurationSource.fromUri(configLocation.toURI());
+        XmlConfiguration configuration = new XmlConfiguration(loggerContext, configurationSource);
+        loggerContext.start(configuration);
+        org.apache.logging.log4j.core.Logger logger = loggerContext.getLogger("integratesIntoConfiguration");
+        CountingNoOpAppender appender = new CountingNoOpAppender("integratesIntoConfiguration", null);
+        logger.addAppender(appender);
+        logger.info("repeated {}", 1);
+        logger.info("repeated {}", 2);
+        logger.info("repeated {}", 3);
+        assertThat(appender.getCount()).isEqualTo(1L);
+        Thread.sleep(200);
+        logger.info("repeated {}", 4);
+        assertThat(appender.getCount()).isEqualTo(3L);
+        loggerContext.close();
+    }
+}
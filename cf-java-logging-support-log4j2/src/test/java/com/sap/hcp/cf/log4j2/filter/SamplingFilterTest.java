@@ -0,0 +1,68 @@
+package com.sap.hcp.cf.log4j2.filter;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.Filter.Result;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.appender.CountingNoOpAppender;
+import org.apache.logging.log4j.core.config.ConfigurationSource;
+import org.apache.logging.log4j.core.config.xml.XmlConfiguration;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.junit.jupiter.api.Test;
+
+import java.net.URL;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SamplingFilterTest {
+
+    private static final String KNOWN_PREFIX = "known.prefix";
+    private static final String UNKNOWN_PREFIX = "unknown.prefix";
+
+    private final SamplingFilter filter = SamplingFilter.createFilter(KNOWN_PREFIX + ":INFO=0.1/1", null, 3600);
+
+    @Test
+    public void deniesEventsExceedingBudget() throws Exception {
+        Log4jLogEvent event = Log4jLogEvent.newBuilder().setLoggerName(KNOWN_PREFIX + "deniesEventsExceedingBudget")
+                                           .setLevel(Level.INFO).build();
+        assertThat(filter.filter(event)).isEqualTo(Result.NEUTRAL);
+        assertThat(filter.filter(event)).isEqualTo(Result.DENY);
+    }
+
+    @Test
+    public void neutralOnUnknownPackage() throws Exception {
+        Log4jLogEvent event = Log4jLogEvent.newBuilder().setLoggerName(UNKNOWN_PREFIX + "neutralOnUnknownPackage")
+                                           .setLevel(Level.INFO).build();
+        assertThat(filter.filter(event)).isEqualTo(Result.NEUTRAL);
+        assertThat(filter.filter(event)).isEqualTo(Result.NEUTRAL);
+    }
+
+    @Test
+    public void neutralOnError() throws Exception {
+        SamplingFilter filter = SamplingFilter.createFilter(KNOWN_PREFIX + "=0.1/1", null, 3600);
+        Log4jLogEvent event = Log4jLogEvent.newBuilder().setLoggerName(KNOWN_PREFIX + "neutralOnError")
+                                           .setLevel(Level.ERROR).build();
+        assertThat(filter.filter(event)).isEqualTo(Result.NEUTRAL);
+        assertThat(filter.filter(event)).isEqualTo(Result.NEUTRAL);
+    }
+
+    @Test
+    public void integratesIntoConfiguration() throws Exception {
+        LoggerContext loggerContext = new LoggerContext("integratesIntoConfiguration");
+        URL configLocation = getClass().getResource("log4j2-sampling-test.xml");
+        ConfigurationSource configurationSource = ConfigurationSource.fromUri(configLocation.toURI());
+        XmlConfiguration configuration = new XmlConfiguration(loggerContext, configurationSource);
+        loggerContext.start(configuration);
+        org.apache.logging.log4j.core.Logger logger =
+                loggerContext.getLogger(KNOWN_PREFIX + "integratesIntoConfiguration");
+        CountingNoOpAppender appender = new CountingNoOpAppender("integratesIntoConfiguration", null);
+        logger.addAppender(appender);
+        logger.debug("test-integration-message-at-debug");
+        logger.info("test-integration-message-at-info");
+        logger.info("test-integration-message-at-info");
+        logger.info("test-integration-message-at-info");
+        assertThat(appender.getCount()).isEqualTo(2L);
+        logger.error("test-integration-message-at-error");
+        assertThat(appender.getCount()).isEqualTo(3L);
+        loggerContext.close();
+    }
+}
@@ -5,9 +5,15 @@ import com.sap.hcp.cf.log4j2.layout.suppliers.BaseFieldSupplier;
 import com.sap.hcp.cf.log4j2.layout.suppliers.EventContextFieldSupplier;
 import com.sap.hcp.cf.log4j2.layout.suppliers.RequestRecordFieldSupplier;
 import com.sap.hcp.cf.logging.common.serialization.ContextFieldSupplier;
+import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.core.layout.ByteBufferDestination;
+import org.apache.logging.log4j.message.SimpleMessage;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.Map;
@@ -43,6 +49,53 @@ class JsonPatternLayoutTest {
                                                                            SpiLog4jContextFieldSupplier.class.getName());
     }
 
+    @Test
+    void encodesSameJsonAsSerialization() {
+        LogEvent event = Log4jLogEvent.newBuilder().setLoggerName(JsonPatternLayoutTest.class.getName())
+                                      .setLevel(Level.WARN).setMessage(new SimpleMessage("message with \"quotes\""))
+                                      .setThrown(new IllegalStateException("failure")).build();
+        CapturingDestination destination = new CapturingDestination();
+
+        LAYOUT.encode(event, destination);
+        LAYOUT.encode(event, destination);
+
+        String expected = LAYOUT.toSerializable(event);
+        assertThat(destination.toString()).isEqualTo(expected + expected);
+    }
+
+    private static class CapturingDestination implements ByteBufferDestination {
+
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private final ByteBuffer buffer = ByteBuffer.allocate(0);
+
+        @Override
+        public ByteBuffer getByteBuffer() {
+            return buffer;
+        }
+
+        @Override
+        public ByteBuffer drain(ByteBuffer buf) {
+            return buf;
+        }
+
+        @Override
+        public void writeBytes(ByteBuffer data) {
+            while (data.hasRemaining()) {
+                out.write(data.get());
+            }
+        }
+
+        @Override
+        public void writeBytes(byte[] data, int offset, int length) {
+            out.write(data, offset, length);
+        }
+
+        @Override
+        public String toString() {
+            return out.toString(StandardCharsets.UTF_8);
+        }
+    }
+
     static class SampleContextFieldSupplier implements ContextFieldSupplier {
         @Override
         public Map<String, Object> get() {
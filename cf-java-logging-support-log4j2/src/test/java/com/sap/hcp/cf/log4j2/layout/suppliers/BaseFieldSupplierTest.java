@@ -46,4 +46,17 @@ public class BaseFieldSupplierTest {
         assertThat(fields).containsEntry(Fields.EXCEPTION_TYPE, RuntimeException.class.getName());
         assertThat(fields).containsEntry(Fields.EXCEPTION_MESSAGE, "exception message");
     }
+
+    @Test
+    public void mapsTimestampsToStrings() {
+        Instant instant = mock(Instant.class);
+        when(instant.getEpochSecond()).thenReturn(1_700_000_000L);
+        when(instant.getNanoOfSecond()).thenReturn(123_456_789);
+        when(event.getInstant()).thenReturn(instant);
+
+        Map<String, Object> fields = baseFieldSupplier.map(event);
+
+        assertThat(fields).containsEntry(Fields.WRITTEN_AT, "2023-11-14T22:13:20.123456789Z");
+        assertThat(fields).containsEntry(Fields.WRITTEN_TS, "1700000000123456789");
+    }
 }
@@ -3,6 +3,8 @@ package com.sap.hcp.cf.log4j2.layout.suppliers;
 import com.sap.hcp.cf.log4j2.converter.api.Log4jContextFieldSupplier;
 import com.sap.hcp.cf.logging.common.customfields.CustomField;
 import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.util.SortedArrayStringMap;
+import org.apache.logging.log4j.util.StringMap;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Answers;
@@ -25,14 +27,15 @@ public class EventContextFieldSupplierTest {
 
     @Test
     public void emptyMdcAndNoArguments() {
-        when(event.getContextData().toMap()).thenReturn(Collections.emptyMap());
+        when(event.getContextData()).thenReturn(contextData(Collections.emptyMap()));
         Map<String, Object> fields = fieldSupplier.map(event);
         assertThat(fields).isEmpty();
     }
 
     @Test
     public void mdcFields() throws Exception {
-        when(event.getContextData().toMap()).thenReturn(Map.ofEntries(entry("key", "value"), entry("this", "that")));
+        when(event.getContextData()).thenReturn(
+                contextData(Map.ofEntries(entry("key", "value"), entry("this", "that"))));
 
         Map<String, Object> fields = fieldSupplier.map(event);
         assertThat(fields).containsEntry("key", "value").containsEntry("this", "that");
@@ -52,7 +55,7 @@ public class EventContextFieldSupplierTest {
 
     @Test
     public void customFieldOverwritesMdc() throws Exception {
-        when(event.getContextData().toMap()).thenReturn(Map.ofEntries(entry("key", "this")));
+        when(event.getContextData()).thenReturn(contextData(Map.ofEntries(entry("key", "this"))));
         Object[] arguments = new Object[] { CustomField.customField("key", "that") };
         when(event.getMessage().getParameters()).thenReturn(arguments);
 
@@ -60,4 +63,10 @@ public class EventContextFieldSupplierTest {
         assertThat(fields).containsEntry("key", "that");
     }
 
+    private static StringMap contextData(Map<String, String> values) {
+        StringMap contextData = new SortedArrayStringMap();
+        values.forEach(contextData::putValue);
+        return contextData;
+    }
+
 }
@@ -0,0 +1,96 @@
+package com.sap.hcp.cf.logback.benchmark;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.ConsoleAppender;
+import com.sap.hcp.cf.logback.appender.RingBufferAsyncAppender;
+import com.sap.hcp.cf.logback.encoder.JsonEncoder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.util.NullOutputStream;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@link RingBufferAsyncAppender} with logback's {@link AsyncAppender} in front of a
+ * {@link ConsoleAppender}. The number of producer threads is set by the {@link BenchmarkRunner}, see
+ * {@link #PRODUCERS}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 5, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class AsyncAppenderBenchmarks {
+
+    static final int[] PRODUCERS = { 1, 8, 32, 128 };
+
+    private static final int BUFFER_SIZE = 8192;
+
+    @Benchmark
+    public void log(AppenderState state) {
+        state.logger.info(state.message);
+    }
+
+    @State(Scope.Benchmark)
+    public static class AppenderState {
+
+        @Param({ "ringBuffer", "asyncAppender" })
+        public String appender;
+        public String message = "Simple message benchmark";
+        public Logger logger;
+        private LoggerContext loggerContext;
+        private PrintStream out;
+
+        @Setup
+        public void startAppender() {
+            out = System.out;
+            System.setOut(new PrintStream(new NullOutputStream()));
+            loggerContext = new LoggerContext();
+            logger = loggerContext.getLogger(AsyncAppenderBenchmarks.class);
+            logger.setAdditive(false);
+            logger.addAppender("ringBuffer".equals(appender) ? createRingBufferAppender() : createAsyncAppender());
+        }
+
+        private Appender<ILoggingEvent> createRingBufferAppender() {
+            RingBufferAsyncAppender ringBufferAppender = new RingBufferAsyncAppender();
+            ringBufferAppender.setContext(loggerContext);
+            ringBufferAppender.setBufferSize(BUFFER_SIZE);
+            ringBufferAppender.setEncoder(createEncoder());
+            ringBufferAppender.start();
+            return ringBufferAppender;
+        }
+
+        private Appender<ILoggingEvent> createAsyncAppender() {
+            ConsoleAppender<ILoggingEvent> consoleAppender = new ConsoleAppender<>();
+            consoleAppender.setContext(loggerContext);
+            consoleAppender.setEncoder(createEncoder());
+            consoleAppender.start();
+            AsyncAppender asyncAppender = new AsyncAppender();
+            asyncAppender.setContext(loggerContext);
+            asyncAppender.setQueueSize(BUFFER_SIZE);
+            asyncAppender.setDiscardingThreshold(0);
+            asyncAppender.addAppender(consoleAppender);
+            asyncAppender.start();
+            return asyncAppender;
+        }
+
+        private JsonEncoder createEncoder() {
+            JsonEncoder encoder = new JsonEncoder();
+            encoder.setContext(loggerContext);
+            encoder.setDirectEncoding(true);
+            encoder.start();
+            return encoder;
+        }
+
+        @TearDown
+        public void stopAppender() {
+            loggerContext.stop();
+            System.setOut(out);
+        }
+    }
+
+}
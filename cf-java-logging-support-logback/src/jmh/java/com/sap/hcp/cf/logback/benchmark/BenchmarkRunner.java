@@ -1,5 +1,6 @@
 package com.sap.hcp.cf.logback.benchmark;
 
+import org.openjdk.jmh.profile.GCProfiler;
 import org.openjdk.jmh.runner.Runner;
 import org.openjdk.jmh.runner.RunnerException;
 import org.openjdk.jmh.runner.options.Options;
@@ -10,6 +11,17 @@ public class BenchmarkRunner {
     public static void main(String[] args) throws RunnerException {
         Options options = new OptionsBuilder().include(EncodingBenchmarks.class.getSimpleName()).forks(1).build();
         new Runner(options).run();
+        Options dynamicLevelOptions = new OptionsBuilder().include(DynamicLevelBenchmarks.class.getSimpleName())
+                                                          .forks(1).addProfiler(GCProfiler.class).build();
+        new Runner(dynamicLevelOptions).run();
+        Options contextOptions = new OptionsBuilder().include(LogContextBackendBenchmarks.class.getSimpleName())
+                                                     .forks(1).addProfiler(GCProfiler.class).build();
+        new Runner(contextOptions).run();
+        for (int producers: AsyncAppenderBenchmarks.PRODUCERS) {
+            Options asyncOptions = new OptionsBuilder().include(AsyncAppenderBenchmarks.class.getSimpleName())
+                                                       .threads(producers).forks(1).build();
+            new Runner(asyncOptions).run();
+        }
     }
 
 }
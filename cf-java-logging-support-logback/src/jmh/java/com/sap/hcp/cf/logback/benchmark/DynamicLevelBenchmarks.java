@@ -0,0 +1,58 @@
+package com.sap.hcp.cf.logback.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import com.sap.hcp.cf.logback.filter.DynamicLevelPrefixLoggerTurboFilter;
+import com.sap.hcp.cf.logging.common.helper.DynamicLogLevelHelper;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.MDC;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a disabled {@code LOG.debug} call passing the {@link DynamicLevelPrefixLoggerTurboFilter}. With an active
+ * dynamic log level, the level and prefixes are read from the MDC, but the prefixes do not match the logger, so that
+ * the call stays disabled. Run with the GC profiler to verify, that the call does not allocate.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 5, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class DynamicLevelBenchmarks {
+
+    @Benchmark
+    public void disabledDebug(LoggerState state) {
+        state.logger.debug(state.message, state.argument);
+    }
+
+    @State(Scope.Thread)
+    public static class LoggerState {
+
+        @Param({ "false", "true" })
+        public boolean dynamicLevel;
+        public String message = "Disabled message {}";
+        public Object argument = 42;
+        public Logger logger;
+
+        @Setup
+        public void setUp() {
+            LoggerContext loggerContext = new LoggerContext();
+            loggerContext.addTurboFilter(new DynamicLevelPrefixLoggerTurboFilter());
+            logger = loggerContext.getLogger(DynamicLevelBenchmarks.class);
+            logger.setLevel(Level.INFO);
+            if (dynamicLevel) {
+                MDC.put(DynamicLogLevelHelper.MDC_DYNAMIC_LOG_LEVEL_KEY, "DEBUG");
+                MDC.put(DynamicLogLevelHelper.MDC_DYNAMIC_LOG_LEVEL_PREFIXES,
+                        "com.example.service,com.example.repository,org.sample.web");
+            }
+        }
+
+        @TearDown
+        public void tearDown() {
+            MDC.clear();
+        }
+    }
+
+}
@@ -1,5 +1,10 @@
 package com.sap.hcp.cf.logback.benchmark;
 
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import com.sap.hcp.cf.logback.encoder.JsonEncoder;
 import com.sap.hcp.cf.logging.common.Fields;
 import com.sap.hcp.cf.logging.common.Markers;
 import com.sap.hcp.cf.logging.common.customfields.CustomField;
@@ -50,6 +55,36 @@ public class EncodingBenchmarks {
         LOG.info(Markers.REQUEST_MARKER, "", requestRecord);
     }
 
+    @Benchmark
+    public byte[] encodeViaString(EncoderState state) {
+        return state.stringEncoder.encode(state.event);
+    }
+
+    @Benchmark
+    public byte[] encodeDirectly(EncoderState state) {
+        return state.directEncoder.encode(state.event);
+    }
+
+    @State(Scope.Benchmark)
+    public static class EncoderState {
+        public JsonEncoder stringEncoder;
+        public JsonEncoder directEncoder;
+        public ILoggingEvent event;
+
+        @Setup
+        public void createEncoders() {
+            stringEncoder = new JsonEncoder();
+            stringEncoder.start();
+            directEncoder = new JsonEncoder();
+            directEncoder.setDirectEncoding(true);
+            directEncoder.start();
+            LoggerContext loggerContext = new LoggerContext();
+            event = new LoggingEvent(EncodingBenchmarks.class.getName(),
+                                     loggerContext.getLogger(EncodingBenchmarks.class), Level.INFO,
+                                     "Simple message benchmark", null, null);
+        }
+    }
+
     @State(Scope.Benchmark)
     public static class BenchmarkState {
         public String simpleLogMessage = "Simple message benchmark";
@@ -0,0 +1,117 @@
+package com.sap.hcp.cf.logback.benchmark;
+
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import com.sap.hcp.cf.logging.common.Fields;
+import com.sap.hcp.cf.logging.common.context.LogContextBackend;
+import com.sap.hcp.cf.logging.common.context.MdcContextBackend;
+import com.sap.hcp.cf.logging.common.context.ScopedContextBackend;
+import com.sap.hcp.cf.logging.common.helper.DynamicLogLevelHelper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.slf4j.MDC;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs 10,000 concurrent requests on virtual threads, that each fill the logging context like the servlet filters and
+ * read it for three log events like the encoders. Compares the MDC with the scoped backend of the
+ * {@link com.sap.hcp.cf.logging.common.LogContext}. Virtual threads and {@code ScopedValue} require Java 21, on older
+ * runtimes the requests share a fixed thread pool and the scope is bound with a {@link ThreadLocal}. Run with the GC
+ * profiler to compare the allocations per request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 5, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class LogContextBackendBenchmarks {
+
+    public static final int REQUESTS = 10_000;
+    private static final int EVENTS_PER_REQUEST = 3;
+    private static final String[] FIELDS =
+            { Fields.TENANT_ID, Fields.TENANT_SUBDOMAIN, Fields.COMPONENT_ID, Fields.COMPONENT_NAME,
+              DynamicLogLevelHelper.MDC_DYNAMIC_LOG_LEVEL_KEY };
+
+    @Benchmark
+    public void concurrentRequests(BackendState state, Blackhole blackhole) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            String correlationId = state.correlationIds[i];
+            state.executor.execute(() -> {
+                try {
+                    if (state.backend.needsScope()) {
+                        state.backend.runInScope(null, () -> handleRequest(state, correlationId, blackhole));
+                    } else {
+                        handleRequest(state, correlationId, blackhole);
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+    }
+
+    private static void handleRequest(BackendState state, String correlationId, Blackhole blackhole) {
+        LogContextBackend backend = state.backend;
+        backend.put(Fields.CORRELATION_ID, correlationId);
+        for (String field: FIELDS) {
+            backend.put(field, field);
+        }
+        for (int i = 0; i < EVENTS_PER_REQUEST; i++) {
+            if (state.scoped) {
+                backend.getScopedFields().forEach((key, value) -> blackhole.consume(value));
+            } else {
+                // logback events share the read-only map of the adapter instead of copying the MDC
+                Map<String, String> contextMap = ((LogbackMDCAdapter) MDC.getMDCAdapter()).getPropertyMap();
+                contextMap.forEach((key, value) -> blackhole.consume(value));
+            }
+        }
+        // the filters clean up after the request
+        backend.remove(Fields.CORRELATION_ID);
+        for (String field: FIELDS) {
+            backend.remove(field);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class BackendState {
+
+        @Param({ "mdc", "scoped" })
+        public String backendName;
+
+        public boolean scoped;
+        public LogContextBackend backend;
+        public ExecutorService executor;
+        public String[] correlationIds = new String[REQUESTS];
+
+        @Setup
+        public void setUp() {
+            scoped = "scoped".equals(backendName);
+            backend = scoped ? new ScopedContextBackend() : new MdcContextBackend();
+            executor = createVirtualThreadExecutor();
+            for (int i = 0; i < REQUESTS; i++) {
+                correlationIds[i] = "correlation-" + i;
+            }
+        }
+
+        @TearDown
+        public void tearDown() throws InterruptedException {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+
+        private static ExecutorService createVirtualThreadExecutor() {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException cause) {
+                return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 4);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,142 @@
+package com.sap.hcp.cf.logback.appender;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.encoder.Encoder;
+import com.sap.hcp.cf.logging.common.serialization.CoalescingChannelWriter;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * An appender, that writes the encoded events to the standard output with few system calls. It replaces the
+ * {@link ch.qos.logback.core.ConsoleAppender}, that flushes {@link System#out} for every event.
+ * <p>
+ * The events are encoded by the logging threads and collected by a {@link CoalescingChannelWriter}, that writes many
+ * complete lines at once to file descriptor 1. Buffered lines are written at the latest after the maximum linger time.
+ * The appender can be configured in the logback.xml:<blockquote>
+ *
+ * <pre>
+ * &lt;appender name="STDOUT-JSON" class="com.sap.hcp.cf.logback.appender.CoalescingStdoutAppender"&gt;
+ *    &lt;maxLingerMillis&gt;10&lt;/maxLingerMillis&gt;
+ *    &lt;encoder class="com.sap.hcp.cf.logback.encoder.JsonEncoder"/&gt;
+ * &lt;/appender&gt;
+ * </pre>
+ *
+ * </blockquote>
+ */
+public class CoalescingStdoutAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
+
+    private Encoder<ILoggingEvent> encoder;
+    private int bufferSize = CoalescingChannelWriter.DEFAULT_BUFFER_SIZE;
+    private long maxLingerMillis = CoalescingChannelWriter.DEFAULT_MAX_LINGER_MILLIS;
+    private WritableByteChannel channel;
+    private CoalescingChannelWriter writer;
+
+    /**
+     * <p>
+     * Sets the encoder, that converts the events into bytes. This is usually the
+     * {@link com.sap.hcp.cf.logback.encoder.JsonEncoder}.
+     * </p>
+     * <p>
+     * This method is called by Joran for the xml tag {@code <encoder>} in the logback.xml configuration file.
+     * </p>
+     *
+     * @param encoder
+     *         the encoder for the events
+     */
+    public void setEncoder(Encoder<ILoggingEvent> encoder) {
+        this.encoder = encoder;
+    }
+
+    public Encoder<ILoggingEvent> getEncoder() {
+        return encoder;
+    }
+
+    /**
+     * <p>
+     * Sets the size of the buffer in bytes, that collects the lines between two writes. Defaults to 64 KiB.
+     * </p>
+     * <p>
+     * This method is called by Joran for the xml tag {@code <bufferSize>} in the logback.xml configuration file.
+     * </p>
+     *
+     * @param bufferSize
+     *         the capacity of the buffer
+     */
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * <p>
+     * Sets the maximum time in milliseconds, that a line stays in the buffer before it is written. A value of 0 writes
+     * every line immediately. Defaults to 10 ms.
+     * </p>
+     * <p>
+     * This method is called by Joran for the xml tag {@code <maxLingerMillis>} in the logback.xml configuration file.
+     * </p>
+     *
+     * @param maxLingerMillis
+     *         the maximum delay of a line
+     */
+    public void setMaxLingerMillis(long maxLingerMillis) {
+        this.maxLingerMillis = maxLingerMillis;
+    }
+
+    // for testing
+    void setChannel(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    public void start() {
+        if (isStarted()) {
+            return;
+        }
+        if (encoder == null) {
+            addError("No encoder set for the appender named [" + getName() + "].");
+            return;
+        }
+        try {
+            writer = channel != null ? new CoalescingChannelWriter(channel, bufferSize, maxLingerMillis)
+                                     : CoalescingChannelWriter.stdout(bufferSize, maxLingerMillis);
+        } catch (IllegalArgumentException cause) {
+            addError("Cannot create writer for the appender named [" + getName() + "].", cause);
+            return;
+        }
+        write(encoder.headerBytes());
+        super.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!isStarted()) {
+            return;
+        }
+        super.stop();
+        write(encoder.footerBytes());
+        try {
+            writer.close();
+        } catch (IOException cause) {
+            addError("IO failure in appender", cause);
+        }
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        write(encoder.encode(event));
+    }
+
+    private void write(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return;
+        }
+        try {
+            writer.write(bytes, 0, bytes.length);
+        } catch (IOException cause) {
+            addError("IO failure in appender", cause);
+        }
+    }
+
+}
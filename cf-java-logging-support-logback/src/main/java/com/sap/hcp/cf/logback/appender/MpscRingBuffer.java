@@ -0,0 +1,113 @@
+package com.sap.hcp.cf.logback.appender;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * A bounded, pre-allocated ring buffer for many producer threads and a single consumer thread. It does not use locks.
+ * <p>
+ * Producers claim a position by compare-and-set on a shared cursor. Each slot carries a sequence number, that tells
+ * whether the slot is free for the claimed position or still holds an element, that was not consumed yet. Publishing
+ * the sequence after storing the element makes the element visible to the consumer. The consumer releases the slot for
+ * the next round by advancing its sequence by the capacity.
+ *
+ * @param <E>
+ *         the type of the elements
+ */
+final class MpscRingBuffer<E> {
+
+    private final int capacity;
+    private final int mask;
+    private final Object[] elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong producerPosition = new AtomicLong();
+    private final AtomicLong consumerPosition = new AtomicLong();
+
+    /**
+     * @param capacity
+     *         the number of slots, must be a positive power of two
+     */
+    MpscRingBuffer(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a positive power of two but was " + capacity + ".");
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.elements = new Object[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Adds an element, if there is a free slot. Can be called by any thread.
+     *
+     * @param element
+     *         the element to add, must not be {@code null}
+     * @return {@code true}, if the element was added, {@code false} if the buffer is full
+     */
+    boolean offer(E element) {
+        long position = producerPosition.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (producerPosition.compareAndSet(position, position + 1)) {
+                    elements[index] = element;
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = producerPosition.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = producerPosition.get();
+            }
+        }
+    }
+
+    /**
+     * Removes up to the given number of elements in the order, in which they were added. Must only be called by the
+     * single consumer thread.
+     *
+     * @param consumer
+     *         the receiver of the removed elements
+     * @param maxElements
+     *         the maximum number of elements to remove
+     * @return the number of removed elements
+     */
+    @SuppressWarnings("unchecked")
+    int drain(Consumer<? super E> consumer, int maxElements) {
+        long position = consumerPosition.get();
+        int drained = 0;
+        while (drained < maxElements) {
+            int index = (int) position & mask;
+            if (sequences.get(index) != position + 1) {
+                break;
+            }
+            E element = (E) elements[index];
+            elements[index] = null;
+            sequences.lazySet(index, position + capacity);
+            position++;
+            drained++;
+            consumer.accept(element);
+        }
+        consumerPosition.lazySet(position);
+        return drained;
+    }
+
+    /**
+     * @return the approximate number of elements in the buffer
+     */
+    int size() {
+        long size = producerPosition.get() - consumerPosition.get();
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+}
@@ -0,0 +1,420 @@
+package com.sap.hcp.cf.logback.appender;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.encoder.Encoder;
+import com.sap.hcp.cf.logging.common.LogContext;
+import com.sap.hcp.cf.logging.common.request.RequestRecord;
+import com.sap.hcp.cf.logging.common.serialization.FieldSink;
+import com.sap.hcp.cf.logging.common.serialization.ReusableByteArrayOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * An asynchronous appender, that writes the encoded events to the console. It replaces the combination of logback's
+ * {@link ch.qos.logback.classic.AsyncAppender} and {@link ch.qos.logback.core.ConsoleAppender}, whose blocking queue
+ * becomes a point of contention with many logging threads.
+ * <p>
+ * The logging threads hand the events to a pre-allocated lock-free ring buffer. A single worker thread drains the
+ * buffer in batches, encodes all events of a batch into one buffer and writes it with a single call to the output
+ * stream. The appender can be configured in the logback.xml:<blockquote>
+ *
+ * <pre>
+ * &lt;appender name="ASYNC-JSON" class="com.sap.hcp.cf.logback.appender.RingBufferAsyncAppender"&gt;
+ *    &lt;bufferSize&gt;8192&lt;/bufferSize&gt;
+ *    &lt;waitStrategy&gt;park&lt;/waitStrategy&gt;
+ *    &lt;encoder class="com.sap.hcp.cf.logback.encoder.JsonEncoder"/&gt;
+ * &lt;/appender&gt;
+ * </pre>
+ *
+ * </blockquote>
+ * <p>
+ * The logging threads take a snapshot of the event before handing it over, as the {@code AsyncAppender} does: the
+ * message is formatted and the MDC and thread name are copied. Context fields bound to a scope by the
+ * {@link LogContext} are added to the copied MDC. Request records given as arguments are finished, so that their
+ * response time ends with the logging call. Arguments must not be modified after logging.
+ * <p>
+ * Events appended concurrently with {@link #stop()} are either written before the footer or counted as dropped, see
+ * {@link #getDroppedEventCount()}.
+ */
+public class RingBufferAsyncAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
+
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+    private static final int DEFAULT_BATCH_SIZE = 256;
+    private static final int DEFAULT_MAX_FLUSH_TIME = 1000;
+    private static final int INITIAL_BATCH_CAPACITY = 64 * 1024;
+    private static final int MAX_RETAINED_BATCH_CAPACITY = 1024 * 1024;
+    private static final String SYSTEM_OUT = "System.out";
+    private static final String SYSTEM_ERR = "System.err";
+    private static final FieldSink IGNORED_FIELDS = (key, value) -> {
+    };
+
+    private Encoder<ILoggingEvent> encoder;
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private int maxFlushTime = DEFAULT_MAX_FLUSH_TIME;
+    private WaitStrategy waitStrategy = WaitStrategy.PARK;
+    private String target = SYSTEM_OUT;
+    private boolean includeCallerData = false;
+    private boolean neverBlock = false;
+    private OutputStream outputStream;
+    private final LongAdder droppedEvents = new LongAdder();
+    private final LongAdder pendingAppends = new LongAdder();
+    private MpscRingBuffer<ILoggingEvent> buffer;
+    private Worker worker;
+    private volatile boolean running;
+
+    /**
+     * <p>
+     * Sets the encoder, that converts the events into bytes. This is usually the
+     * {@link com.sap.hcp.cf.logback.encoder.JsonEncoder}. The encoder is only used by the worker thread.
+     * </p>
+     * <p>
+     * This method is called by Joran for the xml tag {@code <encoder>} in the logback.xml configuration file.
+     * </p>
+     *
+     * @param encoder
+     *         the encoder for the events
+     */
+    public void setEncoder(Encoder<ILoggingEvent> encoder) {
+        this.encoder = encoder;
+    }
+
+    public Encoder<ILoggingEvent> getEncoder() {
+        return encoder;
+    }
+
+    /**
+     * <p>
+     * Sets the number of events, that can be buffered. It is rounded up to the next power of two. Defaults to 8192.
+     * </p>
+     * <p>
+     * This method is called by Joran for the xml tag {@code <bufferSize>} in the logback.xml configuration file.
+     * </p>
+     *
+     * @param bufferSize
+     *         the capacity of the ring buffer
+     */
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * <p>
+     * Sets the maximum number of events, that are written with a single call to the output stream. Defaults to 256.
+     * </p>
+     * <p>
+     * This method is called by Joran for the xml tag {@code <batchSize>} in the logback.xml configuration file.
+     * </p>
+     *
+     * @param batchSize
+     *         the maximum number of events per write
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * <p>
+     * Sets the maximum time in milliseconds to wait for the remaining events to be written, when the appender is
+     * stopped. Defaults to 1000 ms.
+     * </p>
+     * <p>
+     * This method is called by Joran for the xml tag {@code <maxFlushTime>} in the logback.xml configuration file.
+     * </p>
+     *
+     * @param maxFlushTime
+     *         the maximum time to wait for the worker on shutdown
+     */
+    public void setMaxFlushTime(int maxFlushTime) {
+        this.maxFlushTime = maxFlushTime;
+    }
+
+    /**
+     * <p>
+     * Sets the {@link WaitStrategy} of the worker thread by its name: {@code spin}, {@code yield} or {@code park}.
+     * Defaults to {@code park}. Logging threads waiting for a free slot in a full buffer always use {@code park}.
+     * </p>
+     * <p>
+     * This method is called by Joran for the xml tag {@code <waitStrategy>} in the logback.xml configuration file.
+     * </p>
+     *
+     * @param waitStrategy
+     *         the name of the wait strategy
+     */
+    public void setWaitStrategy(String waitStrategy) {
+        try {
+            this.waitStrategy = WaitStrategy.valueOf(waitStrategy.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException | NullPointerException cause) {
+            addWarn("Unknown wait strategy [" + waitStrategy + "]. Using " + this.waitStrategy + ".");
+        }
+    }
+
+    /**
+     * <p>
+     * Sets the output stream: {@code System.out} or {@code System.err}. Defaults to {@code System.out}.
+     * </p>
+     * <p>
+     * This method is called by Joran for the xml tag {@code <target>} in the logback.xml configuration file.
+     * </p>
+     *
+     * @param target
+     *         the name of the output stream
+     */
+    public void setTarget(String target) {
+        if (SYSTEM_OUT.equalsIgnoreCase(target) || SYSTEM_ERR.equalsIgnoreCase(target)) {
+            this.target = target;
+        } else {
+            addWarn("Unknown target [" + target + "]. Using " + this.target + ".");
+        }
+    }
+
+    /**
+     * <p>
+     * Determines, whether the caller data is extracted by the logging thread. This is expensive and disabled by
+     * default.
+     * </p>
+     * <p>
+     * This method is called by Joran for the xml tag {@code <includeCallerData>} in the logback.xml configuration
+     * file.
+     * </p>
+     *
+     * @param includeCallerData
+     *         whether to extract the caller data
+     */
+    public void setIncludeCallerData(boolean includeCallerData) {
+        this.includeCallerData = includeCallerData;
+    }
+
+    /**
+     * <p>
+     * Determines, whether events are dropped instead of waiting for a free slot, if the buffer is full. Defaults to
+     * {@code false}.
+     * </p>
+     * <p>
+     * This method is called by Joran for the xml tag {@code <neverBlock>} in the logback.xml configuration file.
+     * </p>
+     *
+     * @param neverBlock
+     *         whether to drop events on a full buffer
+     */
+    public void setNeverBlock(boolean neverBlock) {
+        this.neverBlock = neverBlock;
+    }
+
+    /**
+     * @return the number of events, that were dropped because of a full buffer or a stopped appender
+     */
+    public long getDroppedEventCount() {
+        return droppedEvents.sum();
+    }
+
+    // for testing
+    void setOutputStream(OutputStream outputStream) {
+        this.outputStream = outputStream;
+    }
+
+    @Override
+    public void start() {
+        if (isStarted()) {
+            return;
+        }
+        if (encoder == null) {
+            addError("No encoder set for the appender named [" + getName() + "].");
+            return;
+        }
+        if (batchSize <= 0) {
+            addError("Batch size must be positive but was " + batchSize + ".");
+            return;
+        }
+        if (bufferSize <= 0 || bufferSize > 1 << 30) {
+            addError("Buffer size must be positive and at most 2^30 but was " + bufferSize + ".");
+            return;
+        }
+        OutputStream out = outputStream != null ? outputStream : getTargetStream();
+        if (!write(out, encoder.headerBytes())) {
+            return;
+        }
+        buffer = new MpscRingBuffer<>(ceilingPowerOfTwo(bufferSize));
+        running = true;
+        worker = new Worker(out);
+        worker.setDaemon(true);
+        worker.setName("RingBufferAsyncAppender-Worker-" + getName());
+        worker.start();
+        super.start();
+    }
+
+    private static int ceilingPowerOfTwo(int value) {
+        return value == 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+
+    private OutputStream getTargetStream() {
+        return SYSTEM_ERR.equalsIgnoreCase(target) ? System.err : System.out;
+    }
+
+    @Override
+    public void stop() {
+        if (!isStarted()) {
+            return;
+        }
+        super.stop();
+        running = false;
+        LockSupport.unpark(worker);
+        long deadline = System.currentTimeMillis() + maxFlushTime;
+        try {
+            worker.join(maxFlushTime);
+            if (worker.isAlive()) {
+                addWarn("Max flush time of " + maxFlushTime + " ms exceeded. Remaining events may be lost.");
+                return;
+            }
+            awaitPendingAppends(deadline);
+            // the worker has ended, events offered while it stopped are written by this thread
+            worker.drainRemaining();
+            if (pendingAppends.sum() > 0) {
+                addWarn("Max flush time of " + maxFlushTime + " ms exceeded. Remaining events may be lost.");
+            }
+            write(worker.out, encoder.footerBytes());
+        } catch (InterruptedException cause) {
+            Thread.currentThread().interrupt();
+            addError("Interrupted while waiting for the worker to write the remaining events.", cause);
+        }
+    }
+
+    private void awaitPendingAppends(long deadline) {
+        for (int attempt = 0; pendingAppends.sum() > 0 && System.currentTimeMillis() < deadline;
+             attempt = nextAttempt(attempt)) {
+            WaitStrategy.PARK.idle(attempt);
+        }
+    }
+
+    @Override
+    protected void append(ILoggingEvent logged) {
+        pendingAppends.increment();
+        try {
+            if (!running) {
+                // the appender was stopped after the check in doAppend
+                droppedEvents.increment();
+                return;
+            }
+            offer(takeSnapshot(logged));
+        } finally {
+            pendingAppends.decrement();
+        }
+    }
+
+    private void offer(ILoggingEvent event) {
+        if (buffer.offer(event)) {
+            return;
+        }
+        if (neverBlock) {
+            droppedEvents.increment();
+            return;
+        }
+        for (int attempt = 0; !buffer.offer(event); attempt = nextAttempt(attempt)) {
+            if (!running) {
+                droppedEvents.increment();
+                return;
+            }
+            // spinning producers could starve the worker, that frees the slots
+            WaitStrategy.PARK.idle(attempt);
+        }
+    }
+
+    private ILoggingEvent takeSnapshot(ILoggingEvent logged) {
+        ILoggingEvent event = ScopedFieldsEvent.attach(logged);
+        event.prepareForDeferredProcessing();
+        if (includeCallerData) {
+            event.getCallerData();
+        }
+        Object[] arguments = event.getArgumentArray();
+        if (arguments != null) {
+            for (Object argument: arguments) {
+                if (argument instanceof RequestRecord) {
+                    // finishing the record stops its timer now instead of on the worker thread
+                    ((RequestRecord) argument).writeFields(IGNORED_FIELDS);
+                }
+            }
+        }
+        return event;
+    }
+
+    private static int nextAttempt(int attempt) {
+        return attempt < Integer.MAX_VALUE ? attempt + 1 : attempt;
+    }
+
+    private boolean write(OutputStream out, byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return true;
+        }
+        try {
+            out.write(bytes);
+            out.flush();
+            return true;
+        } catch (IOException cause) {
+            addError("IO failure in appender", cause);
+            return false;
+        }
+    }
+
+    private class Worker extends Thread {
+
+        private final OutputStream out;
+        private final ReusableByteArrayOutputStream batch =
+                new ReusableByteArrayOutputStream(INITIAL_BATCH_CAPACITY, MAX_RETAINED_BATCH_CAPACITY);
+        private final Consumer<ILoggingEvent> encodeIntoBatch = this::encode;
+
+        private Worker(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void run() {
+            int attempt = 0;
+            while (running) {
+                if (buffer.drain(encodeIntoBatch, batchSize) > 0) {
+                    writeBatch();
+                    attempt = 0;
+                } else {
+                    waitStrategy.idle(attempt);
+                    attempt = nextAttempt(attempt);
+                }
+            }
+            drainRemaining();
+        }
+
+        private void drainRemaining() {
+            while (buffer.drain(encodeIntoBatch, batchSize) > 0) {
+                writeBatch();
+            }
+        }
+
+        private void encode(ILoggingEvent event) {
+            try {
+                byte[] bytes = encoder.encode(event);
+                if (bytes != null) {
+                    batch.write(bytes, 0, bytes.length);
+                }
+            } catch (RuntimeException cause) {
+                // keep the worker alive for the remaining events
+                addError("Cannot encode event.", cause);
+            }
+        }
+
+        private void writeBatch() {
+            try {
+                out.write(batch.getBuffer(), 0, batch.size());
+                out.flush();
+            } catch (IOException cause) {
+                addError("IO failure in appender", cause);
+            } finally {
+                batch.reset();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,29 @@
+package com.sap.hcp.cf.logback.appender;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import com.sap.hcp.cf.logging.common.LogContext;
+
+/**
+ * Logback's {@link AsyncAppender}, that keeps the context fields bound to a scope by the {@link LogContext}. The
+ * standard {@code AsyncAppender} copies only the MDC into the event. With the scoped backend of the {@link LogContext}
+ * the request fields, e.g. the correlation id, are therefore missing in all events written by its worker thread. This
+ * appender adds the scoped fields to the event on the logging thread and is configured the same way:<blockquote>
+ *
+ * <pre>
+ * &lt;appender name="ASYNC" class="com.sap.hcp.cf.logback.appender.ScopedContextAsyncAppender"&gt;
+ *    &lt;appender-ref ref="STDOUT-JSON" /&gt;
+ * &lt;/appender&gt;
+ * </pre>
+ *
+ * </blockquote>
+ * <p>
+ * The {@link RingBufferAsyncAppender} keeps the scoped fields as well.
+ */
+public class ScopedContextAsyncAppender extends AsyncAppender {
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        super.append(ScopedFieldsEvent.attach(event));
+    }
+}
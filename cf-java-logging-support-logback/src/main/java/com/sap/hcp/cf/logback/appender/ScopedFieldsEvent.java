@@ -0,0 +1,158 @@
+package com.sap.hcp.cf.logback.appender;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.LoggerContextVO;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import com.sap.hcp.cf.logging.common.LogContext;
+import com.sap.hcp.cf.logging.common.context.ContextFields;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+import org.slf4j.event.KeyValuePair;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An event, that carries the context fields bound to a scope by the {@link LogContext} in its MDC property map. The
+ * encoders read scoped fields from the logging thread. Asynchronous appenders encode on a worker thread without scope,
+ * so they attach the fields with {@link #attach(ILoggingEvent)} before handing the event over.
+ */
+final class ScopedFieldsEvent implements ILoggingEvent {
+
+    private final ILoggingEvent event;
+    private final Map<String, String> mdcPropertyMap;
+
+    private ScopedFieldsEvent(ILoggingEvent event, Map<String, String> mdcPropertyMap) {
+        this.event = event;
+        this.mdcPropertyMap = mdcPropertyMap;
+    }
+
+    /**
+     * Adds the scoped fields of the current thread to the MDC property map of the event. If another appender already
+     * fixed that map, the event is wrapped with a copy of the map, that contains the scoped fields.
+     *
+     * @param event
+     *         the event created by the logging thread
+     * @return the event with the scoped fields, the given event, if there are none
+     */
+    static ILoggingEvent attach(ILoggingEvent event) {
+        ContextFields scopedFields = LogContext.getScopedFields();
+        if (scopedFields.isEmpty()) {
+            return event;
+        }
+        if (event instanceof LoggingEvent) {
+            try {
+                ((LoggingEvent) event).setMDCPropertyMap(merge(MDC.getCopyOfContextMap(), scopedFields));
+                return event;
+            } catch (IllegalStateException ignored) {
+                // another appender already copied the MDC into the event
+            }
+        }
+        return new ScopedFieldsEvent(event, merge(event.getMDCPropertyMap(), scopedFields));
+    }
+
+    private static Map<String, String> merge(Map<String, String> contextMap, ContextFields scopedFields) {
+        Map<String, String> merged = contextMap != null ? new HashMap<>(contextMap) : new HashMap<>();
+        scopedFields.forEach(merged::put);
+        return merged;
+    }
+
+    @Override
+    public Map<String, String> getMDCPropertyMap() {
+        return mdcPropertyMap;
+    }
+
+    @Deprecated
+    public Map<String, String> getMdc() {
+        return mdcPropertyMap;
+    }
+
+    @Override
+    public String getThreadName() {
+        return event.getThreadName();
+    }
+
+    @Override
+    public Level getLevel() {
+        return event.getLevel();
+    }
+
+    @Override
+    public String getMessage() {
+        return event.getMessage();
+    }
+
+    @Override
+    public Object[] getArgumentArray() {
+        return event.getArgumentArray();
+    }
+
+    @Override
+    public String getFormattedMessage() {
+        return event.getFormattedMessage();
+    }
+
+    @Override
+    public String getLoggerName() {
+        return event.getLoggerName();
+    }
+
+    @Override
+    public LoggerContextVO getLoggerContextVO() {
+        return event.getLoggerContextVO();
+    }
+
+    @Override
+    public IThrowableProxy getThrowableProxy() {
+        return event.getThrowableProxy();
+    }
+
+    @Override
+    public StackTraceElement[] getCallerData() {
+        return event.getCallerData();
+    }
+
+    @Override
+    public boolean hasCallerData() {
+        return event.hasCallerData();
+    }
+
+    @Override
+    public List<Marker> getMarkerList() {
+        return event.getMarkerList();
+    }
+
+    @Override
+    public long getTimeStamp() {
+        return event.getTimeStamp();
+    }
+
+    @Override
+    public int getNanoseconds() {
+        return event.getNanoseconds();
+    }
+
+    @Override
+    public Instant getInstant() {
+        return event.getInstant();
+    }
+
+    @Override
+    public long getSequenceNumber() {
+        return event.getSequenceNumber();
+    }
+
+    @Override
+    public List<KeyValuePair> getKeyValuePairs() {
+        return event.getKeyValuePairs();
+    }
+
+    @Override
+    public void prepareForDeferredProcessing() {
+        event.prepareForDeferredProcessing();
+    }
+}
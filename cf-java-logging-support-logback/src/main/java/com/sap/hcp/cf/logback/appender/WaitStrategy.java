@@ -0,0 +1,65 @@
+package com.sap.hcp.cf.logback.appender;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Determines how the worker thread of the {@link RingBufferAsyncAppender} waits for new events. The strategies trade
+ * latency for CPU usage.
+ */
+public enum WaitStrategy {
+
+    /**
+     * Busy spins. Provides the lowest latency, but occupies a CPU core while waiting.
+     */
+    SPIN {
+        @Override
+        void idle(int attempt) {
+            Thread.onSpinWait();
+        }
+    },
+
+    /**
+     * Spins briefly and then yields the CPU to other threads.
+     */
+    YIELD {
+        @Override
+        void idle(int attempt) {
+            if (attempt < SPIN_ATTEMPTS) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+    },
+
+    /**
+     * Spins and yields briefly and then parks the thread for a short time. This is the default, that keeps the CPU
+     * usage of an idle appender low.
+     */
+    PARK {
+        @Override
+        void idle(int attempt) {
+            if (attempt < SPIN_ATTEMPTS) {
+                Thread.onSpinWait();
+            } else if (attempt < SPIN_ATTEMPTS + YIELD_ATTEMPTS) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+        }
+    };
+
+    private static final int SPIN_ATTEMPTS = 100;
+    private static final int YIELD_ATTEMPTS = 100;
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    /**
+     * Waits once.
+     *
+     * @param attempt
+     *         the number of unsuccessful attempts since the thread last made progress, starting at 0
+     */
+    abstract void idle(int attempt);
+
+}
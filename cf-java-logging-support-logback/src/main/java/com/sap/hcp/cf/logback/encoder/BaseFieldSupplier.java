@@ -5,14 +5,13 @@ import ch.qos.logback.classic.spi.ThrowableProxy;
 import com.sap.hcp.cf.logback.converter.api.LogbackContextFieldSupplier;
 import com.sap.hcp.cf.logging.common.Defaults;
 import com.sap.hcp.cf.logging.common.Fields;
-
-import java.time.Instant;
-import java.util.HashMap;
-import java.util.Map;
+import com.sap.hcp.cf.logging.common.serialization.EventContextFieldWriter;
+import com.sap.hcp.cf.logging.common.serialization.FieldSink;
+import com.sap.hcp.cf.logging.common.serialization.FormattedTimestamp;
 
 import static com.sap.hcp.cf.logback.encoder.ILoggingEventUtilities.isRequestLog;
 
-public class BaseFieldSupplier implements LogbackContextFieldSupplier {
+public class BaseFieldSupplier implements LogbackContextFieldSupplier, EventContextFieldWriter<ILoggingEvent> {
 
     @Override
     public int order() {
@@ -20,10 +19,9 @@ public class BaseFieldSupplier implements LogbackContextFieldSupplier {
     }
 
     @Override
-    public Map<String, Object> map(ILoggingEvent event) {
-        Map<String, Object> fields = new HashMap<>(6);
-        fields.put(Fields.WRITTEN_AT, Instant.ofEpochMilli(event.getTimeStamp()).toString());
-        fields.put(Fields.WRITTEN_TS, now());
+    public void writeFields(ILoggingEvent event, FieldSink fields) {
+        fields.put(Fields.WRITTEN_AT, FormattedTimestamp.iso(event.getTimeStamp()));
+        fields.put(Fields.WRITTEN_TS, getNanoTs(event));
         fields.put(Fields.TYPE, isRequestLog(event) ? Defaults.TYPE_REQUEST : Defaults.TYPE_LOG);
         fields.put(Fields.LEVEL, String.valueOf(event.getLevel()));
         fields.put(Fields.LOGGER, event.getLoggerName());
@@ -38,17 +36,20 @@ public class BaseFieldSupplier implements LogbackContextFieldSupplier {
                 fields.put(Fields.EXCEPTION_MESSAGE, throwable.getMessage());
             }
         }
-        return fields;
     }
 
     private static boolean isNotBlank(String string) {
         return string != null && !string.isBlank();
     }
 
-    private String now() {
-        Instant now = Instant.now();
-        long timestamp = now.getEpochSecond() * 1_000_000_000L + now.getNano();
-        return String.valueOf(timestamp);
+    private static FormattedTimestamp getNanoTs(ILoggingEvent event) {
+        long epochMillis = event.getTimeStamp();
+        int nanos = event.getNanoseconds();
+        if (nanos < 0) {
+            // event without nanosecond precision
+            nanos = (int) Math.floorMod(epochMillis, 1000) * 1_000_000;
+        }
+        return FormattedTimestamp.nanos(Math.floorDiv(epochMillis, 1000), nanos);
     }
 
 }
@@ -2,7 +2,9 @@ package com.sap.hcp.cf.logback.encoder;
 
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import com.sap.hcp.cf.logback.converter.api.LogbackContextFieldSupplier;
+import com.sap.hcp.cf.logging.common.LogContext;
 import com.sap.hcp.cf.logging.common.serialization.AbstractContextFieldSupplier;
+import com.sap.hcp.cf.logging.common.serialization.FieldSink;
 
 import java.util.Map;
 
@@ -19,6 +21,12 @@ public class EventContextFieldSupplier extends AbstractContextFieldSupplier<ILog
         return event.getArgumentArray();
     }
 
+    @Override
+    protected void writeContextFields(ILoggingEvent event, FieldSink sink) {
+        super.writeContextFields(event, sink);
+        LogContext.getScopedFields().forEach(sink::put);
+    }
+
     @Override
     protected Map<? extends String, ? extends Object> getContextMap(ILoggingEvent event) {
         return event.getMDCPropertyMap();
@@ -17,7 +17,12 @@ public final class ILoggingEventUtilities {
         if (markerList == null || markerList.isEmpty()) {
             return false;
         }
-        return markerList.stream().anyMatch(Markers.REQUEST_MARKER::equals);
+        for (int i = 0; i < markerList.size(); i++) {
+            if (Markers.REQUEST_MARKER.equals(markerList.get(i))) {
+                return true;
+            }
+        }
+        return false;
     }
 
     public static Map<?, ?> getMap(ILoggingEvent event) {
@@ -5,26 +5,27 @@ import ch.qos.logback.classic.spi.IThrowableProxy;
 import ch.qos.logback.classic.spi.ThrowableProxy;
 import ch.qos.logback.core.encoder.Encoder;
 import ch.qos.logback.core.encoder.EncoderBase;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.jr.ob.JSON;
 import com.fasterxml.jackson.jr.ob.JSON.Builder;
-import com.fasterxml.jackson.jr.ob.JSONComposer;
-import com.fasterxml.jackson.jr.ob.comp.ArrayComposer;
-import com.fasterxml.jackson.jr.ob.comp.ComposerBase;
-import com.fasterxml.jackson.jr.ob.comp.ObjectComposer;
 import com.sap.hcp.cf.logback.converter.api.LogbackContextFieldSupplier;
 import com.sap.hcp.cf.logging.common.Fields;
-import com.sap.hcp.cf.logging.common.converter.LineWriter;
-import com.sap.hcp.cf.logging.common.converter.StacktraceLines;
+import com.sap.hcp.cf.logging.common.converter.StacktraceCache;
+import com.sap.hcp.cf.logging.common.converter.StacktraceRenderer;
+import com.sap.hcp.cf.logging.common.converter.StacktraceThrottle;
+import com.sap.hcp.cf.logging.common.converter.ThrowableFingerprint;
+import com.sap.hcp.cf.logging.common.serialization.ContextFieldBuffer;
 import com.sap.hcp.cf.logging.common.serialization.ContextFieldConverter;
 import com.sap.hcp.cf.logging.common.serialization.ContextFieldSupplier;
+import com.sap.hcp.cf.logging.common.serialization.EventContextFieldWriter;
 import com.sap.hcp.cf.logging.common.serialization.JsonSerializationException;
+import com.sap.hcp.cf.logging.common.serialization.ReusableByteArrayOutputStream;
+import com.sap.hcp.cf.logging.common.serialization.ReusableJsonGenerator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.Marker;
 
 import java.io.IOException;
-import java.io.OutputStream;
-import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.lang.reflect.InvocationTargetException;
 import java.nio.charset.Charset;
@@ -51,6 +52,7 @@ import static com.sap.hcp.cf.logging.common.serialization.ContextFieldSupplierSe
 public class JsonEncoder extends EncoderBase<ILoggingEvent> {
 
     private static final String NEWLINE = "\n";
+    private static final byte NEWLINE_BYTE = '\n';
     private Charset charset = StandardCharsets.UTF_8;
     private final List<String> customFieldMdcKeyNames = new ArrayList<>();
     private final List<String> retainFieldMdcKeyNames = new ArrayList<>();
@@ -58,7 +60,18 @@ public class JsonEncoder extends EncoderBase<ILoggingEvent> {
     private List<LogbackContextFieldSupplier> logbackContextFieldSuppliers = new ArrayList<>();
     private List<ContextFieldSupplier> contextFieldSuppliers = new ArrayList<>();
     private int maxStacktraceSize = 55 * 1024;
+    private StacktraceRenderer stacktraceRenderer;
+    private int stacktraceCacheSize = 0;
+    private StacktraceCache stacktraceCache;
+    private int maxStacktracesPerWindow = 0;
+    private long stacktraceWindowMillis = 60 * 1000;
+    private StacktraceThrottle stacktraceThrottle;
     private JSON.Builder jsonBuilder = JSON.builder();
+    private boolean directEncoding = false;
+    private boolean encodeDirectly;
+    private final ThreadLocal<ReusableJsonGenerator> generators = new ThreadLocal<>();
+    private final ThreadLocal<ContextFieldBuffer> contextFieldBuffers = ThreadLocal.withInitial(ContextFieldBuffer::new);
+    private List<EventContextFieldWriter<ILoggingEvent>> contextFieldWriters = new ArrayList<>();
     private JSON json;
     private ContextFieldConverter contextFieldConverter;
 
@@ -141,6 +154,85 @@ public class JsonEncoder extends EncoderBase<ILoggingEvent> {
         this.maxStacktraceSize = maxStacktraceSize;
     }
 
+    /**
+     * <p>
+     * Cache the rendered stacktraces of up to this number of distinct exceptions. Exceptions are considered equal, when
+     * they have the same class, message and stack frames including all causes and suppressed exceptions. Repeatedly
+     * logged exceptions are then written from the cache without rendering and escaping their stacktrace again. The
+     * default value 0 disables the cache.
+     * </p>
+     * <p>
+     * This method is called by Joran for the xml tag {@code <stacktraceCacheSize>} in the logback.xml configuration
+     * file.
+     * </p>
+     *
+     * @param stacktraceCacheSize
+     *         the maximum number of cached stacktraces
+     */
+    public void setStacktraceCacheSize(int stacktraceCacheSize) {
+        this.stacktraceCacheSize = stacktraceCacheSize;
+    }
+
+    /**
+     * @return the number of stacktraces written from the stacktrace cache, 0 if the cache is disabled
+     */
+    public long getStacktraceCacheHitCount() {
+        return stacktraceCache != null ? stacktraceCache.getHitCount() : 0;
+    }
+
+    /**
+     * @return the number of stacktraces, that were rendered into the stacktrace cache, 0 if the cache is disabled
+     */
+    public long getStacktraceCacheMissCount() {
+        return stacktraceCache != null ? stacktraceCache.getMissCount() : 0;
+    }
+
+    /**
+     * <p>
+     * Enables the exception storm mode. Only the first occurrences of an exception within a time window get the full
+     * stacktrace. Exceptions are considered equal, when they have the same classes and stack frames including all
+     * causes and suppressed exceptions. The messages are ignored, so that exceptions with varying messages are
+     * throttled as well. All log messages with an exception get the additional fields
+     * "stacktrace_ref" with a fingerprint of the exception and "stacktrace_occurrences" with the number of occurrences
+     * within the current window. The fingerprint allows to find the full stacktrace. The default value 0 disables the
+     * exception storm mode.
+     * </p>
+     * <p>
+     * This method is called by Joran for the xml tag {@code <maxStacktracesPerWindow>} in the logback.xml
+     * configuration file.
+     * </p>
+     *
+     * @param maxStacktracesPerWindow
+     *         the number of occurrences of an exception per window, that get the full stacktrace
+     */
+    public void setMaxStacktracesPerWindow(int maxStacktracesPerWindow) {
+        this.maxStacktracesPerWindow = maxStacktracesPerWindow;
+    }
+
+    /**
+     * <p>
+     * The length of the time window of the exception storm mode in milliseconds. See
+     * {@link #setMaxStacktracesPerWindow(int)}. The default value is 60000.
+     * </p>
+     * <p>
+     * This method is called by Joran for the xml tag {@code <stacktraceWindowMillis>} in the logback.xml configuration
+     * file.
+     * </p>
+     *
+     * @param stacktraceWindowMillis
+     *         the length of the time window in milliseconds
+     */
+    public void setStacktraceWindowMillis(long stacktraceWindowMillis) {
+        this.stacktraceWindowMillis = stacktraceWindowMillis;
+    }
+
+    /**
+     * @return the number of log messages, for which the stacktrace was omitted by the exception storm mode
+     */
+    public long getOmittedStacktraceCount() {
+        return stacktraceThrottle != null ? stacktraceThrottle.getOmittedCount() : 0;
+    }
+
     /**
      * <p>
      * Send default values. Fields with empty or default values, e.g. "-" for strings will not be added to the log
@@ -179,6 +271,24 @@ public class JsonEncoder extends EncoderBase<ILoggingEvent> {
         }
     }
 
+    /**
+     * <p>
+     * Serialize the log events directly into a reusable per-thread UTF-8 byte buffer. This avoids the intermediate
+     * String and its subsequent encoding into bytes for every log event. The JSON is generated with the stream factory
+     * of the configured JSON builder (see {@link #setJsonBuilder(String)}). Direct encoding is only applied, when the
+     * charset is UTF-8 (see {@link #setCharset(String)}). Defaults to false.
+     * </p>
+     * <p>
+     * This method is called by Joran for the xml tag {@code <directEncoding>} in the logback.xml configuration file.
+     * </p>
+     *
+     * @param directEncoding
+     *         whether to serialize log events directly into bytes
+     */
+    public void setDirectEncoding(boolean directEncoding) {
+        this.directEncoding = directEncoding;
+    }
+
     private <T> T createInstance(String className, Class<T> interfaceClass)
             throws InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException,
                    NoSuchMethodException, SecurityException, ClassNotFoundException {
@@ -249,14 +359,42 @@ public class JsonEncoder extends EncoderBase<ILoggingEvent> {
     @Override
     public void start() {
         this.json = new JSON(jsonBuilder);
+        this.encodeDirectly = directEncoding && StandardCharsets.UTF_8.equals(charset);
+        if (directEncoding && !encodeDirectly) {
+            LoggerHolder.LOG.warn(
+                    "Direct encoding requires charset UTF-8 but " + charset + " is used. Falling back to default.");
+        }
         this.contextFieldConverter =
-                new ContextFieldConverter(sendDefaultValues, customFieldMdcKeyNames, retainFieldMdcKeyNames);
+                new ContextFieldConverter(sendDefaultValues, customFieldMdcKeyNames, retainFieldMdcKeyNames,
+                                          json.getStreamingFactory());
         this.contextFieldSuppliers = addFieldSuppliers(contextFieldSuppliers.stream(), ContextFieldSupplier.class);
         this.logbackContextFieldSuppliers =
                 addFieldSuppliers(logbackContextFieldSuppliers.stream(), LogbackContextFieldSupplier.class);
+        this.contextFieldWriters = createContextFieldWriters();
+        this.stacktraceRenderer = new StacktraceRenderer(maxStacktraceSize);
+        this.stacktraceCache = stacktraceCacheSize > 0 ? new StacktraceCache(stacktraceCacheSize, stacktraceRenderer,
+                                                                             json.getStreamingFactory()) : null;
+        this.stacktraceThrottle = maxStacktracesPerWindow > 0 ? new StacktraceThrottle(maxStacktracesPerWindow,
+                                                                                       stacktraceWindowMillis) : null;
         super.start();
     }
 
+    private List<EventContextFieldWriter<ILoggingEvent>> createContextFieldWriters() {
+        List<EventContextFieldWriter<ILoggingEvent>> writers =
+                new ArrayList<>(contextFieldSuppliers.size() + logbackContextFieldSuppliers.size());
+        for (ContextFieldSupplier supplier: contextFieldSuppliers) {
+            if (supplier.isStatic()) {
+                writers.add(contextFieldConverter.preSerialize(supplier, json.getStreamingFactory()));
+            } else {
+                writers.add(EventContextFieldWriter.adaptContextFieldSupplier(supplier));
+            }
+        }
+        for (LogbackContextFieldSupplier supplier: logbackContextFieldSuppliers) {
+            writers.add(EventContextFieldWriter.adapt(supplier));
+        }
+        return writers;
+    }
+
     @Override
     public byte[] headerBytes() {
         return null;
@@ -269,18 +407,17 @@ public class JsonEncoder extends EncoderBase<ILoggingEvent> {
 
     @Override
     public byte[] encode(ILoggingEvent event) {
+        if (encodeDirectly) {
+            return getJsonBytes(event);
+        }
         return getJson(event).getBytes(charset);
     }
 
     private String getJson(ILoggingEvent event) {
         try (StringWriter writer = new StringWriter()) {
-            ObjectComposer<JSONComposer<OutputStream>> oc = json.composeTo(writer).startObject();
-            addMarkers(oc, event);
-            Map<String, Object> contextFields = collectContextFields(event);
-            contextFieldConverter.addContextFields(oc, contextFields);
-            contextFieldConverter.addCustomFields(oc, contextFields);
-            addStacktrace(oc, event);
-            oc.end().finish();
+            try (JsonGenerator generator = createGenerator(writer)) {
+                addEvent(generator, event);
+            }
             return writer.append(NEWLINE).toString();
         } catch (IOException | JsonSerializationException ex) {
             // Fallback to emit just the message
@@ -289,62 +426,110 @@ public class JsonEncoder extends EncoderBase<ILoggingEvent> {
         }
     }
 
-    private <P extends ComposerBase> void addMarkers(ObjectComposer<P> oc, ILoggingEvent event) throws IOException {
-        if (sendDefaultValues || (event.getMarkerList() != null && !event.getMarkerList().isEmpty())) {
-            ArrayComposer<ObjectComposer<P>> ac = oc.startArrayField(Fields.CATEGORIES);
-            if (event.getMarkerList() != null) {
-                for (Marker marker: event.getMarkerList()) {
-                    addMarker(ac, marker);
+    private JsonGenerator createGenerator(StringWriter writer) throws IOException {
+        JsonGenerator generator = json.getStreamingFactory().createGenerator(writer);
+        if (json.isEnabled(JSON.Feature.PRETTY_PRINT_OUTPUT)) {
+            generator.useDefaultPrettyPrinter();
+        }
+        return generator;
+    }
+
+    private byte[] getJsonBytes(ILoggingEvent event) {
+        try {
+            ReusableJsonGenerator reusableGenerator = getReusableGenerator();
+            addEvent(reusableGenerator.start(), event);
+            ReusableByteArrayOutputStream buffer = reusableGenerator.finish();
+            buffer.write(NEWLINE_BYTE);
+            return buffer.toByteArray();
+        } catch (IOException | JsonSerializationException ex) {
+            // the generator might be left within an unfinished object
+            generators.remove();
+            // Fallback to emit just the message
+            LoggerHolder.LOG.error("Conversion failed ", ex);
+            return (event.getFormattedMessage() + NEWLINE).getBytes(charset);
+        }
+    }
+
+    private ReusableJsonGenerator getReusableGenerator() throws IOException {
+        ReusableJsonGenerator generator = generators.get();
+        if (generator == null) {
+            generator = new ReusableJsonGenerator(json.getStreamingFactory(),
+                                                  json.isEnabled(JSON.Feature.PRETTY_PRINT_OUTPUT));
+            generators.set(generator);
+        }
+        return generator;
+    }
+
+    private void addEvent(JsonGenerator generator, ILoggingEvent event) throws IOException {
+        generator.writeStartObject();
+        addMarkers(generator, event);
+        ContextFieldBuffer contextFields = collectContextFields(event);
+        try {
+            contextFieldConverter.addContextFields(generator, contextFields);
+            contextFieldConverter.addCustomFields(generator, contextFields);
+        } finally {
+            contextFields.clear();
+        }
+        addStacktrace(generator, event);
+        generator.writeEndObject();
+    }
+
+    private void addMarkers(JsonGenerator generator, ILoggingEvent event) throws IOException {
+        List<Marker> markers = event.getMarkerList();
+        if (sendDefaultValues || (markers != null && !markers.isEmpty())) {
+            generator.writeArrayFieldStart(Fields.CATEGORIES);
+            if (markers != null) {
+                for (Marker marker: markers) {
+                    addMarker(generator, marker);
                 }
             }
-            ac.end();
+            generator.writeEndArray();
         }
     }
 
-    private <P extends ComposerBase> void addMarker(ArrayComposer<P> ac, Marker parent) throws IOException {
+    private void addMarker(JsonGenerator generator, Marker parent) throws IOException {
         if (parent == null) {
             return;
         }
         if (parent.hasReferences()) {
             Iterator<Marker> current = parent.iterator();
             while (current.hasNext()) {
-                addMarker(ac, current.next());
+                addMarker(generator, current.next());
             }
         }
-        ac.add(parent.getName());
+        generator.writeString(parent.getName());
     }
 
-    private Map<String, Object> collectContextFields(ILoggingEvent event) {
-        Map<String, Object> contextFields = new HashMap<>();
-        contextFieldSuppliers.forEach(s -> contextFields.putAll(s.get()));
-        logbackContextFieldSuppliers.forEach(s -> contextFields.putAll(s.map(event)));
+    private ContextFieldBuffer collectContextFields(ILoggingEvent event) {
+        ContextFieldBuffer contextFields = contextFieldBuffers.get();
+        contextFields.clear();
+        for (EventContextFieldWriter<ILoggingEvent> writer: contextFieldWriters) {
+            writer.writeFields(event, contextFields);
+        }
         return contextFields;
     }
 
-    private <P extends ComposerBase> void addStacktrace(ObjectComposer<P> oc, ILoggingEvent event) throws IOException {
+    private void addStacktrace(JsonGenerator generator, ILoggingEvent event) throws IOException {
         IThrowableProxy proxy = event.getThrowableProxy();
         if (proxy != null && ThrowableProxy.class.isAssignableFrom(proxy.getClass())) {
             Throwable throwable = ((ThrowableProxy) proxy).getThrowable();
-            LineWriter lw = new LineWriter();
-            throwable.printStackTrace(new PrintWriter(lw));
-            List<String> lines = lw.getLines();
-            StacktraceLines stacktraceLines = new StacktraceLines(lines);
-            ArrayComposer<ObjectComposer<P>> ac = oc.startArrayField(Fields.STACKTRACE);
-            if (stacktraceLines.getTotalLineLength() <= maxStacktraceSize) {
-                for (String line: stacktraceLines.getLines()) {
-                    ac.add(line);
-                }
-            } else {
-                ac.add("-------- STACK TRACE TRUNCATED --------");
-                for (String line: stacktraceLines.getFirstLines(maxStacktraceSize / 3)) {
-                    ac.add(line);
-                }
-                ac.add("-------- OMITTED --------");
-                for (String line: stacktraceLines.getLastLines((maxStacktraceSize / 3) * 2)) {
-                    ac.add(line);
+            if (stacktraceThrottle != null) {
+                ThrowableFingerprint fingerprint = ThrowableFingerprint.withoutMessages(throwable);
+                int occurrences = stacktraceThrottle.recordOccurrence(fingerprint, event.getTimeStamp());
+                generator.writeStringField(Fields.STACKTRACE_REF, fingerprint.getReference());
+                generator.writeNumberField(Fields.STACKTRACE_OCCURRENCES, occurrences);
+                if (!stacktraceThrottle.isStacktraceRequired(occurrences)) {
+                    return;
                 }
             }
-            ac.end();
+            if (stacktraceCache != null) {
+                generator.writeFieldName(Fields.STACKTRACE);
+                generator.writeRawValue(stacktraceCache.getStacktrace(throwable));
+                return;
+            }
+            generator.writeArrayFieldStart(Fields.STACKTRACE);
+            stacktraceRenderer.render(throwable, generator::writeString);
+            generator.writeEndArray();
         }
     }
 
@@ -2,23 +2,27 @@ package com.sap.hcp.cf.logback.encoder;
 
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import com.sap.hcp.cf.logback.converter.api.LogbackContextFieldSupplier;
+import com.sap.hcp.cf.logging.common.serialization.EventContextFieldWriter;
+import com.sap.hcp.cf.logging.common.serialization.FieldSink;
+import org.slf4j.event.KeyValuePair;
 
-import java.util.Collections;
-import java.util.Map;
+import java.util.List;
 
-import static java.util.stream.Collectors.toMap;
-
-public class KeyValuePairsFieldSupplier implements LogbackContextFieldSupplier {
+public class KeyValuePairsFieldSupplier implements LogbackContextFieldSupplier, EventContextFieldWriter<ILoggingEvent> {
     @Override
     public int order() {
         return LogbackContextFieldSupplier.CONTEXT_FIELDS + 1;
     }
 
     @Override
-    public Map<String, Object> map(ILoggingEvent event) {
+    public void writeFields(ILoggingEvent event, FieldSink sink) {
         if (event == null || event.getKeyValuePairs() == null) {
-            return Collections.emptyMap();
+            return;
+        }
+        List<KeyValuePair> keyValuePairs = event.getKeyValuePairs();
+        for (int i = 0; i < keyValuePairs.size(); i++) {
+            KeyValuePair pair = keyValuePairs.get(i);
+            sink.put(pair.key, pair.value);
         }
-        return event.getKeyValuePairs().stream().collect(toMap(p -> p.key, p -> p.value));
     }
 }
@@ -0,0 +1,136 @@
+package com.sap.hcp.cf.logback.filter;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import com.sap.hcp.cf.logging.common.LogContext;
+import com.sap.hcp.cf.logging.common.sampling.DuplicateSuppressor;
+import com.sap.hcp.cf.logging.common.sampling.DuplicateSuppressor.Repeats;
+import org.slf4j.Marker;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A turbo filter, that suppresses bursts of identical log events. Events are identical, if they share the logger, the
+ * level and the message template. Repetitions within the time window are denied before the message is formatted.
+ * When the window closes, one summary event is written, that carries the message and context fields of the first
+ * repetition together with the fields {@code repeat_count}, {@code first_repeat_at} and {@code last_repeat_at}. The
+ * filter can be configured in the logback.xml:<blockquote>
+ *
+ * <pre>
+ * &lt;turboFilter class="com.sap.hcp.cf.logback.filter.DuplicateSuppressionTurboFilter"&gt;
+ *    &lt;windowMillis&gt;1000&lt;/windowMillis&gt;
+ * &lt;/turboFilter&gt;
+ * </pre>
+ *
+ * </blockquote>
+ * <p>
+ * The summary is written directly to the appenders of the logger. It is not subject to the turbo filters. While the
+ * filter is started, closed bursts are summarized once per window, even if no further events are logged. Pending
+ * repetitions are summarized, when the filter is stopped. The filter registers with the life cycle of its logger
+ * context, so that this happens at the beginning of a reset or stop of the context, before the appenders are detached.
+ */
+public class DuplicateSuppressionTurboFilter extends TurboFilter {
+
+    private long windowMillis = DuplicateSuppressor.DEFAULT_WINDOW_MILLIS;
+    private DuplicateSuppressor<SuppressedEvent> suppressor;
+
+    /**
+     * <p>
+     * Sets the length of the time window in milliseconds, in which repetitions are suppressed. Defaults to 1000 ms.
+     * </p>
+     * <p>
+     * This method is called by Joran for the xml tag {@code <windowMillis>} in the logback.xml configuration file.
+     * </p>
+     *
+     * @param windowMillis
+     *         the length of the time window
+     */
+    public void setWindowMillis(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+    @Override
+    public void start() {
+        try {
+            suppressor = new DuplicateSuppressor<>(windowMillis, this::writeSummary);
+        } catch (IllegalArgumentException cause) {
+            addError("Cannot create duplicate suppression.", cause);
+            return;
+        }
+        suppressor.start();
+        if (getContext() != null) {
+            getContext().register(this);
+        }
+        super.start();
+    }
+
+    /**
+     * Stops the filter and summarizes all pending repetitions. The logger context calls this method twice on a reset:
+     * first for all registered components, while the appenders are still attached, then for all turbo filters.
+     */
+    @Override
+    public void stop() {
+        if (!isStarted()) {
+            return;
+        }
+        suppressor.stop();
+        suppressor.flush();
+        super.stop();
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params,
+                              Throwable t) {
+        if (!isStarted() || format == null || !level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            return FilterReply.NEUTRAL;
+        }
+        Repeats<SuppressedEvent> repeats = suppressor.suppress(logger.getName(), level.toString(), format);
+        if (repeats == null) {
+            return FilterReply.NEUTRAL;
+        }
+        if (repeats.needsSample()) {
+            repeats.setSample(new SuppressedEvent(marker, logger, level, format, params, t));
+        }
+        return FilterReply.DENY;
+    }
+
+    private void writeSummary(Repeats<SuppressedEvent> repeats) {
+        SuppressedEvent sample = repeats.getSample();
+        LoggingEvent event = new LoggingEvent(Logger.FQCN, sample.logger, sample.level, sample.format, sample.throwable,
+                                              sample.params);
+        Map<String, String> contextFields = sample.contextFields != null ? sample.contextFields : new HashMap<>();
+        repeats.addFields(contextFields);
+        event.setMDCPropertyMap(contextFields);
+        if (sample.marker != null) {
+            event.addMarker(sample.marker);
+        }
+        sample.logger.callAppenders(event);
+    }
+
+    private static class SuppressedEvent {
+
+        private final Marker marker;
+        private final Logger logger;
+        private final Level level;
+        private final String format;
+        private final Object[] params;
+        private final Throwable throwable;
+        private final Map<String, String> contextFields;
+
+        private SuppressedEvent(Marker marker, Logger logger, Level level, String format, Object[] params,
+                                Throwable throwable) {
+            this.marker = marker;
+            this.logger = logger;
+            this.level = level;
+            this.format = format;
+            this.params = params;
+            this.throwable = throwable;
+            this.contextFields = LogContext.getCopyOfContextMap();
+        }
+    }
+
+}
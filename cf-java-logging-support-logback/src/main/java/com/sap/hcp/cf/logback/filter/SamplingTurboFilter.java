@@ -0,0 +1,147 @@
+package com.sap.hcp.cf.logback.filter;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import com.sap.hcp.cf.logging.common.sampling.LogSampler;
+import com.sap.hcp.cf.logging.common.sampling.SamplingBudget;
+import org.slf4j.Marker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * A turbo filter, that limits the number of log events per second for logger prefixes and levels. The budgets are
+ * enforced by lock-free token buckets. Events exceeding their budget are denied before the message is formatted.
+ * Events at or above the bypass level, ERROR by default, are never dropped. The number of dropped events per budget is
+ * logged once per summary interval by the logger {@value #SUMMARY_LOGGER}, even if no further events are logged. The
+ * remaining counts are logged, when the filter is stopped. The filter registers with the life cycle of its logger
+ * context, so that this happens at the beginning of a reset or stop of the context, before the appenders are detached.
+ * The filter can be configured in the logback.xml:
+ * <blockquote>
+ *
+ * <pre>
+ * &lt;turboFilter class="com.sap.hcp.cf.logback.filter.SamplingTurboFilter"&gt;
+ *    &lt;budget&gt;com.example.chatty:DEBUG=100&lt;/budget&gt;
+ *    &lt;budget&gt;com.example=1000/5000&lt;/budget&gt;
+ *    &lt;bypassLevel&gt;ERROR&lt;/bypassLevel&gt;
+ *    &lt;summaryIntervalSeconds&gt;60&lt;/summaryIntervalSeconds&gt;
+ * &lt;/turboFilter&gt;
+ * </pre>
+ *
+ * </blockquote>
+ * <p>
+ * Checks like {@code isDebugEnabled()} do not take a token, the following log statement does.
+ */
+public class SamplingTurboFilter extends TurboFilter {
+
+    public static final String SUMMARY_LOGGER = "com.sap.hcp.cf.logging.sampling";
+
+    private final List<SamplingBudget> budgets = new ArrayList<>();
+    private final BiConsumer<SamplingBudget, Long> droppedReporter = this::reportDropped;
+    private Level bypassLevel = Level.ERROR;
+    private long summaryIntervalSeconds = LogSampler.DEFAULT_SUMMARY_INTERVAL_SECONDS;
+    private LogSampler sampler;
+
+    /**
+     * <p>
+     * Adds a budget in the form {@code prefix[:LEVEL]=eventsPerSecond[/burst]}.
+     * </p>
+     * <p>
+     * This method is called by Joran for each xml tag {@code <budget>} in the logback.xml configuration file.
+     * </p>
+     *
+     * @param budget
+     *         the definition of the budget
+     */
+    public void addBudget(String budget) {
+        try {
+            budgets.add(SamplingBudget.parse(budget));
+        } catch (IllegalArgumentException cause) {
+            addError("Cannot add sampling budget.", cause);
+        }
+    }
+
+    /**
+     * <p>
+     * Sets the level, from which on events are never dropped. Defaults to ERROR. Use OFF to sample all levels.
+     * </p>
+     * <p>
+     * This method is called by Joran for the xml tag {@code <bypassLevel>} in the logback.xml configuration file.
+     * </p>
+     *
+     * @param bypassLevel
+     *         the name of the level
+     */
+    public void setBypassLevel(String bypassLevel) {
+        this.bypassLevel = Level.toLevel(bypassLevel, Level.ERROR);
+    }
+
+    /**
+     * <p>
+     * Sets the minimum time in seconds between two summaries of dropped events. Defaults to 60 seconds.
+     * </p>
+     * <p>
+     * This method is called by Joran for the xml tag {@code <summaryIntervalSeconds>} in the logback.xml
+     * configuration file.
+     * </p>
+     *
+     * @param summaryIntervalSeconds
+     *         the interval of the summaries
+     */
+    public void setSummaryIntervalSeconds(long summaryIntervalSeconds) {
+        this.summaryIntervalSeconds = summaryIntervalSeconds;
+    }
+
+    @Override
+    public void start() {
+        sampler = new LogSampler(budgets, summaryIntervalSeconds);
+        sampler.start(droppedReporter);
+        if (getContext() != null) {
+            getContext().register(this);
+        }
+        super.start();
+    }
+
+    /**
+     * Stops the filter and reports the remaining dropped events. The logger context calls this method twice on a
+     * reset: first for all registered components, while the appenders are still attached, then for all turbo filters.
+     */
+    @Override
+    public void stop() {
+        if (!isStarted()) {
+            return;
+        }
+        sampler.stop();
+        sampler.reportDropped(droppedReporter);
+        super.stop();
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params,
+                              Throwable t) {
+        if (!isStarted() || format == null || !isSampled(logger, level)) {
+            return FilterReply.NEUTRAL;
+        }
+        boolean accepted = sampler.tryAcquire(logger.getName(), level.toString());
+        sampler.reportDroppedIfDue(droppedReporter);
+        return accepted ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    private boolean isSampled(Logger logger, Level level) {
+        return !level.isGreaterOrEqual(bypassLevel) && level.isGreaterOrEqual(logger.getEffectiveLevel()) &&
+               !SUMMARY_LOGGER.equals(logger.getName());
+    }
+
+    private void reportDropped(SamplingBudget budget, long dropped) {
+        if (getContext() instanceof LoggerContext) {
+            Logger summaryLogger = ((LoggerContext) getContext()).getLogger(SUMMARY_LOGGER);
+            summaryLogger.warn("Dropped {} log events exceeding the sampling budget {} within the last {} seconds.",
+                               dropped, budget, sampler.getSummaryIntervalSeconds());
+        }
+    }
+
+}
@@ -0,0 +1,110 @@
+package com.sap.hcp.cf.logback.appender;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.encoder.EncoderBase;
+import ch.qos.logback.core.read.ListAppender;
+import com.sap.hcp.cf.logging.common.Fields;
+import com.sap.hcp.cf.logging.common.LogContext;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+/**
+ * Runs with the scoped backend of the {@link LogContext}, see the surefire configuration.
+ */
+public class AsyncAppendersScopedBackendTest {
+
+    private static final Map<String, String> SCOPED_FIELDS = Map.of(Fields.CORRELATION_ID, "scoped-id");
+
+    private final LoggerContext loggerContext = new LoggerContext();
+
+    @Test
+    public void scopedContextAsyncAppenderKeepsScopedFields() {
+        ListAppender<ILoggingEvent> written = new ListAppender<>();
+        written.setContext(loggerContext);
+        written.start();
+        ScopedContextAsyncAppender appender = new ScopedContextAsyncAppender();
+        appender.setContext(loggerContext);
+        appender.addAppender(written);
+        appender.start();
+
+        LogContext.runInScope(SCOPED_FIELDS, () -> appender.doAppend(createEvent()));
+        appender.stop();
+
+        assertThat(written.list).singleElement().satisfies(
+                event -> assertThat(event.getMDCPropertyMap()).containsEntry(Fields.CORRELATION_ID, "scoped-id"));
+    }
+
+    @Test
+    public void ringBufferAsyncAppenderKeepsScopedFieldsOfEventWithFixedMdc() {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        RingBufferAsyncAppender appender = new RingBufferAsyncAppender();
+        appender.setContext(loggerContext);
+        appender.setEncoder(new CorrelationIdEncoder());
+        appender.setOutputStream(output);
+        appender.start();
+        LoggingEvent event = createEvent();
+        // as if another appender copied the MDC before
+        event.setMDCPropertyMap(Collections.emptyMap());
+
+        LogContext.runInScope(SCOPED_FIELDS, () -> appender.doAppend(event));
+        appender.stop();
+
+        assertThat(output.toString(StandardCharsets.UTF_8)).isEqualTo("scoped-id\n");
+    }
+
+    @Test
+    public void wrapsEventWithFixedMdc() {
+        LoggingEvent event = createEvent();
+        event.setMDCPropertyMap(Map.of("mdc key", "mdc value"));
+        ILoggingEvent[] attached = new ILoggingEvent[1];
+
+        LogContext.runInScope(SCOPED_FIELDS, () -> attached[0] = ScopedFieldsEvent.attach(event));
+
+        assertThat(attached[0].getMDCPropertyMap()).containsOnly(entry("mdc key", "mdc value"),
+                                                                 entry(Fields.CORRELATION_ID, "scoped-id"));
+        assertThat(attached[0].getFormattedMessage()).isEqualTo("message");
+        assertThat(event.getMDCPropertyMap()).containsOnly(entry("mdc key", "mdc value"));
+    }
+
+    @Test
+    public void keepsEventOutsideOfScope() {
+        LoggingEvent event = createEvent();
+
+        assertThat(ScopedFieldsEvent.attach(event)).isSameAs(event);
+    }
+
+    private LoggingEvent createEvent() {
+        return new LoggingEvent(AsyncAppendersScopedBackendTest.class.getName(),
+                                loggerContext.getLogger(AsyncAppendersScopedBackendTest.class), Level.INFO, "message",
+                                null, null);
+    }
+
+    private static class CorrelationIdEncoder extends EncoderBase<ILoggingEvent> {
+
+        @Override
+        public byte[] headerBytes() {
+            return null;
+        }
+
+        @Override
+        public byte[] encode(ILoggingEvent event) {
+            String correlationId = event.getMDCPropertyMap().get(Fields.CORRELATION_ID);
+            return (correlationId + "\n").getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public byte[] footerBytes() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.sap.hcp.cf.logback.appender;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.encoder.EncoderBase;
+import com.sap.hcp.cf.logging.common.helper.RecordingChannel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CoalescingStdoutAppenderTest {
+
+    private final LoggerContext loggerContext = new LoggerContext();
+    private final RecordingChannel channel = new RecordingChannel();
+    private final CoalescingStdoutAppender appender = new CoalescingStdoutAppender();
+
+    @BeforeEach
+    public void setUp() {
+        appender.setContext(loggerContext);
+        appender.setEncoder(new MessageEncoder());
+        appender.setChannel(channel);
+        appender.setMaxLingerMillis(TimeUnit.HOURS.toMillis(1));
+    }
+
+    @Test
+    public void coalescesCompleteLines() {
+        appender.setBufferSize(16);
+        appender.start();
+
+        appender.doAppend(createEvent("first"));
+        appender.doAppend(createEvent("second"));
+        appender.doAppend(createEvent("third"));
+        appender.stop();
+
+        assertThat(channel.getWrites()).containsExactly("first\nsecond\n", "third\n");
+    }
+
+    @Test
+    public void writesEveryLineWithoutLinger() {
+        appender.setMaxLingerMillis(0);
+        appender.start();
+
+        appender.doAppend(createEvent("first"));
+        appender.doAppend(createEvent("second"));
+
+        assertThat(channel.getWrites()).containsExactly("first\n", "second\n");
+        appender.stop();
+    }
+
+    private ILoggingEvent createEvent(String message) {
+        return new LoggingEvent(CoalescingStdoutAppenderTest.class.getName(),
+                                loggerContext.getLogger(CoalescingStdoutAppenderTest.class), Level.INFO, message, null,
+                                null);
+    }
+
+    private static class MessageEncoder extends EncoderBase<ILoggingEvent> {
+
+        @Override
+        public byte[] headerBytes() {
+            return null;
+        }
+
+        @Override
+        public byte[] encode(ILoggingEvent event) {
+            return (event.getFormattedMessage() + "\n").getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public byte[] footerBytes() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.sap.hcp.cf.logback.appender;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class MpscRingBufferTest {
+
+    @Test
+    public void rejectsCapacityNotPowerOfTwo() {
+        assertThatThrownBy(() -> new MpscRingBuffer<>(12)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void drainsInOrderOfOffering() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(4);
+        List<Integer> drained = new ArrayList<>();
+
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 4; i++) {
+                assertThat(buffer.offer(round * 4 + i)).isTrue();
+            }
+            assertThat(buffer.offer(-1)).isFalse();
+            assertThat(buffer.size()).isEqualTo(4);
+            assertThat(buffer.drain(drained::add, 3)).isEqualTo(3);
+            assertThat(buffer.drain(drained::add, 3)).isEqualTo(1);
+        }
+
+        assertThat(drained).containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11);
+        assertThat(buffer.size()).isZero();
+    }
+
+    @Test
+    public void transfersElementsOfConcurrentProducers() throws InterruptedException {
+        int producers = 8;
+        int elementsPerProducer = 10_000;
+        MpscRingBuffer<int[]> buffer = new MpscRingBuffer<>(64);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            executor.execute(() -> {
+                for (int i = 0; i < elementsPerProducer; i++) {
+                    int[] element = { producer, i };
+                    while (!buffer.offer(element)) {
+                        Thread.onSpinWait();
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+
+        int[] nextExpected = new int[producers];
+        int[] received = new int[1];
+        while (received[0] < producers * elementsPerProducer) {
+            buffer.drain(element -> {
+                assertThat(element[1]).isEqualTo(nextExpected[element[0]]++);
+                received[0]++;
+            }, 16);
+        }
+
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(nextExpected).containsOnly(elementsPerProducer);
+    }
+}
@@ -0,0 +1,123 @@
+package com.sap.hcp.cf.logback.appender;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.encoder.EncoderBase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RingBufferAsyncAppenderTest {
+
+    private final LoggerContext loggerContext = new LoggerContext();
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    private final RingBufferAsyncAppender appender = new RingBufferAsyncAppender();
+
+    @BeforeEach
+    public void setUp() {
+        appender.setContext(loggerContext);
+        appender.setEncoder(new MessageEncoder());
+        appender.setOutputStream(output);
+    }
+
+    @Test
+    public void writesEventsInOrder() {
+        appender.start();
+        for (int i = 0; i < 1000; i++) {
+            appender.doAppend(createEvent("message " + i));
+        }
+        appender.stop();
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(1000).startsWith("message 0", "message 1").endsWith("message 999");
+        assertThat(appender.getDroppedEventCount()).isZero();
+    }
+
+    @Test
+    public void waitsForFreeSlotsWithManyProducers() throws InterruptedException {
+        appender.setBufferSize(10);
+        appender.setBatchSize(3);
+        appender.setWaitStrategy("yield");
+        appender.start();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 8000; i++) {
+            String message = "message " + i;
+            executor.execute(() -> appender.doAppend(createEvent(message)));
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        appender.stop();
+
+        assertThat(output.toString(StandardCharsets.UTF_8).split("\n")).hasSize(8000).doesNotHaveDuplicates();
+        assertThat(appender.getDroppedEventCount()).isZero();
+    }
+
+    @Test
+    public void writesOrCountsEventsAppendedDuringStop() throws Exception {
+        appender.setBufferSize(64);
+        appender.start();
+        AtomicBoolean logging = new AtomicBoolean(true);
+        AtomicLong appended = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 4; i++) {
+            executor.execute(() -> {
+                while (logging.get()) {
+                    appender.append(createEvent("message " + appended.incrementAndGet()));
+                }
+            });
+        }
+        Thread.sleep(50);
+        appender.stop();
+        Thread.sleep(10);
+        logging.set(false);
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        String written = output.toString(StandardCharsets.UTF_8);
+        assertThat(written.isEmpty() ? 0 : written.split("\n").length).isEqualTo(
+                appended.get() - appender.getDroppedEventCount());
+    }
+
+    @Test
+    public void doesNotStartWithoutEncoder() {
+        appender.setEncoder(null);
+        appender.start();
+
+        assertThat(appender.isStarted()).isFalse();
+    }
+
+    private ILoggingEvent createEvent(String message) {
+        return new LoggingEvent(RingBufferAsyncAppenderTest.class.getName(),
+                                loggerContext.getLogger(RingBufferAsyncAppenderTest.class), Level.INFO, message, null,
+                                null);
+    }
+
+    private static class MessageEncoder extends EncoderBase<ILoggingEvent> {
+
+        @Override
+        public byte[] headerBytes() {
+            return null;
+        }
+
+        @Override
+        public byte[] encode(ILoggingEvent event) {
+            return (event.getFormattedMessage() + "\n").getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public byte[] footerBytes() {
+            return null;
+        }
+    }
+}
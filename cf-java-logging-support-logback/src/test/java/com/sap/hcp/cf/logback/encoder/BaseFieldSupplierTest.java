@@ -39,4 +39,15 @@ public class BaseFieldSupplierTest {
         assertThat(fields).containsEntry(Fields.EXCEPTION_TYPE, RuntimeException.class.getName());
         assertThat(fields).containsEntry(Fields.EXCEPTION_MESSAGE, "exception message");
     }
+
+    @Test
+    public void mapsTimestampsToStrings() {
+        when(event.getTimeStamp()).thenReturn(1_700_000_000_123L);
+        when(event.getNanoseconds()).thenReturn(123_456_789);
+
+        Map<String, Object> fields = baseFieldSupplier.map(event);
+
+        assertThat(fields).containsEntry(Fields.WRITTEN_AT, "2023-11-14T22:13:20.123Z");
+        assertThat(fields).containsEntry(Fields.WRITTEN_TS, "1700000000123456789");
+    }
 }
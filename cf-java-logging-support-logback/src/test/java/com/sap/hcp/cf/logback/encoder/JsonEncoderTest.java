@@ -1,12 +1,20 @@
 package com.sap.hcp.cf.logback.encoder;
 
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
 import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import com.fasterxml.jackson.jr.ob.JSON;
 import com.sap.hcp.cf.logback.converter.api.LogbackContextFieldSupplier;
+import com.sap.hcp.cf.logging.common.Fields;
 import com.sap.hcp.cf.logging.common.serialization.ContextFieldSupplier;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -40,6 +48,82 @@ class JsonEncoderTest {
                                                                               SpiLogbackContextFieldSupplier.class.getName());
     }
 
+    @Test
+    void directEncodingMatchesStringEncoding() throws Exception {
+        JsonEncoder directEncoder = new JsonEncoder();
+        directEncoder.setDirectEncoding(true);
+        directEncoder.start();
+        LoggingEvent event = new LoggingEvent(JsonEncoderTest.class.getName(),
+                                              new LoggerContext().getLogger(JsonEncoderTest.class), Level.INFO,
+                                              "message with \"quotes\" and \u00fcml\u00e4uts",
+                                              new IllegalStateException("failure"), null);
+
+        String expected = new String(ENCODER.encode(event), StandardCharsets.UTF_8);
+        String actual = new String(directEncoder.encode(event), StandardCharsets.UTF_8);
+
+        assertThat(actual).endsWith("\n");
+        Map<String, Object> expectedFields = JSON.std.mapFrom(expected);
+        Map<String, Object> actualFields = JSON.std.mapFrom(actual);
+        expectedFields.remove(Fields.WRITTEN_TS);
+        actualFields.remove(Fields.WRITTEN_TS);
+        assertThat(actualFields).isEqualTo(expectedFields).containsKey(Fields.STACKTRACE);
+    }
+
+    @Test
+    void cachedStacktraceMatchesRenderedStacktrace() throws Exception {
+        JsonEncoder cachingEncoder = new JsonEncoder();
+        cachingEncoder.setStacktraceCacheSize(10);
+        cachingEncoder.setDirectEncoding(true);
+        cachingEncoder.start();
+        LoggingEvent event = new LoggingEvent(JsonEncoderTest.class.getName(),
+                                              new LoggerContext().getLogger(JsonEncoderTest.class), Level.ERROR,
+                                              "failed", new IllegalStateException("failure with \"quotes\""), null);
+
+        Object expected = JSON.std.mapFrom(ENCODER.encode(event)).get(Fields.STACKTRACE);
+        cachingEncoder.encode(event);
+        Object actual = JSON.std.mapFrom(cachingEncoder.encode(event)).get(Fields.STACKTRACE);
+
+        assertThat(actual).isEqualTo(expected);
+        assertThat(cachingEncoder.getStacktraceCacheMissCount()).isEqualTo(1);
+        assertThat(cachingEncoder.getStacktraceCacheHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void omitsRepeatedStacktracesInStormMode() throws Exception {
+        JsonEncoder stormEncoder = new JsonEncoder();
+        stormEncoder.setMaxStacktracesPerWindow(1);
+        stormEncoder.start();
+        LoggingEvent event = new LoggingEvent(JsonEncoderTest.class.getName(),
+                                              new LoggerContext().getLogger(JsonEncoderTest.class), Level.ERROR,
+                                              "failed", new IllegalStateException("failure"), null);
+
+        Map<String, Object> first = JSON.std.mapFrom(stormEncoder.encode(event));
+        Map<String, Object> second = JSON.std.mapFrom(stormEncoder.encode(event));
+
+        assertThat(first).containsKey(Fields.STACKTRACE).containsEntry(Fields.STACKTRACE_OCCURRENCES, 1);
+        assertThat(second).doesNotContainKey(Fields.STACKTRACE).containsEntry(Fields.STACKTRACE_OCCURRENCES, 2)
+                          .containsEntry(Fields.STACKTRACE_REF, first.get(Fields.STACKTRACE_REF));
+        assertThat(stormEncoder.getOmittedStacktraceCount()).isEqualTo(1);
+    }
+
+    @Test
+    void omitsStacktracesOfExceptionsWithVaryingMessagesInStormMode() throws Exception {
+        JsonEncoder stormEncoder = new JsonEncoder();
+        stormEncoder.setMaxStacktracesPerWindow(1);
+        stormEncoder.start();
+        List<Map<String, Object>> encoded = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            LoggingEvent event = new LoggingEvent(JsonEncoderTest.class.getName(),
+                                                  new LoggerContext().getLogger(JsonEncoderTest.class), Level.ERROR,
+                                                  "failed", new IllegalStateException("failure " + i), null);
+            encoded.add(JSON.std.mapFrom(stormEncoder.encode(event)));
+        }
+
+        assertThat(encoded.get(0)).containsKey(Fields.STACKTRACE);
+        assertThat(encoded.get(1)).doesNotContainKey(Fields.STACKTRACE)
+                                  .containsEntry(Fields.STACKTRACE_REF, encoded.get(0).get(Fields.STACKTRACE_REF));
+    }
+
     static class SampleContextFieldSupplier implements ContextFieldSupplier {
         @Override
         public Map<String, Object> get() {
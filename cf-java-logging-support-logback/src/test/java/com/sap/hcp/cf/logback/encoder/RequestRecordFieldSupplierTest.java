@@ -2,7 +2,9 @@ package com.sap.hcp.cf.logback.encoder;
 
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import com.sap.hcp.cf.logback.converter.api.LogbackContextFieldSupplier;
+import com.sap.hcp.cf.logging.common.Fields;
 import com.sap.hcp.cf.logging.common.Markers;
+import com.sap.hcp.cf.logging.common.request.RequestRecord;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
@@ -57,4 +59,28 @@ public class RequestRecordFieldSupplierTest {
         assertThat(fields).containsEntry("layer", "test");
     }
 
+    @Test
+    public void renderedRequestRecordMessage() {
+        RequestRecord requestRecord = requestRecord("test").addTag(Fields.REQUEST, "/path").build();
+        when(event.getMarkerList()).thenReturn(REQUEST_MARKER);
+        when(event.getFormattedMessage()).thenReturn(requestRecord.toString());
+
+        Map<String, Object> fields = fieldSupplier.map(event);
+
+        assertThat(fields).containsEntry("layer", "test").containsEntry(Fields.REQUEST, "/path");
+    }
+
+    @Test
+    public void parsesMessageOfModifiedRequestRecord() {
+        RequestRecord requestRecord = requestRecord("test").addTag(Fields.REQUEST, "/path").build();
+        String message = requestRecord.toString();
+        requestRecord.addTag(Fields.REQUEST, "/modified");
+        when(event.getMarkerList()).thenReturn(REQUEST_MARKER);
+        when(event.getFormattedMessage()).thenReturn(message);
+
+        Map<String, Object> fields = fieldSupplier.map(event);
+
+        assertThat(fields).containsEntry("layer", "test").containsEntry(Fields.REQUEST, "/path");
+    }
+
 }
@@ -0,0 +1,103 @@
+package com.sap.hcp.cf.logback.filter;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.sap.hcp.cf.logging.common.Fields;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+public class DuplicateSuppressionTurboFilterTest {
+
+    private final LoggerContext loggerContext = new LoggerContext();
+    private final DuplicateSuppressionTurboFilter filter = new DuplicateSuppressionTurboFilter();
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    private final Logger logger = loggerContext.getLogger(DuplicateSuppressionTurboFilterTest.class);
+
+    @BeforeEach
+    public void setUp() {
+        MDC.clear();
+        filter.setContext(loggerContext);
+        filter.setWindowMillis(TimeUnit.HOURS.toMillis(1));
+        filter.start();
+        loggerContext.addTurboFilter(filter);
+        loggerContext.getLogger(Logger.ROOT_LOGGER_NAME).setLevel(Level.INFO);
+        loggerContext.getLogger(Logger.ROOT_LOGGER_NAME).addAppender(appender);
+        appender.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        appender.stop();
+        filter.stop();
+        MDC.clear();
+    }
+
+    @Test
+    public void suppressesRepeatedTemplate() throws Exception {
+        logger.info("repeated {}", 1);
+        logger.info("repeated {}", 2);
+        logger.info("repeated {}", 3);
+        logger.info("different {}", 1);
+
+        assertThat(appender.list).extracting(ILoggingEvent::getFormattedMessage)
+                                 .containsExactly("repeated 1", "different 1");
+    }
+
+    @Test
+    public void writesSummaryOfRepetitions() throws Exception {
+        logger.info("repeated {}", 1);
+        MDC.put("tenant", "first");
+        logger.info("repeated {}", 2);
+        MDC.put("tenant", "second");
+        logger.info("repeated {}", 3);
+        filter.stop();
+
+        assertThat(appender.list).hasSize(2);
+        ILoggingEvent summary = appender.list.get(1);
+        assertThat(summary.getFormattedMessage()).isEqualTo("repeated 2");
+        assertThat(summary.getLevel()).isEqualTo(Level.INFO);
+        assertThat(summary.getMDCPropertyMap()).contains(entry("tenant", "first"), entry(Fields.REPEAT_COUNT, "2"))
+                                               .containsKeys(Fields.FIRST_REPEAT_AT, Fields.LAST_REPEAT_AT);
+    }
+
+    @Test
+    public void writesSummaryWhenContextIsReset() throws Exception {
+        logger.info("repeated {}", 1);
+        logger.info("repeated {}", 2);
+
+        loggerContext.reset();
+
+        assertThat(appender.list).extracting(ILoggingEvent::getFormattedMessage)
+                                 .containsExactly("repeated 1", "repeated 2");
+        assertThat(appender.list.get(1).getMDCPropertyMap()).contains(entry(Fields.REPEAT_COUNT, "1"));
+    }
+
+    @Test
+    public void writesSummaryWhenContextIsStopped() throws Exception {
+        logger.info("repeated {}", 1);
+        logger.info("repeated {}", 2);
+
+        loggerContext.stop();
+
+        assertThat(appender.list).extracting(ILoggingEvent::getFormattedMessage)
+                                 .containsExactly("repeated 1", "repeated 2");
+    }
+
+    @Test
+    public void ignoresDisabledLevels() throws Exception {
+        logger.debug("repeated {}", 1);
+        logger.info("repeated {}", 2);
+
+        assertThat(appender.list).extracting(ILoggingEvent::getFormattedMessage).containsExactly("repeated 2");
+    }
+}
@@ -0,0 +1,137 @@
+package com.sap.hcp.cf.logback.filter;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SamplingTurboFilterTest {
+
+    private static final String KNOWN_PREFIX = "known.prefix";
+    private static final String UNKNOWN_PREFIX = "unknown.prefix";
+    private static final String SUMMARY =
+            "Dropped 1 log events exceeding the sampling budget known.prefix=0.1/2 within the last 0 seconds.";
+    private static final String OTHER_SUMMARY =
+            "Dropped 1 log events exceeding the sampling budget other.prefix=0.1/1 within the last 60 seconds.";
+
+    private final LoggerContext loggerContext = new LoggerContext();
+    private final SamplingTurboFilter filter = new SamplingTurboFilter();
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    @BeforeEach
+    public void setUp() {
+        filter.setContext(loggerContext);
+        filter.addBudget(KNOWN_PREFIX + "=0.1/2");
+        filter.setSummaryIntervalSeconds(0);
+        filter.start();
+        loggerContext.addTurboFilter(filter);
+        loggerContext.getLogger(Logger.ROOT_LOGGER_NAME).setLevel(Level.INFO);
+        loggerContext.getLogger(Logger.ROOT_LOGGER_NAME).addAppender(appender);
+        appender.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        appender.stop();
+        filter.stop();
+    }
+
+    @Test
+    public void dropsEventsExceedingBudget() throws Exception {
+        Logger logger = loggerContext.getLogger(KNOWN_PREFIX + "dropsEventsExceedingBudget");
+        logger.info("first");
+        logger.info("second");
+        logger.info("third");
+
+        assertThat(appender.list).extracting(ILoggingEvent::getFormattedMessage)
+                                 .containsExactly("first", "second", SUMMARY);
+    }
+
+    @Test
+    public void keepsErrorEvents() throws Exception {
+        Logger logger = loggerContext.getLogger(KNOWN_PREFIX + "keepsErrorEvents");
+        logger.error("first");
+        logger.error("second");
+        logger.error("third");
+
+        assertThat(appender.list).extracting(ILoggingEvent::getFormattedMessage)
+                                 .containsExactly("first", "second", "third");
+    }
+
+    @Test
+    public void keepsEventsOfUnknownPackage() throws Exception {
+        Logger logger = loggerContext.getLogger(UNKNOWN_PREFIX + "keepsEventsOfUnknownPackage");
+        logger.info("first");
+        logger.info("second");
+        logger.info("third");
+
+        assertThat(appender.list).extracting(ILoggingEvent::getFormattedMessage)
+                                 .containsExactly("first", "second", "third");
+    }
+
+    @Test
+    public void ignoresDisabledLevelsAndEnabledChecks() throws Exception {
+        Logger logger = loggerContext.getLogger(KNOWN_PREFIX + "ignoresDisabledLevelsAndEnabledChecks");
+        logger.debug("disabled");
+        logger.isInfoEnabled();
+        logger.info("first");
+        logger.isInfoEnabled();
+        logger.info("second");
+
+        assertThat(appender.list).extracting(ILoggingEvent::getFormattedMessage).containsExactly("first", "second");
+    }
+
+    @Test
+    public void reportsDroppedEventsWhenStopped() throws Exception {
+        SamplingTurboFilter otherFilter = startOtherFilter();
+        Logger logger = loggerContext.getLogger("other.prefix.reportsDroppedEventsWhenStopped");
+        logger.info("first");
+        logger.info("second");
+
+        otherFilter.stop();
+
+        assertThat(appender.list).extracting(ILoggingEvent::getFormattedMessage)
+                                 .containsExactly("first", OTHER_SUMMARY);
+    }
+
+    @Test
+    public void reportsDroppedEventsWhenContextIsReset() throws Exception {
+        startOtherFilter();
+        Logger logger = loggerContext.getLogger("other.prefix.reportsDroppedEventsWhenContextIsReset");
+        logger.info("first");
+        logger.info("second");
+
+        loggerContext.reset();
+
+        assertThat(appender.list).extracting(ILoggingEvent::getFormattedMessage)
+                                 .containsExactly("first", OTHER_SUMMARY);
+    }
+
+    @Test
+    public void reportsDroppedEventsWhenContextIsStopped() throws Exception {
+        startOtherFilter();
+        Logger logger = loggerContext.getLogger("other.prefix.reportsDroppedEventsWhenContextIsStopped");
+        logger.info("first");
+        logger.info("second");
+
+        loggerContext.stop();
+
+        assertThat(appender.list).extracting(ILoggingEvent::getFormattedMessage)
+                                 .containsExactly("first", OTHER_SUMMARY);
+    }
+
+    private SamplingTurboFilter startOtherFilter() {
+        SamplingTurboFilter otherFilter = new SamplingTurboFilter();
+        otherFilter.setContext(loggerContext);
+        otherFilter.addBudget("other.prefix=0.1/1");
+        otherFilter.start();
+        loggerContext.addTurboFilter(otherFilter);
+        return otherFilter;
+    }
+}
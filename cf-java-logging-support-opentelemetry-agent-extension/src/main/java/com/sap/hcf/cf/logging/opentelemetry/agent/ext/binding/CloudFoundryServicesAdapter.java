@@ -11,8 +11,11 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.logging.Logger;
@@ -28,6 +31,9 @@ class CloudFoundryServicesAdapter {
     private static final String SERVICE_TAGS = "tags";
     private static final String SERVICE_CREDENTIALS = "credentials";
 
+    // all adapters share the parsed services, as long as they are created from the same VCAP_SERVICES content
+    private static volatile ServiceIndex memoizedIndex;
+
     private final String vcapServicesJson;
 
     public CloudFoundryServicesAdapter() {
@@ -54,34 +60,44 @@ class CloudFoundryServicesAdapter {
             LOG.info("No environment variable " + VCAP_SERVICES + " found. Skipping service binding detection.");
             return Stream.empty();
         }
+        ServiceIndex index = getServiceIndex();
+        Stream<CloudFoundryServiceInstance> services;
+        if (isNullOrEmpty(serviceLabels)) {
+            services = index.services.stream();
+        } else {
+            services = new LinkedHashSet<>(serviceLabels).stream().flatMap(index::streamByLabel);
+        }
+        return services.filter(serviceInstance -> hasServiceTag(serviceTags, serviceInstance.getTags()));
+    }
+
+    private ServiceIndex getServiceIndex() {
+        ServiceIndex index = memoizedIndex;
+        if (index == null || !index.vcapServicesJson.equals(vcapServicesJson)) {
+            index = parseServiceIndex(vcapServicesJson);
+            memoizedIndex = index;
+        }
+        return index;
+    }
+
+    private static ServiceIndex parseServiceIndex(String vcapServicesJson) {
         try (JsonParser parser = new JsonFactory().createParser(vcapServicesJson)) {
             parser.nextToken();
             List<CloudFoundryServiceInstance> services = new ArrayList<>();
             while (parser.nextToken() != JsonToken.END_OBJECT) {
                 String label = parser.currentName();
-                if (isNullOrEmpty(serviceLabels) || serviceLabels.contains(label)) {
-                    parseServiceInstances(parser, label, serviceInstance -> {
-                        if (serviceInstance.getName() != null) {
-                            if (hasServiceTag(serviceTags, serviceInstance.getTags())) {
-                                services.add(serviceInstance);
-                            }
-                        }
-                    });
-                } else {
-                    parser.skipChildren();
-                }
-            }
-            if (isNullOrEmpty(serviceLabels)) {
-                return services.stream();
-            } else {
-                return services.stream().sorted(byLabels(serviceLabels));
+                parseServiceInstances(parser, label, serviceInstance -> {
+                    if (serviceInstance.getName() != null) {
+                        services.add(serviceInstance);
+                    }
+                });
             }
+            return new ServiceIndex(vcapServicesJson, services);
         } catch (JsonParseException cause) {
             LOG.warning("Invalid JSON content in environment variable " + VCAP_SERVICES);
         } catch (IOException cause) {
             LOG.warning("Cannot parse content of environment variable " + VCAP_SERVICES);
         }
-        return Stream.empty();
+        return new ServiceIndex(vcapServicesJson, Collections.emptyList());
     }
 
     private static void parseServiceInstances(JsonParser parser, String label,
@@ -93,6 +109,8 @@ class CloudFoundryServicesAdapter {
                     consumer.accept(serviceInstance);
                 }
             }
+        } else {
+            parser.skipChildren();
         }
     }
 
@@ -150,14 +168,6 @@ class CloudFoundryServicesAdapter {
         }
     }
 
-    private int getIndex(List<String> serviceLabels, String label) {
-        if (label == null) {
-            return Integer.MAX_VALUE;
-        }
-        int index = serviceLabels.indexOf(label);
-        return index >= 0 ? index : Integer.MAX_VALUE;
-    }
-
     private boolean hasServiceTag(List<String> requiredTags, List<String> instanceTags) {
         if (isNullOrEmpty(requiredTags)) {
             return true;
@@ -168,10 +178,6 @@ class CloudFoundryServicesAdapter {
         return instanceTags.containsAll(requiredTags);
     }
 
-    private Comparator<CloudFoundryServiceInstance> byLabels(List<String> serviceLabels) {
-        return (l, r) -> getIndex(serviceLabels, l.getLabel()) - getIndex(serviceLabels, r.getLabel());
-    }
-
     static Builder builder() {
         return builder(System::getenv);
     }
@@ -211,4 +217,23 @@ class CloudFoundryServicesAdapter {
             return new CloudFoundryServicesAdapter(envSupplier.apply(VCAP_SERVICES));
         }
     }
+
+    private static class ServiceIndex {
+
+        private final String vcapServicesJson;
+        private final List<CloudFoundryServiceInstance> services;
+        private final Map<String, List<CloudFoundryServiceInstance>> servicesByLabel = new HashMap<>();
+
+        private ServiceIndex(String vcapServicesJson, List<CloudFoundryServiceInstance> services) {
+            this.vcapServicesJson = vcapServicesJson;
+            this.services = Collections.unmodifiableList(services);
+            for (CloudFoundryServiceInstance service: services) {
+                servicesByLabel.computeIfAbsent(service.getLabel(), k -> new ArrayList<>()).add(service);
+            }
+        }
+
+        private Stream<CloudFoundryServiceInstance> streamByLabel(String label) {
+            return servicesByLabel.getOrDefault(label, Collections.emptyList()).stream();
+        }
+    }
 }
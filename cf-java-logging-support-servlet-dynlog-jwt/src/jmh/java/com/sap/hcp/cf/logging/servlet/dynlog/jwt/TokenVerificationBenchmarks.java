@@ -0,0 +1,70 @@
+package com.sap.hcp.cf.logging.servlet.dynlog.jwt;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.sap.hcp.cf.logging.common.helper.Environment;
+import com.sap.hcp.cf.logging.servlet.dynlog.api.DynamicLogLevelConfiguration;
+import jakarta.servlet.http.HttpServletRequest;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the resolution of a dynamic log level token with and without the {@link VerifiedTokenCache}. The benchmarks
+ * live in the package of the provider to use its package-private constructor.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 5, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class TokenVerificationBenchmarks {
+
+    @State(Scope.Benchmark)
+    public static class BenchmarkState {
+
+        @Param({ "0", "1024" })
+        public int maxCachedTokens;
+
+        public JwtDynamicLogLevelProvider provider;
+        public HttpServletRequest request;
+
+        @Setup
+        public void setup() throws NoSuchAlgorithmException {
+            KeyPair keyPair = KeyPairGenerator.getInstance("RSA").generateKeyPair();
+            String publicKey = PemUtils.createPublicKeyPem(keyPair.getPublic());
+            Environment environment = new Environment() {
+                @Override
+                public String getVariable(String name) {
+                    return "DYN_LOG_LEVEL_KEY".equals(name) ? publicKey : null;
+                }
+            };
+            provider = new JwtDynamicLogLevelProvider(environment, maxCachedTokens, System::currentTimeMillis);
+
+            Algorithm rsa256 =
+                    Algorithm.RSA256((RSAPublicKey) keyPair.getPublic(), (RSAPrivateKey) keyPair.getPrivate());
+            String token = JWT.create().withIssuedAt(Date.from(Instant.now()))
+                              .withExpiresAt(Date.from(Instant.now().plus(1, ChronoUnit.DAYS)))
+                              .withClaim("level", "DEBUG").withClaim("packages", "com.sap.hcp").sign(rsa256);
+            request = (HttpServletRequest) Proxy.newProxyInstance(HttpServletRequest.class.getClassLoader(),
+                                                                  new Class<?>[] { HttpServletRequest.class },
+                                                                  (proxy, method, args) -> "getHeader".equals(
+                                                                          method.getName()) ? token : null);
+        }
+    }
+
+    /** Same token on every request, verified once with a cache and every time without. */
+    @Benchmark
+    public DynamicLogLevelConfiguration repeatedToken(BenchmarkState s) {
+        return s.provider.apply(s.request);
+    }
+}
@@ -22,6 +22,7 @@ import java.security.spec.X509EncodedKeySpec;
 import java.util.Base64;
 import java.util.Optional;
 import java.util.ServiceLoader;
+import java.util.function.LongSupplier;
 
 import static java.util.function.Predicate.not;
 
@@ -43,15 +44,22 @@ public class JwtDynamicLogLevelProvider implements DynamicLogLevelProvider {
     private static final Logger LOG = LoggerFactory.getLogger(JwtDynamicLogLevelProvider.class);
     private final String headerName;
     private final JWTVerifier verifier;
+    private final VerifiedTokenCache tokenCache;
 
     public JwtDynamicLogLevelProvider() {
         this(new Environment());
     }
 
     JwtDynamicLogLevelProvider(Environment environment) {
+        this(environment, VerifiedTokenCache.DEFAULT_MAX_ENTRIES, System::currentTimeMillis);
+    }
+
+    JwtDynamicLogLevelProvider(Environment environment, int maxCachedTokens, LongSupplier clock) {
         Creator creator = new Creator(environment);
         this.headerName = creator.getHeaderName();
         this.verifier = creator.getVerifier().orElse(null);
+        this.tokenCache = new VerifiedTokenCache(this::decode, JwtDynamicLogLevelProvider::createConfig,
+                                                 maxCachedTokens, clock);
     }
 
     // for testing only
@@ -64,6 +72,13 @@ public class JwtDynamicLogLevelProvider implements DynamicLogLevelProvider {
         return verifier;
     }
 
+    /**
+     * @return the cache of verified tokens, e.g. to read its hit, miss and eviction counts
+     */
+    public VerifiedTokenCache getTokenCache() {
+        return tokenCache;
+    }
+
     @Override
     public DynamicLogLevelConfiguration apply(HttpServletRequest httpServletRequest) {
         if (verifier == null) {
@@ -73,14 +88,10 @@ public class JwtDynamicLogLevelProvider implements DynamicLogLevelProvider {
         if (header == null || header.isEmpty()) {
             return DynamicLogLevelConfiguration.EMPTY;
         }
-        DecodedJWT jwt = decode(header);
-        return createConfig(jwt);
+        return tokenCache.get(header);
     }
 
     private static DynamicLogLevelConfiguration createConfig(DecodedJWT jwt) {
-        if (jwt == null) {
-            return DynamicLogLevelConfiguration.EMPTY;
-        }
         return new DynamicLogLevelConfiguration(getClaimAsString(JWT_LEVEL, jwt), getClaimAsString(JWT_PACKAGES, jwt));
     }
 
@@ -0,0 +1,177 @@
+package com.sap.hcp.cf.logging.servlet.dynlog.jwt;
+
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.sap.hcp.cf.logging.servlet.dynlog.api.DynamicLogLevelConfiguration;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Caches the {@link DynamicLogLevelConfiguration} of verified tokens, so that a token attached to many requests is
+ * verified only once. Entries are keyed by the SHA-256 hash of the raw token and kept until the token expires.
+ * Tokens failing the verification are cached for a short time as well, so that a flood of forged tokens cannot burn
+ * CPU on signature checks.
+ * <p>
+ * The number of entries is bounded. Invalid tokens are kept apart from the verified ones with a much smaller bound,
+ * so that they cannot displace valid tokens. When one of the two parts is full, an arbitrary entry of it is replaced.
+ * Expired entries are replaced, when their token is seen again.
+ */
+public class VerifiedTokenCache {
+
+    static final int DEFAULT_MAX_ENTRIES = 1024;
+    static final long INVALID_TOKEN_TTL_MILLIS = TimeUnit.SECONDS.toMillis(10);
+    static final int INVALID_TOKEN_SHARE = 16;
+
+    private final Function<String, DecodedJWT> verification;
+    private final Function<DecodedJWT, DynamicLogLevelConfiguration> configuration;
+    private final int maxEntries;
+    private final int maxInvalidEntries;
+    private final LongSupplier clock;
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Entry> invalidEntries = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param verification
+     *         verifies the raw token, returns {@code null} for invalid tokens
+     * @param configuration
+     *         extracts the configuration from a verified token
+     * @param maxEntries
+     *         the maximum number of cached valid tokens, 0 disables the cache, invalid tokens are limited to a
+     *         sixteenth of it
+     * @param clock
+     *         the current time in milliseconds since epoch
+     */
+    VerifiedTokenCache(Function<String, DecodedJWT> verification,
+                       Function<DecodedJWT, DynamicLogLevelConfiguration> configuration, int maxEntries,
+                       LongSupplier clock) {
+        this.verification = verification;
+        this.configuration = configuration;
+        this.maxEntries = maxEntries;
+        this.maxInvalidEntries = maxEntries > 0 ? Math.max(1, maxEntries / INVALID_TOKEN_SHARE) : 0;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the configuration of the token, verifying it only if it is not cached.
+     *
+     * @param token
+     *         the raw token
+     * @return the configuration of a valid token or {@link DynamicLogLevelConfiguration#EMPTY}
+     */
+    DynamicLogLevelConfiguration get(String token) {
+        String key = hash(token);
+        long now = clock.getAsLong();
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            entry = invalidEntries.get(key);
+        }
+        if (entry != null && entry.isValid(now)) {
+            hits.increment();
+            return entry.configuration;
+        }
+        misses.increment();
+        DecodedJWT jwt = verification.apply(token);
+        if (jwt != null) {
+            entry = new Entry(configuration.apply(jwt), expiresAt(jwt));
+            put(entries, maxEntries, key, entry);
+        } else {
+            entry = new Entry(DynamicLogLevelConfiguration.EMPTY, now + INVALID_TOKEN_TTL_MILLIS);
+            put(invalidEntries, maxInvalidEntries, key, entry);
+        }
+        return entry.configuration;
+    }
+
+    private static long expiresAt(DecodedJWT jwt) {
+        Date expiresAt = jwt.getExpiresAt();
+        return expiresAt != null ? expiresAt.getTime() : Long.MAX_VALUE;
+    }
+
+    private void put(ConcurrentMap<String, Entry> target, int bound, String key, Entry entry) {
+        if (bound <= 0) {
+            return;
+        }
+        if (target.size() >= bound && !target.containsKey(key)) {
+            evictOne(target);
+        }
+        target.put(key, entry);
+    }
+
+    /*
+     * -- removes a single victim instead of scanning for expired entries, the keys are hashes, so the first entry of
+     * the iteration is an arbitrary one
+     */
+    private void evictOne(ConcurrentMap<String, Entry> target) {
+        Iterator<Map.Entry<String, Entry>> iterator = target.entrySet().iterator();
+        if (iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictions.increment();
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException cause) {
+            throw new IllegalStateException("SHA-256 is not supported by this JVM.", cause);
+        }
+    }
+
+    /**
+     * @return the number of lookups answered from the cache
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of lookups, that required a verification of the token
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the number of entries removed, because the cache was full
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return the number of cached tokens, valid and invalid ones
+     */
+    public int size() {
+        return entries.size() + invalidEntries.size();
+    }
+
+    private static final class Entry {
+
+        private final DynamicLogLevelConfiguration configuration;
+        private final long expiresAt;
+
+        private Entry(DynamicLogLevelConfiguration configuration, long expiresAt) {
+            this.configuration = configuration;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isValid(long now) {
+            return now < expiresAt;
+        }
+    }
+}
@@ -19,6 +19,7 @@ import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import static com.sap.hcp.cf.logging.servlet.dynlog.jwt.PemUtils.createPublicKeyPem;
@@ -146,4 +147,101 @@ class JwtDynamicLogLevelProviderTest {
                 DynamicLogLevelConfiguration.EMPTY);
     }
 
+    @Test
+    void verifiesRepeatedTokenOnce() throws NoSuchAlgorithmException {
+        KeyPair keyPair = KeyPairGenerator.getInstance("RSA").generateKeyPair();
+        when(environment.getVariable("DYN_LOG_LEVEL_KEY")).thenReturn(createPublicKeyPem(keyPair.getPublic()));
+        String token = createToken(keyPair, Instant.now().plus(1, ChronoUnit.MINUTES));
+        when(request.getHeader("SAP-LOG-LEVEL")).thenReturn(token);
+        JwtDynamicLogLevelProvider provider = new JwtDynamicLogLevelProvider(environment);
+
+        assertThat(provider.apply(request)).extracting(DynamicLogLevelConfiguration::level).isEqualTo("DEBUG");
+        assertThat(provider.apply(request)).extracting(DynamicLogLevelConfiguration::level).isEqualTo("DEBUG");
+
+        assertThat(provider.getTokenCache()).extracting(VerifiedTokenCache::getMissCount,
+                                                        VerifiedTokenCache::getHitCount).containsExactly(1L, 1L);
+    }
+
+    @Test
+    void verifiesCachedTokenAgainAfterExpiry() throws NoSuchAlgorithmException {
+        KeyPair keyPair = KeyPairGenerator.getInstance("RSA").generateKeyPair();
+        when(environment.getVariable("DYN_LOG_LEVEL_KEY")).thenReturn(createPublicKeyPem(keyPair.getPublic()));
+        Instant expiresAt = Instant.now().plus(1, ChronoUnit.MINUTES);
+        when(request.getHeader("SAP-LOG-LEVEL")).thenReturn(createToken(keyPair, expiresAt));
+        AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+        JwtDynamicLogLevelProvider provider = new JwtDynamicLogLevelProvider(environment, 16, clock::get);
+
+        provider.apply(request);
+        clock.set(expiresAt.plus(1, ChronoUnit.SECONDS).toEpochMilli());
+        provider.apply(request);
+
+        assertThat(provider.getTokenCache()).extracting(VerifiedTokenCache::getMissCount,
+                                                        VerifiedTokenCache::getHitCount).containsExactly(2L, 0L);
+    }
+
+    @Test
+    void cachesInvalidTokenBriefly() throws NoSuchAlgorithmException {
+        KeyPair validKeyPair = KeyPairGenerator.getInstance("RSA").generateKeyPair();
+        when(environment.getVariable("DYN_LOG_LEVEL_KEY")).thenReturn(createPublicKeyPem(validKeyPair.getPublic()));
+        KeyPair invalidKeyPair = KeyPairGenerator.getInstance("RSA").generateKeyPair();
+        when(request.getHeader("SAP-LOG-LEVEL")).thenReturn(
+                createToken(invalidKeyPair, Instant.now().plus(1, ChronoUnit.MINUTES)));
+        AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+        JwtDynamicLogLevelProvider provider = new JwtDynamicLogLevelProvider(environment, 16, clock::get);
+
+        assertThat(provider.apply(request)).isEqualTo(DynamicLogLevelConfiguration.EMPTY);
+        assertThat(provider.apply(request)).isEqualTo(DynamicLogLevelConfiguration.EMPTY);
+        clock.addAndGet(VerifiedTokenCache.INVALID_TOKEN_TTL_MILLIS);
+        assertThat(provider.apply(request)).isEqualTo(DynamicLogLevelConfiguration.EMPTY);
+
+        assertThat(provider.getTokenCache()).extracting(VerifiedTokenCache::getMissCount,
+                                                        VerifiedTokenCache::getHitCount).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void evictsTokensWhenFull() throws NoSuchAlgorithmException {
+        KeyPair keyPair = KeyPairGenerator.getInstance("RSA").generateKeyPair();
+        when(environment.getVariable("DYN_LOG_LEVEL_KEY")).thenReturn(createPublicKeyPem(keyPair.getPublic()));
+        String firstToken = createToken(keyPair, Instant.now().plus(1, ChronoUnit.MINUTES));
+        String secondToken = createToken(keyPair, Instant.now().plus(2, ChronoUnit.MINUTES));
+        when(request.getHeader("SAP-LOG-LEVEL")).thenReturn(firstToken, secondToken);
+        JwtDynamicLogLevelProvider provider = new JwtDynamicLogLevelProvider(environment, 1, System::currentTimeMillis);
+
+        provider.apply(request);
+        provider.apply(request);
+
+        assertThat(provider.getTokenCache()).extracting(VerifiedTokenCache::getEvictionCount, VerifiedTokenCache::size)
+                                            .containsExactly(1L, 1);
+    }
+
+    @Test
+    void keepsValidTokensWhenFloodedWithInvalidTokens() throws NoSuchAlgorithmException {
+        KeyPair validKeyPair = KeyPairGenerator.getInstance("RSA").generateKeyPair();
+        when(environment.getVariable("DYN_LOG_LEVEL_KEY")).thenReturn(createPublicKeyPem(validKeyPair.getPublic()));
+        KeyPair invalidKeyPair = KeyPairGenerator.getInstance("RSA").generateKeyPair();
+        String validToken = createToken(validKeyPair, Instant.now().plus(1, ChronoUnit.MINUTES));
+        when(request.getHeader("SAP-LOG-LEVEL")).thenReturn(validToken,
+                                                             createToken(invalidKeyPair, Instant.now().plusSeconds(61)),
+                                                             createToken(invalidKeyPair, Instant.now().plusSeconds(62)),
+                                                             createToken(invalidKeyPair, Instant.now().plusSeconds(63)),
+                                                             validToken);
+        JwtDynamicLogLevelProvider provider =
+                new JwtDynamicLogLevelProvider(environment, 16, System::currentTimeMillis);
+
+        for (int i = 0; i < 5; i++) {
+            provider.apply(request);
+        }
+
+        assertThat(provider.getTokenCache()).extracting(VerifiedTokenCache::getHitCount,
+                                                        VerifiedTokenCache::getEvictionCount, VerifiedTokenCache::size)
+                                            .containsExactly(1L, 2L, 2);
+    }
+
+    private static String createToken(KeyPair keyPair, Instant expiresAt) {
+        Algorithm rsa256 = Algorithm.RSA256((RSAPublicKey) keyPair.getPublic(), (RSAPrivateKey) keyPair.getPrivate());
+        return JWT.create().withIssuer("JwtDynamicLogLevelProviderTest").withIssuedAt(Date.from(Instant.now()))
+                  .withExpiresAt(Date.from(expiresAt)).withClaim("level", "DEBUG").withClaim("packages", "com.sap.hcp")
+                  .sign(rsa256);
+    }
+
 }
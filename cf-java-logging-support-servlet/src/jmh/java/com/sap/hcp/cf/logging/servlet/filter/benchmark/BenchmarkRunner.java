@@ -8,8 +8,10 @@ import org.openjdk.jmh.runner.options.OptionsBuilder;
 public class BenchmarkRunner {
 
     public static void main(String[] args) throws RunnerException {
-        Options options =
-                new OptionsBuilder().include(RequestUriMatcherBenchmarks.class.getSimpleName()).forks(1).build();
+        Options options = new OptionsBuilder().include(RequestUriMatcherBenchmarks.class.getSimpleName())
+                                              .include(VirtualThreadRequestBenchmarks.class.getSimpleName())
+                                              .include(RequestLoggingFilterBenchmarks.class.getSimpleName()).forks(1)
+                                              .build();
         new Runner(options).run();
     }
 }
@@ -0,0 +1,46 @@
+package com.sap.hcp.cf.logging.servlet.filter.benchmark;
+
+import com.sap.hcp.cf.logging.servlet.filter.DynamicLogLevelFilter;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Enumeration;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * The benchmarks run with the test classpath, that registers a recording {@code DynamicLogLevelProvider} for the unit
+ * tests. The {@link DynamicLogLevelFilter} loads its providers once, so running it a single time while the service
+ * registration is hidden makes the benchmarks measure an application without the dynamic log level module.
+ */
+final class DynamicLogLevelProviders {
+
+    private DynamicLogLevelProviders() {
+    }
+
+    static void loadNone() {
+        Thread thread = Thread.currentThread();
+        ClassLoader original = thread.getContextClassLoader();
+        thread.setContextClassLoader(new ClassLoader(original) {
+
+            @Override
+            public Enumeration<URL> getResources(String name) throws IOException {
+                return name.startsWith("META-INF/services/") ? Collections.emptyEnumeration()
+                                                             : super.getResources(name);
+            }
+        });
+        try {
+            new DynamicLogLevelFilter().doFilter(mock(HttpServletRequest.class), mock(HttpServletResponse.class),
+                                                 (request, response) -> {
+                                                 });
+        } catch (IOException | ServletException cause) {
+            throw new IllegalStateException("Cannot initialize dynamic log level providers.", cause);
+        } finally {
+            thread.setContextClassLoader(original);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.sap.hcp.cf.logging.servlet.filter.benchmark;
+
+import ch.qos.logback.classic.Level;
+import com.sap.hcp.cf.logging.common.LogContext;
+import com.sap.hcp.cf.logging.servlet.filter.FusedRequestLoggingFilter;
+import com.sap.hcp.cf.logging.servlet.filter.RequestLogger;
+import com.sap.hcp.cf.logging.servlet.filter.RequestLoggingFilter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Compares the {@link RequestLoggingFilter}, that groups five filters, with the {@link FusedRequestLoggingFilter} on a
+ * mocked request with the usual Cloud Foundry headers. The request log itself is switched off, since both write it the
+ * same way. Each filter is measured with the default MDC backend and the scoped backend of the log context.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 5, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class RequestLoggingFilterBenchmarks {
+
+    private static final String SCOPED_BACKEND = "-Dlog.context.backend=" + LogContext.BACKEND_SCOPED;
+
+    @State(Scope.Thread)
+    public static class BenchmarkState {
+
+        public final RequestLoggingFilter composite = new RequestLoggingFilter();
+        public final FusedRequestLoggingFilter fused = new FusedRequestLoggingFilter();
+
+        public HttpServletRequest request;
+        public HttpServletResponse response;
+        public FilterChain chain;
+        public String correlationIdHeader;
+        public String correlationId;
+
+        @Setup
+        public void setup() {
+            DynamicLogLevelProviders.loadNone();
+            ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(RequestLogger.class)).setLevel(Level.OFF);
+
+            Map<String, String> headers = new HashMap<>();
+            headers.put("x-vcap-request-id", "7c4d2b5e-5f1a-4e1b-9a43-0a1b2c3d4e5f");
+            headers.put("traceparent", "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01");
+            headers.put("tenantid", "my-tenant");
+            request = new HttpServletRequestWrapper(mock(HttpServletRequest.class)) {
+
+                @Override
+                public String getHeader(String name) {
+                    return headers.get(name.toLowerCase());
+                }
+            };
+            response = new HttpServletResponseWrapper(mock(HttpServletResponse.class)) {
+
+                @Override
+                public String getHeader(String name) {
+                    return null;
+                }
+
+                @Override
+                public void setHeader(String name, String value) {
+                    correlationIdHeader = value;
+                }
+
+                @Override
+                public boolean isCommitted() {
+                    return false;
+                }
+            };
+            chain = (req, resp) -> correlationId = LogContext.getCorrelationId();
+        }
+    }
+
+    @Benchmark
+    public void composite(BenchmarkState s) throws Exception {
+        s.composite.doFilter(s.request, s.response, s.chain);
+    }
+
+    @Benchmark
+    public void fused(BenchmarkState s) throws Exception {
+        s.fused.doFilter(s.request, s.response, s.chain);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = SCOPED_BACKEND)
+    public void compositeScoped(BenchmarkState s) throws Exception {
+        s.composite.doFilter(s.request, s.response, s.chain);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = SCOPED_BACKEND)
+    public void fusedScoped(BenchmarkState s) throws Exception {
+        s.fused.doFilter(s.request, s.response, s.chain);
+    }
+}
@@ -0,0 +1,110 @@
+package com.sap.hcp.cf.logging.servlet.filter.benchmark;
+
+import com.sap.hcp.cf.logging.servlet.filter.RequestLoggingFilter;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.servlet.FilterHolder;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.util.VirtualThreads;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.EnumSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the request throughput of an embedded Jetty, that runs the {@link RequestLoggingFilter} in front of a
+ * servlet writing its response line by line through the wrapped writer. With {@code virtualThreads=true} the requests
+ * are handled on virtual threads, which requires Java 21.
+ * <p>
+ * The forks trace pinned virtual threads to the standard output. A run without any pinned stack trace confirms, that
+ * the stream wrappers do not block a carrier thread. Alternatively record the JFR event {@code jdk.VirtualThreadPinned}
+ * by adding {@code -XX:StartFlightRecording} to the fork arguments.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 5, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Djdk.tracePinnedThreads=short")
+public class VirtualThreadRequestBenchmarks {
+
+    private static final int CONCURRENT_REQUESTS = 256;
+    private static final int RESPONSE_LINES = 64;
+
+    @State(Scope.Benchmark)
+    public static class ServerState {
+
+        @Param({ "false", "true" })
+        public boolean virtualThreads;
+
+        public Server jetty;
+        public HttpClient client;
+        public HttpRequest request;
+
+        @Setup
+        public void start() throws Exception {
+            DynamicLogLevelProviders.loadNone();
+            QueuedThreadPool threadPool = new QueuedThreadPool();
+            if (virtualThreads) {
+                if (!VirtualThreads.areSupported()) {
+                    throw new IllegalStateException("Virtual threads require Java 21 or later.");
+                }
+                threadPool.setVirtualThreadsExecutor(VirtualThreads.getDefaultVirtualThreadsExecutor());
+            }
+            jetty = new Server(threadPool);
+            ServerConnector connector = new ServerConnector(jetty);
+            connector.setPort(0);
+            jetty.addConnector(connector);
+            ServletContextHandler contextHandler = new ServletContextHandler(jetty, null);
+            contextHandler.addFilter(new FilterHolder(new RequestLoggingFilter()), "/*",
+                                     EnumSet.of(DispatcherType.REQUEST));
+            contextHandler.addServlet(LineWritingServlet.class, "/lines");
+            jetty.start();
+
+            client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            request = HttpRequest.newBuilder(URI.create("http://localhost:" + connector.getLocalPort() + "/lines"))
+                                 .build();
+        }
+
+        @TearDown
+        public void stop() throws Exception {
+            jetty.stop();
+        }
+    }
+
+    public static class LineWritingServlet extends HttpServlet {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+            resp.setContentType("text/plain");
+            PrintWriter writer = resp.getWriter();
+            for (int i = 0; i < RESPONSE_LINES; i++) {
+                writer.println("line " + i + " of the response body");
+            }
+        }
+    }
+
+    /** Sends a burst of concurrent requests and waits for all responses. */
+    @Benchmark
+    @OperationsPerInvocation(CONCURRENT_REQUESTS)
+    public void concurrentRequests(ServerState s) {
+        CompletableFuture<?>[] responses = new CompletableFuture<?>[CONCURRENT_REQUESTS];
+        for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+            responses[i] = s.client.sendAsync(s.request, HttpResponse.BodyHandlers.discarding());
+        }
+        CompletableFuture.allOf(responses).join();
+    }
+}
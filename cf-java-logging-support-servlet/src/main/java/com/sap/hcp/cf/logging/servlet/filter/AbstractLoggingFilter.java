@@ -1,5 +1,6 @@
 package com.sap.hcp.cf.logging.servlet.filter;
 
+import com.sap.hcp.cf.logging.common.LogContext;
 import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -12,12 +13,32 @@ public abstract class AbstractLoggingFilter implements Filter {
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
             throws IOException, ServletException {
         if (request instanceof HttpServletRequest && response instanceof HttpServletResponse) {
-            doFilterRequest((HttpServletRequest) request, (HttpServletResponse) response, chain);
+            HttpServletRequest httpRequest = (HttpServletRequest) request;
+            HttpServletResponse httpResponse = (HttpServletResponse) response;
+            if (LogContext.needsScope()) {
+                doFilterRequestInScope(httpRequest, httpResponse, chain);
+            } else {
+                doFilterRequest(httpRequest, httpResponse, chain);
+            }
         } else {
             chain.doFilter(request, response);
         }
     }
 
+    /*
+     * -- the first logging filter opens the scope of the request for a scoped LogContext backend
+     */
+    private void doFilterRequestInScope(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        try {
+            LogContext.runInScope(null, () -> doFilterRequest(request, response, chain));
+        } catch (IOException | ServletException | RuntimeException cause) {
+            throw cause;
+        } catch (Exception cause) {
+            throw new ServletException(cause);
+        }
+    }
+
     /**
      * Provides a default implementation for handling servlet requests already cast to {@link HttpServletRequest} and
      * {@link HttpServletResponse}. Custom implementations of {@link AbstractLoggingFilter} should overwrite
@@ -51,21 +51,30 @@ public class CorrelationIdFilter extends AbstractLoggingFilter {
             correlationId = getCorrelationIdFromTraceparent(request);
         }
         if (isBlankOrDefault(correlationId)) {
-            correlationId = String.valueOf(UUID.randomUUID());
-            // add correlation-id as custom field, since it is added to MDC only
-            // in the next step
-            LOG.debug("Generated new correlation-id <{}>", correlationId,
-                      customField(correlationHeader.getField(), correlationId));
+            correlationId = generateCorrelationId();
         }
         return correlationId;
     }
 
-    private static boolean isBlankOrDefault(String value) {
+    // package-private for the FusedRequestLoggingFilter
+    String generateCorrelationId() {
+        String correlationId = String.valueOf(UUID.randomUUID());
+        // add correlation-id as custom field, since it is added to MDC only
+        // in the next step
+        LOG.debug("Generated new correlation-id <{}>", correlationId,
+                  customField(correlationHeader.getField(), correlationId));
+        return correlationId;
+    }
+
+    static boolean isBlankOrDefault(String value) {
         return value == null || value.isEmpty() || value.equals(Defaults.UNKNOWN);
     }
 
     private String getCorrelationIdFromTraceparent(HttpServletRequest request) {
-        String traceparent = HttpHeaderUtilities.getHeaderValue(request, traceparentHeader);
+        return getCorrelationIdFromTraceparent(HttpHeaderUtilities.getHeaderValue(request, traceparentHeader));
+    }
+
+    static String getCorrelationIdFromTraceparent(String traceparent) {
         return isBlankOrDefault(traceparent) ? null : parseTraceparent(traceparent);
     }
 
@@ -82,7 +91,7 @@ public class CorrelationIdFilter extends AbstractLoggingFilter {
         return null;
     }
 
-    private void addCorrelationIdHeader(HttpServletResponse response, String correlationId) {
+    void addCorrelationIdHeader(HttpServletResponse response, String correlationId) {
         if (!response.isCommitted() && response.getHeader(correlationHeader.getName()) == null) {
             response.setHeader(correlationHeader.getName(), correlationId);
         }
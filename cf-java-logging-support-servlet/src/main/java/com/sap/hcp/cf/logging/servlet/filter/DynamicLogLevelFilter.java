@@ -1,5 +1,6 @@
 package com.sap.hcp.cf.logging.servlet.filter;
 
+import com.sap.hcp.cf.logging.common.LogContext;
 import com.sap.hcp.cf.logging.common.helper.DynamicLogLevelHelper;
 import com.sap.hcp.cf.logging.servlet.dynlog.api.DynamicLogLevelConfiguration;
 import com.sap.hcp.cf.logging.servlet.dynlog.api.DynamicLogLevelProvider;
@@ -7,7 +8,6 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.MDC;
 
 import java.util.Arrays;
 import java.util.HashSet;
@@ -18,7 +18,7 @@ import java.util.stream.Collectors;
 /**
  * The {@link DynamicLogLevelFilter} provides an adapter to all registered {@link DynamicLogLevelProvider}. For each
  * incoming HTTP requests it calls the providers to obtain a {@link DynamicLogLevelConfiguration} which is applied to
- * the MDC. These parameters are evaluated by the logging filters for Logback and Log4j2.
+ * the {@link LogContext}. These parameters are evaluated by the logging filters for Logback and Log4j2.
  */
 public class DynamicLogLevelFilter extends AbstractLoggingFilter {
 
@@ -32,19 +32,29 @@ public class DynamicLogLevelFilter extends AbstractLoggingFilter {
 
     @Override
     protected void beforeFilter(HttpServletRequest request, HttpServletResponse response) {
+        DynamicLogLevelConfiguration config = getConfiguration(request);
+        if (config != null) {
+            LogContext.add(DynamicLogLevelHelper.MDC_DYNAMIC_LOG_LEVEL_KEY, config.level());
+            if (config.packages() != null) {
+                LogContext.add(DynamicLogLevelHelper.MDC_DYNAMIC_LOG_LEVEL_PREFIXES, config.packages());
+            }
+        }
+    }
+
+    /*
+     * -- returns the first valid configuration or null, package-private for the FusedRequestLoggingFilter
+     */
+    DynamicLogLevelConfiguration getConfiguration(HttpServletRequest request) {
         for (DynamicLogLevelProvider provider: getDynamicLogLevelProviders()) {
             var config = provider.apply(request);
             if (isValid(config)) {
-                MDC.put(DynamicLogLevelHelper.MDC_DYNAMIC_LOG_LEVEL_KEY, config.level());
-                if (config.packages() != null) {
-                    MDC.put(DynamicLogLevelHelper.MDC_DYNAMIC_LOG_LEVEL_PREFIXES, config.packages());
-                }
-                return;
+                return config;
             } else {
                 LOG.trace("Invalid dynamic log level token encountered.");
             }
 
         }
+        return null;
     }
 
     private static boolean isValid(DynamicLogLevelConfiguration config) {
@@ -56,8 +66,8 @@ public class DynamicLogLevelFilter extends AbstractLoggingFilter {
 
     @Override
     protected void cleanup(HttpServletRequest request, HttpServletResponse response) {
-        MDC.remove(DynamicLogLevelHelper.MDC_DYNAMIC_LOG_LEVEL_KEY);
-        MDC.remove(DynamicLogLevelHelper.MDC_DYNAMIC_LOG_LEVEL_PREFIXES);
+        LogContext.remove(DynamicLogLevelHelper.MDC_DYNAMIC_LOG_LEVEL_KEY);
+        LogContext.remove(DynamicLogLevelHelper.MDC_DYNAMIC_LOG_LEVEL_PREFIXES);
     }
 
     private static class DynamicLogLevelProvidersHolder {
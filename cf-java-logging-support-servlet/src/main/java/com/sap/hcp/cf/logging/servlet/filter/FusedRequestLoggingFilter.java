@@ -0,0 +1,261 @@
+package com.sap.hcp.cf.logging.servlet.filter;
+
+import com.sap.hcp.cf.logging.common.Fields;
+import com.sap.hcp.cf.logging.common.LogContext;
+import com.sap.hcp.cf.logging.common.VcapEnvReader;
+import com.sap.hcp.cf.logging.common.context.ContextFields;
+import com.sap.hcp.cf.logging.common.helper.DynamicLogLevelHelper;
+import com.sap.hcp.cf.logging.common.request.HttpHeader;
+import com.sap.hcp.cf.logging.common.request.HttpHeaders;
+import com.sap.hcp.cf.logging.servlet.dynlog.api.DynamicLogLevelConfiguration;
+import com.sap.hcp.cf.logging.servlet.dynlog.api.DynamicLogLevelProvider;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.FilterConfig;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * <p>
+ * The {@link FusedRequestLoggingFilter} behaves like the {@link RequestLoggingFilter}, but does the work of its five
+ * grouped filters in a single pass. It reads every propagated HTTP header once, adds the VCAP fields, the headers and
+ * the correlation id to the log context in one operation and removes all of them together, after the request log was
+ * written. There is no intermediate filter chain.
+ * </p>
+ * <p>
+ * Log messages written while the correlation id is generated or the dynamic log level is determined see the same
+ * context as with the {@link RequestLoggingFilter}. If a {@link DynamicLogLevelProvider} is registered, the fields are
+ * therefore added before the providers are called and the dynamic log level is added in a second operation.
+ * </p>
+ * <p>
+ * Use the {@link RequestLoggingFilter} or a {@link CompositeFilter}, if you need to customize the grouped filters.
+ * </p>
+ */
+public class FusedRequestLoggingFilter extends AbstractLoggingFilter {
+
+    private final CorrelationIdFilter correlationIdFilter = new CorrelationIdFilter();
+    private final DynamicLogLevelFilter dynamicLogLevelFilter = new DynamicLogLevelFilter();
+    private final GenerateRequestLogFilter generateRequestLogFilter;
+
+    /*
+     * -- all fields, that can be added, sorted for ContextFields.of(keys, values)
+     */
+    private final String[] fieldKeys;
+    private final int correlationIdIndex;
+    private final int traceparentIndex;
+    private final int dynamicLogLevelIndex;
+    private final int dynamicLogLevelPrefixesIndex;
+    private final DefaultFields vcapFields;
+    private final DefaultFields contextFieldDefaults;
+    private final String[] headerNames;
+    private final PropagatedHeader[] headers;
+    private final List<String> cleanupKeys;
+
+    public FusedRequestLoggingFilter() {
+        this(new GenerateRequestLogFilter());
+    }
+
+    public FusedRequestLoggingFilter(RequestRecordFactory requestRecordFactory) {
+        this(new GenerateRequestLogFilter(requestRecordFactory));
+    }
+
+    private FusedRequestLoggingFilter(GenerateRequestLogFilter generateRequestLogFilter) {
+        this.generateRequestLogFilter = generateRequestLogFilter;
+
+        /*
+         * -- the VCAP fields are added like LogContext.loadContextFields() does it: the environment only, if the
+         * context was not bootstrapped yet, then the defaults of all missing context fields
+         */
+        Map<String, String> vcap = new LinkedHashMap<>();
+        Map<String, String> defaults = new LinkedHashMap<>();
+        VcapEnvReader.getEnvMap().forEach((key, value) -> {
+            if (value != null) {
+                vcap.put(key, value);
+            }
+        });
+        for (String key: LogContext.getContextFieldsKeys()) {
+            String value = LogContext.getDefault(key);
+            if (value != null) {
+                vcap.putIfAbsent(key, value);
+                defaults.put(key, value);
+            }
+        }
+
+        List<HttpHeader> propagated = new ArrayList<>(HttpHeaders.propagated());
+        Set<String> keys = new TreeSet<>(vcap.keySet());
+        for (HttpHeader header: propagated) {
+            keys.add(header.getField());
+        }
+        keys.add(DynamicLogLevelHelper.MDC_DYNAMIC_LOG_LEVEL_KEY);
+        keys.add(DynamicLogLevelHelper.MDC_DYNAMIC_LOG_LEVEL_PREFIXES);
+        this.fieldKeys = keys.toArray(new String[0]);
+        this.correlationIdIndex = indexOf(HttpHeaders.CORRELATION_ID.getField());
+        this.traceparentIndex = indexOf(HttpHeaders.W3C_TRACEPARENT.getField());
+        this.dynamicLogLevelIndex = indexOf(DynamicLogLevelHelper.MDC_DYNAMIC_LOG_LEVEL_KEY);
+        this.dynamicLogLevelPrefixesIndex = indexOf(DynamicLogLevelHelper.MDC_DYNAMIC_LOG_LEVEL_PREFIXES);
+        this.vcapFields = new DefaultFields(vcap);
+        this.contextFieldDefaults = new DefaultFields(defaults);
+
+        Map<String, Integer> nameIndices = new LinkedHashMap<>();
+        this.headers = new PropagatedHeader[propagated.size()];
+        for (int i = 0; i < headers.length; i++) {
+            HttpHeader header = propagated.get(i);
+            int[] indices = new int[1 + header.getAliases().size()];
+            indices[0] = nameIndices.computeIfAbsent(header.getName(), name -> nameIndices.size());
+            for (int j = 1; j < indices.length; j++) {
+                indices[j] = nameIndices.computeIfAbsent(header.getAliases().get(j - 1).getName(),
+                                                         name -> nameIndices.size());
+            }
+            headers[i] = new PropagatedHeader(indexOf(header.getField()), indices);
+        }
+        this.headerNames = nameIndices.keySet().toArray(new String[0]);
+
+        /*
+         * -- the keys removed by the cleanup of the grouped filters
+         */
+        Set<String> removed = new LinkedHashSet<>();
+        removed.add(DynamicLogLevelHelper.MDC_DYNAMIC_LOG_LEVEL_KEY);
+        removed.add(DynamicLogLevelHelper.MDC_DYNAMIC_LOG_LEVEL_PREFIXES);
+        removed.add(HttpHeaders.CORRELATION_ID.getField());
+        for (HttpHeader header: propagated) {
+            removed.add(header.getField());
+        }
+        removed.addAll(LogContext.getContextFieldsKeys());
+        this.cleanupKeys = List.copyOf(removed);
+    }
+
+    private int indexOf(String key) {
+        return Arrays.binarySearch(fieldKeys, key);
+    }
+
+    /**
+     * Forwards the {@link FilterConfig} to the request log generation, see {@link GenerateRequestLogFilter}.
+     */
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        generateRequestLogFilter.init(filterConfig);
+    }
+
+    @Override
+    protected void doFilterRequest(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        try {
+            addContextFields(request, response);
+            generateRequestLogFilter.doFilterRequest(request, response, chain);
+        } finally {
+            LogContext.removeAll(cleanupKeys);
+        }
+    }
+
+    private void addContextFields(HttpServletRequest request, HttpServletResponse response) {
+        String[] headerValues = new String[headerNames.length];
+        for (int i = 0; i < headerNames.length; i++) {
+            headerValues[i] = request.getHeader(headerNames[i]);
+        }
+
+        String[] values = new String[fieldKeys.length];
+        DefaultFields missing = LogContext.get(Fields.COMPONENT_ID) == null ? vcapFields : contextFieldDefaults;
+        missing.addTo(values, fieldKeys);
+        for (PropagatedHeader header: headers) {
+            String value = header.resolve(headerValues, values, fieldKeys);
+            if (value != null) {
+                values[header.fieldIndex] = value;
+            }
+        }
+
+        String correlationId = values[correlationIdIndex];
+        if (CorrelationIdFilter.isBlankOrDefault(correlationId)) {
+            correlationId = CorrelationIdFilter.getCorrelationIdFromTraceparent(values[traceparentIndex]);
+        }
+        if (CorrelationIdFilter.isBlankOrDefault(correlationId)) {
+            flush(values);
+            correlationId = correlationIdFilter.generateCorrelationId();
+        }
+        values[correlationIdIndex] = correlationId;
+        correlationIdFilter.addCorrelationIdHeader(response, correlationId);
+
+        if (!DynamicLogLevelFilter.getDynamicLogLevelProviders().isEmpty()) {
+            flush(values);
+            DynamicLogLevelConfiguration config = dynamicLogLevelFilter.getConfiguration(request);
+            if (config != null) {
+                values[dynamicLogLevelIndex] = config.level();
+                values[dynamicLogLevelPrefixesIndex] = config.packages();
+            }
+        }
+        flush(values);
+    }
+
+    private void flush(String[] values) {
+        ContextFields fields = ContextFields.of(fieldKeys, values);
+        if (!fields.isEmpty()) {
+            LogContext.addAll(fields);
+        }
+        Arrays.fill(values, null);
+    }
+
+    /*
+     * -- fields, that are added with a fixed value, if they are missing in the log context
+     */
+    private final class DefaultFields {
+
+        private final int[] indices;
+        private final String[] values;
+
+        private DefaultFields(Map<String, String> fields) {
+            this.indices = new int[fields.size()];
+            this.values = new String[fields.size()];
+            int i = 0;
+            for (Entry<String, String> field: fields.entrySet()) {
+                indices[i] = indexOf(field.getKey());
+                values[i++] = field.getValue();
+            }
+        }
+
+        private void addTo(String[] target, String[] keys) {
+            for (int i = 0; i < indices.length; i++) {
+                if (LogContext.get(keys[indices[i]]) == null) {
+                    target[indices[i]] = values[i];
+                }
+            }
+        }
+    }
+
+    /*
+     * -- a propagated header with the positions of its name and aliases in the header values read from the request
+     */
+    private static final class PropagatedHeader {
+
+        private final int fieldIndex;
+        private final int[] nameIndices;
+
+        private PropagatedHeader(int fieldIndex, int[] nameIndices) {
+            this.fieldIndex = fieldIndex;
+            this.nameIndices = nameIndices;
+        }
+
+        /*
+         * -- same lookup as HttpHeaderUtilities.getHeaderValue(request, header)
+         */
+        private String resolve(String[] headerValues, String[] values, String[] keys) {
+            for (int index: nameIndices) {
+                if (headerValues[index] != null) {
+                    return headerValues[index];
+                }
+            }
+            String value = values[fieldIndex];
+            return value != null ? value : LogContext.get(keys[fieldIndex]);
+        }
+    }
+
+}
@@ -13,10 +13,10 @@ import java.io.IOException;
 
 /**
  * The {@link GenerateRequestLogFilter} writes a log message for each incoming request. The message contains metadata
- * and metrics about request and response. It adds the {@link MDC} as a request attribute and wraps the request to
- * support asynchronous request handling. Additionally request and response are wrapped once more to determine request
- * and response sizes. You can disable this second wrapping by setting the init parameters <i>wrapRequest</i> and
- * <i>wrapResponse</i> to {@code false}.
+ * and metrics about request and response. It adds a {@link RequestContextSnapshot} of the {@link MDC} as a request
+ * attribute and wraps the request to support asynchronous request handling. Additionally request and response are
+ * wrapped once more to determine request and response sizes. You can disable this second wrapping by setting the init
+ * parameters <i>wrapRequest</i> and <i>wrapResponse</i> to {@code false}.
  */
 
 public class GenerateRequestLogFilter extends AbstractLoggingFilter {
@@ -61,7 +61,7 @@ public class GenerateRequestLogFilter extends AbstractLoggingFilter {
         }
 
         RequestRecord record = requestRecordFactory.create(request);
-        request.setAttribute(MDC.class.getName(), MDC.getCopyOfContextMap());
+        RequestContextSnapshot.capture().attachTo(request);
 
         if (wrapRequest) {
             request = new ContentLengthTrackingRequestWrapper(request);
@@ -6,9 +6,9 @@ import org.slf4j.MDC;
 
 /**
  * <p>
- * The {@link LogContextToRequestAttributeFilter} adds the current {@link MDC} as a request attribute to the current
- * request. This helps with asynchronous request handling, where the MDC is not propagated correctly across thread
- * boundaries. The correct LogContext can be restored by
+ * The {@link LogContextToRequestAttributeFilter} adds a {@link RequestContextSnapshot} of the current {@link MDC} as a
+ * request attribute to the current request. This helps with asynchronous request handling, where the MDC is not
+ * propagated correctly across thread boundaries. The correct LogContext can be restored by
  * {@code MDC.setContextMap((Map<String, String>) httpRequest.getAttribute(MDC.class.getName()))}.
  * </p>
  *
@@ -22,7 +22,7 @@ public class LogContextToRequestAttributeFilter extends AbstractLoggingFilter {
 
     @Override
     protected void beforeFilter(HttpServletRequest request, HttpServletResponse response) {
-        request.setAttribute(MDC.class.getName(), MDC.getCopyOfContextMap());
+        RequestContextSnapshot.capture().attachTo(request);
     }
 
 }
@@ -1,11 +1,10 @@
 package com.sap.hcp.cf.logging.servlet.filter;
 
+import com.sap.hcp.cf.logging.common.LogContext;
+import com.sap.hcp.cf.logging.common.context.ContextFields;
 import jakarta.servlet.*;
-import org.slf4j.MDC;
 
 import java.io.IOException;
-import java.util.Collections;
-import java.util.Map;
 
 public class LoggingAsyncContextImpl implements AsyncContext {
 
@@ -36,38 +35,10 @@ public class LoggingAsyncContextImpl implements AsyncContext {
         });
     }
 
-    private Map<String, String> getContextMap() {
-        try {
-            @SuppressWarnings("unchecked") Map<String, String> fromRequest =
-                    (Map<String, String>) getRequest().getAttribute(MDC.class.getName());
-            return fromRequest != null ? fromRequest : Collections.emptyMap();
-        } catch (ClassCastException ignored) {
-            return Collections.emptyMap();
-        }
-    }
-
     @Override
     public void start(Runnable run) {
-        try {
-            Map<String, String> contextMap = getContextMap();
-            asyncContext.start(new Runnable() {
-
-                @Override
-                public void run() {
-                    Map<String, String> currentContextMap = MDC.getCopyOfContextMap();
-                    try {
-                        MDC.setContextMap(contextMap);
-                        run.run();
-                    } finally {
-                        if (currentContextMap != null) {
-                            MDC.setContextMap(currentContextMap);
-                        }
-                    }
-                }
-            });
-        } catch (ClassCastException ignored) {
-            asyncContext.start(run);
-        }
+        ContextFields fields = RequestContextSnapshot.from(getRequest()).getFields();
+        asyncContext.start(() -> LogContext.runWithContextFields(fields, run::run));
     }
 
     @Override
@@ -0,0 +1,114 @@
+package com.sap.hcp.cf.logging.servlet.filter;
+
+import com.sap.hcp.cf.logging.common.LogContext;
+import com.sap.hcp.cf.logging.common.context.ContextFields;
+import jakarta.servlet.ServletRequest;
+import org.slf4j.MDC;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable snapshot of the log context of a request. It is captured once, when the request enters the filter
+ * chain, and stored as request attribute {@code org.slf4j.MDC}. The request log and asynchronous request handling
+ * install the snapshot again with {@link LogContext#runWithContextFields} instead of copying a map.
+ * <p>
+ * The snapshot is a read-only {@link Map}, so that applications can still restore the context with
+ * {@code MDC.setContextMap((Map<String, String>) request.getAttribute(MDC.class.getName()))}.
+ */
+public final class RequestContextSnapshot extends AbstractMap<String, String> {
+
+    public static final String REQUEST_ATTRIBUTE = MDC.class.getName();
+
+    private static final RequestContextSnapshot EMPTY = new RequestContextSnapshot(ContextFields.EMPTY);
+
+    private final ContextFields fields;
+    private Set<Entry<String, String>> entrySet;
+
+    private RequestContextSnapshot(ContextFields fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * Captures the current log context. With the scoped backend the immutable fields of the scope are shared.
+     *
+     * @return the snapshot of the current log context
+     */
+    public static RequestContextSnapshot capture() {
+        return of(LogContext.getContextFields());
+    }
+
+    public static RequestContextSnapshot of(ContextFields fields) {
+        return fields == null || fields.isEmpty() ? EMPTY : new RequestContextSnapshot(fields);
+    }
+
+    /**
+     * Returns the snapshot stored as request attribute. A plain map stored by other code is converted.
+     *
+     * @param request
+     *         the request carrying the snapshot
+     * @return the snapshot, empty if there is none
+     */
+    public static RequestContextSnapshot from(ServletRequest request) {
+        Object attribute = request != null ? request.getAttribute(REQUEST_ATTRIBUTE) : null;
+        if (attribute instanceof RequestContextSnapshot) {
+            return (RequestContextSnapshot) attribute;
+        }
+        try {
+            @SuppressWarnings("unchecked") Map<String, String> contextMap = (Map<String, String>) attribute;
+            return of(ContextFields.of(contextMap));
+        } catch (ClassCastException ignored) {
+            return EMPTY;
+        }
+    }
+
+    /**
+     * Stores this snapshot as request attribute.
+     *
+     * @param request
+     *         the request to carry the snapshot
+     */
+    public void attachTo(ServletRequest request) {
+        request.setAttribute(REQUEST_ATTRIBUTE, this);
+    }
+
+    public ContextFields getFields() {
+        return fields;
+    }
+
+    @Override
+    public String get(Object key) {
+        return key instanceof String ? fields.get((String) key) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public int size() {
+        return fields.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return fields.isEmpty();
+    }
+
+    /*
+     * -- only needed by callers, that iterate the map, so it is created lazily
+     */
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        Set<Entry<String, String>> result = entrySet;
+        if (result == null) {
+            result = Collections.unmodifiableMap(fields.toMap()).entrySet();
+            entrySet = result;
+        }
+        return result;
+    }
+
+}
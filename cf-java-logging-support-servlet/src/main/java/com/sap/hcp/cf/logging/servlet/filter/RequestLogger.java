@@ -2,6 +2,7 @@ package com.sap.hcp.cf.logging.servlet.filter;
 
 import com.sap.hcp.cf.logging.common.Defaults;
 import com.sap.hcp.cf.logging.common.Fields;
+import com.sap.hcp.cf.logging.common.LogContext;
 import com.sap.hcp.cf.logging.common.LongValue;
 import com.sap.hcp.cf.logging.common.Markers;
 import com.sap.hcp.cf.logging.common.request.HttpHeaders;
@@ -10,10 +11,6 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.MDC;
-
-import java.util.Collections;
-import java.util.Map;
 
 import static com.sap.hcp.cf.logging.servlet.filter.HttpHeaderUtilities.getHeaderValue;
 
@@ -70,26 +67,8 @@ public class RequestLogger {
     }
 
     private void generateLog() {
-        Map<String, String> contextMap = getContextMap();
-        Map<String, String> currentContextMap = MDC.getCopyOfContextMap();
-        try {
-            MDC.setContextMap(contextMap);
-            LOG.info(Markers.REQUEST_MARKER, "", requestRecord);
-        } finally {
-            if (currentContextMap != null) {
-                MDC.setContextMap(currentContextMap);
-            }
-        }
-    }
-
-    private Map<String, String> getContextMap() {
-        try {
-            @SuppressWarnings("unchecked") Map<String, String> fromRequest =
-                    (Map<String, String>) httpRequest.getAttribute(MDC.class.getName());
-            return fromRequest != null ? fromRequest : Collections.emptyMap();
-        } catch (ClassCastException ignored) {
-            return Collections.emptyMap();
-        }
+        LogContext.runWithContextFields(RequestContextSnapshot.from(httpRequest).getFields(),
+                                        () -> LOG.info(Markers.REQUEST_MARKER, "", requestRecord));
     }
 
 }
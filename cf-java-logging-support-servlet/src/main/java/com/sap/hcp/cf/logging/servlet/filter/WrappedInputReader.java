@@ -4,6 +4,10 @@ import java.io.FilterReader;
 import java.io.IOException;
 import java.io.Reader;
 
+/**
+ * Counts the characters read from the request body. The counters are confined to the thread reading the body and need
+ * no synchronization, which would pin a virtual thread to its carrier.
+ */
 public class WrappedInputReader extends FilterReader {
 
     private int contentLength = -1;
@@ -52,17 +56,13 @@ public class WrappedInputReader extends FilterReader {
     @Override
     public void mark(int readAheadLimit) throws IOException {
         super.mark(readAheadLimit);
-        synchronized (lock) {
-            this.markContentLength = contentLength;
-        }
+        this.markContentLength = contentLength;
     }
 
     @Override
     public void reset() throws IOException {
         super.reset();
-        synchronized (lock) {
-            this.contentLength = markContentLength;
-        }
+        this.contentLength = markContentLength;
     }
 
     private void incrContentLength(int i) {
@@ -6,7 +6,8 @@ import jakarta.servlet.ServletInputStream;
 import java.io.IOException;
 
 /**
- *
+ * Counts the bytes read from the request body. The counters are confined to the thread reading the body and need no
+ * synchronization, which would pin a virtual thread to its carrier.
  */
 public class WrappedInputStream extends ServletInputStream {
 
@@ -91,13 +92,13 @@ public class WrappedInputStream extends ServletInputStream {
     }
 
     @Override
-    public synchronized void mark(int readAheadLimit) {
+    public void mark(int readAheadLimit) {
         wrappedStream.mark(readAheadLimit);
         this.markContentLength = this.contentLength;
     }
 
     @Override
-    public synchronized void reset() throws IOException {
+    public void reset() throws IOException {
         wrappedStream.reset();
         this.contentLength = this.markContentLength;
     }
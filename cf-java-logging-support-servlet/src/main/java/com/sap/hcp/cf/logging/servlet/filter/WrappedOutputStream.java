@@ -5,6 +5,10 @@ import jakarta.servlet.WriteListener;
 
 import java.io.IOException;
 
+/**
+ * Counts the bytes written to the response body. The counter is confined to the thread writing the response and needs
+ * no synchronization, which would pin a virtual thread to its carrier.
+ */
 public class WrappedOutputStream extends ServletOutputStream {
 
     private final ServletOutputStream wrappedStream;
@@ -1,19 +1,29 @@
 package com.sap.hcp.cf.logging.servlet.filter;
 
+import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.PrintWriter;
 import java.io.Writer;
+import java.util.Formatter;
+import java.util.Locale;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Counts the characters written to the response writer. All methods of {@link PrintWriter}, that would enter the
+ * monitor of {@link #lock}, are overridden to use a {@link ReentrantLock} instead. A monitor pins a virtual thread to
+ * its carrier, while it blocks on a slow client, the lock does not.
+ */
 public class WrappedPrintWriter extends PrintWriter {
 
     private static String LS_PROPERTY = "line.separator";
     private static String NEWLINE = "\n";
-    private final Object lock;
+    private final ReentrantLock writeLock = new ReentrantLock();
     private long contentLength = -1;
     private String lineSeparator;
+    private Formatter formatter;
 
     public WrappedPrintWriter(Writer out) {
         super(out);
-        lock = this;
         try {
             lineSeparator = System.getProperty(LS_PROPERTY, NEWLINE);
         } catch (Exception ex) {
@@ -23,17 +33,31 @@ public class WrappedPrintWriter extends PrintWriter {
 
     @Override
     public void write(int c) {
-        synchronized (lock) {
-            super.write(c);
-            incrContentLength(1);
+        writeLock.lock();
+        try {
+            if (isOpen()) {
+                out.write(c);
+                incrContentLength(1);
+            }
+        } catch (IOException ex) {
+            handle(ex);
+        } finally {
+            writeLock.unlock();
         }
     }
 
     @Override
     public void write(char[] buf, int off, int len) {
-        synchronized (lock) {
-            super.write(buf, off, len);
-            incrContentLength(len);
+        writeLock.lock();
+        try {
+            if (isOpen()) {
+                out.write(buf, off, len);
+                incrContentLength(len);
+            }
+        } catch (IOException ex) {
+            handle(ex);
+        } finally {
+            writeLock.unlock();
         }
     }
 
@@ -44,9 +68,16 @@ public class WrappedPrintWriter extends PrintWriter {
 
     @Override
     public void write(String s, int off, int len) {
-        synchronized (lock) {
-            super.write(s, off, len);
-            incrContentLength(len - off);
+        writeLock.lock();
+        try {
+            if (isOpen()) {
+                out.write(s, off, len);
+                incrContentLength(len);
+            }
+        } catch (IOException ex) {
+            handle(ex);
+        } finally {
+            writeLock.unlock();
         }
     }
 
@@ -55,15 +86,180 @@ public class WrappedPrintWriter extends PrintWriter {
         write(s, 0, s.length());
     }
 
+    @Override
+    public void flush() {
+        writeLock.lock();
+        try {
+            if (isOpen()) {
+                out.flush();
+            }
+        } catch (IOException ex) {
+            handle(ex);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        writeLock.lock();
+        try {
+            if (out != null) {
+                out.close();
+                out = null;
+            }
+        } catch (IOException ex) {
+            handle(ex);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
     @Override
     public void println() {
         write(lineSeparator);
     }
 
+    @Override
+    public void println(boolean x) {
+        writeLock.lock();
+        try {
+            print(x);
+            println();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void println(char x) {
+        writeLock.lock();
+        try {
+            print(x);
+            println();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void println(int x) {
+        writeLock.lock();
+        try {
+            print(x);
+            println();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void println(long x) {
+        writeLock.lock();
+        try {
+            print(x);
+            println();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void println(float x) {
+        writeLock.lock();
+        try {
+            print(x);
+            println();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void println(double x) {
+        writeLock.lock();
+        try {
+            print(x);
+            println();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void println(char[] x) {
+        writeLock.lock();
+        try {
+            print(x);
+            println();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void println(String x) {
+        writeLock.lock();
+        try {
+            print(x);
+            println();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void println(Object x) {
+        String s = String.valueOf(x);
+        writeLock.lock();
+        try {
+            print(s);
+            println();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public PrintWriter format(String format, Object... args) {
+        return format(Locale.getDefault(Locale.Category.FORMAT), format, args);
+    }
+
+    @Override
+    public PrintWriter format(Locale l, String format, Object... args) {
+        writeLock.lock();
+        try {
+            if (isOpen()) {
+                if (formatter == null) {
+                    formatter = new Formatter(this);
+                }
+                formatter.format(l, format, args);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        return this;
+    }
+
     public long getContentLength() {
         return contentLength;
     }
 
+    private boolean isOpen() {
+        if (out == null) {
+            setError();
+            return false;
+        }
+        return true;
+    }
+
+    private void handle(IOException ex) {
+        if (ex instanceof InterruptedIOException) {
+            Thread.currentThread().interrupt();
+        }
+        setError();
+    }
+
     private void incrContentLength(int i) {
         /*
          * -- we wanted to be clever in previous versions and do a checkError()
@@ -2,7 +2,6 @@ package com.sap.hcp.cf.logging.servlet.filter;
 
 import com.sap.hcp.cf.logging.common.helper.DynamicLogLevelHelper;
 import com.sap.hcp.cf.logging.servlet.dynlog.api.DynamicLogLevelConfiguration;
-import com.sap.hcp.cf.logging.servlet.dynlog.api.DynamicLogLevelProvider;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -16,7 +15,6 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.slf4j.MDC;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Stream;
 
@@ -133,32 +131,4 @@ public class DynamicLogLevelFilterTest {
         return DynamicLogLevelFilter.getDynamicLogLevelProviders().stream()
                                     .filter(p -> p instanceof MockLogLevelProvider).map(p -> (MockLogLevelProvider) p);
     }
-
-    public static class MockLogLevelProvider implements DynamicLogLevelProvider {
-
-        private DynamicLogLevelConfiguration config = DynamicLogLevelConfiguration.EMPTY;
-
-        private final List<HttpServletRequest> requests = new ArrayList<>();
-
-        public MockLogLevelProvider() {
-        }
-
-        private void setConfig(DynamicLogLevelConfiguration config) {
-            this.config = config;
-        }
-
-        private void reset() {
-            requests.clear();
-        }
-
-        @Override
-        public DynamicLogLevelConfiguration apply(HttpServletRequest request) {
-            requests.add(request);
-            return config;
-        }
-
-        private List<HttpServletRequest> getRequests() {
-            return requests;
-        }
-    }
 }
@@ -0,0 +1,209 @@
+package com.sap.hcp.cf.logging.servlet.filter;
+
+import com.sap.hcp.cf.logging.common.Fields;
+import com.sap.hcp.cf.logging.common.helper.ConsoleExtension;
+import com.sap.hcp.cf.logging.common.helper.ConsoleExtension.ConsoleOutput;
+import com.sap.hcp.cf.logging.common.request.HttpHeaders;
+import com.sap.hcp.cf.logging.servlet.dynlog.api.DynamicLogLevelConfiguration;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Named;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.MDC;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static com.sap.hcp.cf.logging.common.helper.ConsoleAssertions.assertLastEventFields;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith({ MockitoExtension.class, ConsoleExtension.class })
+public class FusedRequestLoggingFilterTest {
+
+    private static final String CORRELATION_ID = "xxx-56-7890-xxx";
+    private static final String REQUEST_ID = "1234-56-7890-xxx";
+    private static final String TENANT_ID = "tenant1";
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+    private static final String W3C_TRACEPARENT = "00-" + TRACE_ID + "-00f067aa0ba902b7-01";
+    private static final Pattern GENERATED_ID =
+            Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+
+    @Mock
+    private HttpServletRequest request;
+    @Mock
+    private HttpServletResponse response;
+    @Mock
+    private FilterChain chain;
+
+    private ContextMapExtractor mdcExtractor;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        MDC.clear();
+        mdcExtractor = new ContextMapExtractor();
+        doAnswer(mdcExtractor).when(chain).doFilter(any(), any());
+    }
+
+    @AfterEach
+    public void clearMdc() {
+        MDC.clear();
+        DynamicLogLevelFilter.getDynamicLogLevelProviders().stream().filter(p -> p instanceof MockLogLevelProvider)
+                             .map(p -> (MockLogLevelProvider) p).forEach(p -> {
+                                 p.setConfig(DynamicLogLevelConfiguration.EMPTY);
+                                 p.reset();
+                             });
+    }
+
+    @Test
+    public void addsHeadersAndCorrelationIdToContext() throws Exception {
+        when(request.getHeader(HttpHeaders.CORRELATION_ID.getName())).thenReturn(CORRELATION_ID);
+        when(request.getHeader(HttpHeaders.X_VCAP_REQUEST_ID.getName())).thenReturn(REQUEST_ID);
+        when(request.getHeader(HttpHeaders.TENANT_ID.getName())).thenReturn(TENANT_ID);
+
+        new FusedRequestLoggingFilter().doFilter(request, response, chain);
+
+        assertThat(mdcExtractor.getContextMap()).containsEntry(Fields.CORRELATION_ID, CORRELATION_ID)
+                                                .containsEntry(Fields.REQUEST_ID, REQUEST_ID)
+                                                .containsEntry(Fields.TENANT_ID, TENANT_ID);
+        verify(response).setHeader(HttpHeaders.CORRELATION_ID.getName(), CORRELATION_ID);
+    }
+
+    @Test
+    public void usesRequestIdAsCorrelationId() throws Exception {
+        when(request.getHeader(HttpHeaders.X_VCAP_REQUEST_ID.getName())).thenReturn(REQUEST_ID);
+
+        new FusedRequestLoggingFilter().doFilter(request, response, chain);
+
+        assertThat(mdcExtractor.getField(Fields.CORRELATION_ID)).isEqualTo(REQUEST_ID);
+    }
+
+    @Test
+    public void derivesCorrelationIdFromTraceparent() throws Exception {
+        when(request.getHeader(HttpHeaders.W3C_TRACEPARENT.getName())).thenReturn(W3C_TRACEPARENT);
+
+        new FusedRequestLoggingFilter().doFilter(request, response, chain);
+
+        assertThat(mdcExtractor.getContextMap()).containsEntry(Fields.W3C_TRACEPARENT, W3C_TRACEPARENT)
+                                                .containsEntry(Fields.CORRELATION_ID, TRACE_ID);
+    }
+
+    @Test
+    public void writesRequestLogWithGeneratedCorrelationId(ConsoleOutput console) throws Exception {
+        new FusedRequestLoggingFilter().doFilter(request, response, chain);
+
+        ArgumentCaptor<String> header = ArgumentCaptor.forClass(String.class);
+        verify(response).setHeader(eq(HttpHeaders.CORRELATION_ID.getName()), header.capture());
+        assertThat(header.getValue()).isNotBlank().isEqualTo(mdcExtractor.getField(Fields.CORRELATION_ID));
+        assertLastEventFields(console).containsEntry(Fields.CORRELATION_ID, header.getValue())
+                                      .doesNotContainKey(Fields.TENANT_ID);
+    }
+
+    @Test
+    public void removesAddedFieldsAfterFiltering() throws Exception {
+        MDC.put("unrelated", "kept");
+        when(request.getHeader(HttpHeaders.TENANT_ID.getName())).thenReturn(TENANT_ID);
+
+        new FusedRequestLoggingFilter().doFilter(request, response, chain);
+
+        assertThat(mdcExtractor.getContextMap()).containsEntry("unrelated", "kept");
+        assertThat(MDC.getCopyOfContextMap()).isEqualTo(Map.of("unrelated", "kept"));
+    }
+
+    @ParameterizedTest(name = "{0} with {1} and {2}")
+    @MethodSource("requestsAndContexts")
+    public void behavesLikeRequestLoggingFilter(Map<String, String> headers, Map<String, String> context,
+                                                DynamicLogLevelConfiguration dynamicLogLevel) throws Exception {
+        DynamicLogLevelFilter.getDynamicLogLevelProviders().stream().filter(p -> p instanceof MockLogLevelProvider)
+                             .forEach(p -> ((MockLogLevelProvider) p).setConfig(dynamicLogLevel));
+
+        Observation expected = observe(new RequestLoggingFilter(), headers, context);
+        Observation actual = observe(new FusedRequestLoggingFilter(), headers, context);
+
+        assertThat(actual.contextInChain()).isEqualTo(expected.contextInChain());
+        assertThat(actual.correlationIdHeader()).isEqualTo(expected.correlationIdHeader());
+        assertThat(actual.contextAfterwards()).isEqualTo(expected.contextAfterwards());
+    }
+
+    private static Stream<Arguments> requestsAndContexts() {
+        List<Named<Map<String, String>>> requests = List.of( //
+                Named.of("no headers", Map.of()), //
+                Named.of("all headers", Map.of(HttpHeaders.CORRELATION_ID.getName(), CORRELATION_ID,
+                                               HttpHeaders.X_VCAP_REQUEST_ID.getName(), REQUEST_ID,
+                                               HttpHeaders.TENANT_ID.getName(), TENANT_ID,
+                                               HttpHeaders.W3C_TRACEPARENT.getName(), W3C_TRACEPARENT)), //
+                Named.of("request id", Map.of(HttpHeaders.X_VCAP_REQUEST_ID.getName(), REQUEST_ID)), //
+                Named.of("traceparent", Map.of(HttpHeaders.W3C_TRACEPARENT.getName(), W3C_TRACEPARENT)), //
+                Named.of("default correlation id", Map.of(HttpHeaders.CORRELATION_ID.getName(), "-",
+                                                          HttpHeaders.W3C_TRACEPARENT.getName(), W3C_TRACEPARENT)));
+        List<Named<Map<String, String>>> contexts = List.of( //
+                Named.of("empty context", Map.of()), //
+                Named.of("unrelated context", Map.of("unrelated", "kept")), //
+                Named.of("existing context",
+                         Map.of(Fields.CORRELATION_ID, "existing-id", Fields.TENANT_ID, "existing-tenant")), //
+                Named.of("bootstrapped context",
+                         Map.of(Fields.COMPONENT_ID, "bootstrapped-app", Fields.COMPONENT_NAME, "bootstrapped-name")));
+        List<Named<DynamicLogLevelConfiguration>> dynamicLogLevels = List.of( //
+                Named.of("no dynamic log level", DynamicLogLevelConfiguration.EMPTY), //
+                Named.of("dynamic log level", new DynamicLogLevelConfiguration("DEBUG", "my.package")), //
+                Named.of("dynamic log level without packages", new DynamicLogLevelConfiguration("TRACE", null)));
+        return requests.stream().flatMap(request -> contexts.stream().flatMap(
+                context -> dynamicLogLevels.stream().map(level -> Arguments.of(request, context, level))));
+    }
+
+    private static Observation observe(Filter filter, Map<String, String> headers, Map<String, String> context)
+            throws Exception {
+        MDC.clear();
+        context.forEach(MDC::put);
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        FilterChain chain = mock(FilterChain.class);
+        when(request.getHeader(anyString())).thenAnswer(invocation -> headers.get(invocation.<String>getArgument(0)));
+        ContextMapExtractor extractor = new ContextMapExtractor();
+        doAnswer(extractor).when(chain).doFilter(any(), any());
+
+        filter.doFilter(request, response, chain);
+
+        ArgumentCaptor<String> header = ArgumentCaptor.forClass(String.class);
+        verify(response).setHeader(eq(HttpHeaders.CORRELATION_ID.getName()), header.capture());
+        assertThat(extractor.getField(Fields.CORRELATION_ID)).isEqualTo(header.getValue());
+        return new Observation(extractor.getContextMap(), header.getValue(), MDC.getCopyOfContextMap());
+    }
+
+    /*
+     * -- the log context seen by the chain, the correlation id header and the log context after the request, a
+     * generated correlation id is replaced by a placeholder
+     */
+    private record Observation(Map<String, String> contextInChain, String correlationIdHeader,
+                               Map<String, String> contextAfterwards) {
+
+        private Observation {
+            if (GENERATED_ID.matcher(correlationIdHeader).matches()) {
+                contextInChain = new HashMap<>(contextInChain);
+                contextInChain.put(Fields.CORRELATION_ID, "generated");
+                correlationIdHeader = "generated";
+            }
+            contextAfterwards = contextAfterwards != null ? contextAfterwards : Map.of();
+        }
+    }
+}
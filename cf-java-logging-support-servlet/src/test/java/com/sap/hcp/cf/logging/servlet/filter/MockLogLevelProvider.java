@@ -0,0 +1,40 @@
+package com.sap.hcp.cf.logging.servlet.filter;
+
+import com.sap.hcp.cf.logging.servlet.dynlog.api.DynamicLogLevelConfiguration;
+import com.sap.hcp.cf.logging.servlet.dynlog.api.DynamicLogLevelProvider;
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link DynamicLogLevelProvider} for the filter tests, that returns a configured dynamic log level and records the
+ * requests it was applied to. It is registered as a service of the test classpath.
+ */
+public class MockLogLevelProvider implements DynamicLogLevelProvider {
+
+    private DynamicLogLevelConfiguration config = DynamicLogLevelConfiguration.EMPTY;
+
+    private final List<HttpServletRequest> requests = new ArrayList<>();
+
+    public MockLogLevelProvider() {
+    }
+
+    void setConfig(DynamicLogLevelConfiguration config) {
+        this.config = config;
+    }
+
+    void reset() {
+        requests.clear();
+    }
+
+    @Override
+    public DynamicLogLevelConfiguration apply(HttpServletRequest request) {
+        requests.add(request);
+        return config;
+    }
+
+    List<HttpServletRequest> getRequests() {
+        return requests;
+    }
+}
@@ -0,0 +1,81 @@
+package com.sap.hcp.cf.logging.servlet.filter;
+
+import com.sap.hcp.cf.logging.common.context.ContextFields;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.MDC;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class RequestContextSnapshotTest {
+
+    @Mock
+    private HttpServletRequest request;
+
+    @AfterEach
+    public void clearMdc() {
+        MDC.clear();
+    }
+
+    @Test
+    public void capturesCurrentContext() {
+        MDC.put("this key", "this value");
+        MDC.put("that key", "that value");
+
+        RequestContextSnapshot snapshot = RequestContextSnapshot.capture();
+        MDC.put("this key", "changed");
+
+        assertThat(snapshot).hasSize(2).containsEntry("this key", "this value").containsEntry("that key", "that value");
+        assertThat(snapshot.getFields().get("this key")).isEqualTo("this value");
+    }
+
+    @Test
+    public void isReadOnly() {
+        MDC.put("key", "value");
+
+        RequestContextSnapshot snapshot = RequestContextSnapshot.capture();
+
+        assertThatThrownBy(() -> snapshot.put("key", "changed")).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> snapshot.entrySet().clear()).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    public void returnsAttachedSnapshotWithoutConversion() {
+        RequestContextSnapshot snapshot = RequestContextSnapshot.of(ContextFields.EMPTY.with("key", "value"));
+        snapshot.attachTo(request);
+        verify(request).setAttribute(MDC.class.getName(), snapshot);
+        when(request.getAttribute(MDC.class.getName())).thenReturn(snapshot);
+
+        assertThat(RequestContextSnapshot.from(request)).isSameAs(snapshot);
+    }
+
+    @Test
+    public void convertsPlainMapAttribute() {
+        Map<String, String> contextMap = new HashMap<>();
+        contextMap.put("key", "value");
+        when(request.getAttribute(MDC.class.getName())).thenReturn(contextMap);
+
+        assertThat(RequestContextSnapshot.from(request).getFields().get("key")).isEqualTo("value");
+    }
+
+    @Test
+    public void isEmptyWithoutOrWithInvalidAttribute() {
+        assertThat(RequestContextSnapshot.from(request)).isEmpty();
+
+        when(request.getAttribute(MDC.class.getName())).thenReturn("no map");
+
+        assertThat(RequestContextSnapshot.from(request).getFields()).isSameAs(ContextFields.EMPTY);
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.sap.hcp.cf.logging.servlet.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class WrappedPrintWriterTest {
+
+    private final StringWriter out = new StringWriter();
+    private final WrappedPrintWriter writer = new WrappedPrintWriter(out);
+
+    @Test
+    public void unwrittenOutputGivesMinusOne() {
+        assertThat(writer.getContentLength()).isEqualTo(-1L);
+    }
+
+    @Test
+    public void countsWrittenCharacters() {
+        writer.write('A');
+        writer.write(new char[] { 'B', 'C' });
+        writer.write("DEF");
+
+        assertThat(out).hasToString("ABCDEF");
+        assertThat(writer.getContentLength()).isEqualTo(6L);
+    }
+
+    @Test
+    public void countsLengthOfPartialWrites() {
+        writer.write("ABCDEFGH", 2, 3);
+        writer.write(new char[] { 'A', 'B', 'C', 'D' }, 1, 2);
+
+        assertThat(out).hasToString("CDEBC");
+        assertThat(writer.getContentLength()).isEqualTo(5L);
+    }
+
+    @Test
+    public void countsPrintedLines() {
+        String lineSeparator = System.getProperty("line.separator");
+
+        writer.println("ABC");
+        writer.println(42);
+
+        assertThat(out).hasToString("ABC" + lineSeparator + "42" + lineSeparator);
+        assertThat(writer.getContentLength()).isEqualTo(5L + 2 * lineSeparator.length());
+    }
+
+    @Test
+    public void countsFormattedOutput() {
+        writer.printf(Locale.ROOT, "%s=%.1f", "value", 1.5);
+
+        assertThat(out).hasToString("value=1.5");
+        assertThat(writer.getContentLength()).isEqualTo(9L);
+    }
+
+    @Test
+    public void reportsErrorAfterClose() {
+        writer.write("ABC");
+        writer.close();
+        writer.write("DEF");
+
+        assertThat(writer.checkError()).isTrue();
+        assertThat(out).hasToString("ABC");
+        assertThat(writer.getContentLength()).isEqualTo(3L);
+    }
+}